@@ -1,18 +1,51 @@
 package com.example.s3objectlambda;
 
-import com.example.s3objectlambda.checksum.Md5Checksum;
+import com.example.s3objectlambda.cache.BlockCache;
+import com.example.s3objectlambda.cache.ETagCache;
+import com.example.s3objectlambda.cache.ListPageCache;
+import com.example.s3objectlambda.cache.NegativeResultCache;
+import com.example.s3objectlambda.cache.StaleObjectCache;
+import com.example.s3objectlambda.cache.TransformedLengthCache;
+import com.example.s3objectlambda.checksum.ChecksumCache;
+import com.example.s3objectlambda.checksum.ChecksumStrategy;
+import com.example.s3objectlambda.config.FunctionPayload;
+import com.example.s3objectlambda.event.ObjectLambdaEvent;
+import com.example.s3objectlambda.filter.KeyVisibilityFilter;
+import com.example.s3objectlambda.request.BlockCacheReader;
+import com.example.s3objectlambda.request.Deadline;
 import com.example.s3objectlambda.request.GetObjectHandler;
+import com.example.s3objectlambda.request.GetObjectOptions;
 import com.example.s3objectlambda.request.GetObjectRequestWrapper;
+import com.example.s3objectlambda.request.HeadObjectHandler;
+import com.example.s3objectlambda.request.ListObjectsHandler;
+import com.example.s3objectlambda.request.SingleFlight;
 import com.example.s3objectlambda.response.GetObjectResponseHandler;
+import com.example.s3objectlambda.response.GetObjectResponseOptions;
+import com.example.s3objectlambda.response.HeadObjectResponseHandler;
+import com.example.s3objectlambda.response.ListObjectsResponseHandler;
+import com.example.s3objectlambda.retry.CircuitBreaker;
+import com.example.s3objectlambda.retry.Hedger;
+import com.example.s3objectlambda.retry.LatencyTracker;
+import com.example.s3objectlambda.retry.Retrier;
+import com.example.s3objectlambda.retry.RetryBudget;
 import com.example.s3objectlambda.transform.GetObjectTransformer;
 import com.example.s3objectlambda.validator.GetObjectRequestValidator;
 
 import com.amazonaws.services.lambda.runtime.Context;
-import com.amazonaws.services.lambda.runtime.events.S3ObjectLambdaEvent;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import org.slf4j.LoggerFactory;
 
 import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * This is the main handler for your lambda function.
@@ -20,10 +53,13 @@ import java.net.http.HttpClient;
 
 public class Handler {
 
+    public static final String VIRTUAL_THREADS_VARIABLE = "VIRTUAL_THREADS";
+    public static final String BLOCK_CACHE_SIZE_VARIABLE = "BLOCK_CACHE_MEGABYTES";
+
     /**
      * <p>The event object contains all information required to handle a request from Amazon S3 Object Lambda.</p>
      *
-     * <p>The event object contains information about the GetObject request
+     * <p>The event object contains information about the GetObject, HeadObject or ListObjects request
      * which resulted in this Lambda function being invoked.</p>
      *
      * <p>The userRequest (event.getUserRequest()) object contains information
@@ -36,30 +72,252 @@ public class Handler {
      */
 
 
-    private AmazonS3 s3Client = AmazonS3ClientBuilder.standard().build();
+    private final AmazonS3 s3Client;
+
+    /*
+    The block cache keeps bytes of original objects across invocations of the same execution environment,
+    so that repeated Range requests on the same object only retrieve the blocks they have not read before.
+    Null if the BLOCK_CACHE_MEGABYTES environment variable turns it off.
+     */
+    private final BlockCacheReader blockCacheReader = newBlockCacheReader();
+
+    // Maps the ETags returned to callers back to the ETags of the original objects, for conditional requests.
+    private final ETagCache eTagCache = new ETagCache(ETagCache.DEFAULT_MAX_ENTRIES);
+
+    // Checksums of transformed objects, reused when the access point uses ChecksumStrategy.DERIVED.
+    private final ChecksumCache checksumCache = new ChecksumCache(ChecksumCache.DEFAULT_MAX_ENTRIES);
+
+    // Lengths of transformed objects, so that HeadObject requests can report them without transforming the object.
+    private final TransformedLengthCache transformedLengthCache =
+            new TransformedLengthCache(TransformedLengthCache.DEFAULT_MAX_ENTRIES);
+
+    // Recent 404 and 403 responses, kept for the negativeCacheTtlSeconds of the access point.
+    private final NegativeResultCache negativeResultCache =
+            new NegativeResultCache(NegativeResultCache.DEFAULT_MAX_ENTRIES);
+
+    // Transformed copies of recently retrieved objects, served while Amazon S3 fails when the access point sets
+    // staleIfErrorSeconds.
+    private final StaleObjectCache staleObjectCache = new StaleObjectCache(StaleObjectCache.DEFAULT_MAX_BYTES);
+
+    // Limits the share of retried requests to Amazon S3, so that retries do not add to an overload.
+    private final RetryBudget retryBudget = new RetryBudget(RetryBudget.DEFAULT_CAPACITY,
+            RetryBudget.DEFAULT_REFILL_PER_SUCCESS);
+
+    // Learns the latency of Amazon S3 to hedge the slowest requests, within a small share of the traffic.
+    private final Hedger hedger = new Hedger(new LatencyTracker(LatencyTracker.DEFAULT_CAPACITY),
+            Hedger.DEFAULT_PERCENTILE, Hedger.DEFAULT_MAX_HEDGE_RATIO);
+
+    /*
+    Circuit breakers for the presigned GetObject request and for WriteGetObjectResponse. While one of them keeps
+    failing, or answering slower than the threshold, GetObject requests are answered with SlowDown at once.
+     */
+    private final CircuitBreaker s3CircuitBreaker = new CircuitBreaker("the presigned GetObject request",
+            Duration.ofSeconds(5));
+    private final CircuitBreaker writeCircuitBreaker = new CircuitBreaker("WriteGetObjectResponse",
+            Duration.ofSeconds(10));
+
+    // Identical GetObject requests of concurrent invocations wait for the first one and share its transformed object.
+    private final SingleFlight<GetObjectHandler.TransformedObject> singleFlight = new SingleFlight<>();
+
+    // Transformed list results, kept for the listCacheTtlSeconds of the access point.
+    private final ListPageCache listPageCache = new ListPageCache(ListPageCache.DEFAULT_MAX_BYTES);
+
+    /*
+    GetObject requests run on this executor while the invocation thread watches the deadline, so that the caller is
+    answered with an error before the function times out. It also runs the asynchronous work of the HTTP client.
+     */
+    private final ExecutorService executor = newExecutor();
+
+    // Shared by all invocations, including concurrent ones, so that connections to Amazon S3 are reused.
+    private final HttpClient httpClient = HttpClient.newBuilder().executor(this.executor).build();
+
+    /*
+    Key visibility filters, compiled once per execution environment for the hiddenKeys setting of each access point
+    invoking this function.
+     */
+    private final Map<List<String>, KeyVisibilityFilter> keyVisibilityFilters = new ConcurrentHashMap<>();
 
-    public void handleRequest(S3ObjectLambdaEvent event, Context context) throws Exception {
+    public Handler() {
+        this(AmazonS3ClientBuilder.standard().build());
+    }
+
+    /**
+     * @param s3Client The client sending WriteGetObjectResponse requests, for example one with an endpoint override
+     *                 when running the handler outside of AWS Lambda.
+     */
+    public Handler(AmazonS3 s3Client) {
+        this.s3Client = s3Client;
+    }
+
+    /**
+     * @return Returns null for GetObject requests, which are answered with WriteGetObjectResponse.
+     * Other requests are answered with the returned value.
+     */
+    public Object handleRequest(ObjectLambdaEvent event, Context context) throws Exception {
 
 
         /*
         You can call handler from here depending on what the handler does and what the request is for.
-        In this case, if the event has GetObjectContext we call the GetObjectHandler implementation.
+        In this case, if the event has GetObjectContext we call the GetObjectHandler implementation,
+        if it has HeadObjectContext we call the HeadObjectHandler implementation, and if it has ListObjectsContext
+        or ListObjectsV2Context we call the ListObjectsHandler implementation.
         */
 
+        var functionPayload = FunctionPayload.parse(
+                event.getConfiguration() == null ? null : event.getConfiguration().getPayload());
+        var keyVisibilityFilter = getKeyVisibilityFilter(functionPayload);
+
         if (event.getGetObjectContext() != null) {
 
-            var responseHandler = new GetObjectResponseHandler(this.s3Client, event, new Md5Checksum());
             var userRequest = new GetObjectRequestWrapper(event.getUserRequest());
-            var requestValidator = new GetObjectRequestValidator(userRequest);
+            var requestValidator = new GetObjectRequestValidator(userRequest, keyVisibilityFilter);
             var transformer = new GetObjectTransformer(userRequest);
-            var httpClient = HttpClient.newBuilder().build();
+            // The checksum can only be reused if the transformation always gives the same result.
+            var deriveChecksum = functionPayload.getChecksumStrategy() == ChecksumStrategy.DERIVED
+                    && transformer.isDeterministic();
+            var checksumGenerator = functionPayload.getChecksumAlgorithm().createGenerator();
+            var deadline = context == null ? Deadline.none()
+                    : new Deadline(context::getRemainingTimeInMillis, Deadline.DEFAULT_RESERVE);
+            var responseHandler = new GetObjectResponseHandler(this.s3Client, event, checksumGenerator,
+                    new GetObjectResponseOptions()
+                            .withTransformerVersion(transformer.getVersion())
+                            .withChecksumCache(deriveChecksum ? this.checksumCache : null)
+                            .withDeadline(deadline)
+                            .withCircuitBreaker(this.writeCircuitBreaker));
+            // Retries are only attempted while enough of the Lambda function timeout remains.
+            var retrier = new Retrier(functionPayload.getRetryPolicy(), this.retryBudget,
+                    context == null ? () -> Long.MAX_VALUE : context::getRemainingTimeInMillis,
+                    functionPayload.isHedging() ? this.hedger : null);
 
-            new GetObjectHandler(this.s3Client,
+            var getObjectHandler = new GetObjectHandler(this.s3Client,
                     transformer,
                     requestValidator,
                     event,
                     responseHandler,
-                    httpClient).handleRequest();
+                    this.httpClient,
+                    new GetObjectOptions()
+                            .withBlockCacheReader(this.blockCacheReader)
+                            .withETagCache(this.eTagCache)
+                            .withTransformedLengthCache(this.transformedLengthCache)
+                            .withNegativeResultCache(this.negativeResultCache)
+                            .withStaleObjectCache(this.staleObjectCache)
+                            .withFunctionPayload(functionPayload)
+                            .withRetrier(retrier)
+                            .withDeadline(deadline)
+                            .withCircuitBreaker(this.s3CircuitBreaker)
+                            .withSingleFlight(this.singleFlight)
+                            .withChecksumGenerator(checksumGenerator));
+            this.handleWithinDeadline(getObjectHandler, responseHandler, deadline);
+            return null;
         }
+
+        if (event.getHeadObjectContext() != null) {
+
+            var userRequest = new GetObjectRequestWrapper(event.getUserRequest());
+            var responseHandler = new HeadObjectResponseHandler();
+
+            new HeadObjectHandler(new GetObjectTransformer(userRequest),
+                    new GetObjectRequestValidator(userRequest, keyVisibilityFilter),
+                    event,
+                    responseHandler,
+                    this.httpClient,
+                    this.eTagCache,
+                    this.transformedLengthCache).handleRequest();
+            return responseHandler.getResponse();
+        }
+
+        var listObjectsContext = event.getListObjectsContext() != null
+                ? event.getListObjectsContext() : event.getListObjectsV2Context();
+        if (listObjectsContext != null) {
+
+            var responseHandler = new ListObjectsResponseHandler();
+
+            // ListObjects and ListObjectsV2 results are both ListBucketResult documents.
+            new ListObjectsHandler(new GetObjectTransformer(new GetObjectRequestWrapper(event.getUserRequest())),
+                    event,
+                    listObjectsContext,
+                    responseHandler,
+                    this.httpClient,
+                    keyVisibilityFilter,
+                    this.listPageCache,
+                    functionPayload.getListCacheTtl()).handleRequest();
+            return responseHandler.getResponse();
+        }
+
+        return null;
+    }
+
+    private void handleWithinDeadline(GetObjectHandler getObjectHandler, GetObjectResponseHandler responseHandler,
+                                      Deadline deadline) throws Exception {
+        if (deadline.isUnbounded()) {
+            getObjectHandler.handleRequest();
+            return;
+        }
+
+        var stages = this.executor.submit(getObjectHandler::handleRequest);
+        try {
+            stages.get(deadline.getWatchdogTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The stages check for the interruption, and their late responses are dropped.
+            stages.cancel(true);
+            LoggerFactory.getLogger(Handler.class).error(String.format(
+                    "GetObject request still running with %s ms left, answering with an error.",
+                    deadline.getRemaining().toMillis()));
+            responseHandler.writeDeadlineExceededResponse();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Returns an executor which starts a virtual thread per task when the runtime supports them (Java 21 and later)
+     * and the VIRTUAL_THREADS environment variable is not false. Otherwise it falls back to a pool of platform threads.
+     */
+    private static ExecutorService newExecutor() {
+        if (!"false".equalsIgnoreCase(System.getenv(VIRTUAL_THREADS_VARIABLE))) {
+            try {
+                // Looked up at runtime, since the function is still compiled for Java 17.
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                LoggerFactory.getLogger(Handler.class).info(
+                        "Virtual threads are not available, using platform threads.");
+            }
+        }
+        return Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "s3-object-lambda");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns a reader over a block cache of the size given by the BLOCK_CACHE_MEGABYTES environment variable,
+     * 64 MiB if it is not set or invalid, or null if it is 0.
+     */
+    private static BlockCacheReader newBlockCacheReader() {
+        var megabytes = System.getenv(BLOCK_CACHE_SIZE_VARIABLE);
+        if (megabytes != null) {
+            try {
+                // The blocks are 1 MiB, so the size in megabytes is the number of blocks.
+                var maxBlocks = Integer.parseInt(megabytes.trim());
+                return maxBlocks == 0 ? null
+                        : new BlockCacheReader(new BlockCache(BlockCache.DEFAULT_BLOCK_SIZE, maxBlocks));
+            } catch (IllegalArgumentException e) {
+                LoggerFactory.getLogger(Handler.class).error("Invalid " + BLOCK_CACHE_SIZE_VARIABLE + ": " + e);
+            }
+        }
+        return new BlockCacheReader(new BlockCache(BlockCache.DEFAULT_BLOCK_SIZE, BlockCache.DEFAULT_MAX_BLOCKS));
+    }
+
+    private KeyVisibilityFilter getKeyVisibilityFilter(FunctionPayload functionPayload) {
+        return this.keyVisibilityFilters.computeIfAbsent(functionPayload.getHiddenKeys(), hiddenKeys -> {
+            try {
+                return KeyVisibilityFilter.compile(hiddenKeys);
+            } catch (IllegalArgumentException e) {
+                // Rather than exposing the keys the access point meant to hide, hide every key.
+                LoggerFactory.getLogger(Handler.class).error("Invalid hiddenKeys in FunctionPayload: " + e);
+                return KeyVisibilityFilter.hideAll();
+            }
+        });
     }
 }
@@ -0,0 +1,223 @@
+package com.example.s3objectlambda.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Caches bytes of original objects in fixed-size blocks aligned to multiples of the block size.
+ * Blocks are keyed by object, ETag and block index, so blocks of an older version of an object are never returned
+ * for a newer one. The blocks are stored off-heap in a single direct buffer which is split into slots. The buffer is
+ * only allocated when the first block is stored. When all the slots are taken, the least recently used block is
+ * evicted.
+ *
+ * The cache lives as long as the execution environment and is shared between invocations.
+ */
+public class BlockCache {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+    public static final int DEFAULT_MAX_BLOCKS = 64;
+
+    // Number of objects for which the latest known ETag and length are remembered.
+    private static final int MAX_OBJECT_VERSIONS = 1024;
+
+    // Whole objects are only stored if they take at most this share of the cache, so that a single large object
+    // does not evict the blocks of every other object.
+    private static final int MAX_OBJECT_SHARE = 4;
+
+    private final int blockSize;
+    private final int maxBlocks;
+    private ByteBuffer arena;
+    private final Deque<Integer> freeSlots;
+    private final LinkedHashMap<BlockKey, Block> blocks;
+    private final LinkedHashMap<String, ObjectVersion> objectVersions;
+
+    public BlockCache(int blockSize, int maxBlocks) {
+        if (blockSize <= 0 || maxBlocks <= 0 || (long) blockSize * maxBlocks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Invalid block cache size: %s blocks of %s bytes.",
+                    maxBlocks, blockSize));
+        }
+
+        this.blockSize = blockSize;
+        this.maxBlocks = maxBlocks;
+        this.freeSlots = new ArrayDeque<>(maxBlocks);
+        for (int slot = 0; slot < maxBlocks; slot++) {
+            this.freeSlots.add(slot);
+        }
+
+        // Access ordered, so the first entry is always the least recently used block.
+        this.blocks = new LinkedHashMap<>(maxBlocks, 0.75f, true);
+        this.objectVersions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ObjectVersion> eldest) {
+                return size() > MAX_OBJECT_VERSIONS;
+            }
+        };
+    }
+
+    public int getBlockSize() {
+        return this.blockSize;
+    }
+
+    /**
+     * Returns the number of bytes the cache can hold.
+     */
+    public int getCapacity() {
+        return this.blockSize * this.maxBlocks;
+    }
+
+    /**
+     * Returns the latest known version of the object, if any.
+     * @param objectId Identifies the object, independently of its version.
+     */
+    public synchronized Optional<ObjectVersion> getObjectVersion(String objectId) {
+        return Optional.ofNullable(this.objectVersions.get(objectId));
+    }
+
+    /**
+     * Records the current ETag and length of the object. Blocks of other versions of the object will no longer be
+     * found and are evicted once they become the least recently used ones.
+     */
+    public synchronized void putObjectVersion(String objectId, ObjectVersion objectVersion) {
+        this.objectVersions.put(objectId, objectVersion);
+    }
+
+    public synchronized void invalidate(String objectId) {
+        this.objectVersions.remove(objectId);
+    }
+
+    /**
+     * Copies bytes of a cached block into the destination array.
+     * @param objectId Identifies the object, independently of its version.
+     * @param eTag ETag of the object version.
+     * @param blockIndex Index of the block, the block starts at byte blockIndex * blockSize of the object.
+     * @param offsetInBlock Position in the block of the first byte to copy.
+     * @param destination Array the bytes are copied to.
+     * @param destinationOffset Position in the destination array of the first byte.
+     * @param length Number of bytes to copy.
+     * @return Returns false if the block is not cached or holds less than the requested bytes.
+     */
+    public synchronized boolean readBlock(String objectId, String eTag, long blockIndex, int offsetInBlock,
+                                          byte[] destination, int destinationOffset, int length) {
+        var block = this.blocks.get(new BlockKey(objectId, eTag, blockIndex));
+        if (block == null || offsetInBlock + length > block.length) {
+            return false;
+        }
+
+        this.arena.get(block.slot * this.blockSize + offsetInBlock, destination, destinationOffset, length);
+        return true;
+    }
+
+    /**
+     * Stores a block of the object. Only the last block of an object may be shorter than the block size.
+     */
+    public synchronized void putBlock(String objectId, String eTag, long blockIndex,
+                                      byte[] source, int sourceOffset, int length) {
+        if (length <= 0 || length > this.blockSize) {
+            throw new IllegalArgumentException("Invalid block length: " + length);
+        }
+
+        var key = new BlockKey(objectId, eTag, blockIndex);
+        var block = this.blocks.get(key);
+        if (block == null) {
+            block = new Block(acquireSlot());
+            this.blocks.put(key, block);
+        }
+
+        this.arena.put(block.slot * this.blockSize, source, sourceOffset, length);
+        block.length = length;
+    }
+
+    /**
+     * Stores the whole object, split into blocks. Objects larger than a quarter of the capacity are not stored.
+     * @return Returns false if the object was too large to be stored.
+     */
+    public boolean putObject(String objectId, String eTag, byte[] object) {
+        if (object.length > getCapacity() / MAX_OBJECT_SHARE) {
+            return false;
+        }
+
+        putObjectVersion(objectId, new ObjectVersion(eTag, object.length));
+        for (int offset = 0; offset < object.length; offset += this.blockSize) {
+            putBlock(objectId, eTag, offset / this.blockSize, object, offset,
+                    Math.min(this.blockSize, object.length - offset));
+        }
+        return true;
+    }
+
+    private int acquireSlot() {
+        if (this.arena == null) {
+            this.arena = ByteBuffer.allocateDirect(getCapacity());
+        }
+        if (this.freeSlots.isEmpty()) {
+            var leastRecentlyUsed = this.blocks.entrySet().iterator().next();
+            this.blocks.remove(leastRecentlyUsed.getKey());
+            return leastRecentlyUsed.getValue().slot;
+        }
+        return this.freeSlots.poll();
+    }
+
+    /**
+     * The ETag and length of an object, as last returned by Amazon S3.
+     */
+    public static class ObjectVersion {
+        private final String eTag;
+        private final long length;
+
+        public ObjectVersion(String eTag, long length) {
+            this.eTag = eTag;
+            this.length = length;
+        }
+
+        public String getETag() {
+            return this.eTag;
+        }
+
+        public long getLength() {
+            return this.length;
+        }
+    }
+
+    private static class Block {
+        private final int slot;
+        private int length;
+
+        Block(int slot) {
+            this.slot = slot;
+        }
+    }
+
+    private static class BlockKey {
+        private final String objectId;
+        private final String eTag;
+        private final long blockIndex;
+
+        BlockKey(String objectId, String eTag, long blockIndex) {
+            this.objectId = objectId;
+            this.eTag = eTag;
+            this.blockIndex = blockIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BlockKey)) {
+                return false;
+            }
+            var other = (BlockKey) o;
+            return this.blockIndex == other.blockIndex && this.objectId.equals(other.objectId)
+                    && this.eTag.equals(other.eTag);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.objectId, this.eTag, this.blockIndex);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.s3objectlambda.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Remembers which original object ETag each transformed ETag was derived from, so that a conditional request
+ * on a transformed ETag can be evaluated by Amazon S3 without retrieving the object.
+ *
+ * The cache lives as long as the execution environment and is shared between invocations.
+ */
+public class ETagCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private final LinkedHashMap<String, String> sourceETags;
+
+    public ETagCache(int maxEntries) {
+        this.sourceETags = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param transformedETag ETag of the transformed object, without quotes.
+     * @param sourceETag ETag of the original object, without quotes.
+     */
+    public synchronized void put(String transformedETag, String sourceETag) {
+        this.sourceETags.put(transformedETag, sourceETag);
+    }
+
+    public synchronized Optional<String> getSourceETag(String transformedETag) {
+        return Optional.ofNullable(this.sourceETags.get(transformedETag));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.s3objectlambda.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches transformed list results for a short time, so that callers polling the same list pages do not make the
+ * function retrieve and transform them again. Entries expire after the time to live given when they are stored,
+ * which is capped at MAX_TTL, and the least recently used entries are evicted once the cached documents exceed the
+ * byte budget.
+ *
+ * The cache lives as long as the execution environment and is shared between invocations.
+ */
+public class ListPageCache {
+
+    public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+    // Longest time a list page is served from the cache, whatever the access point asks for.
+    public static final Duration MAX_TTL = Duration.ofSeconds(60);
+
+    private final long maxBytes;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<String, Page> pages;
+    private long bytes;
+
+    public ListPageCache(long maxBytes) {
+        this(maxBytes, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock Returns the current time in nanoseconds, as System.nanoTime() does.
+     */
+    ListPageCache(long maxBytes, LongSupplier nanoClock) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Invalid list page cache size: " + maxBytes);
+        }
+
+        this.maxBytes = maxBytes;
+        this.nanoClock = nanoClock;
+        // Access ordered, so the first entry is always the least recently used page.
+        this.pages = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the cached list result, unless it expired.
+     */
+    public synchronized Optional<String> get(String key) {
+        var page = this.pages.get(key);
+        if (page == null) {
+            return Optional.empty();
+        }
+
+        if (this.nanoClock.getAsLong() - page.expiresAt >= 0) {
+            remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(page.listResultXml);
+    }
+
+    /**
+     * @param key Identifies the list request, see ListObjectsHandler.
+     * @param listResultXml Transformed list result.
+     * @param ttl How long the list result may be served from the cache. Nothing is cached if zero or negative.
+     */
+    public synchronized void put(String key, String listResultXml, Duration ttl) {
+        remove(key);
+
+        var size = sizeOf(key, listResultXml);
+        if (ttl.isZero() || ttl.isNegative() || size > this.maxBytes) {
+            return;
+        }
+
+        var expiresAt = this.nanoClock.getAsLong() + (ttl.compareTo(MAX_TTL) > 0 ? MAX_TTL : ttl).toNanos();
+        this.pages.put(key, new Page(listResultXml, expiresAt, size));
+        this.bytes += size;
+
+        var iterator = this.pages.values().iterator();
+        while (this.bytes > this.maxBytes) {
+            this.bytes -= iterator.next().size;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Returns the approximate number of bytes held by the cached pages.
+     */
+    public synchronized long getBytes() {
+        return this.bytes;
+    }
+
+    private void remove(String key) {
+        var page = this.pages.remove(key);
+        if (page != null) {
+            this.bytes -= page.size;
+        }
+    }
+
+    private static long sizeOf(String key, String listResultXml) {
+        // A string holds at most two bytes per character.
+        return 2L * (key.length() + listResultXml.length());
+    }
+
+    private static class Page {
+        private final String listResultXml;
+        private final long expiresAt;
+        private final long size;
+
+        Page(String listResultXml, long expiresAt, long size) {
+            this.listResultXml = listResultXml;
+            this.expiresAt = expiresAt;
+            this.size = size;
+        }
+    }
+}
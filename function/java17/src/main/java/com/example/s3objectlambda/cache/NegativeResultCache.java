@@ -0,0 +1,103 @@
+package com.example.s3objectlambda.cache;
+
+import com.example.s3objectlambda.error.Error;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers for a short time that Amazon S3 answered a GetObject request with 404 Not Found or 403 Forbidden, so
+ * that repeated requests for missing or forbidden keys are answered without a request to Amazon S3.
+ * Entries expire after the time to live given when they are stored, which is capped at MAX_TTL, and the least
+ * recently used entries are evicted once the cache is full.
+ *
+ * The cache lives as long as the execution environment and is shared between invocations.
+ */
+public class NegativeResultCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    // Longest time a negative result is served from the cache, whatever the access point asks for.
+    public static final Duration MAX_TTL = Duration.ofSeconds(60);
+
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<String, NegativeResult> results;
+    private long hits;
+    private long misses;
+
+    public NegativeResultCache(int maxEntries) {
+        this(maxEntries, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock Returns the current time in nanoseconds, as System.nanoTime() does.
+     */
+    NegativeResultCache(int maxEntries, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, NegativeResult> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the error to answer the request with, unless it is not cached or expired.
+     */
+    public synchronized Optional<Error> get(String key) {
+        var result = this.results.get(key);
+        if (result != null && this.nanoClock.getAsLong() - result.expiresAt >= 0) {
+            this.results.remove(key);
+            result = null;
+        }
+
+        if (result == null) {
+            this.misses++;
+            return Optional.empty();
+        }
+        this.hits++;
+        return Optional.of(result.error);
+    }
+
+    /**
+     * @param key Identifies the object and the caller, see GetObjectHandler.
+     * @param error The error Amazon S3 answered with.
+     * @param ttl How long the error is served from the cache. Nothing is cached if zero or negative.
+     */
+    public synchronized void put(String key, Error error, Duration ttl) {
+        if (ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+
+        var expiresAt = this.nanoClock.getAsLong() + (ttl.compareTo(MAX_TTL) > 0 ? MAX_TTL : ttl).toNanos();
+        this.results.put(key, new NegativeResult(error, expiresAt));
+    }
+
+    /**
+     * Number of requests answered from the cache since the execution environment started.
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Number of lookups which found no valid entry since the execution environment started.
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    private static class NegativeResult {
+        private final Error error;
+        private final long expiresAt;
+
+        NegativeResult(Error error, long expiresAt) {
+            this.error = error;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
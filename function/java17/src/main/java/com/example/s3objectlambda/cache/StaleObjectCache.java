@@ -0,0 +1,153 @@
+package com.example.s3objectlambda.cache;
+
+import com.example.s3objectlambda.checksum.Checksum;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the last transformed copy of recently retrieved objects, so that a GetObject request can still be answered
+ * while Amazon S3 fails with a server error (stale-if-error). A copy is only served while it is younger than the
+ * staleness window of the access point, which is capped at MAX_STALENESS. The least recently used copies are
+ * evicted once the cached objects exceed the byte budget.
+ *
+ * The cache lives as long as the execution environment and is shared between invocations.
+ */
+public class StaleObjectCache {
+
+    public static final long DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+
+    // Oldest copy ever served, whatever the access point asks for.
+    public static final Duration MAX_STALENESS = Duration.ofHours(1);
+
+    private final long maxBytes;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<String, StaleObject> objects;
+    private long bytes;
+
+    public StaleObjectCache(long maxBytes) {
+        this(maxBytes, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock Returns the current time in nanoseconds, as System.nanoTime() does.
+     */
+    StaleObjectCache(long maxBytes, LongSupplier nanoClock) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Invalid stale object cache size: " + maxBytes);
+        }
+
+        this.maxBytes = maxBytes;
+        this.nanoClock = nanoClock;
+        // Access ordered, so the first entry is always the least recently used object.
+        this.objects = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Stores the transformed object. The array must not be modified afterwards.
+     * @param key Identifies the object version, the caller and the transformation, see GetObjectHandler.
+     * @param sourceETag ETag of the original object, may be null.
+     */
+    public void put(String key, byte[] transformedObject, String sourceETag) {
+        put(key, transformedObject, sourceETag, null);
+    }
+
+    /**
+     * @param checksum Checksum of the whole transformed object, returned with the copy so that it is not computed
+     *                 again. May be null.
+     */
+    public synchronized void put(String key, byte[] transformedObject, String sourceETag, Checksum checksum) {
+        remove(key);
+        if (transformedObject.length > this.maxBytes) {
+            return;
+        }
+
+        this.objects.put(key, new StaleObject(transformedObject, sourceETag, checksum, this.nanoClock.getAsLong()));
+        this.bytes += transformedObject.length;
+
+        var iterator = this.objects.values().iterator();
+        while (this.bytes > this.maxBytes) {
+            this.bytes -= iterator.next().transformedObject.length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Returns the cached copy if it is younger than maxStaleness.
+     */
+    public synchronized Optional<StaleObject> get(String key, Duration maxStaleness) {
+        var staleObject = this.objects.get(key);
+        if (staleObject == null) {
+            return Optional.empty();
+        }
+
+        var age = this.nanoClock.getAsLong() - staleObject.storedAt;
+        if (age >= MAX_STALENESS.toNanos()) {
+            remove(key);
+            return Optional.empty();
+        }
+        if (age >= maxStaleness.toNanos()) {
+            return Optional.empty();
+        }
+        return Optional.of(staleObject.withAge(Duration.ofNanos(age)));
+    }
+
+    private void remove(String key) {
+        var staleObject = this.objects.remove(key);
+        if (staleObject != null) {
+            this.bytes -= staleObject.transformedObject.length;
+        }
+    }
+
+    /**
+     * A transformed object as it was last retrieved.
+     */
+    public static class StaleObject {
+        private final byte[] transformedObject;
+        private final String sourceETag;
+        private final Checksum checksum;
+        private final long storedAt;
+        private final Duration age;
+
+        StaleObject(byte[] transformedObject, String sourceETag, Checksum checksum, long storedAt) {
+            this(transformedObject, sourceETag, checksum, storedAt, Duration.ZERO);
+        }
+
+        private StaleObject(byte[] transformedObject, String sourceETag, Checksum checksum, long storedAt,
+                            Duration age) {
+            this.transformedObject = transformedObject;
+            this.sourceETag = sourceETag;
+            this.checksum = checksum;
+            this.storedAt = storedAt;
+            this.age = age;
+        }
+
+        public byte[] getTransformedObject() {
+            return this.transformedObject;
+        }
+
+        public String getSourceETag() {
+            return this.sourceETag;
+        }
+
+        /**
+         * Checksum of the whole transformed object, or null if it was not computed when the copy was stored.
+         */
+        public Checksum getChecksum() {
+            return this.checksum;
+        }
+
+        /**
+         * Time since the object was retrieved from Amazon S3.
+         */
+        public Duration getAge() {
+            return this.age;
+        }
+
+        private StaleObject withAge(Duration age) {
+            return new StaleObject(this.transformedObject, this.sourceETag, this.checksum, this.storedAt, age);
+        }
+    }
+}
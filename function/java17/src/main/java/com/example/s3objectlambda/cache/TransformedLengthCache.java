@@ -0,0 +1,41 @@
+package com.example.s3objectlambda.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Remembers the length of transformed objects, keyed by their transformed ETag, so that a HeadObject request can
+ * report the Content-Length of a transformed object without retrieving and transforming it.
+ * Lengths are recorded when a GetObject request transforms the whole object.
+ *
+ * The cache lives as long as the execution environment and is shared between invocations.
+ */
+public class TransformedLengthCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private final LinkedHashMap<String, Long> lengths;
+
+    public TransformedLengthCache(int maxEntries) {
+        this.lengths = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param transformedETag ETag of the transformed object, without quotes.
+     * @param length Length of the transformed object.
+     */
+    public synchronized void put(String transformedETag, long length) {
+        this.lengths.put(transformedETag, length);
+    }
+
+    public synchronized OptionalLong get(String transformedETag) {
+        var length = this.lengths.get(transformedETag);
+        return length == null ? OptionalLong.empty() : OptionalLong.of(length);
+    }
+}
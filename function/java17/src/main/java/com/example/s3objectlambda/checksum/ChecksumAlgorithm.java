@@ -0,0 +1,23 @@
+package com.example.s3objectlambda.checksum;
+
+/**
+ * The list of algorithms available for the checksum of the response object.
+ * MD5 is computed sequentially, while CRC32C and CRC64NVME are computed in parallel on large objects.
+ */
+public enum ChecksumAlgorithm {
+
+    MD5,
+    CRC32C,
+    CRC64NVME;
+
+    public ChecksumGenerator createGenerator() {
+        switch (this) {
+            case CRC32C:
+                return new Crc32cChecksum();
+            case CRC64NVME:
+                return new Crc64NvmeChecksum();
+            default:
+                return new Md5Checksum();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.s3objectlambda.checksum;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps the checksums of transformed objects, keyed by everything the transformed object is derived from.
+ *
+ * The cache lives as long as the execution environment and is shared between invocations.
+ */
+public class ChecksumCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private final LinkedHashMap<String, Checksum> checksums;
+
+    public ChecksumCache(int maxEntries) {
+        this.checksums = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Checksum> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param objectId Identifies the object, independently of its version.
+     * @param sourceETag ETag of the original object.
+     * @param transformerVersion Version of the transformation applied on the original object.
+     * @param range Range or part number requested, empty for the whole object.
+     * @param algorithm Algorithm of the checksum.
+     */
+    public static String getKey(String objectId, String sourceETag, String transformerVersion, String range,
+                                String algorithm) {
+        return String.join("\n", objectId, sourceETag, transformerVersion, range, algorithm);
+    }
+
+    public synchronized Optional<Checksum> get(String key) {
+        return Optional.ofNullable(this.checksums.get(key));
+    }
+
+    public synchronized void put(String key, Checksum checksum) {
+        this.checksums.put(key, checksum);
+    }
+}
@@ -6,4 +6,12 @@ package com.example.s3objectlambda.checksum;
  */
 public interface ChecksumGenerator {
     Checksum getChecksum(byte[] objectResponse) throws Exception;
+
+    /**
+     * Starts a checksum which is fed chunk by chunk, as the bytes pass through the function, rather than in a separate
+     * pass over the whole object.
+     */
+    IncrementalChecksum newIncrementalChecksum() throws Exception;
+
+    String getAlgorithm();
 }
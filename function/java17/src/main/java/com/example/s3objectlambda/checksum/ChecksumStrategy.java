@@ -0,0 +1,21 @@
+package com.example.s3objectlambda.checksum;
+
+/**
+ * The list of strategies to produce the checksum of the response object.
+ */
+public enum ChecksumStrategy {
+
+    /**
+     * The checksum is computed over every response object. Transformed objects kept in the stale object cache or
+     * shared with identical requests carry the checksum computed as they were stored, which is reused by the
+     * responses made of the whole object.
+     */
+    FULL,
+
+    /**
+     * The checksum is computed once for each original object ETag, transformer version and requested range,
+     * then reused for as long as the execution environment lives.
+     * Falls back to FULL when the original ETag is unknown or the transformation is not deterministic.
+     */
+    DERIVED
+}
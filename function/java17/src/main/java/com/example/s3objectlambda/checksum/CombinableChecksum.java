@@ -0,0 +1,134 @@
+package com.example.s3objectlambda.checksum;
+
+import java.util.Base64;
+import java.util.stream.IntStream;
+
+/**
+ * Base class for CRC checksums. A CRC of an object can be combined from the CRCs of its chunks, so large objects
+ * are split into chunks which are checksummed in parallel and then combined into the object checksum.
+ *
+ * The combine operation follows zlib's crc32_combine: appending len2 bytes to the first chunk is the same as
+ * multiplying its CRC by x^(8 * len2) modulo the CRC polynomial, which is done by repeated squaring of the
+ * operator that appends a single zero bit.
+ */
+public abstract class CombinableChecksum implements ChecksumGenerator {
+
+    /*
+    Objects up to this size are checksummed on the calling thread.
+    Larger objects are split in chunks of this size.
+     */
+    static final int PARALLEL_CHUNK_SIZE = 1024 * 1024;
+
+    private final long reversedPolynomial;
+    private final int width;
+
+    /**
+     * @param reversedPolynomial Polynomial of the CRC, in reversed (LSB first) bit order.
+     * @param width Number of bits of the CRC.
+     */
+    protected CombinableChecksum(long reversedPolynomial, int width) {
+        this.reversedPolynomial = reversedPolynomial;
+        this.width = width;
+    }
+
+    /**
+     * Returns the CRC of the given bytes.
+     */
+    public abstract long checksum(byte[] bytes, int offset, int length);
+
+    @Override
+    public Checksum getChecksum(byte[] objectResponse) {
+        long crc;
+        if (objectResponse.length <= PARALLEL_CHUNK_SIZE) {
+            crc = checksum(objectResponse, 0, objectResponse.length);
+        } else {
+            var chunks = (objectResponse.length + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+            var chunkChecksums = IntStream.range(0, chunks).parallel()
+                    .mapToLong(chunk -> checksum(objectResponse, chunk * PARALLEL_CHUNK_SIZE,
+                            Math.min(PARALLEL_CHUNK_SIZE, objectResponse.length - chunk * PARALLEL_CHUNK_SIZE)))
+                    .toArray();
+
+            crc = chunkChecksums[0];
+            for (var chunk = 1; chunk < chunks; chunk++) {
+                crc = combine(crc, chunkChecksums[chunk],
+                        Math.min(PARALLEL_CHUNK_SIZE, objectResponse.length - (long) chunk * PARALLEL_CHUNK_SIZE));
+            }
+        }
+
+        return toChecksum(crc);
+    }
+
+    /**
+     * Returns the CRC of the concatenation of two byte sequences.
+     * @param crc1 CRC of the first sequence.
+     * @param crc2 CRC of the second sequence.
+     * @param length2 Length of the second sequence.
+     */
+    public long combine(long crc1, long crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+
+        var even = new long[this.width];
+        var odd = new long[this.width];
+
+        // Operator for a single zero bit.
+        odd[0] = this.reversedPolynomial;
+        long row = 1;
+        for (var n = 1; n < this.width; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+
+        // Operators for two and four zero bits.
+        square(even, odd);
+        square(odd, even);
+
+        // Apply len2 zero bytes to crc1, the first squaring gives the operator for one zero byte.
+        do {
+            square(even, odd);
+            if ((length2 & 1) != 0) {
+                crc1 = times(even, crc1);
+            }
+            length2 >>= 1;
+            if (length2 == 0) {
+                break;
+            }
+
+            square(odd, even);
+            if ((length2 & 1) != 0) {
+                crc1 = times(odd, crc1);
+            }
+            length2 >>= 1;
+        } while (length2 != 0);
+
+        return crc1 ^ crc2;
+    }
+
+    /**
+     * The checksum is the Base64 encoding of the big-endian CRC, as in the Amazon S3 checksum headers.
+     */
+    protected Checksum toChecksum(long crc) {
+        var bytes = new byte[this.width / 8];
+        for (var i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (crc >>> (8 * (bytes.length - 1 - i)));
+        }
+        return new Checksum(getAlgorithm(), Base64.getEncoder().encodeToString(bytes));
+    }
+
+    private static long times(long[] matrix, long vector) {
+        long sum = 0;
+        for (var i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void square(long[] square, long[] matrix) {
+        for (var n = 0; n < matrix.length; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+}
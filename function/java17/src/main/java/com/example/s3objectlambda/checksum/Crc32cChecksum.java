@@ -0,0 +1,44 @@
+package com.example.s3objectlambda.checksum;
+
+import java.util.zip.CRC32C;
+
+/**
+ * Generates a CRC32C checksum for the given object response. CRC32C is computed with hardware instructions on
+ * most platforms, and large objects are checksummed in parallel.
+ */
+public class Crc32cChecksum extends CombinableChecksum {
+
+    private static final String ALGORITHM = "CRC32C";
+    private static final long REVERSED_POLYNOMIAL = 0x82F63B78L;
+
+    public Crc32cChecksum() {
+        super(REVERSED_POLYNOMIAL, 32);
+    }
+
+    @Override
+    public long checksum(byte[] bytes, int offset, int length) {
+        var crc32c = new CRC32C();
+        crc32c.update(bytes, offset, length);
+        return crc32c.getValue();
+    }
+
+    @Override
+    public IncrementalChecksum newIncrementalChecksum() {
+        var crc32c = new CRC32C();
+        return new IncrementalChecksum() {
+            @Override
+            public void update(byte[] bytes, int offset, int length) {
+                crc32c.update(bytes, offset, length);
+            }
+
+            @Override
+            public Checksum finish() {
+                return toChecksum(crc32c.getValue());
+            }
+        };
+    }
+
+    public String getAlgorithm() {
+        return ALGORITHM;
+    }
+}
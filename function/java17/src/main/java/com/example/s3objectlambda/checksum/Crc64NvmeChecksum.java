@@ -0,0 +1,93 @@
+package com.example.s3objectlambda.checksum;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Generates a 64-bit CRC (CRC-64/NVME, the CRC64NVME algorithm of Amazon S3) for the given object response.
+ * Bytes are processed eight at a time (slice-by-8), and large objects are checksummed in parallel.
+ */
+public class Crc64NvmeChecksum extends CombinableChecksum {
+
+    private static final String ALGORITHM = "CRC64NVME";
+    private static final long REVERSED_POLYNOMIAL = 0x9A6C9329AC4BC9B5L;
+    private static final long[][] TABLES = createTables();
+    private static final VarHandle LITTLE_ENDIAN_LONG =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    public Crc64NvmeChecksum() {
+        super(REVERSED_POLYNOMIAL, 64);
+    }
+
+    @Override
+    public long checksum(byte[] bytes, int offset, int length) {
+        return ~update(~0L, bytes, offset, length);
+    }
+
+    @Override
+    public IncrementalChecksum newIncrementalChecksum() {
+        return new IncrementalChecksum() {
+            private long crc = ~0L;
+
+            @Override
+            public void update(byte[] bytes, int offset, int length) {
+                this.crc = Crc64NvmeChecksum.update(this.crc, bytes, offset, length);
+            }
+
+            @Override
+            public Checksum finish() {
+                return toChecksum(~this.crc);
+            }
+        };
+    }
+
+    public String getAlgorithm() {
+        return ALGORITHM;
+    }
+
+    /**
+     * Feeds bytes into the CRC register. The register holds the complement of the CRC.
+     */
+    private static long update(long crc, byte[] bytes, int offset, int length) {
+        var position = offset;
+        var end = offset + length;
+
+        for (; position + Long.BYTES <= end; position += Long.BYTES) {
+            crc ^= (long) LITTLE_ENDIAN_LONG.get(bytes, position);
+            crc = TABLES[7][(int) (crc & 0xFF)]
+                    ^ TABLES[6][(int) ((crc >>> 8) & 0xFF)]
+                    ^ TABLES[5][(int) ((crc >>> 16) & 0xFF)]
+                    ^ TABLES[4][(int) ((crc >>> 24) & 0xFF)]
+                    ^ TABLES[3][(int) ((crc >>> 32) & 0xFF)]
+                    ^ TABLES[2][(int) ((crc >>> 40) & 0xFF)]
+                    ^ TABLES[1][(int) ((crc >>> 48) & 0xFF)]
+                    ^ TABLES[0][(int) (crc >>> 56)];
+        }
+
+        for (; position < end; position++) {
+            crc = TABLES[0][(int) ((crc ^ bytes[position]) & 0xFF)] ^ (crc >>> 8);
+        }
+
+        return crc;
+    }
+
+    private static long[][] createTables() {
+        var tables = new long[8][256];
+        for (var n = 0; n < 256; n++) {
+            long crc = n;
+            for (var bit = 0; bit < 8; bit++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ REVERSED_POLYNOMIAL : crc >>> 1;
+            }
+            tables[0][n] = crc;
+        }
+
+        for (var n = 0; n < 256; n++) {
+            for (var slice = 1; slice < 8; slice++) {
+                var previous = tables[slice - 1][n];
+                tables[slice][n] = (previous >>> 8) ^ tables[0][(int) (previous & 0xFF)];
+            }
+        }
+        return tables;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.s3objectlambda.checksum;
+
+/**
+ * A checksum which is updated chunk by chunk, as the bytes of the object are produced or stored.
+ * Feeding the same bytes in any number of chunks gives the same checksum as ChecksumGenerator.getChecksum.
+ */
+public interface IncrementalChecksum {
+    void update(byte[] bytes, int offset, int length);
+
+    /**
+     * Returns the checksum of all the bytes passed to update. The checksum cannot be updated afterwards.
+     */
+    Checksum finish();
+}
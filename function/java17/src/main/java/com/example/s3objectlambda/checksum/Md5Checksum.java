@@ -19,4 +19,23 @@ public  class Md5Checksum implements ChecksumGenerator {
         var checksum = Base64.getEncoder().encodeToString(digest);
         return new Checksum(ALGORITHM, checksum);
     }
+
+    public IncrementalChecksum newIncrementalChecksum() throws NoSuchAlgorithmException {
+        var md = MessageDigest.getInstance(ALGORITHM);
+        return new IncrementalChecksum() {
+            @Override
+            public void update(byte[] bytes, int offset, int length) {
+                md.update(bytes, offset, length);
+            }
+
+            @Override
+            public Checksum finish() {
+                return new Checksum(ALGORITHM, Base64.getEncoder().encodeToString(md.digest()));
+            }
+        };
+    }
+
+    public String getAlgorithm() {
+        return ALGORITHM;
+    }
 }
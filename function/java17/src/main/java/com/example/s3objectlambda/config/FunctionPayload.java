@@ -0,0 +1,196 @@
+package com.example.s3objectlambda.config;
+
+import com.example.s3objectlambda.checksum.ChecksumAlgorithm;
+import com.example.s3objectlambda.checksum.ChecksumStrategy;
+import com.example.s3objectlambda.retry.RetryPolicy;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The settings of an Object Lambda Access Point, read from the static FunctionPayload configured on the access point
+ * (LambdaFunctionPayload parameter of the template). The payload is a JSON object, for example:
+ * <pre>
+ * {"checksumStrategy": "DERIVED", "checksumAlgorithm": "CRC32C", "hiddenKeys": ["private/", "**.secret"]}
+ * </pre>
+ * Settings that are missing or invalid keep their default value, so existing payloads in other formats still work.
+ */
+public class FunctionPayload {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Logger LOGGER = LoggerFactory.getLogger(FunctionPayload.class);
+
+    private ChecksumStrategy checksumStrategy = ChecksumStrategy.FULL;
+    private ChecksumAlgorithm checksumAlgorithm = ChecksumAlgorithm.MD5;
+    private List<String> hiddenKeys = List.of();
+    private Duration listCacheTtl = Duration.ZERO;
+    private Duration negativeCacheTtl = Duration.ZERO;
+    private Duration staleIfError = Duration.ZERO;
+    private RetryPolicy retryPolicy = defaultRetryPolicy();
+    private boolean hedging = true;
+
+    /**
+     * @param payload The payload from the event configuration, may be null or empty.
+     */
+    public static FunctionPayload parse(String payload) {
+        var functionPayload = new FunctionPayload();
+        if (payload == null || payload.isBlank()) {
+            return functionPayload;
+        }
+
+        JsonNode root;
+        try {
+            root = OBJECT_MAPPER.readTree(payload);
+        } catch (JsonProcessingException e) {
+            LOGGER.info("FunctionPayload is not a JSON object, using default settings.");
+            return functionPayload;
+        }
+
+        if (root == null || !root.isObject()) {
+            return functionPayload;
+        }
+
+        functionPayload.checksumStrategy = readEnum(root, "checksumStrategy", ChecksumStrategy.class,
+                functionPayload.checksumStrategy);
+        functionPayload.checksumAlgorithm = readEnum(root, "checksumAlgorithm", ChecksumAlgorithm.class,
+                functionPayload.checksumAlgorithm);
+        functionPayload.hiddenKeys = readStringList(root, "hiddenKeys");
+        functionPayload.listCacheTtl = Duration.ofSeconds(readLong(root, "listCacheTtlSeconds",
+                functionPayload.listCacheTtl.getSeconds()));
+        functionPayload.negativeCacheTtl = Duration.ofSeconds(readLong(root, "negativeCacheTtlSeconds",
+                functionPayload.negativeCacheTtl.getSeconds()));
+        functionPayload.staleIfError = Duration.ofSeconds(readLong(root, "staleIfErrorSeconds",
+                functionPayload.staleIfError.getSeconds()));
+        functionPayload.retryPolicy = readRetryPolicy(root);
+        var hedging = root.get("hedging");
+        if (hedging != null && hedging.isBoolean()) {
+            functionPayload.hedging = hedging.asBoolean();
+        }
+        return functionPayload;
+    }
+
+    private static RetryPolicy readRetryPolicy(JsonNode root) {
+        var maxAttempts = readLong(root, "maxAttempts", RetryPolicy.DEFAULT_MAX_ATTEMPTS);
+        var baseDelay = readLong(root, "retryBaseDelayMillis", RetryPolicy.DEFAULT_BASE_DELAY.toMillis());
+        var maxDelay = readLong(root, "retryMaxDelayMillis", RetryPolicy.DEFAULT_MAX_DELAY.toMillis());
+
+        try {
+            return new RetryPolicy((int) Math.min(maxAttempts, Integer.MAX_VALUE), Duration.ofMillis(baseDelay),
+                    Duration.ofMillis(maxDelay), RetryPolicy.DEFAULT_MIN_REMAINING_TIME);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Invalid retry settings in FunctionPayload, using the default retry policy: " + e);
+            return defaultRetryPolicy();
+        }
+    }
+
+    private static RetryPolicy defaultRetryPolicy() {
+        return new RetryPolicy(RetryPolicy.DEFAULT_MAX_ATTEMPTS, RetryPolicy.DEFAULT_BASE_DELAY,
+                RetryPolicy.DEFAULT_MAX_DELAY, RetryPolicy.DEFAULT_MIN_REMAINING_TIME);
+    }
+
+    private static long readLong(JsonNode root, String field, long defaultValue) {
+        var node = root.get(field);
+        if (node == null) {
+            return defaultValue;
+        }
+
+        if (!node.canConvertToLong() || node.asLong() < 0) {
+            LOGGER.warn(String.format("Invalid value %s for %s in FunctionPayload, using %s.",
+                    node, field, defaultValue));
+            return defaultValue;
+        }
+        return node.asLong();
+    }
+
+    private static List<String> readStringList(JsonNode root, String field) {
+        var node = root.get(field);
+        if (node == null || !node.isArray()) {
+            return List.of();
+        }
+
+        var values = new ArrayList<String>();
+        for (var element : node) {
+            if (element.isTextual()) {
+                values.add(element.asText());
+            } else {
+                LOGGER.warn(String.format("Ignoring invalid value %s in %s of FunctionPayload.", element, field));
+            }
+        }
+        return List.copyOf(values);
+    }
+
+    private static <E extends Enum<E>> E readEnum(JsonNode root, String field, Class<E> type, E defaultValue) {
+        var node = root.get(field);
+        if (node == null || !node.isTextual()) {
+            return defaultValue;
+        }
+
+        try {
+            return Enum.valueOf(type, node.asText().trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn(String.format("Invalid value %s for %s in FunctionPayload, using %s.",
+                    node.asText(), field, defaultValue));
+            return defaultValue;
+        }
+    }
+
+    public ChecksumStrategy getChecksumStrategy() {
+        return this.checksumStrategy;
+    }
+
+    public ChecksumAlgorithm getChecksumAlgorithm() {
+        return this.checksumAlgorithm;
+    }
+
+    /**
+     * Key patterns hidden from the callers of the access point, see KeyVisibilityFilter.
+     */
+    public List<String> getHiddenKeys() {
+        return this.hiddenKeys;
+    }
+
+    /**
+     * How long transformed list results are kept in the list page cache, zero when the cache is turned off.
+     * The cache is off unless the access point sets listCacheTtlSeconds, since callers may see an outdated listing.
+     */
+    public Duration getListCacheTtl() {
+        return this.listCacheTtl;
+    }
+
+    /**
+     * How long 404 and 403 responses of Amazon S3 are kept in the negative result cache, zero when the cache is
+     * turned off. The cache is a tuning knob for keys requested again and again while missing, and is off unless the
+     * access point sets negativeCacheTtlSeconds: a key created meanwhile is still reported missing until it expires.
+     */
+    public Duration getNegativeCacheTtl() {
+        return this.negativeCacheTtl;
+    }
+
+    /**
+     * How old a transformed copy of an object may be to be served while Amazon S3 fails with a server error,
+     * zero when stale copies are never served.
+     */
+    public Duration getStaleIfError() {
+        return this.staleIfError;
+    }
+
+    /**
+     * How requests to Amazon S3 are retried after a network error or a server error.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return this.retryPolicy;
+    }
+
+    /**
+     * Whether slow requests to Amazon S3 are hedged with a second identical request.
+     */
+    public boolean isHedging() {
+        return this.hedging;
+    }
+}
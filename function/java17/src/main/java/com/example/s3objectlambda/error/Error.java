@@ -13,8 +13,11 @@ public enum Error {
     INVALID_REQUEST(400, "InvalidRequest"),
     INVALID_RANGE(416, "InvalidRange"),
     INVALID_PART(400, "InvalidPart"),
+    ACCESS_DENIED(403, "AccessDenied"),
     NO_SUCH_KEY(404, "NoSuchKey"),
-    SERVER_ERROR(500, "LambdaRuntimeError");
+    PRECONDITION_FAILED(412, "PreconditionFailed"),
+    SERVER_ERROR(500, "LambdaRuntimeError"),
+    SLOW_DOWN(503, "SlowDown");
 
     private final Integer statusCode;
     private final String errorCode;
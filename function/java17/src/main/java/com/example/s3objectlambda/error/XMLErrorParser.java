@@ -1,60 +1,174 @@
 package com.example.s3objectlambda.error;
 
-import org.w3c.dom.Document;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 
 /**
  * This class is the parser for the xml error response from S3 getObject request.
+ * The response is read with a streaming parser, which stops as soon as Code, Message and RequestId are known and
+ * never reads more than MAX_ERROR_RESPONSE_BYTES of the body.
  */
 public class XMLErrorParser implements ErrorParser {
 
+    // Amazon S3 error responses are a few hundred bytes, anything longer than this is not read.
+    public static final int MAX_ERROR_RESPONSE_BYTES = 16 * 1024;
+
+    private static final String CODE = "Code";
+    private static final String MESSAGE = "Message";
+    private static final String REQUEST_ID = "RequestId";
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
     @Override
     public S3RequestError parse(String errorResponse) throws
             ParserConfigurationException, SAXException, IOException {
-        var errorResponseDocument = getErrorResponseDocument(errorResponse);
+        return parse(new ByteArrayInputStream(errorResponse.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Parses the error response without closing the stream.
+     * @throws SAXException if the response is not an error response with a Code.
+     */
+    public S3RequestError parse(InputStream errorResponse) throws SAXException, IOException {
         var s3RequestError = new S3RequestError();
-        s3RequestError.setCode(getErrorAttributeValue(errorResponseDocument, "Code"));
-        s3RequestError.setMessage(getErrorAttributeValue(errorResponseDocument, "Message"));
-        s3RequestError.setRequestId(getErrorAttributeValue(errorResponseDocument, "RequestId"));
 
+        try {
+            XMLStreamReader reader;
+            // The factory is shared by concurrent invocations, and is not guaranteed to be thread safe.
+            synchronized (INPUT_FACTORY) {
+                reader = INPUT_FACTORY.createXMLStreamReader(new BoundedInputStream(errorResponse));
+            }
+            try {
+                var depth = 0;
+                while (reader.hasNext() && !isComplete(s3RequestError)) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.START_ELEMENT:
+                            depth++;
+                            if (depth == 2) {
+                                readField(reader.getLocalName(), s3RequestError, reader.getElementText());
+                                depth--;
+                            }
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            depth--;
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            // A truncated response still gives what was read before the limit.
+            if (s3RequestError.getCode() == null) {
+                throw new SAXException("Invalid error response: " + e.getMessage(), e);
+            }
+        }
+
+        if (s3RequestError.getCode() == null) {
+            throw new SAXException("The error response has no Code.");
+        }
         return s3RequestError;
     }
 
-    private String getErrorAttributeValue(Document errorResponseDocument, String attribute) {
-        var nList = errorResponseDocument.getElementsByTagName(attribute);
-        var attributeValue = nList.item(0).getTextContent();
-        return attributeValue;
+    private static void readField(String name, S3RequestError s3RequestError, String value) {
+        switch (name) {
+            case CODE:
+                s3RequestError.setCode(value);
+                break;
+            case MESSAGE:
+                s3RequestError.setMessage(value);
+                break;
+            case REQUEST_ID:
+                s3RequestError.setRequestId(value);
+                break;
+            default:
+                break;
+        }
     }
 
-    private Document getErrorResponseDocument(String errorResponse) throws
-            ParserConfigurationException, SAXException, IOException {
-        var factory = DocumentBuilderFactory.newInstance();
+    private static boolean isComplete(S3RequestError s3RequestError) {
+        return s3RequestError.getCode() != null && s3RequestError.getMessage() != null
+                && s3RequestError.getRequestId() != null;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        var factory = XMLInputFactory.newInstance();
         /*
         Prevent XML External Entity (XXE) Processing
         https://owasp.org/www-community/vulnerabilities/XML_External_Entity_(XXE)_Processing
         */
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Ends the stream after MAX_ERROR_RESPONSE_BYTES.
+     */
+    private static class BoundedInputStream extends FilterInputStream {
+        private int remaining = MAX_ERROR_RESPONSE_BYTES;
+
+        BoundedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.remaining <= 0) {
+                return -1;
+            }
+            var b = super.read();
+            if (b >= 0) {
+                this.remaining--;
+            }
+            return b;
+        }
 
-        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-        factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (this.remaining <= 0) {
+                return -1;
+            }
+            var read = super.read(b, off, Math.min(len, this.remaining));
+            if (read > 0) {
+                this.remaining -= read;
+            }
+            return read;
+        }
 
-        factory.setXIncludeAware(false);
-        factory.setExpandEntityReferences(false);
+        @Override
+        public long skip(long n) throws IOException {
+            var skipped = super.skip(Math.min(n, this.remaining));
+            this.remaining -= (int) skipped;
+            return skipped;
+        }
 
-        var errorResponseInputSource = new InputSource(new StringReader(errorResponse));
-        DocumentBuilder builder;
-        Document errorResponseDocument;
+        @Override
+        public int available() throws IOException {
+            return Math.min(super.available(), this.remaining);
+        }
 
-        builder = factory.newDocumentBuilder();
-        errorResponseDocument = builder.parse(errorResponseInputSource);
+        @Override
+        public void close() {
+            // The caller closes the underlying stream.
+        }
 
-        return errorResponseDocument;
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
     }
 }
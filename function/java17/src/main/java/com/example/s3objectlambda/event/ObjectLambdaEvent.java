@@ -0,0 +1,64 @@
+package com.example.s3objectlambda.event;
+
+import com.amazonaws.services.lambda.runtime.events.S3ObjectLambdaEvent;
+
+/**
+ * S3ObjectLambdaEvent only describes GetObject requests. This event adds the contexts Amazon S3 Object Lambda sends
+ * for the other operations the access point can be configured with.
+ * See <a href="https://docs.aws.amazon.com/AmazonS3/latest/userguide/olap-event-context.html">Event context format
+ * and usage</a>.
+ */
+public class ObjectLambdaEvent extends S3ObjectLambdaEvent {
+
+    private BaseObjectContext headObjectContext;
+    private BaseObjectContext listObjectsContext;
+    private BaseObjectContext listObjectsV2Context;
+
+    public BaseObjectContext getHeadObjectContext() {
+        return this.headObjectContext;
+    }
+
+    public void setHeadObjectContext(BaseObjectContext headObjectContext) {
+        this.headObjectContext = headObjectContext;
+    }
+
+    public BaseObjectContext getListObjectsContext() {
+        return this.listObjectsContext;
+    }
+
+    public void setListObjectsContext(BaseObjectContext listObjectsContext) {
+        this.listObjectsContext = listObjectsContext;
+    }
+
+    public BaseObjectContext getListObjectsV2Context() {
+        return this.listObjectsV2Context;
+    }
+
+    public void setListObjectsV2Context(BaseObjectContext listObjectsV2Context) {
+        this.listObjectsV2Context = listObjectsV2Context;
+    }
+
+    /**
+     * The context of a HeadObject, ListObjects or ListObjectsV2 request. These requests are answered with the return
+     * value of the function, so the context only holds the presigned url of the original request.
+     */
+    public static class BaseObjectContext {
+
+        private String inputS3Url;
+
+        public BaseObjectContext() {
+        }
+
+        public BaseObjectContext(String inputS3Url) {
+            this.inputS3Url = inputS3Url;
+        }
+
+        public String getInputS3Url() {
+            return this.inputS3Url;
+        }
+
+        public void setInputS3Url(String inputS3Url) {
+            this.inputS3Url = inputS3Url;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.s3objectlambda.filter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * A deterministic automaton matching keys against a set of glob patterns at once.
+ * In a pattern, "*" matches any characters except "/", "**" matches any characters, and "?" matches a single
+ * character except "/". Every other character matches itself.
+ *
+ * The patterns are compiled into a non-deterministic automaton, with one state per position in each pattern, which
+ * is then turned into a deterministic one by subset construction. Characters are mapped to classes: one per
+ * character used in the patterns, one for "/" and one for every other character. A lookup is then one table
+ * transition per character of the key, and does not allocate.
+ */
+final class GlobAutomaton {
+
+    // Protects against patterns whose deterministic automaton would be too large.
+    static final int MAX_STATES = 10_000;
+
+    private static final byte LITERAL = 0;
+    private static final byte ANY_CHARACTER = 1;
+    private static final byte STAR = 2;
+    private static final byte DOUBLE_STAR = 3;
+    private static final byte END = 4;
+
+    private static final int OTHER_CLASS = 0;
+    private static final int SLASH_CLASS = 1;
+    private static final int DEAD = -1;
+
+    private final char[] literals;
+    private final int[][] transitions;
+    private final boolean[] accepting;
+
+    private GlobAutomaton(char[] literals, int[][] transitions, boolean[] accepting) {
+        this.literals = literals;
+        this.transitions = transitions;
+        this.accepting = accepting;
+    }
+
+    static GlobAutomaton compile(List<String> globs) {
+        // Non-deterministic automaton: one state per token of each pattern, plus an END state per pattern.
+        var kinds = new ArrayList<Byte>();
+        var characters = new ArrayList<Character>();
+        var starts = new BitSet();
+        var literalSet = new TreeSet<Character>();
+
+        for (var glob : globs) {
+            starts.set(kinds.size());
+            for (var i = 0; i < glob.length(); i++) {
+                var c = glob.charAt(i);
+                if (c == '*') {
+                    var doubleStar = false;
+                    while (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        doubleStar = true;
+                        i++;
+                    }
+                    kinds.add(doubleStar ? DOUBLE_STAR : STAR);
+                } else if (c == '?') {
+                    kinds.add(ANY_CHARACTER);
+                } else {
+                    kinds.add(LITERAL);
+                    if (c != '/') {
+                        literalSet.add(c);
+                    }
+                }
+                characters.add(c);
+            }
+            kinds.add(END);
+            characters.add('\0');
+        }
+
+        var literals = new char[literalSet.size()];
+        var index = 0;
+        for (var c : literalSet) {
+            literals[index++] = c;
+        }
+
+        var nfa = new Nfa(kinds, characters, literals);
+        var classes = literals.length + 2;
+
+        // Subset construction.
+        var stateIds = new HashMap<BitSet, Integer>();
+        var stateSets = new ArrayList<BitSet>();
+        var transitions = new ArrayList<int[]>();
+        var pending = new ArrayDeque<Integer>();
+
+        var start = nfa.closure(starts);
+        stateIds.put(start, 0);
+        stateSets.add(start);
+        pending.add(0);
+
+        while (!pending.isEmpty()) {
+            var state = pending.poll();
+            var row = new int[classes];
+            for (var characterClass = 0; characterClass < classes; characterClass++) {
+                var next = nfa.step(stateSets.get(state), characterClass);
+                if (next.isEmpty()) {
+                    row[characterClass] = DEAD;
+                    continue;
+                }
+
+                var nextId = stateIds.get(next);
+                if (nextId == null) {
+                    nextId = stateSets.size();
+                    if (nextId >= MAX_STATES) {
+                        throw new IllegalArgumentException("The key patterns are too complex: " + globs);
+                    }
+                    stateIds.put(next, nextId);
+                    stateSets.add(next);
+                    pending.add(nextId);
+                }
+                row[characterClass] = nextId;
+            }
+            while (transitions.size() <= state) {
+                transitions.add(null);
+            }
+            transitions.set(state, row);
+        }
+
+        var accepting = new boolean[stateSets.size()];
+        for (var state = 0; state < stateSets.size(); state++) {
+            accepting[state] = nfa.isAccepting(stateSets.get(state));
+        }
+        return new GlobAutomaton(literals, transitions.toArray(new int[0][]), accepting);
+    }
+
+    /**
+     * Returns true if the whole key matches one of the patterns.
+     */
+    boolean matches(String key) {
+        var state = 0;
+        for (var i = 0; i < key.length(); i++) {
+            state = this.transitions[state][classOf(this.literals, key.charAt(i))];
+            if (state == DEAD) {
+                return false;
+            }
+        }
+        return this.accepting[state];
+    }
+
+    private static int classOf(char[] literals, char c) {
+        if (c == '/') {
+            return SLASH_CLASS;
+        }
+        var literal = Arrays.binarySearch(literals, c);
+        return literal < 0 ? OTHER_CLASS : literal + 2;
+    }
+
+    private static final class Nfa {
+        private final byte[] kinds;
+        private final char[] characters;
+        private final char[] literals;
+
+        Nfa(List<Byte> kinds, List<Character> characters, char[] literals) {
+            this.kinds = new byte[kinds.size()];
+            this.characters = new char[characters.size()];
+            for (var i = 0; i < kinds.size(); i++) {
+                this.kinds[i] = kinds.get(i);
+                this.characters[i] = characters.get(i);
+            }
+            this.literals = literals;
+        }
+
+        /**
+         * Adds the states reachable without consuming a character: a star may match nothing.
+         * Such moves only go forward, so a single pass in increasing order is enough.
+         */
+        BitSet closure(BitSet states) {
+            var closure = (BitSet) states.clone();
+            for (var state = closure.nextSetBit(0); state >= 0; state = closure.nextSetBit(state + 1)) {
+                if (this.kinds[state] == STAR || this.kinds[state] == DOUBLE_STAR) {
+                    closure.set(state + 1);
+                }
+            }
+            return closure;
+        }
+
+        BitSet step(BitSet states, int characterClass) {
+            var next = new BitSet();
+            for (var state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+                switch (this.kinds[state]) {
+                    case LITERAL:
+                        if (classOf(this.literals, this.characters[state]) == characterClass) {
+                            next.set(state + 1);
+                        }
+                        break;
+                    case ANY_CHARACTER:
+                        if (characterClass != SLASH_CLASS) {
+                            next.set(state + 1);
+                        }
+                        break;
+                    case STAR:
+                        if (characterClass != SLASH_CLASS) {
+                            next.set(state);
+                        }
+                        break;
+                    case DOUBLE_STAR:
+                        next.set(state);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return closure(next);
+        }
+
+        boolean isAccepting(BitSet states) {
+            for (var state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+                if (this.kinds[state] == END) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
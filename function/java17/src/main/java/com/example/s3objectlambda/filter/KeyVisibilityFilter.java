@@ -0,0 +1,72 @@
+package com.example.s3objectlambda.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides which keys are hidden from the callers of the access point, from the hiddenKeys setting of the
+ * FunctionPayload. A pattern without wildcards hides every key starting with it, for example "private/".
+ * A pattern with wildcards hides the keys it matches entirely, see GlobAutomaton for the syntax,
+ * for example "**.secret" or "tmp/*.log".
+ *
+ * The patterns are compiled once into a prefix trie and a deterministic automaton, so checking a key takes time
+ * linear in the length of the key, whatever the number of patterns, and does not allocate.
+ */
+public final class KeyVisibilityFilter {
+
+    private static final KeyVisibilityFilter NONE = new KeyVisibilityFilter(null, null);
+
+    private final PrefixTrie prefixes;
+    private final GlobAutomaton globs;
+
+    private KeyVisibilityFilter(PrefixTrie prefixes, GlobAutomaton globs) {
+        this.prefixes = prefixes;
+        this.globs = globs;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the patterns would compile into a too large automaton.
+     */
+    public static KeyVisibilityFilter compile(List<String> patterns) {
+        if (patterns.isEmpty()) {
+            return NONE;
+        }
+
+        var prefixes = new ArrayList<String>();
+        var globs = new ArrayList<String>();
+        for (var pattern : patterns) {
+            if (pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0) {
+                globs.add(pattern);
+            } else {
+                prefixes.add(pattern);
+            }
+        }
+
+        return new KeyVisibilityFilter(prefixes.isEmpty() ? null : PrefixTrie.compile(prefixes),
+                globs.isEmpty() ? null : GlobAutomaton.compile(globs));
+    }
+
+    /**
+     * Returns a filter that hides every key, for access points whose patterns could not be compiled.
+     */
+    public static KeyVisibilityFilter hideAll() {
+        return new KeyVisibilityFilter(PrefixTrie.compile(List.of("")), null);
+    }
+
+    public boolean isHidden(String key) {
+        return this.prefixes != null && this.prefixes.matchesPrefixOf(key)
+                || this.globs != null && this.globs.matches(key);
+    }
+
+    /**
+     * Returns true if every key under the common prefix is hidden by a prefix pattern, in which case the common
+     * prefix is hidden too. Wildcard patterns never hide a common prefix.
+     */
+    public boolean isCommonPrefixHidden(String commonPrefix) {
+        return this.prefixes != null && this.prefixes.matchesPrefixOf(commonPrefix);
+    }
+
+    public boolean hidesNothing() {
+        return this.prefixes == null && this.globs == null;
+    }
+}
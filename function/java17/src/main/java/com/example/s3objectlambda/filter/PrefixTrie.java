@@ -0,0 +1,99 @@
+package com.example.s3objectlambda.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * A trie of key prefixes, flattened into arrays once built. Each node keeps its child characters sorted,
+ * so a lookup is a binary search per character of the key and does not allocate.
+ */
+final class PrefixTrie {
+
+    private final char[][] labels;
+    private final int[][] children;
+    private final boolean[] terminal;
+
+    private PrefixTrie(char[][] labels, int[][] children, boolean[] terminal) {
+        this.labels = labels;
+        this.children = children;
+        this.terminal = terminal;
+    }
+
+    static PrefixTrie compile(List<String> prefixes) {
+        var nodes = new ArrayList<TreeMap<Character, Integer>>();
+        var terminal = new ArrayList<Boolean>();
+        nodes.add(new TreeMap<>());
+        terminal.add(false);
+
+        for (var prefix : prefixes) {
+            var node = 0;
+            for (var i = 0; i < prefix.length(); i++) {
+                var child = nodes.get(node).get(prefix.charAt(i));
+                if (child == null) {
+                    child = nodes.size();
+                    nodes.add(new TreeMap<>());
+                    terminal.add(false);
+                    nodes.get(node).put(prefix.charAt(i), child);
+                }
+                node = child;
+            }
+            terminal.set(node, true);
+        }
+
+        var labels = new char[nodes.size()][];
+        var children = new int[nodes.size()][];
+        var terminals = new boolean[nodes.size()];
+        for (var node = 0; node < nodes.size(); node++) {
+            var edges = nodes.get(node);
+            labels[node] = new char[edges.size()];
+            children[node] = new int[edges.size()];
+            var edge = 0;
+            for (var entry : edges.entrySet()) {
+                labels[node][edge] = entry.getKey();
+                children[node][edge] = entry.getValue();
+                edge++;
+            }
+            terminals[node] = terminal.get(node);
+        }
+        return new PrefixTrie(labels, children, terminals);
+    }
+
+    /**
+     * Returns true if the key starts with one of the prefixes.
+     */
+    boolean matchesPrefixOf(String key) {
+        var node = 0;
+        if (this.terminal[node]) {
+            return true;
+        }
+
+        for (var i = 0; i < key.length(); i++) {
+            var edge = binarySearch(this.labels[node], key.charAt(i));
+            if (edge < 0) {
+                return false;
+            }
+            node = this.children[node][edge];
+            if (this.terminal[node]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int binarySearch(char[] sorted, char c) {
+        var low = 0;
+        var high = sorted.length - 1;
+        while (low <= high) {
+            var middle = (low + high) >>> 1;
+            if (sorted[middle] < c) {
+                low = middle + 1;
+            } else if (sorted[middle] > c) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
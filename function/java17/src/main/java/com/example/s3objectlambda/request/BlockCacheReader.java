@@ -0,0 +1,276 @@
+package com.example.s3objectlambda.request;
+
+import com.example.s3objectlambda.cache.BlockCache;
+import com.example.s3objectlambda.exception.InvalidRangeException;
+import com.example.s3objectlambda.transform.Range;
+import com.example.s3objectlambda.transform.RangeMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static com.amazonaws.services.s3.Headers.CONTENT_RANGE;
+import static com.amazonaws.services.s3.Headers.ETAG;
+
+/**
+ * Reads a byte range of the original object through the BlockCache.
+ * Cached blocks are copied from the cache, and each run of adjacent missing blocks is fetched with a single
+ * ranged GET. The ETag and length of an object the cache does not know yet are taken from the first ranged GET, so
+ * objects of any size are cached block by block. Every later read sends at least one request to Amazon S3 with an
+ * If-Match condition on the cached ETag, so that the caller is still authorized by Amazon S3 and stale blocks are
+ * never returned.
+ * If the object changed, the cached version is invalidated and the read returns empty so that the caller can fall
+ * back to retrieving the full object.
+ */
+public class BlockCacheReader {
+
+    private static final String BYTES_UNIT = "bytes";
+    private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+    private final Logger logger;
+    private final BlockCache blockCache;
+
+    public BlockCacheReader(BlockCache blockCache) {
+        this.blockCache = blockCache;
+        this.logger = LoggerFactory.getLogger(BlockCacheReader.class);
+    }
+
+    /**
+     * Retrieves a byte range of the original object with a ranged GET request.
+     */
+    public interface RangeFetcher {
+        /**
+         * @param start First byte of the range.
+         * @param end Last byte of the range, inclusive.
+         * @param eTag The request must only succeed while the object has this ETag, any version is returned if it
+         *             is null.
+         */
+        HttpResponse<InputStream> fetch(long start, long end, String eTag)
+                throws URISyntaxException, IOException, InterruptedException;
+    }
+
+    /**
+     * @param objectId Identifies the object, independently of its version.
+     * @param range Range as requested by the user.
+     * @param fetcher Retrieves the blocks missing from the cache.
+     * @return Returns the requested bytes of the original object, or Optional empty if they cannot be served
+     * from the cache.
+     */
+    public Optional<byte[]> readRange(String objectId, String range, RangeFetcher fetcher)
+            throws URISyntaxException, IOException, InterruptedException {
+
+        var objectVersion = this.blockCache.getObjectVersion(objectId);
+        var fetchedAny = false;
+        if (objectVersion.isEmpty()) {
+            objectVersion = fetchObjectVersion(objectId, range, fetcher);
+            if (objectVersion.isEmpty()) {
+                return Optional.empty();
+            }
+            fetchedAny = true;
+        }
+
+        var eTag = objectVersion.get().getETag();
+        var objectLength = objectVersion.get().getLength();
+        long[] bounds;
+        try {
+            bounds = new RangeMapper(range).resolveBounds(objectLength);
+        } catch (InvalidRangeException | NumberFormatException e) {
+            // Let the regular path report the error to the caller.
+            return Optional.empty();
+        }
+
+        var rangeStart = bounds[0];
+        var rangeEnd = bounds[1];
+        var blockSize = this.blockCache.getBlockSize();
+        var result = new byte[(int) (rangeEnd - rangeStart + 1)];
+
+        var firstBlock = rangeStart / blockSize;
+        var lastBlock = rangeEnd / blockSize;
+        long missingFrom = -1;
+
+        for (var blockIndex = firstBlock; blockIndex <= lastBlock + 1; blockIndex++) {
+            var cached = blockIndex <= lastBlock && copyFromCache(objectId, eTag, blockIndex, rangeStart, rangeEnd,
+                    result);
+
+            if (!cached && blockIndex <= lastBlock) {
+                if (missingFrom < 0) {
+                    missingFrom = blockIndex;
+                }
+                continue;
+            }
+
+            if (missingFrom >= 0) {
+                // Adjacent missing blocks are merged into a single ranged GET.
+                if (!fetchBlocks(objectId, eTag, objectLength, missingFrom, blockIndex - 1, rangeStart, rangeEnd,
+                        result, fetcher)) {
+                    return Optional.empty();
+                }
+                fetchedAny = true;
+                missingFrom = -1;
+            }
+        }
+
+        if (!fetchedAny && !revalidate(objectId, eTag, rangeStart, fetcher)) {
+            return Optional.empty();
+        }
+
+        this.logger.info(String.format("Served range %s of %s from the block cache.", range, objectId));
+        return Optional.of(result);
+    }
+
+    /**
+     * Returns the ETag of the cached version of the object.
+     */
+    public Optional<String> getETag(String objectId) {
+        return this.blockCache.getObjectVersion(objectId).map(BlockCache.ObjectVersion::getETag);
+    }
+
+    /**
+     * Stores a fully retrieved original object so that later Range requests can be served from the cache.
+     * Objects too large for the cache are not stored.
+     */
+    public void cacheObject(String objectId, String eTag, byte[] object) {
+        this.blockCache.putObject(objectId, eTag, object);
+    }
+
+    private boolean copyFromCache(String objectId, String eTag, long blockIndex, long rangeStart, long rangeEnd,
+                                  byte[] result) {
+        var blockStart = blockIndex * this.blockCache.getBlockSize();
+        var copyStart = Math.max(blockStart, rangeStart);
+        var copyEnd = Math.min(blockStart + this.blockCache.getBlockSize() - 1, rangeEnd);
+
+        return this.blockCache.readBlock(objectId, eTag, blockIndex, (int) (copyStart - blockStart),
+                result, (int) (copyStart - rangeStart), (int) (copyEnd - copyStart + 1));
+    }
+
+    private boolean fetchBlocks(String objectId, String eTag, long objectLength, long fromBlock, long toBlock,
+                                long rangeStart, long rangeEnd, byte[] result, RangeFetcher fetcher)
+            throws URISyntaxException, IOException, InterruptedException {
+
+        var blockSize = this.blockCache.getBlockSize();
+        var fetchStart = fromBlock * blockSize;
+        var fetchEnd = Math.min((toBlock + 1) * blockSize, objectLength) - 1;
+
+        var response = fetcher.fetch(fetchStart, fetchEnd, eTag);
+        byte[] blocks;
+        try (var body = response.body()) {
+            if (response.statusCode() != HttpURLConnection.HTTP_PARTIAL) {
+                return invalidate(objectId, response.statusCode());
+            }
+            blocks = body.readAllBytes();
+        }
+
+        if (blocks.length != fetchEnd - fetchStart + 1) {
+            return invalidate(objectId, response.statusCode());
+        }
+
+        for (var offset = 0; offset < blocks.length; offset += blockSize) {
+            this.blockCache.putBlock(objectId, eTag, fromBlock + offset / blockSize, blocks, offset,
+                    Math.min(blockSize, blocks.length - offset));
+        }
+
+        var copyStart = Math.max(fetchStart, rangeStart);
+        var copyEnd = Math.min(fetchEnd, rangeEnd);
+        System.arraycopy(blocks, (int) (copyStart - fetchStart), result, (int) (copyStart - rangeStart),
+                (int) (copyEnd - copyStart + 1));
+        return true;
+    }
+
+    /**
+     * Fetches the blocks at the start of the range of an object the cache does not know, and records the ETag and the
+     * length Amazon S3 returns with them.
+     * @return Returns Optional empty if the range has no start, such as a suffix range, or if Amazon S3 did not return
+     * the requested bytes.
+     */
+    private Optional<BlockCache.ObjectVersion> fetchObjectVersion(String objectId, String range, RangeFetcher fetcher)
+            throws URISyntaxException, IOException, InterruptedException {
+
+        long rangeStart;
+        long rangeEnd;
+        try {
+            var requestedRange = new Range(range);
+            if (!BYTES_UNIT.equals(requestedRange.getUnit()) || requestedRange.getFirstPart() == null) {
+                return Optional.empty();
+            }
+            rangeStart = Long.parseLong(requestedRange.getFirstPart());
+            rangeEnd = requestedRange.getLastPart() == null ? rangeStart : Long.parseLong(requestedRange.getLastPart());
+        } catch (InvalidRangeException | NumberFormatException e) {
+            return Optional.empty();
+        }
+        if (rangeEnd < rangeStart) {
+            return Optional.empty();
+        }
+
+        // Amazon S3 stops at the end of the object. No more than the cache holds is fetched, the rest of the range is
+        // fetched block by block once the version is known.
+        var blockSize = this.blockCache.getBlockSize();
+        var fetchStart = rangeStart / blockSize * blockSize;
+        var fetchEnd = Math.min((rangeEnd / blockSize + 1) * blockSize, fetchStart + this.blockCache.getCapacity()) - 1;
+
+        var response = fetcher.fetch(fetchStart, fetchEnd, null);
+        String eTag;
+        long[] contentRange;
+        byte[] blocks;
+        try (var body = response.body()) {
+            if (response.statusCode() != HttpURLConnection.HTTP_PARTIAL) {
+                return Optional.empty();
+            }
+            eTag = response.headers().firstValue(ETAG).orElse(null);
+            contentRange = parseContentRange(response.headers().firstValue(CONTENT_RANGE).orElse(""));
+            if (eTag == null || contentRange == null || contentRange[0] != fetchStart) {
+                return Optional.empty();
+            }
+            blocks = body.readAllBytes();
+        }
+        if (blocks.length != contentRange[1] - contentRange[0] + 1) {
+            return Optional.empty();
+        }
+
+        var objectVersion = new BlockCache.ObjectVersion(eTag, contentRange[2]);
+        this.blockCache.putObjectVersion(objectId, objectVersion);
+        for (var offset = 0; offset < blocks.length; offset += blockSize) {
+            this.blockCache.putBlock(objectId, eTag, fetchStart / blockSize + offset / blockSize, blocks, offset,
+                    Math.min(blockSize, blocks.length - offset));
+        }
+        return Optional.of(objectVersion);
+    }
+
+    /**
+     * Parses a Content-Range header such as bytes 0-1023/4096.
+     * @return Returns the first byte, the last byte and the length of the object, or null if the length is unknown.
+     */
+    private static long[] parseContentRange(String contentRange) {
+        var matcher = CONTENT_RANGE_PATTERN.matcher(contentRange.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new long[]{Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)),
+                Long.parseLong(matcher.group(3))};
+    }
+
+    private boolean revalidate(String objectId, String eTag, long rangeStart, RangeFetcher fetcher)
+            throws URISyntaxException, IOException, InterruptedException {
+        // A single byte is enough to confirm the caller can read this version of the object.
+        var response = fetcher.fetch(rangeStart, rangeStart, eTag);
+        try (var body = response.body()) {
+            if (response.statusCode() != HttpURLConnection.HTTP_PARTIAL) {
+                return invalidate(objectId, response.statusCode());
+            }
+            body.readAllBytes();
+        }
+        return true;
+    }
+
+    private boolean invalidate(String objectId, int statusCode) {
+        this.logger.info(String.format("Block cache entry for %s is no longer valid (status %s).",
+                objectId, statusCode));
+        this.blockCache.invalidate(objectId);
+        return false;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.s3objectlambda.request;
+
+import com.example.s3objectlambda.cache.ETagCache;
+import com.example.s3objectlambda.transform.TransformedETag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.amazonaws.services.s3.Headers.GET_OBJECT_IF_MATCH;
+import static com.amazonaws.services.s3.Headers.GET_OBJECT_IF_NONE_MATCH;
+
+/**
+ * Handles the If-Match and If-None-Match headers of a GetObject request.
+ * Callers only ever see transformed ETags. Before the request is forwarded to Amazon S3, the transformed ETags known
+ * in this execution environment are translated back to the ETags of the original objects, so that Amazon S3 can
+ * answer 304 Not Modified or 412 Precondition Failed without sending the object.
+ * Conditions that cannot be translated are evaluated once the ETag of the original object is known.
+ */
+public class ConditionalRequest {
+
+    private static final String ANY = "*";
+
+    private final ETagCache eTagCache;
+    private final String transformerVersion;
+    private final String ifMatch;
+    private final String ifNoneMatch;
+    private boolean evaluateIfMatch;
+
+    public ConditionalRequest(Map<String, String> userRequestHeaders, ETagCache eTagCache,
+                              String transformerVersion) {
+        this.eTagCache = eTagCache;
+        this.transformerVersion = transformerVersion;
+        this.ifMatch = getHeader(userRequestHeaders, GET_OBJECT_IF_MATCH).orElse(null);
+        this.ifNoneMatch = getHeader(userRequestHeaders, GET_OBJECT_IF_NONE_MATCH).orElse(null);
+    }
+
+    /**
+     * Translates the conditional headers about to be sent with the presigned url call.
+     * @param httpHeaders Headers of the presigned url call.
+     * @param signedHeaders Signed headers are sent as they are, otherwise the signature does not match.
+     */
+    public void rewriteHeaders(Map<String, String> httpHeaders, List<String> signedHeaders) {
+
+        if (this.ifNoneMatch != null && !signedHeaders.contains(GET_OBJECT_IF_NONE_MATCH.toLowerCase())) {
+            // Unknown ETags are sent as they are, they may be ETags of the original object.
+            var translated = new ArrayList<String>();
+            for (var eTag : TransformedETag.parseList(this.ifNoneMatch)) {
+                translated.add(quote(translate(eTag).orElse(eTag)));
+            }
+            replaceHeader(httpHeaders, GET_OBJECT_IF_NONE_MATCH, String.join(", ", translated));
+        }
+
+        if (this.ifMatch != null && !signedHeaders.contains(GET_OBJECT_IF_MATCH.toLowerCase())) {
+            var translated = new ArrayList<String>();
+            for (var eTag : TransformedETag.parseList(this.ifMatch)) {
+                var sourceETag = translate(eTag);
+                if (sourceETag.isEmpty()) {
+                    // Amazon S3 would reject an ETag it does not know, so the condition is evaluated here instead.
+                    this.evaluateIfMatch = true;
+                    removeHeader(httpHeaders, GET_OBJECT_IF_MATCH);
+                    return;
+                }
+                translated.add(quote(sourceETag.get()));
+            }
+            replaceHeader(httpHeaders, GET_OBJECT_IF_MATCH, String.join(", ", translated));
+        }
+    }
+
+    /**
+     * @param sourceETag ETag of the original object, as returned by Amazon S3.
+     * @return Returns true if the transformed object matches the If-None-Match header of the caller.
+     */
+    public boolean isNotModified(String sourceETag) {
+        return this.ifNoneMatch != null
+                && TransformedETag.listContains(this.ifNoneMatch, toTransformedETag(sourceETag));
+    }
+
+    /**
+     * @param sourceETag ETag of the original object, as returned by Amazon S3.
+     * @return Returns true if the If-Match header of the caller could not be evaluated by Amazon S3 and matches
+     * neither the transformed nor the original object.
+     */
+    public boolean isPreconditionFailed(String sourceETag) {
+        return this.evaluateIfMatch
+                && !TransformedETag.listContains(this.ifMatch, toTransformedETag(sourceETag))
+                && !TransformedETag.listContains(this.ifMatch, sourceETag);
+    }
+
+    /**
+     * Returns the ETag of the transformed object and remembers which original ETag it was derived from.
+     */
+    public String toTransformedETag(String sourceETag) {
+        var transformedETag = TransformedETag.of(sourceETag, this.transformerVersion);
+        this.eTagCache.put(TransformedETag.unquote(transformedETag), TransformedETag.unquote(sourceETag));
+        return transformedETag;
+    }
+
+    private Optional<String> translate(String eTag) {
+        if (eTag.equals(ANY)) {
+            return Optional.of(ANY);
+        }
+        return this.eTagCache.getSourceETag(eTag);
+    }
+
+    private static String quote(String eTag) {
+        return eTag.equals(ANY) ? eTag : "\"" + eTag + "\"";
+    }
+
+    private static Optional<String> getHeader(Map<String, String> headers, String name) {
+        for (var header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return Optional.of(header.getValue());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static void replaceHeader(Map<String, String> headers, String name, String value) {
+        removeHeader(headers, name);
+        headers.put(name, value);
+    }
+
+    private static void removeHeader(Map<String, String> headers, String name) {
+        headers.keySet().removeIf(key -> key.equalsIgnoreCase(name));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.s3objectlambda.request;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * The time left before the Lambda function times out, shared by the stages of a request: retrieving the original
+ * object, transforming it and sending the response.
+ * Each stage may only use the time left minus a reserve, which is kept to answer the caller with an error instead of
+ * letting the invocation time out.
+ */
+public class Deadline {
+
+    public static final Duration DEFAULT_RESERVE = Duration.ofSeconds(1);
+
+    private final LongSupplier remainingTimeMillis;
+    private final Duration reserve;
+
+    /**
+     * @param remainingTimeMillis Returns the remaining execution time of the Lambda function, as
+     *                            Context.getRemainingTimeInMillis() does.
+     * @param reserve Time kept to send an error response once the stages run out of time.
+     */
+    public Deadline(LongSupplier remainingTimeMillis, Duration reserve) {
+        this.remainingTimeMillis = remainingTimeMillis;
+        this.reserve = reserve;
+    }
+
+    /**
+     * Returns a deadline which never expires.
+     */
+    public static Deadline none() {
+        return new Deadline(() -> Long.MAX_VALUE, Duration.ZERO);
+    }
+
+    public boolean isUnbounded() {
+        return this.remainingTimeMillis.getAsLong() == Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the time left before the Lambda function times out.
+     */
+    public Duration getRemaining() {
+        return Duration.ofMillis(Math.max(0, this.remainingTimeMillis.getAsLong()));
+    }
+
+    /**
+     * Returns the time the current stage may use, at least one millisecond so that it can be used as a timeout.
+     */
+    public Duration getStageTimeout() {
+        var remaining = this.remainingTimeMillis.getAsLong();
+        if (remaining == Long.MAX_VALUE) {
+            return Duration.ofMillis(Long.MAX_VALUE);
+        }
+        return Duration.ofMillis(Math.max(1, remaining - this.reserve.toMillis()));
+    }
+
+    /**
+     * Returns the time after which the handler stops waiting for the stages and answers the caller itself, half way
+     * through the reserve.
+     */
+    public Duration getWatchdogTimeout() {
+        return Duration.ofMillis(Math.max(1, this.remainingTimeMillis.getAsLong() - this.reserve.toMillis() / 2));
+    }
+
+    /**
+     * Returns true once the stages have used their time, or the current thread has been interrupted because the
+     * handler gave up on them.
+     */
+    public boolean isExpired() {
+        return Thread.currentThread().isInterrupted()
+                || this.remainingTimeMillis.getAsLong() <= this.reserve.toMillis();
+    }
+}
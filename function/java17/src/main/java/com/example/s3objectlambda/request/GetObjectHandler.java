@@ -1,20 +1,29 @@
 package com.example.s3objectlambda.request;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
-import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.net.http.HttpTimeoutException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 
 import com.amazonaws.services.lambda.runtime.events.S3ObjectLambdaEvent;
 import com.amazonaws.services.s3.AmazonS3;
+import com.example.s3objectlambda.cache.ETagCache;
+import com.example.s3objectlambda.cache.NegativeResultCache;
+import com.example.s3objectlambda.cache.StaleObjectCache;
+import com.example.s3objectlambda.config.FunctionPayload;
+import com.example.s3objectlambda.cache.TransformedLengthCache;
+import com.example.s3objectlambda.checksum.Checksum;
+import com.example.s3objectlambda.checksum.ChecksumGenerator;
 import com.example.s3objectlambda.exception.TransformationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +32,9 @@ import com.example.s3objectlambda.error.Error;
 import com.example.s3objectlambda.exception.InvalidPartNumberException;
 import com.example.s3objectlambda.exception.InvalidRangeException;
 import com.example.s3objectlambda.response.ResponseHandler;
+import com.example.s3objectlambda.retry.CircuitBreaker;
+import com.example.s3objectlambda.retry.Retrier;
+import com.example.s3objectlambda.transform.TransformedETag;
 import com.example.s3objectlambda.transform.Transformer;
 import com.example.s3objectlambda.validator.RequestValidator;
 
@@ -47,24 +59,74 @@ public class GetObjectHandler implements RequestHandler {
     private final ResponseHandler responseHandler;
     private final S3ObjectLambdaEvent s3ObjectLambdaEvent;
     private final HttpClient httpClient;
-
+    private final BlockCacheReader blockCacheReader;
+    private final ETagCache eTagCache;
+    private final TransformedLengthCache transformedLengthCache;
+    private final NegativeResultCache negativeResultCache;
+    private final StaleObjectCache staleObjectCache;
+    private final FunctionPayload functionPayload;
+    private final Retrier retrier;
+    private final Deadline deadline;
+    private final CircuitBreaker circuitBreaker;
+    private final SingleFlight<TransformedObject> singleFlight;
+    private final ChecksumGenerator checksumGenerator;
+    private SingleFlight.Call<TransformedObject> call;
+    // The calls to Amazon S3 made for this GetObject are one attempt for the circuit breaker.
+    private boolean s3AttemptAcquired;
+    private boolean s3AttemptFailed;
+    private long s3AttemptNanos = -1;
 
 
     public GetObjectHandler(AmazonS3 s3Client, Transformer transformer,
                             RequestValidator requestValidator,
                             S3ObjectLambdaEvent event, ResponseHandler responseHandler, HttpClient httpClient) {
+        this(s3Client, transformer, requestValidator, event, responseHandler, httpClient, new GetObjectOptions());
+    }
+
+    /**
+     * @param options The caches and other optional collaborators, and the settings of the access point.
+     *                The defaults of GetObjectOptions are used if it is null.
+     */
+    public GetObjectHandler(AmazonS3 s3Client, Transformer transformer,
+                            RequestValidator requestValidator,
+                            S3ObjectLambdaEvent event, ResponseHandler responseHandler, HttpClient httpClient,
+                            GetObjectOptions options) {
 
+        options = options == null ? new GetObjectOptions() : options;
         this.s3Client = s3Client;
         this.transformer = transformer;
         this.requestValidator = requestValidator;
         this.responseHandler = responseHandler;
         this.s3ObjectLambdaEvent = event;
         this.httpClient = httpClient;
+        this.blockCacheReader = options.getBlockCacheReader();
+        this.eTagCache = options.getETagCache();
+        this.transformedLengthCache = options.getTransformedLengthCache();
+        this.negativeResultCache = options.getNegativeResultCache();
+        this.staleObjectCache = options.getStaleObjectCache();
+        this.functionPayload = options.getFunctionPayload();
+        this.retrier = options.getRetrier();
+        this.deadline = options.getDeadline();
+        this.circuitBreaker = options.getCircuitBreaker();
+        this.singleFlight = options.getSingleFlight();
+        this.checksumGenerator = options.getChecksumGenerator();
         this.logger = LoggerFactory.getLogger(GetObjectHandler.class);
     }
 
     @Override
     public void handleRequest() {
+        try {
+            this.handle();
+        } finally {
+            this.recordS3Attempt();
+            // Requests waiting on this one do the work themselves if it did not publish the transformed object.
+            if (this.call != null) {
+                this.call.complete(null);
+            }
+        }
+    }
+
+    private void handle() {
 
         // Validate user request and return error if invalid
         var validationError = this.requestValidator.validateUserRequest();
@@ -73,33 +135,115 @@ public class GetObjectHandler implements RequestHandler {
             return;
         }
 
+        // Hidden keys are rejected before anything is requested from Amazon S3.
+        var visibilityError = this.requestValidator.validateKeyVisibility();
+        if (visibilityError.isPresent()) {
+            this.responseHandler.writeErrorResponse(visibilityError.get(), Error.NO_SUCH_KEY);
+            return;
+        }
+
+        // Keys recently found missing or forbidden are answered without a request to Amazon S3.
+        var negativeResultKey = this.getNegativeResultKey();
+        if (negativeResultKey.isPresent()) {
+            var negativeResult = this.negativeResultCache.get(negativeResultKey.get());
+            if (negativeResult.isPresent()) {
+                this.logger.info(String.format("Answered from the negative result cache (hits: %s, misses: %s).",
+                        this.negativeResultCache.getHits(), this.negativeResultCache.getMisses()));
+                this.responseHandler.writeErrorResponse(negativeResult.get() == Error.NO_SUCH_KEY
+                        ? "The specified key does not exist." : "Access Denied", negativeResult.get());
+                return;
+            }
+        }
+
+        var conditionalRequest = new ConditionalRequest(this.s3ObjectLambdaEvent.getUserRequest().getHeaders(),
+                this.eTagCache, this.transformer.getVersion());
+
+        // While Amazon S3 keeps failing, the caller is answered at once instead of waiting for it.
+        if (this.circuitBreaker != null && !this.circuitBreaker.tryAcquire()) {
+            if (!this.serveStaleObject(conditionalRequest)) {
+                this.responseHandler.writeErrorResponse("Please reduce your request rate.", Error.SLOW_DOWN);
+            }
+            return;
+        }
+        this.s3AttemptAcquired = this.circuitBreaker != null;
+
+        // Serve Range requests from cached blocks of the original object, when the transformation allows it.
+        var blockCacheRange = this.getBlockCacheRange();
+        if (blockCacheRange.isPresent() && this.handleRangeFromBlockCache(blockCacheRange.get(), conditionalRequest)) {
+            return;
+        }
+
+        // Identical requests of concurrent invocations share the object retrieved and transformed by the first one.
+        var coalescingKey = this.getCoalescingKey();
+        if (coalescingKey.isPresent()) {
+            this.call = this.singleFlight.join(coalescingKey.get());
+            if (!this.call.isLeader() && this.handleFromLeader(this.call)) {
+                return;
+            }
+        }
 
         // Get the original object from Amazon S3
         HttpResponse<InputStream> presignedResponse;
         try {
-            presignedResponse = this.getS3ObjectResponse(this.s3ObjectLambdaEvent.inputS3Url());
+            presignedResponse = this.getS3ObjectResponse(this.s3ObjectLambdaEvent.inputS3Url(), conditionalRequest);
         } catch (URISyntaxException | IOException | InterruptedException e) {
             this.logger.error("Error while getting the s3 object: " + e);
+            if (e instanceof IOException && this.serveStaleObject(conditionalRequest)) {
+                return;
+            }
             this.responseHandler.writeErrorResponse("Error occurred while getting the object.",
                     Error.SERVER_ERROR);
             return;
         }
 
         // Ideally, Errors in the Amazon S3 response should be forwarded to the caller without invoking transformObject.
+        // This includes 412 Precondition Failed for conditions Amazon S3 evaluated.
+        if (presignedResponse.statusCode() >= 500 && this.serveStaleObject(conditionalRequest)) {
+            this.closeBody(presignedResponse);
+            return;
+        }
         if (presignedResponse.statusCode() >= 400) {
+            negativeResultKey.ifPresent(key -> this.cacheNegativeResult(key, presignedResponse.statusCode()));
             this.responseHandler.writeS3GetObjectErrorResponse(presignedResponse);
             return;
         }
 
+        // Conditional requests are answered without transforming the object, or reading it when possible.
+        var sourceETag = presignedResponse.headers().firstValue(ETAG);
+        if (presignedResponse.statusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            this.responseHandler.writeNotModifiedResponse(sourceETag.orElse(null));
+            return;
+        }
+
+        if (sourceETag.isPresent() && conditionalRequest.isPreconditionFailed(sourceETag.get())) {
+            this.closeBody(presignedResponse);
+            this.responseHandler.writeErrorResponse("At least one of the pre-conditions you specified did not hold",
+                    Error.PRECONDITION_FAILED);
+            return;
+        }
+
+        if (sourceETag.isPresent() && conditionalRequest.isNotModified(sourceETag.get())) {
+            this.closeBody(presignedResponse);
+            this.responseHandler.writeNotModifiedResponse(sourceETag.get());
+            return;
+        }
+
         byte[] objectResponseByteArray;
         try {
-            objectResponseByteArray = presignedResponse.body().readAllBytes();
+            objectResponseByteArray = this.readBody(presignedResponse.body());
         } catch (IOException e) {
             logger.error("Error while reading the presigned response body." + e);
             this.responseHandler.writeErrorResponse("Error occurred while getting the data.",
                     Error.SERVER_ERROR);
             return;
         }
+        // The original object is in, its outcome need not wait for the transformation.
+        this.recordS3Attempt();
+
+        if (blockCacheRange.isPresent()) {
+            sourceETag.ifPresent(eTag ->
+                    this.blockCacheReader.cacheObject(this.getObjectId(), eTag, objectResponseByteArray));
+        }
 
         //Transform the object response.
         byte[] transformedObject;
@@ -110,8 +254,30 @@ public class GetObjectHandler implements RequestHandler {
             this.responseHandler.writeErrorResponse("Error transforming the object.", e.getError());
             return;
         }
+        if (this.isDeadlineExceeded("transforming the object")) {
+            return;
+        }
 
+        // A HeadObject request on the same version of the object can then report the transformed length.
+        if (this.transformedLengthCache != null && presignedResponse.statusCode() == HttpURLConnection.HTTP_OK
+                && sourceETag.isPresent() && this.transformer.isDeterministic()) {
+            this.transformedLengthCache.put(
+                    TransformedETag.unquote(TransformedETag.of(sourceETag.get(), this.transformer.getVersion())),
+                    transformedObject.length);
+        }
 
+        // Keep the transformed object, to answer later requests while Amazon S3 fails (stale-if-error), and share it
+        // with the identical requests in flight. Its checksum is computed once, as it is stored, and kept with it.
+        var staleObjectKey = presignedResponse.statusCode() == HttpURLConnection.HTTP_OK
+                ? this.getStaleObjectKey() : Optional.<String>empty();
+        var shared = this.call != null && presignedResponse.statusCode() == HttpURLConnection.HTTP_OK
+                && sourceETag.isPresent();
+        var checksum = staleObjectKey.isPresent() || shared ? this.getChecksum(transformedObject) : null;
+        staleObjectKey.ifPresent(key ->
+                this.staleObjectCache.put(key, transformedObject, sourceETag.orElse(null), checksum));
+        if (shared) {
+            this.call.complete(new TransformedObject(transformedObject, sourceETag.get(), checksum));
+        }
 
         /*
          The most reliable way to handle Range or partNumber requests is to retrieve the full object from S3,
@@ -137,72 +303,462 @@ public class GetObjectHandler implements RequestHandler {
             return;
         }
 
-        this.responseHandler.writeObjectResponse(presignedResponse, transformedObjectWithRange);
+        // The checksum of the whole object only applies if no Range or partNumber was requested.
+        this.responseHandler.writeObjectResponse(presignedResponse.statusCode(), transformedObjectWithRange,
+                sourceETag.orElse(null), transformedObjectWithRange == transformedObject ? checksum : null);
     }
 
-    private HttpRequest prepareHttpRequest(final String s3PresignedUrl)
-        throws MalformedURLException, URISyntaxException {
+    /**
+     * Returns the checksum of the whole transformed object, or null if it is left to the response handler.
+     */
+    private Checksum getChecksum(byte[] transformedObject) {
+        if (this.checksumGenerator == null) {
+            return null;
+        }
+        try {
+            var checksum = this.checksumGenerator.newIncrementalChecksum();
+            checksum.update(transformedObject, 0, transformedObject.length);
+            return checksum.finish();
+        } catch (Exception e) {
+            this.logger.warn("Error while computing the checksum of the transformed object: " + e);
+            return null;
+        }
+    }
 
-        var httpRequestBuilder = HttpRequest.newBuilder(new URI(s3PresignedUrl));
-        var userRequestHeaders = this.s3ObjectLambdaEvent.getUserRequest().getHeaders();
-        var httpHeaders = new HashMap<String, String>();
+    /**
+     * Serves the Range request from the block cache.
+     * @return Returns false if the range could not be served from the cache and the full object should be retrieved.
+     */
+    private boolean handleRangeFromBlockCache(String range, ConditionalRequest conditionalRequest) {
+        Optional<byte[]> cachedRange;
+        try {
+            cachedRange = this.blockCacheReader.readRange(this.getObjectId(), range,
+                    (start, end, eTag) -> this.getS3ObjectRange(start, end, eTag, conditionalRequest));
+        } catch (URISyntaxException | IOException | InterruptedException e) {
+            this.logger.error("Error while getting the object range: " + e);
+            this.responseHandler.writeErrorResponse("Error occurred while getting the object.",
+                    Error.SERVER_ERROR);
+            return true;
+        }
+
+        if (cachedRange.isEmpty()) {
+            return false;
+        }
+
+        // The transformation is range preserving, so transforming the range gives the range of the transformed object.
+        byte[] transformedRange;
+        try {
+            transformedRange = this.transformer.transformObjectResponse(cachedRange.get());
+        } catch (TransformationException e) {
+            logger.error("Error while transforming the object." + e);
+            this.responseHandler.writeErrorResponse("Error transforming the object.", e.getError());
+            return true;
+        }
+        if (this.isDeadlineExceeded("transforming the object")) {
+            return true;
+        }
 
-        // If a header is signed, then it must be included in the actual http call.
-        // Otherwise, the lambda will get a signature error response.
-        addSignedHeaders(s3PresignedUrl, userRequestHeaders, httpHeaders);
+        this.responseHandler.writeObjectResponse(HttpURLConnection.HTTP_OK, transformedRange,
+                this.blockCacheReader.getETag(this.getObjectId()).orElse(null));
+        return true;
+    }
 
-        // Some headers are not signed, but should be passed via a presigned url call to ensure desired behaviour.
-        addOptionalHeaders(userRequestHeaders, httpHeaders);
+    /**
+     * Answers the request with the object transformed by the identical request in flight.
+     * @return Returns false if the leading request published no object, or if this caller cannot be served with it,
+     * and the object should be retrieved.
+     */
+    private boolean handleFromLeader(SingleFlight.Call<TransformedObject> leader) {
+        Optional<TransformedObject> transformedObject;
+        try {
+            transformedObject = leader.await(this.deadline.getStageTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (transformedObject.isEmpty()) {
+            return false;
+        }
 
-        // Additionally, we need to filter out the "Host" header, as the client would retrieve the correct value from
-        // the endpoint.
-        httpHeaders.forEach((key, value) -> {
-            if (!key.equalsIgnoreCase("host")) {
-                httpRequestBuilder.header(key, value);
+        // A single byte of the same version confirms that Amazon S3 lets this caller read the object.
+        var sourceETag = transformedObject.get().getSourceETag();
+        try {
+            var response = this.getS3ObjectRange(0, 0, sourceETag, null);
+            try (var body = response.body()) {
+                if (response.statusCode() != HttpURLConnection.HTTP_PARTIAL) {
+                    return false;
+                }
+                body.readAllBytes();
             }
-        });
+        } catch (URISyntaxException | IOException e) {
+            this.logger.warn("Error while revalidating the shared object: " + e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
 
-        return httpRequestBuilder.GET().build();
+        byte[] transformedObjectWithRange;
+        try {
+            transformedObjectWithRange = this.transformer.applyRangeOrPartNumber(
+                    transformedObject.get().getTransformedObject());
+        } catch (URISyntaxException | InvalidRangeException | InvalidPartNumberException e) {
+            // Let the regular path report the error to the caller.
+            return false;
+        }
+
+        this.logger.info("Served the object transformed by a concurrent identical request.");
+        this.responseHandler.writeObjectResponse(HttpURLConnection.HTTP_OK, transformedObjectWithRange, sourceETag,
+                transformedObjectWithRange == transformedObject.get().getTransformedObject()
+                        ? transformedObject.get().getChecksum() : null);
+        return true;
     }
 
-    private static void addOptionalHeaders(
-        final Map<String, String> userRequestHeaders, Map<String, String> httpHeaders) {
+    /**
+     * Identifies the caller, the requested object version, the transformation and the parts of the request it depends
+     * on, when identical requests can share the transformed object. Each caller still gets its own Range or
+     * partNumber, which are applied afterwards.
+     * @return Returns Optional empty if the request must not be coalesced.
+     */
+    private Optional<String> getCoalescingKey() {
+        if (this.singleFlight == null || !this.transformer.isDeterministic()) {
+            return Optional.empty();
+        }
 
-        var optionalHeaders = Arrays.asList(
-            GET_OBJECT_IF_MATCH,
-            GET_OBJECT_IF_MODIFIED_SINCE,
-            GET_OBJECT_IF_NONE_MATCH,
-            GET_OBJECT_IF_UNMODIFIED_SINCE);
+        // Conditional requests are answered by Amazon S3 for each caller.
+        var conditionalHeaders = PresignedRequest.getConditionalHeaders();
+        for (var userRequestHeader : this.s3ObjectLambdaEvent.getUserRequest().getHeaders().keySet()) {
+            if (conditionalHeaders.contains(userRequestHeader.toLowerCase())) {
+                return Optional.empty();
+            }
+        }
+
+        List<String> signedHeaders;
+        String versionId;
+        try {
+            signedHeaders = S3PresignedUrlParserHelper.retrieveSignedHeadersFromPresignedUrl(
+                    this.s3ObjectLambdaEvent.inputS3Url());
+            versionId = new GetObjectRequestWrapper(this.s3ObjectLambdaEvent.getUserRequest())
+                    .getQueryParam(this.s3ObjectLambdaEvent.getUserRequest().getUrl(), "versionId").orElse("");
+        } catch (URISyntaxException | MalformedURLException e) {
+            return Optional.empty();
+        }
 
-        optionalHeaders.replaceAll(String::toLowerCase);
-        for (var userRequestHeader : userRequestHeaders.entrySet()) {
-            if (optionalHeaders.contains(userRequestHeader.getKey().toLowerCase())) {
-                httpHeaders.putIfAbsent(userRequestHeader.getKey(), userRequestHeader.getValue());
+        // Signed headers, such as the key of SSE-C, are sent to Amazon S3 and may change the object it returns.
+        for (var signedHeader : signedHeaders) {
+            if (!signedHeader.equalsIgnoreCase("host")) {
+                return Optional.empty();
             }
         }
+
+        // The transformed object is only shared with the same caller, and when the parts of the request it depends on
+        // are the same.
+        var key = new StringBuilder(this.getPrincipal()).append('\n').append(this.getObjectId())
+                .append('\n').append(versionId).append('\n').append(this.transformer.getVersion());
+        new TreeMap<>(this.transformer.getRequestVariant())
+                .forEach((name, value) -> key.append('\n').append(name).append('=').append(value));
+        return Optional.of(key.toString());
     }
 
-    private static void addSignedHeaders(
-        final String s3PresignedUrl, final Map<String, String> userRequestHeaders,
-        Map<String, String> httpHeaders) throws MalformedURLException {
+    /**
+     * Returns the requested range if the request can be served from the block cache.
+     */
+    private Optional<String> getBlockCacheRange() {
+        if (this.blockCacheReader == null || !this.transformer.isRangePreserving()) {
+            return Optional.empty();
+        }
 
-        List<String> signedHeaders =
-            S3PresignedUrlParserHelper.retrieveSignedHeadersFromPresignedUrl(s3PresignedUrl);
+        var userRequestHeaders = this.s3ObjectLambdaEvent.getUserRequest().getHeaders();
+        List<String> signedHeaders;
+        Optional<String> range;
+        try {
+            range = new GetObjectRequestWrapper(this.s3ObjectLambdaEvent.getUserRequest()).getRange();
+            signedHeaders = S3PresignedUrlParserHelper.retrieveSignedHeadersFromPresignedUrl(
+                    this.s3ObjectLambdaEvent.inputS3Url());
+        } catch (URISyntaxException | MalformedURLException e) {
+            return Optional.empty();
+        }
 
-        for (var userRequestHeader : userRequestHeaders.entrySet()) {
-            if (signedHeaders.contains(userRequestHeader.getKey().toLowerCase())) {
-                httpHeaders.putIfAbsent(userRequestHeader.getKey(), userRequestHeader.getValue());
+        // Conditional requests are answered by Amazon S3 against the full object.
+        var conditionalHeaders = PresignedRequest.getConditionalHeaders();
+        for (var userRequestHeader : userRequestHeaders.keySet()) {
+            if (conditionalHeaders.contains(userRequestHeader.toLowerCase())) {
+                return Optional.empty();
             }
         }
+
+        // Range and If-Match are added to the presigned url call, which is not possible if they are signed.
+        if (signedHeaders.contains(RANGE.toLowerCase()) || signedHeaders.contains(GET_OBJECT_IF_MATCH.toLowerCase())) {
+            return Optional.empty();
+        }
+
+        return range;
+    }
+
+    /**
+     * Identifies the requested object, independently of its version and of the caller.
+     */
+    private String getObjectId() {
+        try {
+            return S3PresignedUrlParserHelper.retrieveObjectIdFromPresignedUrl(this.s3ObjectLambdaEvent.inputS3Url());
+        } catch (MalformedURLException e) {
+            return this.s3ObjectLambdaEvent.inputS3Url();
+        }
+    }
+
+    /**
+     * Answers the request with the transformed copy of the object kept in the stale object cache, if it is within
+     * the staleness window of the access point.
+     * @return Returns false if there is no such copy and the error of Amazon S3 should be forwarded.
+     */
+    private boolean serveStaleObject(ConditionalRequest conditionalRequest) {
+        var staleObjectKey = this.getStaleObjectKey();
+        if (staleObjectKey.isEmpty()) {
+            return false;
+        }
+
+        var staleObject = this.staleObjectCache.get(staleObjectKey.get(), this.functionPayload.getStaleIfError());
+        if (staleObject.isEmpty()) {
+            return false;
+        }
+
+        var sourceETag = staleObject.get().getSourceETag();
+        if (sourceETag != null && conditionalRequest.isNotModified(sourceETag)) {
+            this.responseHandler.writeNotModifiedResponse(sourceETag);
+            return true;
+        }
+
+        byte[] staleObjectWithRange;
+        try {
+            staleObjectWithRange = this.transformer.applyRangeOrPartNumber(staleObject.get().getTransformedObject());
+        } catch (URISyntaxException | InvalidRangeException | InvalidPartNumberException e) {
+            return false;
+        }
+
+        this.logger.warn(String.format("Amazon S3 failed, served a copy of the object from %s seconds ago.",
+                staleObject.get().getAge().getSeconds()));
+        // Without a Range or partNumber, applyRangeOrPartNumber returns the cached array and its checksum applies.
+        this.responseHandler.writeStaleObjectResponse(staleObjectWithRange, sourceETag, staleObject.get().getAge(),
+                staleObjectWithRange == staleObject.get().getTransformedObject()
+                        ? staleObject.get().getChecksum() : null);
+        return true;
+    }
+
+    /**
+     * Identifies the requested object version and the caller in the negative result cache. A missing key is also
+     * keyed by the caller, since Amazon S3 answers 403 instead of 404 to callers which may not list the bucket.
+     * @return Returns Optional empty if negative results are not cached.
+     */
+    private Optional<String> getNegativeResultKey() {
+        var ttl = this.functionPayload.getNegativeCacheTtl();
+        if (this.negativeResultCache == null || ttl.isZero() || ttl.isNegative()) {
+            return Optional.empty();
+        }
+        return this.getCallerObjectKey();
     }
 
-    private HttpResponse<InputStream> getS3ObjectResponse(String s3PresignedUrl)
+    /**
+     * Identifies the requested object version, the caller and the transformation in the stale object cache.
+     * Copies are only served to the caller which retrieved them, since Amazon S3 cannot authorize the request.
+     * @return Returns Optional empty if stale objects are not served.
+     */
+    private Optional<String> getStaleObjectKey() {
+        var staleIfError = this.functionPayload.getStaleIfError();
+        if (this.staleObjectCache == null || staleIfError.isZero() || staleIfError.isNegative()
+                || !this.transformer.isDeterministic()) {
+            return Optional.empty();
+        }
+        return this.getCallerObjectKey().map(key -> key + "\n" + this.transformer.getVersion());
+    }
+
+    private Optional<String> getCallerObjectKey() {
+        List<String> signedHeaders;
+        String versionId;
+        try {
+            signedHeaders = S3PresignedUrlParserHelper.retrieveSignedHeadersFromPresignedUrl(
+                    this.s3ObjectLambdaEvent.inputS3Url());
+            versionId = new GetObjectRequestWrapper(this.s3ObjectLambdaEvent.getUserRequest())
+                    .getQueryParam(this.s3ObjectLambdaEvent.getUserRequest().getUrl(), "versionId").orElse("");
+        } catch (URISyntaxException | MalformedURLException e) {
+            return Optional.empty();
+        }
+
+        // Signed headers, such as x-amz-expected-bucket-owner, may change the answer of Amazon S3 for the same caller.
+        for (var signedHeader : signedHeaders) {
+            if (!signedHeader.equalsIgnoreCase("host")) {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(this.getPrincipal() + "\n" + this.getObjectId() + "\n" + versionId);
+    }
+
+    private String getPrincipal() {
+        var userIdentity = this.s3ObjectLambdaEvent.getUserIdentity();
+        return userIdentity == null ? ""
+                : userIdentity.getArn() != null ? userIdentity.getArn() : userIdentity.getPrincipalId();
+    }
+
+    private void cacheNegativeResult(String negativeResultKey, int statusCode) {
+        if (statusCode == HttpURLConnection.HTTP_NOT_FOUND) {
+            this.negativeResultCache.put(negativeResultKey, Error.NO_SUCH_KEY,
+                    this.functionPayload.getNegativeCacheTtl());
+        } else if (statusCode == HttpURLConnection.HTTP_FORBIDDEN) {
+            this.negativeResultCache.put(negativeResultKey, Error.ACCESS_DENIED,
+                    this.functionPayload.getNegativeCacheTtl());
+        }
+    }
+
+    /**
+     * Answers the caller with an error once the stages have used their share of the function timeout.
+     * @param stage Describes the stage which just ended, for the log.
+     * @return Returns true if the request has been answered.
+     */
+    private boolean isDeadlineExceeded(String stage) {
+        if (!this.deadline.isExpired()) {
+            return false;
+        }
+        this.logger.error(String.format("Out of time after %s, %s ms left.", stage,
+                this.deadline.getRemaining().toMillis()));
+        this.responseHandler.writeErrorResponse("The object could not be transformed before the function timed out.",
+                Error.SERVER_ERROR);
+        return true;
+    }
+
+    /**
+     * Reads the body of the original object, giving up once the deadline has passed.
+     */
+    private byte[] readBody(InputStream body) throws IOException {
+        try (body) {
+            var bytes = new ByteArrayOutputStream();
+            var buffer = new byte[64 * 1024];
+            int read;
+            while ((read = body.read(buffer)) >= 0) {
+                if (this.deadline.isExpired()) {
+                    throw new HttpTimeoutException("Deadline exceeded while reading the object.");
+                }
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private void closeBody(HttpResponse<InputStream> presignedResponse) {
+        try {
+            presignedResponse.body().close();
+        } catch (IOException e) {
+            this.logger.warn("Error while closing the presigned response body: " + e);
+        }
+    }
+
+    private HttpResponse<InputStream> getS3ObjectResponse(String s3PresignedUrl,
+                                                          ConditionalRequest conditionalRequest)
         throws URISyntaxException, IOException, InterruptedException {
 
-        HttpRequest request = prepareHttpRequest(s3PresignedUrl);
+        var requestBuilder = PresignedRequest.newBuilder(s3PresignedUrl,
+            this.s3ObjectLambdaEvent.getUserRequest().getHeaders(), conditionalRequest, Map.of()).GET();
+        HttpRequest request = this.withStageTimeout(requestBuilder).build();
+
+        return this.send(request);
+    }
+
+    private HttpResponse<InputStream> getS3ObjectRange(long start, long end, String eTag,
+                                                       ConditionalRequest conditionalRequest)
+        throws URISyntaxException, IOException, InterruptedException {
+
+        var range = String.format("bytes=%s-%s", start, end);
+        var requestBuilder = PresignedRequest.newBuilder(this.s3ObjectLambdaEvent.inputS3Url(),
+            this.s3ObjectLambdaEvent.getUserRequest().getHeaders(), conditionalRequest,
+            eTag == null ? Map.of(RANGE, range) : Map.of(RANGE, range, GET_OBJECT_IF_MATCH, eTag)).GET();
+        HttpRequest request = this.withStageTimeout(requestBuilder).build();
+
+        return this.send(request);
+    }
+
+    /**
+     * Sends the request to Amazon S3 and adds its outcome to the attempt recorded in the circuit breaker.
+     */
+    private HttpResponse<InputStream> send(HttpRequest request) throws IOException, InterruptedException {
+        var start = System.nanoTime();
+        HttpResponse<InputStream> response;
+        try {
+            response = this.retrier.send(this.httpClient, request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            this.s3AttemptFailed = true;
+            throw e;
+        }
+
+        if (response.statusCode() >= 500) {
+            this.s3AttemptFailed = true;
+        } else {
+            this.s3AttemptNanos = Math.max(this.s3AttemptNanos, System.nanoTime() - start);
+        }
+        return response;
+    }
 
-        return this.httpClient.send(
-            request,
-            HttpResponse.BodyHandlers.ofInputStream());
+    /**
+     * Records the calls to Amazon S3 made for this GetObject as a single outcome in the circuit breaker: a failure if
+     * any of them failed, a success as slow as the slowest one otherwise. The call acquired is given back if the
+     * request was answered without calling Amazon S3, from a cache or by an identical request.
+     */
+    private void recordS3Attempt() {
+        if (!this.s3AttemptAcquired) {
+            return;
+        }
+        this.s3AttemptAcquired = false;
+        if (this.s3AttemptFailed) {
+            this.circuitBreaker.recordFailure();
+        } else if (this.s3AttemptNanos >= 0) {
+            this.circuitBreaker.recordSuccess(this.s3AttemptNanos);
+        } else {
+            this.circuitBreaker.release();
+        }
+    }
+
+    /**
+     * The response headers must arrive within the time left, the body is read under the same deadline.
+     */
+    private HttpRequest.Builder withStageTimeout(HttpRequest.Builder requestBuilder) throws HttpTimeoutException {
+        if (this.deadline.isUnbounded()) {
+            return requestBuilder;
+        }
+        if (this.deadline.isExpired()) {
+            throw new HttpTimeoutException("Deadline exceeded before requesting the object.");
+        }
+        return requestBuilder.timeout(this.deadline.getStageTimeout());
+    }
+
+    /**
+     * A transformed object shared between identical requests, before their Range or partNumber is applied.
+     */
+    public static class TransformedObject {
+        private final byte[] transformedObject;
+        private final String sourceETag;
+        private final Checksum checksum;
+
+        public TransformedObject(byte[] transformedObject, String sourceETag) {
+            this(transformedObject, sourceETag, null);
+        }
+
+        /**
+         * @param checksum Checksum of the whole transformed object, may be null.
+         */
+        public TransformedObject(byte[] transformedObject, String sourceETag, Checksum checksum) {
+            this.transformedObject = transformedObject;
+            this.sourceETag = sourceETag;
+            this.checksum = checksum;
+        }
+
+        public byte[] getTransformedObject() {
+            return this.transformedObject;
+        }
+
+        public String getSourceETag() {
+            return this.sourceETag;
+        }
+
+        public Checksum getChecksum() {
+            return this.checksum;
+        }
     }
 }
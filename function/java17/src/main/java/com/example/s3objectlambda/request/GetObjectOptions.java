@@ -0,0 +1,166 @@
+package com.example.s3objectlambda.request;
+
+import com.example.s3objectlambda.cache.ETagCache;
+import com.example.s3objectlambda.cache.NegativeResultCache;
+import com.example.s3objectlambda.cache.StaleObjectCache;
+import com.example.s3objectlambda.cache.TransformedLengthCache;
+import com.example.s3objectlambda.checksum.ChecksumGenerator;
+import com.example.s3objectlambda.config.FunctionPayload;
+import com.example.s3objectlambda.retry.CircuitBreaker;
+import com.example.s3objectlambda.retry.Retrier;
+
+/**
+ * The optional collaborators of a GetObjectHandler, and the settings of the access point. Collaborators left null
+ * are not used: without a BlockCacheReader, for example, Range requests are never served from cached blocks.
+ */
+public final class GetObjectOptions {
+
+    private BlockCacheReader blockCacheReader;
+    private ETagCache eTagCache = new ETagCache(ETagCache.DEFAULT_MAX_ENTRIES);
+    private TransformedLengthCache transformedLengthCache;
+    private NegativeResultCache negativeResultCache;
+    private StaleObjectCache staleObjectCache;
+    private FunctionPayload functionPayload = FunctionPayload.parse(null);
+    private Retrier retrier = Retrier.noRetries();
+    private Deadline deadline = Deadline.none();
+    private CircuitBreaker circuitBreaker;
+    private SingleFlight<GetObjectHandler.TransformedObject> singleFlight;
+    private ChecksumGenerator checksumGenerator;
+
+    /**
+     * @param blockCacheReader Serves Range requests from cached blocks of the original object, if not null.
+     */
+    public GetObjectOptions withBlockCacheReader(BlockCacheReader blockCacheReader) {
+        this.blockCacheReader = blockCacheReader;
+        return this;
+    }
+
+    /**
+     * @param eTagCache Translates the transformed ETags of conditional requests.
+     */
+    public GetObjectOptions withETagCache(ETagCache eTagCache) {
+        this.eTagCache = eTagCache;
+        return this;
+    }
+
+    /**
+     * @param transformedLengthCache Records the length of transformed objects for HeadObject requests, if not null.
+     */
+    public GetObjectOptions withTransformedLengthCache(TransformedLengthCache transformedLengthCache) {
+        this.transformedLengthCache = transformedLengthCache;
+        return this;
+    }
+
+    /**
+     * @param negativeResultCache Answers repeated requests for missing or forbidden keys, if not null.
+     */
+    public GetObjectOptions withNegativeResultCache(NegativeResultCache negativeResultCache) {
+        this.negativeResultCache = negativeResultCache;
+        return this;
+    }
+
+    /**
+     * @param staleObjectCache Answers requests while Amazon S3 fails with a server error, if not null.
+     */
+    public GetObjectOptions withStaleObjectCache(StaleObjectCache staleObjectCache) {
+        this.staleObjectCache = staleObjectCache;
+        return this;
+    }
+
+    /**
+     * @param functionPayload Settings of the access point, such as how long the caches may be used.
+     */
+    public GetObjectOptions withFunctionPayload(FunctionPayload functionPayload) {
+        this.functionPayload = functionPayload;
+        return this;
+    }
+
+    /**
+     * @param retrier Retries the requests to Amazon S3 after network errors and server errors.
+     */
+    public GetObjectOptions withRetrier(Retrier retrier) {
+        this.retrier = retrier;
+        return this;
+    }
+
+    /**
+     * @param deadline Bounds the time spent retrieving and transforming the object, so that an error response can
+     *                 still be sent before the function times out.
+     */
+    public GetObjectOptions withDeadline(Deadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * @param circuitBreaker Answers with SlowDown instead of calling Amazon S3 while it keeps failing, if not null.
+     */
+    public GetObjectOptions withCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+        return this;
+    }
+
+    /**
+     * @param singleFlight Shares the transformed object between identical requests of concurrent invocations,
+     *                     if not null.
+     */
+    public GetObjectOptions withSingleFlight(SingleFlight<GetObjectHandler.TransformedObject> singleFlight) {
+        this.singleFlight = singleFlight;
+        return this;
+    }
+
+    /**
+     * @param checksumGenerator Computes the checksum of transformed objects as they are stored in the stale object
+     *                          cache or shared with concurrent requests, so that the responses served from them carry
+     *                          it without a pass of their own, if not null. It must be the generator of the response
+     *                          handler.
+     */
+    public GetObjectOptions withChecksumGenerator(ChecksumGenerator checksumGenerator) {
+        this.checksumGenerator = checksumGenerator;
+        return this;
+    }
+
+    public BlockCacheReader getBlockCacheReader() {
+        return this.blockCacheReader;
+    }
+
+    public ETagCache getETagCache() {
+        return this.eTagCache;
+    }
+
+    public TransformedLengthCache getTransformedLengthCache() {
+        return this.transformedLengthCache;
+    }
+
+    public NegativeResultCache getNegativeResultCache() {
+        return this.negativeResultCache;
+    }
+
+    public StaleObjectCache getStaleObjectCache() {
+        return this.staleObjectCache;
+    }
+
+    public FunctionPayload getFunctionPayload() {
+        return this.functionPayload;
+    }
+
+    public Retrier getRetrier() {
+        return this.retrier;
+    }
+
+    public Deadline getDeadline() {
+        return this.deadline;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    public SingleFlight<GetObjectHandler.TransformedObject> getSingleFlight() {
+        return this.singleFlight;
+    }
+
+    public ChecksumGenerator getChecksumGenerator() {
+        return this.checksumGenerator;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.s3objectlambda.request;
+
+import com.example.s3objectlambda.cache.ETagCache;
+import com.example.s3objectlambda.cache.TransformedLengthCache;
+import com.example.s3objectlambda.error.Error;
+import com.example.s3objectlambda.event.ObjectLambdaEvent;
+import com.example.s3objectlambda.exception.InvalidPartNumberException;
+import com.example.s3objectlambda.exception.InvalidRangeException;
+import com.example.s3objectlambda.response.HeadObjectResponseHandler;
+import com.example.s3objectlambda.transform.PartNumberMapper;
+import com.example.s3objectlambda.transform.RangeMapper;
+import com.example.s3objectlambda.transform.TransformedETag;
+import com.example.s3objectlambda.transform.Transformer;
+import com.example.s3objectlambda.validator.RequestValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+
+import static com.amazonaws.services.s3.Headers.CONTENT_LENGTH;
+import static com.amazonaws.services.s3.Headers.CONTENT_RANGE;
+import static com.amazonaws.services.s3.Headers.ETAG;
+
+/**
+ * Handles a HeadObject request, by performing the following steps:
+ * 1. Validates the incoming user request.
+ * 2. Retrieves the headers of the original object from Amazon S3, without its body.
+ * 3. Applies a transformation on the headers (GetObjectTransformer::transformHeaders()).
+ * 4. Sets the Content-Length of the transformed object, for the requested range or part number if any.
+ * The transformation of the object itself is never run. Its length is either predicted by the transformer or
+ * known from an earlier GetObject request on the same version of the object.
+ */
+public class HeadObjectHandler implements RequestHandler {
+
+    private final Logger logger;
+    private final Transformer transformer;
+    private final RequestValidator requestValidator;
+    private final ObjectLambdaEvent event;
+    private final HeadObjectResponseHandler responseHandler;
+    private final HttpClient httpClient;
+    private final ETagCache eTagCache;
+    private final TransformedLengthCache transformedLengthCache;
+
+    public HeadObjectHandler(Transformer transformer, RequestValidator requestValidator, ObjectLambdaEvent event,
+                             HeadObjectResponseHandler responseHandler, HttpClient httpClient,
+                             ETagCache eTagCache, TransformedLengthCache transformedLengthCache) {
+        this.transformer = transformer;
+        this.requestValidator = requestValidator;
+        this.event = event;
+        this.responseHandler = responseHandler;
+        this.httpClient = httpClient;
+        this.eTagCache = eTagCache;
+        this.transformedLengthCache = transformedLengthCache;
+        this.logger = LoggerFactory.getLogger(HeadObjectHandler.class);
+    }
+
+    @Override
+    public void handleRequest() {
+
+        // Validate user request and return error if invalid
+        var validationError = this.requestValidator.validateUserRequest();
+        if (validationError.isPresent()) {
+            this.responseHandler.writeErrorResponse(validationError.get(), Error.INVALID_REQUEST);
+            return;
+        }
+
+        // Hidden keys are rejected before anything is requested from Amazon S3.
+        var visibilityError = this.requestValidator.validateKeyVisibility();
+        if (visibilityError.isPresent()) {
+            this.responseHandler.writeErrorResponse(visibilityError.get(), Error.NO_SUCH_KEY);
+            return;
+        }
+
+        var conditionalRequest = new ConditionalRequest(this.event.getUserRequest().getHeaders(),
+                this.eTagCache, this.transformer.getVersion());
+
+        HttpResponse<Void> presignedResponse;
+        try {
+            var request = PresignedRequest.newBuilder(this.event.getHeadObjectContext().getInputS3Url(),
+                    this.event.getUserRequest().getHeaders(), conditionalRequest, Map.of())
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody()).build();
+            presignedResponse = this.httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (URISyntaxException | IOException | InterruptedException e) {
+            this.logger.error("Error while getting the s3 object headers: " + e);
+            this.responseHandler.writeErrorResponse("Error occurred while getting the object.",
+                    Error.SERVER_ERROR);
+            return;
+        }
+
+        if (presignedResponse.statusCode() >= 400) {
+            this.responseHandler.writeS3ErrorResponse(presignedResponse.statusCode());
+            return;
+        }
+
+        // Conditional requests are answered with the transformed ETag.
+        var sourceETag = presignedResponse.headers().firstValue(ETAG);
+        if (presignedResponse.statusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            this.writeNotModifiedResponse(conditionalRequest, sourceETag.orElse(null));
+            return;
+        }
+
+        if (sourceETag.isPresent() && conditionalRequest.isPreconditionFailed(sourceETag.get())) {
+            this.responseHandler.writeErrorResponse("At least one of the pre-conditions you specified did not hold",
+                    Error.PRECONDITION_FAILED);
+            return;
+        }
+
+        if (sourceETag.isPresent() && conditionalRequest.isNotModified(sourceETag.get())) {
+            this.writeNotModifiedResponse(conditionalRequest, sourceETag.get());
+            return;
+        }
+
+        var originalHeaders = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        presignedResponse.headers().map().forEach((name, values) -> {
+            // Skip the HTTP/2 pseudo headers.
+            if (!name.startsWith(":") && !values.isEmpty()) {
+                originalHeaders.put(name, values.get(0));
+            }
+        });
+
+        var headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(this.transformer.transformHeaders(originalHeaders));
+
+        String transformedETag = null;
+        if (sourceETag.isPresent()) {
+            transformedETag = conditionalRequest.toTransformedETag(sourceETag.get());
+            headers.put(ETAG, transformedETag);
+        }
+
+        var transformedLength = getTransformedLength(originalHeaders.get(CONTENT_LENGTH), transformedETag);
+        if (transformedLength.isEmpty()) {
+            // Reporting the length of the original object would be wrong, so none is reported.
+            this.logger.info("The length of the transformed object is unknown, Content-Length is omitted.");
+            headers.remove(CONTENT_LENGTH);
+            this.responseHandler.writeHeadResponse(HttpURLConnection.HTTP_OK, headers);
+            return;
+        }
+
+        try {
+            applyRangeOrPartNumber(headers, transformedLength.getAsLong());
+        } catch (URISyntaxException e) {
+            this.logger.error("Exception while in applyRangeOrPartNumber: " + e);
+            this.responseHandler.writeErrorResponse("Unexpected error while transforming the object:",
+                    Error.SERVER_ERROR);
+            return;
+        } catch (InvalidRangeException e) {
+            this.logger.error("Invalid Range Exception: " + e);
+            this.responseHandler.writeErrorResponse(e.getMessage(), e.getError());
+            return;
+        } catch (InvalidPartNumberException e) {
+            this.logger.error("Invalid partNumber: " + e);
+            this.responseHandler.writeErrorResponse(e.getMessage(), e.getError());
+            return;
+        }
+
+        this.responseHandler.writeHeadResponse(HttpURLConnection.HTTP_OK, headers);
+    }
+
+    private void writeNotModifiedResponse(ConditionalRequest conditionalRequest, String sourceETag) {
+        var headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        if (sourceETag != null) {
+            headers.put(ETAG, conditionalRequest.toTransformedETag(sourceETag));
+        }
+        this.responseHandler.writeHeadResponse(HttpURLConnection.HTTP_NOT_MODIFIED, headers);
+    }
+
+    /**
+     * Returns the length of the transformed object, from the cache or as predicted by the transformer.
+     */
+    private OptionalLong getTransformedLength(String originalContentLength, String transformedETag) {
+        if (transformedETag != null && this.transformedLengthCache != null) {
+            var cachedLength = this.transformedLengthCache.get(TransformedETag.unquote(transformedETag));
+            if (cachedLength.isPresent()) {
+                return cachedLength;
+            }
+        }
+
+        if (originalContentLength == null) {
+            return OptionalLong.empty();
+        }
+
+        try {
+            return this.transformer.getTransformedLength(Long.parseLong(originalContentLength));
+        } catch (NumberFormatException e) {
+            this.logger.warn("Invalid Content-Length of the original object: " + originalContentLength);
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * Sets the Content-Length of the requested range or part of the transformed object.
+     */
+    private void applyRangeOrPartNumber(Map<String, String> headers, long transformedLength)
+            throws URISyntaxException, InvalidRangeException, InvalidPartNumberException {
+
+        var userRequest = new GetObjectRequestWrapper(this.event.getUserRequest());
+        var range = userRequest.getRange();
+        var partNumber = userRequest.getPartNumber();
+
+        long[] bounds;
+        if (range.isPresent()) {
+            try {
+                bounds = new RangeMapper(range.get()).resolveBounds(transformedLength);
+            } catch (NumberFormatException e) {
+                throw new InvalidRangeException("Invalid Range: " + range.get());
+            }
+            headers.put(CONTENT_RANGE, String.format("bytes %s-%s/%s", bounds[0], bounds[1], transformedLength));
+        } else if (partNumber.isPresent()) {
+            bounds = new PartNumberMapper().resolveBounds(partNumber.get(), transformedLength);
+        } else {
+            bounds = new long[]{0, transformedLength - 1};
+        }
+
+        headers.put(CONTENT_LENGTH, String.valueOf(bounds[1] - bounds[0] + 1));
+    }
+}
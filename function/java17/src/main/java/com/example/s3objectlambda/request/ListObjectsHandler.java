@@ -0,0 +1,435 @@
+package com.example.s3objectlambda.request;
+
+import com.example.s3objectlambda.cache.ListPageCache;
+import com.example.s3objectlambda.error.Error;
+import com.example.s3objectlambda.event.ObjectLambdaEvent;
+import com.example.s3objectlambda.filter.KeyVisibilityFilter;
+import com.example.s3objectlambda.response.ListObjectsResponseHandler;
+import com.example.s3objectlambda.transform.ListEntry;
+import com.example.s3objectlambda.transform.Transformer;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handles a ListObjects or ListObjectsV2 request, by performing the following steps:
+ * 1. Retrieves the original list result from Amazon S3.
+ * 2. Drops the objects and common prefixes hidden by the access point, and applies a transformation on the other
+ * ones as the result is parsed.
+ * You can apply your custom transformation logic here (GetObjectTransformer::transformListEntry()).
+ * 3. Sends the transformed list result back to Amazon S3 Object Lambda.
+ *
+ * Transformed list results can be kept for a short time in the ListPageCache. They are keyed by the access point,
+ * the caller, the list version, the transformer version and the query parameters which select the page, so a
+ * caller is only ever answered with a page it listed itself. Requests whose presigned URL signs headers besides the
+ * host, such as x-amz-expected-bucket-owner, are not cached, since those headers may change the answer of Amazon S3.
+ *
+ * The ListBucketResult document is read with a streaming parser and written back element by element, so only one
+ * listed object is held in memory at a time besides the resulting document.
+ */
+public class ListObjectsHandler implements RequestHandler {
+
+    private static final String CONTENTS = "Contents";
+    private static final String COMMON_PREFIXES = "CommonPrefixes";
+    private static final String PREFIX = "Prefix";
+    private static final String KEY_COUNT = "KeyCount";
+    private static final String ENCODING_TYPE = "encoding-type";
+
+    // Query parameters which select the listed page, and are part of the list page cache key.
+    private static final List<String> PAGE_PARAMETERS = List.of("prefix", "delimiter", "marker",
+            "continuation-token", "start-after", "max-keys", ENCODING_TYPE, "fetch-owner");
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private final Logger logger;
+    private final Transformer transformer;
+    private final ObjectLambdaEvent event;
+    private final ObjectLambdaEvent.BaseObjectContext listObjectsContext;
+    private final ListObjectsResponseHandler responseHandler;
+    private final HttpClient httpClient;
+    private final KeyVisibilityFilter keyVisibilityFilter;
+    private final ListPageCache listPageCache;
+    private final Duration listPageTtl;
+    private boolean urlEncodedKeys;
+
+    /**
+     * @param listObjectsContext The ListObjects or ListObjectsV2 context of the event.
+     */
+    public ListObjectsHandler(Transformer transformer, ObjectLambdaEvent event,
+                              ObjectLambdaEvent.BaseObjectContext listObjectsContext,
+                              ListObjectsResponseHandler responseHandler, HttpClient httpClient) {
+        this(transformer, event, listObjectsContext, responseHandler, httpClient,
+                KeyVisibilityFilter.compile(List.of()));
+    }
+
+    /**
+     * @param keyVisibilityFilter Keys hidden by the access point, they are removed from the list result.
+     */
+    public ListObjectsHandler(Transformer transformer, ObjectLambdaEvent event,
+                              ObjectLambdaEvent.BaseObjectContext listObjectsContext,
+                              ListObjectsResponseHandler responseHandler, HttpClient httpClient,
+                              KeyVisibilityFilter keyVisibilityFilter) {
+        this(transformer, event, listObjectsContext, responseHandler, httpClient, keyVisibilityFilter, null,
+                Duration.ZERO);
+    }
+
+    /**
+     * @param listPageCache Transformed list results kept across invocations, may be null.
+     * @param listPageTtl How long a transformed list result is kept, zero to not cache it.
+     */
+    public ListObjectsHandler(Transformer transformer, ObjectLambdaEvent event,
+                              ObjectLambdaEvent.BaseObjectContext listObjectsContext,
+                              ListObjectsResponseHandler responseHandler, HttpClient httpClient,
+                              KeyVisibilityFilter keyVisibilityFilter, ListPageCache listPageCache,
+                              Duration listPageTtl) {
+        this.transformer = transformer;
+        this.event = event;
+        this.listObjectsContext = listObjectsContext;
+        this.responseHandler = responseHandler;
+        this.httpClient = httpClient;
+        this.keyVisibilityFilter = keyVisibilityFilter;
+        this.listPageCache = listPageCache;
+        this.listPageTtl = listPageTtl;
+        this.logger = LoggerFactory.getLogger(ListObjectsHandler.class);
+    }
+
+    @Override
+    public void handleRequest() {
+
+        var cacheEnabled = this.listPageCache != null && !this.listPageTtl.isZero() && !this.listPageTtl.isNegative();
+        String listPageKey = null;
+        try {
+            if (!this.keyVisibilityFilter.hidesNothing()) {
+                // With encoding-type=url, the keys of the list result are URL encoded and must be decoded to match.
+                this.urlEncodedKeys = new UserRequestWrapper(this.event.getUserRequest())
+                        .getQueryParam(this.event.getUserRequest().getUrl(), ENCODING_TYPE)
+                        .filter("url"::equalsIgnoreCase).isPresent();
+            }
+            if (cacheEnabled) {
+                listPageKey = getListPageKey();
+            }
+        } catch (URISyntaxException | MalformedURLException e) {
+            this.logger.error("Error while reading the list request: " + e);
+            this.responseHandler.writeErrorResponse("Invalid request URI", Error.INVALID_REQUEST);
+            return;
+        }
+
+        if (listPageKey != null) {
+            var cachedListResult = this.listPageCache.get(listPageKey);
+            if (cachedListResult.isPresent()) {
+                this.logger.info("Served the list result from the list page cache.");
+                this.responseHandler.writeListResponse(cachedListResult.get());
+                return;
+            }
+        }
+
+        HttpResponse<InputStream> presignedResponse;
+        try {
+            var request = PresignedRequest.newBuilder(this.listObjectsContext.getInputS3Url(),
+                    this.event.getUserRequest().getHeaders(), null, Map.of()).GET().build();
+            presignedResponse = this.httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (URISyntaxException | IOException | InterruptedException e) {
+            this.logger.error("Error while getting the list result: " + e);
+            this.responseHandler.writeErrorResponse("Error occurred while listing the objects.",
+                    Error.SERVER_ERROR);
+            return;
+        }
+
+        // Errors in the Amazon S3 response should be forwarded to the caller without invoking the transformation.
+        if (presignedResponse.statusCode() >= 400) {
+            try {
+                presignedResponse.body().close();
+            } catch (IOException e) {
+                this.logger.warn("Error while closing the presigned response body: " + e);
+            }
+            this.responseHandler.writeS3ErrorResponse(presignedResponse.statusCode());
+            return;
+        }
+
+        String listResultXml;
+        try (var body = presignedResponse.body()) {
+            listResultXml = transformListResult(body);
+        } catch (XMLStreamException | IOException e) {
+            this.logger.error("Error while transforming the list result: " + e);
+            this.responseHandler.writeErrorResponse("The Lambda function failed to transform the list result.",
+                    Error.SERVER_ERROR);
+            return;
+        }
+
+        if (listPageKey != null) {
+            this.listPageCache.put(listPageKey, listResultXml, this.listPageTtl);
+        }
+        this.responseHandler.writeListResponse(listResultXml);
+    }
+
+    /**
+     * Identifies the list page requested by the caller, see the class comment. Returns null if the page is not cached.
+     */
+    private String getListPageKey() throws URISyntaxException, MalformedURLException {
+        var signedHeaders = S3PresignedUrlParserHelper.retrieveSignedHeadersFromPresignedUrl(
+                this.listObjectsContext.getInputS3Url());
+        for (var signedHeader : signedHeaders) {
+            if (!signedHeader.equalsIgnoreCase("host")) {
+                return null;
+            }
+        }
+
+        var key = new StringBuilder();
+        var configuration = this.event.getConfiguration();
+        var userIdentity = this.event.getUserIdentity();
+        appendKeyPart(key, "accessPoint", configuration == null ? null : configuration.getAccessPointArn());
+        appendKeyPart(key, "principal", userIdentity == null ? null
+                : userIdentity.getArn() != null ? userIdentity.getArn() : userIdentity.getPrincipalId());
+        appendKeyPart(key, "listVersion",
+                this.listObjectsContext == this.event.getListObjectsV2Context() ? "2" : "1");
+        appendKeyPart(key, "transformerVersion", this.transformer.getVersion());
+
+        var parameters = URLEncodedUtils.parse(new URI(this.event.getUserRequest().getUrl()), StandardCharsets.UTF_8);
+        for (var name : PAGE_PARAMETERS) {
+            for (var parameter : parameters) {
+                if (parameter.getName().equals(name)) {
+                    appendKeyPart(key, name, parameter.getValue());
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    private static void appendKeyPart(StringBuilder key, String name, String value) {
+        // Values are encoded, so a value can never be mistaken for the separator of the next part.
+        key.append(name).append('=')
+                .append(value == null ? "" : URLEncoder.encode(value, StandardCharsets.UTF_8)).append('&');
+    }
+
+    /**
+     * Copies the ListBucketResult document, transforming the listed objects and common prefixes on the way.
+     */
+    private String transformListResult(InputStream listResult) throws XMLStreamException {
+        var reader = createXMLStreamReader(listResult);
+        var output = new StringWriter();
+        var writer = createXMLStreamWriter(output);
+
+        try {
+            writer.writeStartDocument("UTF-8", "1.0");
+            var depth = 0;
+            var hasKeyCount = false;
+            var keyCount = 0;
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        var name = reader.getLocalName();
+                        if (depth == 1 && name.equals(CONTENTS)) {
+                            var listEntry = readEntry(reader);
+                            if (isHidden(listEntry.getKey(), false)) {
+                                break;
+                            }
+                            var entry = this.transformer.transformListEntry(listEntry);
+                            if (entry.isPresent()) {
+                                writeEntry(writer, CONTENTS, entry.get());
+                                keyCount++;
+                            }
+                        } else if (depth == 1 && name.equals(COMMON_PREFIXES)) {
+                            var prefix = readEntry(reader).get(PREFIX)
+                                    .filter(commonPrefix -> !isHidden(commonPrefix, true))
+                                    .flatMap(this.transformer::transformCommonPrefix);
+                            if (prefix.isPresent()) {
+                                var entry = new ListEntry();
+                                entry.add(PREFIX, prefix.get());
+                                writeEntry(writer, COMMON_PREFIXES, entry);
+                                keyCount++;
+                            }
+                        } else if (depth == 1 && name.equals(KEY_COUNT)) {
+                            // KeyCount precedes the objects, it is written last once the remaining objects are known.
+                            reader.getElementText();
+                            hasKeyCount = true;
+                        } else {
+                            copyStartElement(reader, writer);
+                            depth++;
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (depth == 1 && hasKeyCount) {
+                            writer.writeStartElement(KEY_COUNT);
+                            writer.writeCharacters(String.valueOf(keyCount));
+                            writer.writeEndElement();
+                        }
+                        writer.writeEndElement();
+                        depth--;
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (depth > 0) {
+                            writer.writeCharacters(reader.getText());
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            writer.writeEndDocument();
+            writer.flush();
+        } finally {
+            reader.close();
+            writer.close();
+        }
+
+        return output.toString();
+    }
+
+    private boolean isHidden(String key, boolean commonPrefix) {
+        if (key == null || this.keyVisibilityFilter.hidesNothing()) {
+            return false;
+        }
+
+        var decodedKey = this.urlEncodedKeys ? URLDecoder.decode(key, StandardCharsets.UTF_8) : key;
+        return commonPrefix
+                ? this.keyVisibilityFilter.isCommonPrefixHidden(decodedKey)
+                : this.keyVisibilityFilter.isHidden(decodedKey);
+    }
+
+    /**
+     * Reads the element the reader is on into a ListEntry, and leaves the reader on its end element.
+     */
+    private static ListEntry readEntry(XMLStreamReader reader) throws XMLStreamException {
+        var entry = new ListEntry();
+        var path = new ArrayList<String>();
+        var text = new StringBuilder();
+        var leaf = false;
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    path.add(reader.getLocalName());
+                    text.setLength(0);
+                    leaf = true;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    text.append(reader.getText());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (path.isEmpty()) {
+                        return entry;
+                    }
+                    if (leaf) {
+                        entry.add(String.join("/", path), text.toString());
+                    }
+                    leaf = false;
+                    path.remove(path.size() - 1);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        throw new XMLStreamException("Unexpected end of the list result.");
+    }
+
+    private static void writeEntry(XMLStreamWriter writer, String elementName, ListEntry entry)
+            throws XMLStreamException {
+        writer.writeStartElement(elementName);
+        var open = new ArrayList<String>();
+
+        for (var field : entry.getFields()) {
+            var path = field.getKey().split("/");
+
+            // Close the nested elements this field is not part of, then open the ones it is in.
+            var common = 0;
+            while (common < open.size() && common < path.length - 1 && open.get(common).equals(path[common])) {
+                common++;
+            }
+            while (open.size() > common) {
+                writer.writeEndElement();
+                open.remove(open.size() - 1);
+            }
+            for (var i = common; i < path.length - 1; i++) {
+                writer.writeStartElement(path[i]);
+                open.add(path[i]);
+            }
+
+            writer.writeStartElement(path[path.length - 1]);
+            writer.writeCharacters(field.getValue());
+            writer.writeEndElement();
+        }
+
+        for (var i = 0; i < open.size(); i++) {
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+
+    private static void copyStartElement(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+        var prefix = reader.getPrefix();
+        var namespace = reader.getNamespaceURI();
+        writer.writeStartElement(prefix == null ? "" : prefix, reader.getLocalName(),
+                namespace == null ? "" : namespace);
+
+        for (var i = 0; i < reader.getNamespaceCount(); i++) {
+            var namespacePrefix = reader.getNamespacePrefix(i);
+            if (namespacePrefix == null || namespacePrefix.isEmpty()) {
+                writer.writeDefaultNamespace(reader.getNamespaceURI(i));
+            } else {
+                writer.writeNamespace(namespacePrefix, reader.getNamespaceURI(i));
+            }
+        }
+
+        for (var i = 0; i < reader.getAttributeCount(); i++) {
+            writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+    }
+
+    /*
+     StAX factories are not guaranteed to be thread safe, only the readers and writers they create are used without
+     a lock, by a single invocation.
+     */
+    private static XMLStreamReader createXMLStreamReader(InputStream listResult) throws XMLStreamException {
+        synchronized (INPUT_FACTORY) {
+            return INPUT_FACTORY.createXMLStreamReader(listResult);
+        }
+    }
+
+    private static XMLStreamWriter createXMLStreamWriter(StringWriter output) throws XMLStreamException {
+        synchronized (OUTPUT_FACTORY) {
+            return OUTPUT_FACTORY.createXMLStreamWriter(output);
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        var factory = XMLInputFactory.newInstance();
+        /*
+        Prevent XML External Entity (XXE) Processing
+        https://owasp.org/www-community/vulnerabilities/XML_External_Entity_(XXE)_Processing
+        */
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
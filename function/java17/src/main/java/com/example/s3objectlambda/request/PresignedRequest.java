@@ -0,0 +1,103 @@
+package com.example.s3objectlambda.request;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.amazonaws.services.s3.Headers.GET_OBJECT_IF_MATCH;
+import static com.amazonaws.services.s3.Headers.GET_OBJECT_IF_MODIFIED_SINCE;
+import static com.amazonaws.services.s3.Headers.GET_OBJECT_IF_NONE_MATCH;
+import static com.amazonaws.services.s3.Headers.GET_OBJECT_IF_UNMODIFIED_SINCE;
+
+/**
+ * Prepares the http call to the presigned url of the original request, with the headers of the user request
+ * that have to be passed on.
+ */
+public final class PresignedRequest {
+
+    private PresignedRequest() {
+    }
+
+    /**
+     * @param s3PresignedUrl Presigned url of the original request.
+     * @param userRequestHeaders Headers of the user request.
+     * @param conditionalRequest Translates the conditional headers of the user request, if not null.
+     * @param additionalHeaders Headers added by the function, they replace the headers of the user request.
+     * @return Returns the request builder, the caller sets the http method.
+     */
+    public static HttpRequest.Builder newBuilder(final String s3PresignedUrl,
+                                                 final Map<String, String> userRequestHeaders,
+                                                 final ConditionalRequest conditionalRequest,
+                                                 final Map<String, String> additionalHeaders)
+        throws MalformedURLException, URISyntaxException {
+
+        var httpRequestBuilder = HttpRequest.newBuilder(new URI(s3PresignedUrl));
+        var httpHeaders = new HashMap<String, String>();
+        var signedHeaders = S3PresignedUrlParserHelper.retrieveSignedHeadersFromPresignedUrl(s3PresignedUrl);
+
+        // If a header is signed, then it must be included in the actual http call.
+        // Otherwise, the lambda will get a signature error response.
+        addSignedHeaders(signedHeaders, userRequestHeaders, httpHeaders);
+
+        // Some headers are not signed, but should be passed via a presigned url call to ensure desired behaviour.
+        addOptionalHeaders(userRequestHeaders, httpHeaders);
+
+        // Conditions on transformed ETags are translated to the ETags of the original object.
+        if (conditionalRequest != null) {
+            conditionalRequest.rewriteHeaders(httpHeaders, signedHeaders);
+        }
+
+        httpHeaders.putAll(additionalHeaders);
+
+        // Additionally, we need to filter out the "Host" header, as the client would retrieve the correct value from
+        // the endpoint.
+        httpHeaders.forEach((key, value) -> {
+            if (!key.equalsIgnoreCase("host")) {
+                httpRequestBuilder.header(key, value);
+            }
+        });
+
+        return httpRequestBuilder;
+    }
+
+    /**
+     * Returns the conditional headers, in lower case.
+     */
+    public static List<String> getConditionalHeaders() {
+        var conditionalHeaders = Arrays.asList(
+            GET_OBJECT_IF_MATCH,
+            GET_OBJECT_IF_MODIFIED_SINCE,
+            GET_OBJECT_IF_NONE_MATCH,
+            GET_OBJECT_IF_UNMODIFIED_SINCE);
+
+        conditionalHeaders.replaceAll(String::toLowerCase);
+        return conditionalHeaders;
+    }
+
+    private static void addOptionalHeaders(
+        final Map<String, String> userRequestHeaders, Map<String, String> httpHeaders) {
+
+        var optionalHeaders = getConditionalHeaders();
+        for (var userRequestHeader : userRequestHeaders.entrySet()) {
+            if (optionalHeaders.contains(userRequestHeader.getKey().toLowerCase())) {
+                httpHeaders.putIfAbsent(userRequestHeader.getKey(), userRequestHeader.getValue());
+            }
+        }
+    }
+
+    private static void addSignedHeaders(
+        final List<String> signedHeaders, final Map<String, String> userRequestHeaders,
+        Map<String, String> httpHeaders) {
+
+        for (var userRequestHeader : userRequestHeaders.entrySet()) {
+            if (signedHeaders.contains(userRequestHeader.getKey().toLowerCase())) {
+                httpHeaders.putIfAbsent(userRequestHeader.getKey(), userRequestHeader.getValue());
+            }
+        }
+    }
+}
@@ -14,6 +14,14 @@ public class S3PresignedUrlParserHelper {
     static final String QUERY_PARAM_DELIMETER = "&";
     static final String QUERY_PARAM_KEY_VALUE_DELIMETER = "=";
 
+    /**
+     * Identifies the object a presigned url points to, independently of the object version and of the caller.
+     */
+    public static String retrieveObjectIdFromPresignedUrl(final String presignedUrl) throws MalformedURLException {
+        URL url = new URL(presignedUrl);
+        return url.getHost() + url.getPath();
+    }
+
     public static List<String> retrieveSignedHeadersFromPresignedUrl(
         final String presignedUrl) throws MalformedURLException {
 
@@ -0,0 +1,86 @@
+package com.example.s3objectlambda.request;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces identical requests handled at the same time by concurrent invocations of the execution environment.
+ * The first request for a key leads: it does the work and publishes its result. Requests joining while it is in
+ * flight follow: they wait for the result instead of doing the same work.
+ * A leader may publish no result, for example when Amazon S3 answered it with an error, and followers then do the
+ * work themselves.
+ */
+public class SingleFlight<T> {
+
+    private static final long MAX_TIMEOUT_DAYS = 365;
+
+    private final Map<String, CompletableFuture<Optional<T>>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Joins the call in flight for the key, or starts it.
+     */
+    public Call<T> join(String key) {
+        var call = new CompletableFuture<Optional<T>>();
+        var inFlight = this.calls.putIfAbsent(key, call);
+        return inFlight == null ? new Call<>(this, key, call, true) : new Call<>(this, key, inFlight, false);
+    }
+
+    /**
+     * Returns the number of calls in flight.
+     */
+    public int size() {
+        return this.calls.size();
+    }
+
+    public static class Call<T> {
+        private final SingleFlight<T> singleFlight;
+        private final String key;
+        private final CompletableFuture<Optional<T>> result;
+        private final boolean leader;
+
+        private Call(SingleFlight<T> singleFlight, String key, CompletableFuture<Optional<T>> result,
+                     boolean leader) {
+            this.singleFlight = singleFlight;
+            this.key = key;
+            this.result = result;
+            this.leader = leader;
+        }
+
+        public boolean isLeader() {
+            return this.leader;
+        }
+
+        /**
+         * Publishes the result of the leader to the followers, only the first result counts.
+         * @param result The result, or null to let each follower do the work itself.
+         */
+        public void complete(T result) {
+            if (!this.leader) {
+                return;
+            }
+            // Requests arriving from now on start a new call.
+            this.singleFlight.calls.remove(this.key, this.result);
+            this.result.complete(Optional.ofNullable(result));
+        }
+
+        /**
+         * Waits for the result of the leader.
+         * @return Returns Optional empty if the leader published no result, failed, or took longer than the timeout.
+         */
+        public Optional<T> await(Duration timeout) throws InterruptedException {
+            try {
+                // The deadline of the future would overflow with a timeout close to Long.MAX_VALUE.
+                return timeout.toDays() >= MAX_TIMEOUT_DAYS
+                        ? this.result.get() : this.result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                return Optional.empty();
+            }
+        }
+    }
+}
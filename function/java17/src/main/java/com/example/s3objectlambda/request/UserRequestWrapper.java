@@ -35,5 +35,16 @@ public class UserRequestWrapper {
             return Optional.empty();
     }
 
+    /**
+     * Returns the key of the requested object, decoded from the path of the request url.
+     */
+    public String getKey() throws URISyntaxException {
+        var path = new URI(this.userRequest.getUrl()).getPath();
+        if (path == null) {
+            return "";
+        }
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
 
 }
@@ -1,25 +1,36 @@
 package com.example.s3objectlambda.response;
 
 import com.example.s3objectlambda.checksum.Checksum;
+import com.example.s3objectlambda.checksum.ChecksumCache;
 import com.example.s3objectlambda.checksum.ChecksumGenerator;
 import com.example.s3objectlambda.error.Error;
-import com.example.s3objectlambda.error.S3RequestError;
 import com.example.s3objectlambda.error.XMLErrorParser;
+import com.example.s3objectlambda.request.Deadline;
+import com.example.s3objectlambda.request.GetObjectRequestWrapper;
+import com.example.s3objectlambda.request.S3PresignedUrlParserHelper;
+import com.example.s3objectlambda.retry.CircuitBreaker;
+import com.example.s3objectlambda.transform.TransformedETag;
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.lambda.runtime.events.S3ObjectLambdaEvent;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.WriteGetObjectResponseRequest;
-import com.amazonaws.util.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
-import javax.xml.parsers.ParserConfigurationException;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * This handles writing of the object response by calling writeGetObjectResponse
@@ -28,77 +39,271 @@ import java.util.HashMap;
 
 public class GetObjectResponseHandler implements ResponseHandler {
 
+    // User metadata returned as x-amz-meta-stale-age with objects served from the stale object cache.
+    public static final String STALE_AGE_METADATA = "stale-age";
+
+    private static final XMLErrorParser ERROR_PARSER = new XMLErrorParser();
+
     private Logger logger;
     private final AmazonS3 s3Client;
     private final S3ObjectLambdaEvent event;
     private final ChecksumGenerator checksumGenerator;
+    private final String transformerVersion;
+    private final ChecksumCache checksumCache;
+    private final Deadline deadline;
+    private final CircuitBreaker circuitBreaker;
+    private boolean responding;
+    private boolean abandoned;
 
     public GetObjectResponseHandler(AmazonS3 s3Client, S3ObjectLambdaEvent event, ChecksumGenerator checksumGenerator) {
+        this(s3Client, event, checksumGenerator, new GetObjectResponseOptions());
+    }
+
+    /**
+     * @param options The transformer version, the checksum strategy and the other optional collaborators.
+     */
+    public GetObjectResponseHandler(AmazonS3 s3Client, S3ObjectLambdaEvent event, ChecksumGenerator checksumGenerator,
+                                    GetObjectResponseOptions options) {
         this.s3Client = s3Client;
         this.event = event;
         this.checksumGenerator = checksumGenerator;
+        this.transformerVersion = options.getTransformerVersion();
+        this.checksumCache = options.getChecksumCache();
+        this.deadline = options.getDeadline();
+        this.circuitBreaker = options.getCircuitBreaker();
         this.logger = LoggerFactory.getLogger(GetObjectResponseHandler.class);
     }
 
     public void writeS3GetObjectErrorResponse(HttpResponse<InputStream> presignedResponse) {
 
-        S3RequestError s3errorResponse;
+        String errorCode = null;
+        String errorMessage;
 
-        try {
-            var xmlResponse = IOUtils.toString(presignedResponse.body());
-            s3errorResponse = new XMLErrorParser().parse(xmlResponse);
-        } catch (IOException | ParserConfigurationException | SAXException | NullPointerException e) {
+        try (var body = presignedResponse.body()) {
+            var s3errorResponse = ERROR_PARSER.parse(body);
+            errorCode = s3errorResponse.getCode();
+            errorMessage = s3errorResponse.getMessage();
+        } catch (IOException | SAXException e) {
+            // The status code is still forwarded, only the error code and message of Amazon S3 are lost.
             this.logger.error("Error while reading the S3 error response body: " + e);
-            writeErrorResponse("Unexpected error while reading the S3 error response", Error.SERVER_ERROR);
-            return;
+            errorMessage = String.format("Received status code %s from the supporting Access Point.",
+                    presignedResponse.statusCode());
         }
 
-
-        this.s3Client.writeGetObjectResponse(new WriteGetObjectResponseRequest()
+        this.send(new WriteGetObjectResponseRequest()
                 .withRequestRoute(this.event.outputRoute())
                 .withRequestToken(this.event.outputToken())
-                .withErrorCode(s3errorResponse.getCode())
+                .withErrorCode(errorCode)
                 .withContentLength(0L).withInputStream(new ByteArrayInputStream(new byte[0]))
-                .withErrorMessage(s3errorResponse.getMessage())
-                .withStatusCode(presignedResponse.statusCode()));
+                .withErrorMessage(errorMessage)
+                .withStatusCode(presignedResponse.statusCode()), this.deadline.getRemaining());
     }
 
-
     public void writeErrorResponse(String errorMessage, Error error) {
 
-        this.s3Client.writeGetObjectResponse(new WriteGetObjectResponseRequest()
+        this.send(new WriteGetObjectResponseRequest()
                 .withRequestRoute(event.outputRoute())
                 .withRequestToken(event.outputToken())
                 .withErrorCode(error.getErrorCode())
                 .withContentLength(0L).withInputStream(new ByteArrayInputStream(new byte[0]))
                 .withErrorMessage(errorMessage)
-                .withStatusCode(error.getStatusCode()));
+                .withStatusCode(error.getStatusCode()), this.deadline.getRemaining());
+    }
+
+    /**
+     * Answers the caller with an error when the handler gives up waiting for the stages, unless they have already
+     * started sending a response. Responses the stages try to send afterwards are dropped.
+     * @return Returns false if a response was already being sent.
+     */
+    public boolean writeDeadlineExceededResponse() {
+        synchronized (this) {
+            if (this.responding) {
+                return false;
+            }
+            this.abandoned = true;
+        }
+
+        this.s3Client.writeGetObjectResponse(withTimeout(new WriteGetObjectResponseRequest()
+                .withRequestRoute(event.outputRoute())
+                .withRequestToken(event.outputToken())
+                .withErrorCode(Error.SERVER_ERROR.getErrorCode())
+                .withContentLength(0L).withInputStream(new ByteArrayInputStream(new byte[0]))
+                .withErrorMessage("The object could not be transformed before the function timed out.")
+                .withStatusCode(Error.SERVER_ERROR.getStatusCode()), this.deadline.getRemaining()));
+        return true;
+    }
+
+    public void writeNotModifiedResponse(String sourceETag) {
+
+        this.send(new WriteGetObjectResponseRequest()
+                .withRequestRoute(event.outputRoute())
+                .withRequestToken(event.outputToken())
+                .withETag(getTransformedETag(sourceETag))
+                .withContentLength(0L).withInputStream(new ByteArrayInputStream(new byte[0]))
+                .withStatusCode(HttpURLConnection.HTTP_NOT_MODIFIED), this.deadline.getRemaining());
     }
 
     public void writeObjectResponse(HttpResponse<InputStream> presignedResponse, byte[] responseObjectByteArray) {
+        var sourceETag = presignedResponse.headers().firstValue(Headers.ETAG).orElse(null);
+        writeObjectResponse(presignedResponse.statusCode(), responseObjectByteArray, sourceETag);
+    }
+
+    public void writeObjectResponse(int statusCode, byte[] responseObjectByteArray, String sourceETag) {
+        writeObjectResponse(statusCode, responseObjectByteArray, sourceETag, null);
+    }
+
+    public void writeObjectResponse(int statusCode, byte[] responseObjectByteArray, String sourceETag,
+                                    Checksum checksum) {
+        writeObjectResponse(statusCode, responseObjectByteArray, sourceETag, checksum, Map.of());
+    }
+
+    /**
+     * The age in seconds is returned in the stale-age user metadata, so that callers can tell the object may be
+     * out of date.
+     */
+    @Override
+    public void writeStaleObjectResponse(byte[] responseObjectByteArray, String sourceETag, Duration age,
+                                         Checksum checksum) {
+        writeObjectResponse(HttpURLConnection.HTTP_OK, responseObjectByteArray, sourceETag, checksum,
+                Map.of(STALE_AGE_METADATA, String.valueOf(age.getSeconds())));
+    }
+
+    private void writeObjectResponse(int statusCode, byte[] responseObjectByteArray, String sourceETag,
+                                     Checksum precomputedChecksum, Map<String, String> userMetadata) {
 
+        // While WriteGetObjectResponse keeps failing, the caller is answered before any work on the object.
+        if (this.circuitBreaker != null && !this.circuitBreaker.tryAcquire()) {
+            this.logger.warn("WriteGetObjectResponse keeps failing, answering with SlowDown instead of the object.");
+            writeErrorResponse("Please reduce your request rate.", Error.SLOW_DOWN);
+            return;
+        }
+
+        var checksumKey = getChecksumKey(sourceETag);
         Checksum checksum;
         try {
-            checksum = this.checksumGenerator.getChecksum(responseObjectByteArray);
+            var cachedChecksum = checksumKey.flatMap(key -> this.checksumCache.get(key));
+            if (cachedChecksum.isPresent()) {
+                checksum = cachedChecksum.get();
+            } else {
+                // A checksum computed as the object was cached saves the pass over the response object.
+                checksum = precomputedChecksum != null
+                        && precomputedChecksum.getAlgorithm().equals(this.checksumGenerator.getAlgorithm())
+                        ? precomputedChecksum : this.checksumGenerator.getChecksum(responseObjectByteArray);
+                if (checksumKey.isPresent()) {
+                    this.checksumCache.put(checksumKey.get(), checksum);
+                }
+            }
         } catch (Exception e) {
             this.logger.error("Error while writing object response" + e);
+            if (this.circuitBreaker != null) {
+                this.circuitBreaker.release();
+            }
             writeErrorResponse("Error while writing object response.", Error.SERVER_ERROR);
             return;
         }
 
-        var checksumMap = new HashMap<String, String>();
-        checksumMap.put("algorithm", checksum.getAlgorithm());
-        checksumMap.put("digest", checksum.getChecksum());
-
-        var checksumObjectMetaData = new ObjectMetadata();
-        checksumObjectMetaData.setUserMetadata(checksumMap);
-
-        this.s3Client.writeGetObjectResponse(new WriteGetObjectResponseRequest()
+        var request = new WriteGetObjectResponseRequest()
                 .withRequestRoute(event.outputRoute())
                 .withRequestToken(event.outputToken())
                 .withInputStream(new ByteArrayInputStream(responseObjectByteArray))
-                .withMetadata(checksumObjectMetaData)
-                .withStatusCode(presignedResponse.statusCode()));
+                // Without a content length, the SDK buffers the whole stream before sending it.
+                .withContentLength((long) responseObjectByteArray.length)
+                .withETag(getTransformedETag(sourceETag))
+                .withStatusCode(statusCode);
+
+        var metadataMap = new HashMap<>(userMetadata);
+        metadataMap.put("algorithm", checksum.getAlgorithm());
+        metadataMap.put("digest", checksum.getChecksum());
+        var objectMetaData = new ObjectMetadata();
+        objectMetaData.setUserMetadata(metadataMap);
+        request.withMetadata(objectMetaData);
+
+        var start = System.nanoTime();
+        try {
+            if (!this.send(request, this.deadline.getStageTimeout())) {
+                // The deadline passed before the object could be sent, which counts against the route.
+                if (this.circuitBreaker != null) {
+                    this.circuitBreaker.recordFailure();
+                }
+                return;
+            }
+        } catch (RuntimeException e) {
+            if (this.circuitBreaker != null) {
+                // Requests Amazon S3 rejects, such as an expired token, say nothing about the health of the route.
+                if (e instanceof AmazonServiceException && ((AmazonServiceException) e).getStatusCode() < 500) {
+                    this.circuitBreaker.recordSuccess(System.nanoTime() - start);
+                } else {
+                    this.circuitBreaker.recordFailure();
+                }
+            }
+            throw e;
+        }
+        if (this.circuitBreaker != null) {
+            this.circuitBreaker.recordSuccess(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Sends the response, unless the handler already answered the caller because the deadline passed.
+     * @param timeout Time the SDK may spend sending the response, retries included.
+     */
+    private boolean send(WriteGetObjectResponseRequest request, Duration timeout) {
+        synchronized (this) {
+            if (this.abandoned) {
+                this.logger.warn("The caller has already been answered, the response is dropped.");
+                return false;
+            }
+            this.responding = true;
+        }
+        this.s3Client.writeGetObjectResponse(withTimeout(request, timeout));
+        return true;
+    }
+
+    private WriteGetObjectResponseRequest withTimeout(WriteGetObjectResponseRequest request, Duration timeout) {
+        if (!this.deadline.isUnbounded()) {
+            request.setSdkClientExecutionTimeout((int) Math.min(Integer.MAX_VALUE, Math.max(1, timeout.toMillis())));
+        }
+        return request;
+    }
+
+    /**
+     * Returns the key of the checksum in the cache, or Optional empty if the checksum cannot be derived and has to be
+     * computed over the response.
+     */
+    private Optional<String> getChecksumKey(String sourceETag) {
+        if (this.checksumCache == null || sourceETag == null || this.transformerVersion == null) {
+            return Optional.empty();
+        }
+
+        var userRequest = new GetObjectRequestWrapper(this.event.getUserRequest());
+        String objectId;
+        String range;
+        try {
+            objectId = S3PresignedUrlParserHelper.retrieveObjectIdFromPresignedUrl(this.event.inputS3Url());
+            range = userRequest.getRange().map(value -> "Range=" + value)
+                    .or(() -> getPartNumber(userRequest).map(value -> "partNumber=" + value))
+                    .orElse("");
+        } catch (MalformedURLException | URISyntaxException e) {
+            return Optional.empty();
+        }
+
+        return Optional.of(ChecksumCache.getKey(objectId, sourceETag, this.transformerVersion, range,
+                this.checksumGenerator.getAlgorithm()));
+    }
+
+    private static Optional<String> getPartNumber(GetObjectRequestWrapper userRequest) {
+        try {
+            return userRequest.getPartNumber();
+        } catch (URISyntaxException e) {
+            return Optional.empty();
+        }
+    }
+
+    private String getTransformedETag(String sourceETag) {
+        if (sourceETag == null || this.transformerVersion == null) {
+            return null;
+        }
+        return TransformedETag.of(sourceETag, this.transformerVersion);
     }
 
 }
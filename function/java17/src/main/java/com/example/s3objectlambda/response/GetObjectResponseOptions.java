@@ -0,0 +1,70 @@
+package com.example.s3objectlambda.response;
+
+import com.example.s3objectlambda.checksum.ChecksumCache;
+import com.example.s3objectlambda.request.Deadline;
+import com.example.s3objectlambda.retry.CircuitBreaker;
+
+/**
+ * The optional collaborators and settings of a GetObjectResponseHandler. By default, the checksum is computed over
+ * every response, no ETag is returned and the responses are not bounded in time.
+ */
+public final class GetObjectResponseOptions {
+
+    private String transformerVersion;
+    private ChecksumCache checksumCache;
+    private Deadline deadline = Deadline.none();
+    private CircuitBreaker circuitBreaker;
+
+    /**
+     * @param transformerVersion Version of the transformation, used to derive the ETag of the transformed object.
+     *                           No ETag is returned if it is null.
+     */
+    public GetObjectResponseOptions withTransformerVersion(String transformerVersion) {
+        this.transformerVersion = transformerVersion;
+        return this;
+    }
+
+    /**
+     * @param checksumCache Checksums are reused from this cache when the original object, the transformer version
+     *                      and the requested range are the same (ChecksumStrategy.DERIVED).
+     *                      The checksum is computed over every response if it is null.
+     */
+    public GetObjectResponseOptions withChecksumCache(ChecksumCache checksumCache) {
+        this.checksumCache = checksumCache;
+        return this;
+    }
+
+    /**
+     * @param deadline Objects are sent within the time the stages may use, error responses within the time left
+     *                 before the function times out.
+     */
+    public GetObjectResponseOptions withDeadline(Deadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * @param circuitBreaker Objects are replaced with a SlowDown error response while WriteGetObjectResponse keeps
+     *                       failing, if not null. Error responses have no body and are always sent.
+     */
+    public GetObjectResponseOptions withCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+        return this;
+    }
+
+    public String getTransformerVersion() {
+        return this.transformerVersion;
+    }
+
+    public ChecksumCache getChecksumCache() {
+        return this.checksumCache;
+    }
+
+    public Deadline getDeadline() {
+        return this.deadline;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+}
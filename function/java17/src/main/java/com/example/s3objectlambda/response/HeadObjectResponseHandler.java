@@ -0,0 +1,17 @@
+package com.example.s3objectlambda.response;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the response of a HeadObject request.
+ */
+public class HeadObjectResponseHandler extends ReturnValueResponseHandler {
+
+    public void writeHeadResponse(int statusCode, Map<String, String> headers) {
+        var response = new HashMap<String, Object>();
+        response.put("statusCode", statusCode);
+        response.put("headers", headers);
+        setResponse(response);
+    }
+}
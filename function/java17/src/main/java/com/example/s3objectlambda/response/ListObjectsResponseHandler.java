@@ -0,0 +1,20 @@
+package com.example.s3objectlambda.response;
+
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+
+/**
+ * Builds the response of a ListObjects or ListObjectsV2 request.
+ */
+public class ListObjectsResponseHandler extends ReturnValueResponseHandler {
+
+    /**
+     * @param listResultXml The transformed ListBucketResult document.
+     */
+    public void writeListResponse(String listResultXml) {
+        var response = new HashMap<String, Object>();
+        response.put("statusCode", HttpURLConnection.HTTP_OK);
+        response.put("listResultXml", listResultXml);
+        setResponse(response);
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.s3objectlambda.response;
 
+import com.example.s3objectlambda.checksum.Checksum;
 import com.example.s3objectlambda.error.Error;
 
 import java.io.InputStream;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 
 /**
  * This interface represents the response handler.
@@ -14,4 +16,18 @@ public interface ResponseHandler {
     void writeS3GetObjectErrorResponse(HttpResponse<InputStream> presignedResponse);
     void writeErrorResponse(String errorMessage, Error error);
     void writeObjectResponse(HttpResponse<InputStream> presignedResponse, byte[] responseObjectByteArray);
+    void writeObjectResponse(int statusCode, byte[] responseObjectByteArray, String sourceETag);
+
+    /**
+     * @param checksum Checksum of responseObjectByteArray computed beforehand, for example as the transformed object
+     *                 was cached, or null if it has to be computed.
+     */
+    void writeObjectResponse(int statusCode, byte[] responseObjectByteArray, String sourceETag, Checksum checksum);
+    void writeNotModifiedResponse(String sourceETag);
+
+    /**
+     * Writes a transformed object served from the stale object cache, flagged with its age.
+     * @param checksum Checksum of responseObjectByteArray kept with the copy, or null if it has to be computed.
+     */
+    void writeStaleObjectResponse(byte[] responseObjectByteArray, String sourceETag, Duration age, Checksum checksum);
 }
@@ -0,0 +1,56 @@
+package com.example.s3objectlambda.response;
+
+import com.example.s3objectlambda.error.Error;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base class of the response handlers for HeadObject, ListObjects and ListObjectsV2 requests. Unlike GetObject,
+ * these requests are answered with the return value of the function, so the response is kept until the Handler
+ * returns it.
+ * The response is a Map, so that the Lambda runtime serializes only the fields that are set.
+ * See <a href="https://docs.aws.amazon.com/AmazonS3/latest/userguide/olap-writing-lambda.html">Writing Lambda
+ * functions</a>.
+ */
+public abstract class ReturnValueResponseHandler {
+
+    private final Logger logger;
+    private Map<String, Object> response;
+
+    protected ReturnValueResponseHandler() {
+        this.logger = LoggerFactory.getLogger(getClass());
+    }
+
+    /**
+     * Forwards an error status code of the request to the original object.
+     */
+    public void writeS3ErrorResponse(int statusCode) {
+        this.logger.info(String.format("Encountered an S3 Error, status code: %s. Forwarding this to the Object Lambda"
+                + " Access Point.", statusCode));
+
+        var errorResponse = new HashMap<String, Object>();
+        errorResponse.put("statusCode", statusCode);
+        errorResponse.put("errorMessage",
+                String.format("Received status code %s from the supporting Access Point.", statusCode));
+        this.response = errorResponse;
+    }
+
+    public void writeErrorResponse(String errorMessage, Error error) {
+        var errorResponse = new HashMap<String, Object>();
+        errorResponse.put("statusCode", error.getStatusCode());
+        errorResponse.put("errorCode", error.getErrorCode());
+        errorResponse.put("errorMessage", errorMessage);
+        this.response = errorResponse;
+    }
+
+    public Map<String, Object> getResponse() {
+        return this.response;
+    }
+
+    protected void setResponse(Map<String, Object> response) {
+        this.response = response;
+    }
+}
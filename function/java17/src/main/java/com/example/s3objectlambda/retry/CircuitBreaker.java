@@ -0,0 +1,185 @@
+package com.example.s3objectlambda.retry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calling a dependency of the function while it keeps failing, so that invocations fail fast instead of waiting
+ * for timeouts.
+ *
+ * Calls are counted in a rolling window of one second buckets. A call fails when it throws, returns a server error,
+ * or takes longer than the slow call threshold. Once enough calls are in the window and too many of them failed, the
+ * breaker opens and refuses every call. After the open duration, it lets a few probes through (half open): it closes
+ * again when they all succeed, and opens again as soon as one fails.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public static final int DEFAULT_MIN_CALLS = 20;
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(5);
+    public static final int DEFAULT_HALF_OPEN_PROBES = 3;
+    private static final int WINDOW_BUCKETS = 10;
+    private static final long BUCKET_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Logger logger;
+    private final String name;
+    private final long slowCallNanos;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+
+    private final long[] bucketStarts = new long[WINDOW_BUCKETS];
+    private final int[] calls = new int[WINDOW_BUCKETS];
+    private final int[] failures = new int[WINDOW_BUCKETS];
+
+    private State state = State.CLOSED;
+    private long stateSince;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    /**
+     * @param name Names the dependency in the log.
+     * @param slowCallThreshold Calls taking longer count as failures.
+     */
+    public CircuitBreaker(String name, Duration slowCallThreshold) {
+        this(name, slowCallThreshold, DEFAULT_MIN_CALLS, DEFAULT_FAILURE_RATE_THRESHOLD, DEFAULT_OPEN_DURATION,
+                DEFAULT_HALF_OPEN_PROBES, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, Duration slowCallThreshold, int minCalls, double failureRateThreshold,
+                   Duration openDuration, int halfOpenProbes, LongSupplier nanoClock) {
+        this.name = name;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.minCalls = minCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.nanoClock = nanoClock;
+        this.stateSince = nanoClock.getAsLong();
+        this.logger = LoggerFactory.getLogger(CircuitBreaker.class);
+    }
+
+    /**
+     * @return Returns false if the call must not be made. Otherwise the outcome of the call must be recorded with
+     * recordSuccess or recordFailure, or the call given back with release if it was not made.
+     */
+    public synchronized boolean tryAcquire() {
+        var now = this.nanoClock.getAsLong();
+        if (this.state == State.OPEN) {
+            if (now - this.stateSince < this.openNanos) {
+                return false;
+            }
+            this.transition(State.HALF_OPEN, now);
+        }
+
+        if (this.state == State.HALF_OPEN) {
+            // Probes whose outcome was never recorded do not keep the breaker half open forever.
+            if (now - this.stateSince >= this.openNanos) {
+                this.transition(State.HALF_OPEN, now);
+            }
+            if (this.probesStarted >= this.halfOpenProbes) {
+                return false;
+            }
+            this.probesStarted++;
+        }
+        return true;
+    }
+
+    /**
+     * @param latencyNanos Duration of the call, it counts as a failure if it is above the slow call threshold.
+     */
+    public synchronized void recordSuccess(long latencyNanos) {
+        if (latencyNanos > this.slowCallNanos) {
+            this.recordFailure();
+            return;
+        }
+
+        var now = this.nanoClock.getAsLong();
+        if (this.state == State.HALF_OPEN) {
+            this.probesSucceeded++;
+            if (this.probesSucceeded >= this.halfOpenProbes) {
+                this.transition(State.CLOSED, now);
+            }
+            return;
+        }
+        this.count(now, false);
+    }
+
+    public synchronized void recordFailure() {
+        var now = this.nanoClock.getAsLong();
+        if (this.state == State.HALF_OPEN) {
+            this.transition(State.OPEN, now);
+            return;
+        }
+
+        this.count(now, true);
+        if (this.state == State.CLOSED && this.shouldOpen(now)) {
+            this.transition(State.OPEN, now);
+        }
+    }
+
+    /**
+     * Gives back a call acquired with tryAcquire which was not made after all, so that it does not hold one of the
+     * probes of the half open breaker.
+     */
+    public synchronized void release() {
+        if (this.state == State.HALF_OPEN && this.probesStarted > 0) {
+            this.probesStarted--;
+        }
+    }
+
+    public synchronized State getState() {
+        return this.state;
+    }
+
+    private void count(long now, boolean failed) {
+        var bucketStart = now - Math.floorMod(now, BUCKET_NANOS);
+        var index = (int) Math.floorMod(bucketStart / BUCKET_NANOS, (long) WINDOW_BUCKETS);
+        if (this.bucketStarts[index] != bucketStart) {
+            this.bucketStarts[index] = bucketStart;
+            this.calls[index] = 0;
+            this.failures[index] = 0;
+        }
+        this.calls[index]++;
+        if (failed) {
+            this.failures[index]++;
+        }
+    }
+
+    private boolean shouldOpen(long now) {
+        var windowStart = now - WINDOW_BUCKETS * BUCKET_NANOS;
+        var totalCalls = 0;
+        var totalFailures = 0;
+        for (var i = 0; i < WINDOW_BUCKETS; i++) {
+            if (this.bucketStarts[i] > windowStart) {
+                totalCalls += this.calls[i];
+                totalFailures += this.failures[i];
+            }
+        }
+        return totalCalls >= this.minCalls && totalFailures >= this.failureRateThreshold * totalCalls;
+    }
+
+    private void transition(State state, long now) {
+        if (state != this.state) {
+            this.logger.warn(String.format("Circuit breaker for %s is now %s.", this.name, state));
+        }
+        this.state = state;
+        this.stateSince = now;
+        this.probesStarted = 0;
+        this.probesSucceeded = 0;
+        if (state == State.CLOSED) {
+            // The failures which opened the breaker do not count against the recovered dependency.
+            Arrays.fill(this.calls, 0);
+            Arrays.fill(this.failures, 0);
+        }
+    }
+}
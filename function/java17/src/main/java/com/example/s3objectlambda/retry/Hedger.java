@@ -0,0 +1,143 @@
+package com.example.s3objectlambda.retry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends hedged requests to Amazon S3 to cut the tail latency. If the response headers have not arrived after the
+ * learned percentile of recent latencies, an identical request is sent. The first response is used, and the other
+ * request is cancelled.
+ *
+ * Each request earns a fraction of a hedge and each hedge spends a whole one, so hedges stay below the given share of
+ * the requests of the execution environment, with a small burst allowance.
+ */
+public class Hedger {
+
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    public static final double DEFAULT_MAX_HEDGE_RATIO = 0.05;
+    private static final double MAX_BURST = 5;
+
+    private final Logger logger;
+    private final LatencyTracker latencyTracker;
+    private final double percentile;
+    private final double maxHedgeRatio;
+    private double hedgeTokens;
+
+    public Hedger(LatencyTracker latencyTracker, double percentile, double maxHedgeRatio) {
+        this.latencyTracker = latencyTracker;
+        this.percentile = percentile;
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.logger = LoggerFactory.getLogger(Hedger.class);
+    }
+
+    public <T> HttpResponse<T> send(HttpClient httpClient, HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+
+        var hedgeDelay = this.latencyTracker.getPercentile(this.percentile);
+        this.earnHedgeToken();
+
+        var primary = this.sendTimed(httpClient, request, handler);
+        if (hedgeDelay.isEmpty()) {
+            return await(primary);
+        }
+
+        try {
+            return primary.get(hedgeDelay.getAsLong(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (!this.trySpendHedgeToken()) {
+                return await(primary);
+            }
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+
+        this.logger.info(String.format("No response after %s ms, sending a hedged request.",
+                TimeUnit.NANOSECONDS.toMillis(hedgeDelay.getAsLong())));
+        var hedge = this.sendTimed(httpClient, request, handler);
+        var first = firstSuccessful(primary, hedge);
+        try {
+            return await(first);
+        } finally {
+            cancelLoser(primary, first);
+            cancelLoser(hedge, first);
+        }
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> sendTimed(HttpClient httpClient, HttpRequest request,
+                                                              HttpResponse.BodyHandler<T> handler) {
+        var start = System.nanoTime();
+        var response = httpClient.sendAsync(request, handler);
+        response.thenRun(() -> this.latencyTracker.record(System.nanoTime() - start));
+        return response;
+    }
+
+    /**
+     * Completes with the first response, or with the error of the primary request if both fail.
+     */
+    private static <T> CompletableFuture<HttpResponse<T>> firstSuccessful(CompletableFuture<HttpResponse<T>> primary,
+                                                                           CompletableFuture<HttpResponse<T>> hedge) {
+        var first = new CompletableFuture<HttpResponse<T>>();
+        var failures = new AtomicInteger();
+        for (var request : List.of(primary, hedge)) {
+            request.whenComplete((response, error) -> {
+                if (error == null) {
+                    first.complete(response);
+                } else if (failures.incrementAndGet() == 2) {
+                    primary.whenComplete((ignored, primaryError) -> first.completeExceptionally(primaryError));
+                }
+            });
+        }
+        return first;
+    }
+
+    private static <T> void cancelLoser(CompletableFuture<HttpResponse<T>> request,
+                                        CompletableFuture<HttpResponse<T>> first) {
+        request.cancel(true);
+        // A response which arrived anyway is discarded.
+        request.thenAccept(response -> {
+            if (first.getNow(null) != response && response.body() instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) response.body()).close();
+                } catch (Exception e) {
+                    // Nothing else to release.
+                }
+            }
+        });
+    }
+
+    private static <T> HttpResponse<T> await(CompletableFuture<HttpResponse<T>> response)
+            throws IOException, InterruptedException {
+        try {
+            return response.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static IOException unwrap(ExecutionException e) {
+        return e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+    }
+
+    private synchronized void earnHedgeToken() {
+        this.hedgeTokens = Math.min(MAX_BURST, this.hedgeTokens + this.maxHedgeRatio);
+    }
+
+    private synchronized boolean trySpendHedgeToken() {
+        if (this.hedgeTokens < 1) {
+            return false;
+        }
+        this.hedgeTokens--;
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.s3objectlambda.retry;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+
+/**
+ * Keeps the most recent latencies of requests to Amazon S3 in a ring buffer, and estimates their percentiles.
+ * The percentile is recomputed once every few samples rather than on every lookup.
+ *
+ * The tracker lives as long as the execution environment and is shared between invocations.
+ */
+public class LatencyTracker {
+
+    public static final int DEFAULT_CAPACITY = 512;
+
+    // Percentiles are not estimated from fewer samples than this.
+    static final int MIN_SAMPLES = 20;
+    private static final int RECOMPUTE_INTERVAL = 16;
+
+    private final long[] samples;
+    private final long[] sorted;
+    private int next;
+    private int count;
+    private int sinceRecompute = RECOMPUTE_INTERVAL;
+    private double percentile = Double.NaN;
+    private long percentileValue;
+
+    public LatencyTracker(int capacity) {
+        this.samples = new long[capacity];
+        this.sorted = new long[capacity];
+    }
+
+    public synchronized void record(long latencyNanos) {
+        this.samples[this.next] = latencyNanos;
+        this.next = (this.next + 1) % this.samples.length;
+        this.count = Math.min(this.count + 1, this.samples.length);
+        this.sinceRecompute++;
+    }
+
+    /**
+     * @param percentile Between 0 and 1, for example 0.95.
+     * @return Returns the latency in nanoseconds, or Optional empty while there are too few samples.
+     */
+    public synchronized OptionalLong getPercentile(double percentile) {
+        if (this.count < MIN_SAMPLES) {
+            return OptionalLong.empty();
+        }
+
+        if (this.sinceRecompute >= RECOMPUTE_INTERVAL || percentile != this.percentile) {
+            System.arraycopy(this.samples, 0, this.sorted, 0, this.count);
+            Arrays.sort(this.sorted, 0, this.count);
+            var index = (int) Math.min(this.count - 1, Math.ceil(percentile * this.count) - 1);
+            this.percentileValue = this.sorted[Math.max(0, index)];
+            this.percentile = percentile;
+            this.sinceRecompute = 0;
+        }
+        return OptionalLong.of(this.percentileValue);
+    }
+}
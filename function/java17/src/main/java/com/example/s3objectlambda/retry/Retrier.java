@@ -0,0 +1,123 @@
+package com.example.s3objectlambda.retry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends requests to Amazon S3, and retries them after a network error or a 500, 502, 503 (SlowDown) or 504 response.
+ * A request is retried while the RetryPolicy allows another attempt, the RetryBudget of the execution environment has
+ * tokens left, and the Lambda function would still have enough time left once the backoff delay elapsed.
+ * Otherwise the last response, or error, is returned to the caller.
+ * Each attempt may itself be hedged, see Hedger.
+ */
+public class Retrier {
+
+    private static final Set<Integer> RETRYABLE_STATUS_CODES = Set.of(500, 502, 503, 504);
+
+    private final Logger logger;
+    private final RetryPolicy retryPolicy;
+    private final RetryBudget retryBudget;
+    private final LongSupplier remainingTimeMillis;
+    private final Hedger hedger;
+
+    /**
+     * @param remainingTimeMillis Returns the remaining execution time of the Lambda function, as
+     *                            Context.getRemainingTimeInMillis() does.
+     */
+    public Retrier(RetryPolicy retryPolicy, RetryBudget retryBudget, LongSupplier remainingTimeMillis) {
+        this(retryPolicy, retryBudget, remainingTimeMillis, null);
+    }
+
+    /**
+     * @param hedger Hedges each attempt, if not null.
+     */
+    public Retrier(RetryPolicy retryPolicy, RetryBudget retryBudget, LongSupplier remainingTimeMillis,
+                   Hedger hedger) {
+        this.retryPolicy = retryPolicy;
+        this.retryBudget = retryBudget;
+        this.remainingTimeMillis = remainingTimeMillis;
+        this.hedger = hedger;
+        this.logger = LoggerFactory.getLogger(Retrier.class);
+    }
+
+    /**
+     * Returns a Retrier which sends each request once.
+     */
+    public static Retrier noRetries() {
+        return new Retrier(RetryPolicy.noRetries(), new RetryBudget(0, 0), () -> Long.MAX_VALUE);
+    }
+
+    public <T> HttpResponse<T> send(HttpClient httpClient, HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+
+        var delayMillis = 0L;
+        for (var attempt = 1; ; attempt++) {
+            HttpResponse<T> response;
+            try {
+                response = this.hedger == null
+                        ? httpClient.send(request, handler) : this.hedger.send(httpClient, request, handler);
+            } catch (IOException e) {
+                delayMillis = this.retryPolicy.nextDelayMillis(delayMillis, ThreadLocalRandom.current().nextDouble());
+                if (!this.mayRetry(attempt, delayMillis)) {
+                    throw e;
+                }
+                this.logger.info(String.format("Retrying in %s ms after attempt %s failed: %s", delayMillis, attempt,
+                        e));
+                this.sleep(delayMillis);
+                continue;
+            }
+
+            if (!RETRYABLE_STATUS_CODES.contains(response.statusCode())) {
+                if (attempt == 1) {
+                    this.retryBudget.recordSuccess();
+                }
+                return response;
+            }
+
+            delayMillis = this.retryPolicy.nextDelayMillis(delayMillis, ThreadLocalRandom.current().nextDouble());
+            if (!this.mayRetry(attempt, delayMillis)) {
+                return response;
+            }
+            this.logger.info(String.format("Retrying in %s ms after attempt %s returned status code %s.",
+                    delayMillis, attempt, response.statusCode()));
+            closeBody(response);
+            this.sleep(delayMillis);
+        }
+    }
+
+    /**
+     * Waits before the next attempt.
+     */
+    protected void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    private boolean mayRetry(int attempt, long delayMillis) {
+        if (attempt >= this.retryPolicy.getMaxAttempts()) {
+            return false;
+        }
+        if (this.remainingTimeMillis.getAsLong() - delayMillis < this.retryPolicy.getMinRemainingTime().toMillis()) {
+            return false;
+        }
+        // The budget is checked last, so that no token is taken for a retry which would not happen.
+        return this.retryBudget.tryAcquire();
+    }
+
+    private void closeBody(HttpResponse<?> response) {
+        if (response.body() instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) response.body()).close();
+            } catch (Exception e) {
+                this.logger.warn("Error while closing the response body: " + e);
+            }
+        }
+    }
+}
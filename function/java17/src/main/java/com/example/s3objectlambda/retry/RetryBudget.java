@@ -0,0 +1,50 @@
+package com.example.s3objectlambda.retry;
+
+/**
+ * A token bucket which limits the share of retries in an execution environment, so that retries do not add to the
+ * load of Amazon S3 while it is overloaded. Each retry takes a token, and each request which succeeds at the first
+ * attempt puts back a fraction of a token. Once the bucket is empty, failed requests are no longer retried until
+ * enough requests succeed again.
+ *
+ * The budget lives as long as the execution environment and is shared between invocations.
+ */
+public class RetryBudget {
+
+    public static final int DEFAULT_CAPACITY = 10;
+
+    // With a tenth of a token per successful request, at most one request in ten is retried in the long run.
+    public static final double DEFAULT_REFILL_PER_SUCCESS = 0.1;
+
+    private final double capacity;
+    private final double refillPerSuccess;
+    private double tokens;
+
+    public RetryBudget(int capacity, double refillPerSuccess) {
+        this.capacity = capacity;
+        this.refillPerSuccess = refillPerSuccess;
+        this.tokens = capacity;
+    }
+
+    /**
+     * Takes a token for a retry.
+     * @return Returns false if the budget is exhausted and the request must not be retried.
+     */
+    public synchronized boolean tryAcquire() {
+        if (this.tokens < 1) {
+            return false;
+        }
+        this.tokens--;
+        return true;
+    }
+
+    /**
+     * Records a request which succeeded without being retried.
+     */
+    public synchronized void recordSuccess() {
+        this.tokens = Math.min(this.capacity, this.tokens + this.refillPerSuccess);
+    }
+
+    public synchronized double getTokens() {
+        return this.tokens;
+    }
+}
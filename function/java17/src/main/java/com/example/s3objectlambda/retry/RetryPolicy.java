@@ -0,0 +1,58 @@
+package com.example.s3objectlambda.retry;
+
+import java.time.Duration;
+
+/**
+ * How requests to Amazon S3 are retried: the number of attempts, and the bounds of the decorrelated jitter backoff
+ * between them. Each delay is drawn at random between the base delay and three times the previous delay, and capped
+ * at the maximum delay, so that callers retrying at the same time spread out.
+ */
+public class RetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(50);
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(1);
+
+    // A retry is only attempted if at least this much time would remain for it once the delay elapsed.
+    public static final Duration DEFAULT_MIN_REMAINING_TIME = Duration.ofSeconds(1);
+
+    private final int maxAttempts;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+    private final Duration minRemainingTime;
+
+    public RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay, Duration minRemainingTime) {
+        if (maxAttempts < 1 || baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0) {
+            throw new IllegalArgumentException(String.format("Invalid retry policy: %s attempts, delays %s to %s.",
+                    maxAttempts, baseDelay, maxDelay));
+        }
+
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.minRemainingTime = minRemainingTime;
+    }
+
+    public static RetryPolicy noRetries() {
+        return new RetryPolicy(1, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * Returns the delay before the next attempt.
+     * @param previousDelayMillis The previous delay, or zero before the first retry.
+     * @param random A random number between 0 inclusive and 1 exclusive.
+     */
+    public long nextDelayMillis(long previousDelayMillis, double random) {
+        var base = this.baseDelay.toMillis();
+        var upper = Math.max(base, Math.min(this.maxDelay.toMillis(), 3 * Math.max(previousDelayMillis, base)));
+        return base + (long) (random * (upper - base));
+    }
+
+    public int getMaxAttempts() {
+        return this.maxAttempts;
+    }
+
+    public Duration getMinRemainingTime() {
+        return this.minRemainingTime;
+    }
+}
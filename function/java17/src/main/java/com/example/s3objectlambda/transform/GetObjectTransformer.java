@@ -7,13 +7,22 @@ import com.example.s3objectlambda.exception.TransformationException;
 import com.example.s3objectlambda.request.GetObjectRequestWrapper;
 
 import java.net.URISyntaxException;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 /**
  * This is the transformer class for getObject requests.
  */
 
 public class GetObjectTransformer implements Transformer {
+
+    /*
+    TODO: Change the version whenever you change transformObjectResponse, so that callers holding an object
+    transformed by the previous version do not consider it as up to date.
+     */
+    private static final String VERSION = "1";
+
     private GetObjectRequestWrapper userRequest;
     public GetObjectTransformer(GetObjectRequestWrapper userRequest) {
         this.userRequest = userRequest;
@@ -59,4 +68,80 @@ public class GetObjectTransformer implements Transformer {
             return responseObjectByteArray;
         }
     }
+
+    /**
+     * Range requests are only served from cached blocks of the original object when this returns true. It returns
+     * false so that a transformation which changes the size or the order of the bytes is never served the wrong
+     * bytes, even though the transformation above leaves the object unchanged.
+     * TODO: Return true if every byte of your transformed object depends only on the byte at the same position of
+     * the original object.
+     */
+    @Override
+    public boolean isRangePreserving() {
+        return false;
+    }
+
+    @Override
+    public String getVersion() {
+        return VERSION;
+    }
+
+    /**
+     * TODO: Return false if your transformation depends on anything other than the original object and the request,
+     * for example the current time or a random value.
+     */
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
+
+    /**
+     * The transformation above only depends on the original object.
+     * TODO: Return the headers or query parameters of the request your transformation reads, for example Accept,
+     * with their values.
+     */
+    @Override
+    public Map<String, String> getRequestVariant() {
+        return Map.of();
+    }
+
+    /**
+     * TODO: Implement your transform headers logic here, consistently with transformObjectResponse.
+     *
+     * @param originalHeaders Headers of the original object, as returned by a HeadObject request.
+     * @return Transformed headers.
+     */
+    @Override
+    public Map<String, String> transformHeaders(Map<String, String> originalHeaders) {
+        return originalHeaders;
+    }
+
+    /**
+     * The transformation above keeps the length of the object.
+     * TODO: Return the length of the transformed object if your transformation changes it predictably,
+     * for example when it appends a fixed size trailer, or OptionalLong empty if it cannot be predicted.
+     */
+    @Override
+    public OptionalLong getTransformedLength(long originalLength) {
+        return OptionalLong.of(originalLength);
+    }
+
+    /**
+     * TODO: Implement your transform list logic here, for example to rename keys or hide objects.
+     *
+     * @param entry An object of the ListObjects or ListObjectsV2 result.
+     * @return Transformed object, or Optional empty to leave the object out of the result.
+     */
+    @Override
+    public Optional<ListEntry> transformListEntry(ListEntry entry) {
+        return Optional.of(entry);
+    }
+
+    /**
+     * TODO: Transform common prefixes consistently with the keys in transformListEntry.
+     */
+    @Override
+    public Optional<String> transformCommonPrefix(String prefix) {
+        return Optional.of(prefix);
+    }
 }
@@ -0,0 +1,68 @@
+package com.example.s3objectlambda.transform;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An object of a ListObjects or ListObjectsV2 result, as listed in a Contents element.
+ * Fields are kept in document order, and nested elements are addressed by their path, for example "Owner/ID".
+ * Fields that are unknown to the transformation are written back as they are.
+ */
+public class ListEntry {
+
+    private static final String KEY = "Key";
+
+    private final List<Map.Entry<String, String>> fields = new ArrayList<>();
+
+    public String getKey() {
+        return get(KEY).orElse(null);
+    }
+
+    public void setKey(String key) {
+        set(KEY, key);
+    }
+
+    /**
+     * Returns the value of the first field with the given path.
+     */
+    public Optional<String> get(String path) {
+        for (var field : this.fields) {
+            if (field.getKey().equals(path)) {
+                return Optional.of(field.getValue());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Replaces the value of the first field with the given path, or adds the field if there is none.
+     */
+    public void set(String path, String value) {
+        for (var field : this.fields) {
+            if (field.getKey().equals(path)) {
+                field.setValue(value);
+                return;
+            }
+        }
+        add(path, value);
+    }
+
+    /**
+     * Adds a field. Some fields, such as ChecksumAlgorithm, can appear more than once.
+     */
+    public void add(String path, String value) {
+        this.fields.add(new AbstractMap.SimpleEntry<>(path, value));
+    }
+
+    public void remove(String path) {
+        this.fields.removeIf(field -> field.getKey().equals(path));
+    }
+
+    public List<Map.Entry<String, String>> getFields() {
+        return Collections.unmodifiableList(this.fields);
+    }
+}
@@ -33,9 +33,22 @@ public class PartNumberMapper {
     public byte[] mapPartNumber(String partNumber, byte[] responseObjectByteArray)
             throws InvalidPartNumberException {
 
-        double objectLength;
-        objectLength = responseObjectByteArray.length;
-        double totalParts = Math.ceil(objectLength / this.partSize);
+        var bounds = resolveBounds(partNumber, responseObjectByteArray.length);
+        var objectPart = Arrays.copyOfRange(responseObjectByteArray, (int) bounds[0], (int) bounds[1] + 1);
+        return objectPart;
+
+    }
+
+    /**
+     * This method resolves the requested part against an object of the given length.
+     * @param partNumber Part number , this should be >0 and <= Total number of parts in the object.
+     * @param objectLength Length of the object from which a particular part is requested.
+     * @return Returns the first and the last byte position of the part, both inclusive.
+     * @throws InvalidPartNumberException
+     */
+    public long[] resolveBounds(String partNumber, long objectLength) throws InvalidPartNumberException {
+
+        double totalParts = Math.ceil((double) objectLength / this.partSize);
         int requestedPart;
 
         try {
@@ -50,10 +63,8 @@ public class PartNumberMapper {
                     "Use part number from 1 to %s.", requestedPart, totalParts));
         }
 
-        int partStart = (requestedPart - 1) * this.partSize;
-        int partEnd = (int) Math.min(partStart + this.partSize, objectLength);
-        var objectPart = Arrays.copyOfRange(responseObjectByteArray, partStart, partEnd);
-        return objectPart;
-
+        long partStart = (long) (requestedPart - 1) * this.partSize;
+        long partEnd = Math.min(partStart + this.partSize, objectLength);
+        return new long[]{partStart, partEnd - 1};
     }
 }
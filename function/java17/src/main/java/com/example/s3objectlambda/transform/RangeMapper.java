@@ -64,14 +64,25 @@ public class RangeMapper {
         throw new RuntimeException("Not implemented range unit support:" + this.range.getUnit());
     }
 
-    private byte[] applyRangeOnBytes(byte[] responseObjectByteArray) throws InvalidRangeException {
-        int rangeStart;
-        int rangeEnd;
-        int objectLength = responseObjectByteArray.length;
+    /**
+     * This function resolves the range against an object of the given length.
+     * @param objectLength Length of the object on which range to be applied.
+     * @return Returns the first and the last byte position of the range, both inclusive.
+     * @throws InvalidRangeException
+     */
+    public long[] resolveBounds(long objectLength) throws InvalidRangeException {
+
+        if (!Objects.equals(this.range.getUnit(), BYTES_UNIT)) {
+            throw new InvalidRangeException(String.format("Only %s as unit supported but %s was provided.",
+                    BYTES_UNIT, this.range.getUnit()));
+        }
+
+        long rangeStart;
+        long rangeEnd;
 
         if (this.range.getFirstPart() == null) {
 //          Range request was of the form <unit>=-<suffix-length> so we return the last `suffix-length` bytes.
-            int suffixLength = Integer.parseInt(this.range.getLastPart());
+            long suffixLength = Long.parseLong(this.range.getLastPart());
 
 //          If the byte array length is 26, the last byte is at 25th position in the array.
             rangeEnd = objectLength - 1;
@@ -79,11 +90,11 @@ public class RangeMapper {
 
         } else if (this.range.getLastPart() == null) {
 //          Range request was of the form <unit>=<range-start>- so we return from range-start to the end of the object.
-            rangeStart = Integer.parseInt(this.range.getFirstPart());
+            rangeStart = Long.parseLong(this.range.getFirstPart());
             rangeEnd = objectLength - 1;
         } else {
-            rangeStart = Integer.parseInt(this.range.getFirstPart());
-            rangeEnd = Integer.parseInt(this.range.getLastPart());
+            rangeStart = Long.parseLong(this.range.getFirstPart());
+            rangeEnd = Long.parseLong(this.range.getLastPart());
             rangeEnd = Math.min(objectLength - 1, rangeEnd); // Should not exceed object length
         }
 
@@ -91,8 +102,14 @@ public class RangeMapper {
             throw new InvalidRangeException("Invalid Range");
         }
 
+        return new long[]{rangeStart, rangeEnd};
+    }
+
+    private byte[] applyRangeOnBytes(byte[] responseObjectByteArray) throws InvalidRangeException {
+        var bounds = resolveBounds(responseObjectByteArray.length);
+
         //Add 1 at the range end because Arrays.copyOfRange's is exclusive.
-        var objectPart = Arrays.copyOfRange(responseObjectByteArray, rangeStart, rangeEnd + 1);
+        var objectPart = Arrays.copyOfRange(responseObjectByteArray, (int) bounds[0], (int) bounds[1] + 1);
         return objectPart;
     }
 }
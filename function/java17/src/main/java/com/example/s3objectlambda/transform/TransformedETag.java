@@ -0,0 +1,72 @@
+package com.example.s3objectlambda.transform;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ETag of a transformed object. It is derived from the ETag of the original object and the version of the
+ * transformation, so the same original object transformed by the same transformation always gets the same ETag,
+ * and a client revalidating its copy can be answered without transforming the object again.
+ */
+public final class TransformedETag {
+
+    private static final String ALGORITHM = "MD5";
+    private static final String ANY = "*";
+
+    private TransformedETag() {
+    }
+
+    /**
+     * @param sourceETag ETag of the original object as returned by Amazon S3.
+     * @param transformerVersion Version of the transformation applied on the object.
+     * @return Returns the quoted ETag of the transformed object.
+     */
+    public static String of(String sourceETag, String transformerVersion) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        var digest = md.digest((unquote(sourceETag) + ":" + transformerVersion).getBytes(StandardCharsets.UTF_8));
+        var hex = new StringBuilder("\"");
+        for (var b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.append("\"").toString();
+    }
+
+    /**
+     * Parses the value of an If-Match or If-None-Match header into the list of ETags, without quotes.
+     */
+    public static List<String> parseList(String headerValue) {
+        var eTags = new ArrayList<String>();
+        for (var eTag : headerValue.split(",")) {
+            var trimmed = eTag.trim();
+            if (!trimmed.isEmpty()) {
+                eTags.add(unquote(trimmed));
+            }
+        }
+        return eTags;
+    }
+
+    /**
+     * Returns true if the list of ETags, as sent in If-Match or If-None-Match, contains the given ETag.
+     */
+    public static boolean listContains(String headerValue, String eTag) {
+        var eTags = parseList(headerValue);
+        return eTags.contains(ANY) || eTags.contains(unquote(eTag));
+    }
+
+    public static String unquote(String eTag) {
+        var value = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+}
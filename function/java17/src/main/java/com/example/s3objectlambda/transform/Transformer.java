@@ -6,6 +6,9 @@ import com.example.s3objectlambda.exception.InvalidRangeException;
 import com.example.s3objectlambda.exception.TransformationException;
 
 import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 
 /**
  * This interface should be implemented by the class that transforms the response.
@@ -15,4 +18,54 @@ public interface Transformer {
 
     byte[] applyRangeOrPartNumber(byte[] responseObjectByteArray)
             throws URISyntaxException, InvalidRangeException, InvalidPartNumberException;
+
+    /**
+     * A transformation is range preserving when every byte of the output depends only on the byte at the same
+     * position of the input, so a range of the transformed object can be produced from the same range of the original.
+     */
+    boolean isRangePreserving();
+
+    /**
+     * The version of the transformation is part of the ETag of transformed objects. It must change whenever the
+     * transformation produces a different output for the same original object.
+     */
+    String getVersion();
+
+    /**
+     * A transformation is deterministic when the same original object always gives the same transformed object.
+     * Only then can the checksum of a transformed object be reused for later requests.
+     */
+    boolean isDeterministic();
+
+    /**
+     * Returns the parts of the request the transformed object depends on, such as a header or a query parameter which
+     * selects the output format. Concurrent requests only share a transformed object when these are the same.
+     */
+    Map<String, String> getRequestVariant();
+
+    /**
+     * Transforms the headers of the original object for HeadObject requests. The ETag and Content-Length of the
+     * transformed object are set afterwards.
+     */
+    Map<String, String> transformHeaders(Map<String, String> originalHeaders);
+
+    /**
+     * Predicts the length of the transformed object from the length of the original object, so that HeadObject
+     * requests can be answered without running the transformation.
+     * @return Returns OptionalLong empty if the length of the transformed object cannot be predicted.
+     */
+    OptionalLong getTransformedLength(long originalLength);
+
+    /**
+     * Transforms an object of a ListObjects or ListObjectsV2 result. Objects are transformed one at a time while the
+     * result is streamed. Keys are URL encoded if the request asked for encoding-type=url.
+     * @return Returns Optional empty to leave the object out of the result.
+     */
+    Optional<ListEntry> transformListEntry(ListEntry entry);
+
+    /**
+     * Transforms a common prefix of a ListObjects or ListObjectsV2 result.
+     * @return Returns Optional empty to leave the prefix out of the result.
+     */
+    Optional<String> transformCommonPrefix(String prefix);
 }
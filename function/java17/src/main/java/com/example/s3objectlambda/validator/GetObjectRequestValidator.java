@@ -1,10 +1,12 @@
 package com.example.s3objectlambda.validator;
 
+import com.example.s3objectlambda.filter.KeyVisibilityFilter;
 import com.example.s3objectlambda.request.GetObjectRequestWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URISyntaxException;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -15,10 +17,19 @@ public class GetObjectRequestValidator implements RequestValidator {
 
     private Logger logger;
     private GetObjectRequestWrapper userRequest;
+    private KeyVisibilityFilter keyVisibilityFilter;
 
     public GetObjectRequestValidator(GetObjectRequestWrapper userRequest) {
+        this(userRequest, KeyVisibilityFilter.compile(List.of()));
+    }
+
+    /**
+     * @param keyVisibilityFilter Keys hidden by the access point.
+     */
+    public GetObjectRequestValidator(GetObjectRequestWrapper userRequest, KeyVisibilityFilter keyVisibilityFilter) {
         this.logger = LoggerFactory.getLogger(GetObjectRequestValidator.class);
         this.userRequest = userRequest;
+        this.keyVisibilityFilter = keyVisibilityFilter;
     }
 
     /**
@@ -44,4 +55,21 @@ public class GetObjectRequestValidator implements RequestValidator {
 
         return Optional.empty();
     }
+
+    @Override
+    public Optional<String> validateKeyVisibility() {
+        if (this.keyVisibilityFilter.hidesNothing()) {
+            return Optional.empty();
+        }
+
+        try {
+            if (this.keyVisibilityFilter.isHidden(this.userRequest.getKey())) {
+                return Optional.of("The specified key does not exist.");
+            }
+        } catch (URISyntaxException e) {
+            this.logger.error("Exception in validation: " + e);
+            return Optional.of("Invalid request URI");
+        }
+        return Optional.empty();
+    }
 }
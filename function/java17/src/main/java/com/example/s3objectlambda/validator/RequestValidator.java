@@ -8,4 +8,13 @@ import java.util.Optional;
  */
 public interface RequestValidator {
     Optional<String> validateUserRequest();
+
+    /**
+     * Checks that the requested key is visible through the access point. Hidden keys are answered as if they
+     * did not exist.
+     * @return Optional error message if the key is hidden, Optional empty otherwise.
+     */
+    default Optional<String> validateKeyVisibility() {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,79 @@
+package com.example.s3objectlambda.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BlockCacheTest {
+
+    private static final String OBJECT_ID = "test-ap.s3-accesspoint.us-east-1.amazonaws.com/test";
+
+    @Test
+    @DisplayName("Object is split into aligned blocks and can be read back.")
+    public void putObjectAndReadBlocks() {
+        var blockCache = new BlockCache(4, 16);
+        var object = "0123456789".getBytes(StandardCharsets.UTF_8);
+        blockCache.putObject(OBJECT_ID, "etag", object);
+
+        assertEquals(10, blockCache.getObjectVersion(OBJECT_ID).get().getLength());
+
+        var destination = new byte[2];
+        assertTrue(blockCache.readBlock(OBJECT_ID, "etag", 2, 0, destination, 0, 2));
+        assertArrayEquals("89".getBytes(StandardCharsets.UTF_8), destination);
+
+        // The last block only holds 2 bytes.
+        assertFalse(blockCache.readBlock(OBJECT_ID, "etag", 2, 0, new byte[3], 0, 3));
+    }
+
+    @Test
+    @DisplayName("Object larger than a quarter of the cache is not stored.")
+    public void putObjectTooLarge() {
+        var blockCache = new BlockCache(4, 8);
+
+        assertFalse(blockCache.putObject(OBJECT_ID, "etag", "0123456789".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(blockCache.getObjectVersion(OBJECT_ID).isEmpty());
+        assertTrue(blockCache.putObject(OBJECT_ID, "etag", "01234567".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("Blocks of another ETag are not returned.")
+    public void readBlockOtherETag() {
+        var blockCache = new BlockCache(4, 16);
+        blockCache.putObject(OBJECT_ID, "etag", "0123456789".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(blockCache.readBlock(OBJECT_ID, "other-etag", 0, 0, new byte[4], 0, 4));
+    }
+
+    @Test
+    @DisplayName("Least recently used block is evicted when the cache is full.")
+    public void evictLeastRecentlyUsed() {
+        var blockCache = new BlockCache(4, 2);
+        var block = "abcd".getBytes(StandardCharsets.UTF_8);
+        blockCache.putBlock(OBJECT_ID, "etag", 0, block, 0, 4);
+        blockCache.putBlock(OBJECT_ID, "etag", 1, block, 0, 4);
+
+        // Block 0 becomes the most recently used, so block 1 is evicted.
+        assertTrue(blockCache.readBlock(OBJECT_ID, "etag", 0, 0, new byte[4], 0, 4));
+        blockCache.putBlock(OBJECT_ID, "etag", 2, block, 0, 4);
+
+        assertTrue(blockCache.readBlock(OBJECT_ID, "etag", 0, 0, new byte[4], 0, 4));
+        assertFalse(blockCache.readBlock(OBJECT_ID, "etag", 1, 0, new byte[4], 0, 4));
+        assertTrue(blockCache.readBlock(OBJECT_ID, "etag", 2, 0, new byte[4], 0, 4));
+    }
+
+    @Test
+    @DisplayName("Invalidated object has no known version.")
+    public void invalidate() {
+        var blockCache = new BlockCache(4, 16);
+        blockCache.putObject(OBJECT_ID, "etag", "0123456789".getBytes(StandardCharsets.UTF_8));
+        blockCache.invalidate(OBJECT_ID);
+
+        assertTrue(blockCache.getObjectVersion(OBJECT_ID).isEmpty());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.s3objectlambda.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ListPageCacheTest {
+
+    @Test
+    @DisplayName("Pages expire after their time to live.")
+    public void pageExpires() {
+        var clock = new AtomicLong();
+        var listPageCache = new ListPageCache(1024, clock::get);
+        listPageCache.put("page", "<ListBucketResult/>", Duration.ofSeconds(5));
+
+        clock.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertEquals("<ListBucketResult/>", listPageCache.get("page").get());
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(listPageCache.get("page").isEmpty());
+        assertEquals(0, listPageCache.getBytes());
+    }
+
+    @Test
+    @DisplayName("The time to live is capped.")
+    public void ttlIsCapped() {
+        var clock = new AtomicLong();
+        var listPageCache = new ListPageCache(1024, clock::get);
+        listPageCache.put("page", "<ListBucketResult/>", Duration.ofHours(1));
+
+        clock.addAndGet(ListPageCache.MAX_TTL.toNanos());
+        assertTrue(listPageCache.get("page").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Least recently used pages are evicted to stay within the byte budget.")
+    public void evictsWithinByteBudget() {
+        var listPageCache = new ListPageCache(100, System::nanoTime);
+        listPageCache.put("a", "x".repeat(19), Duration.ofSeconds(5));
+        listPageCache.put("b", "x".repeat(19), Duration.ofSeconds(5));
+        listPageCache.get("a");
+        listPageCache.put("c", "x".repeat(19), Duration.ofSeconds(5));
+
+        assertTrue(listPageCache.get("a").isPresent());
+        assertFalse(listPageCache.get("b").isPresent());
+        assertTrue(listPageCache.get("c").isPresent());
+        assertEquals(80, listPageCache.getBytes());
+
+        // Pages larger than the whole budget are not cached.
+        listPageCache.put("d", "x".repeat(100), Duration.ofSeconds(5));
+        assertFalse(listPageCache.get("d").isPresent());
+    }
+
+    @Test
+    @DisplayName("Nothing is cached without a time to live.")
+    public void zeroTtl() {
+        var listPageCache = new ListPageCache(1024);
+        listPageCache.put("page", "<ListBucketResult/>", Duration.ZERO);
+
+        assertTrue(listPageCache.get("page").isEmpty());
+    }
+}
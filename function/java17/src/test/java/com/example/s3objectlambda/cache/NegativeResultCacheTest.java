@@ -0,0 +1,57 @@
+package com.example.s3objectlambda.cache;
+
+import com.example.s3objectlambda.error.Error;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NegativeResultCacheTest {
+
+    @Test
+    @DisplayName("Negative results expire after their time to live, and hits and misses are counted.")
+    public void resultExpires() {
+        var clock = new AtomicLong();
+        var negativeResultCache = new NegativeResultCache(16, clock::get);
+        negativeResultCache.put("missing", Error.NO_SUCH_KEY, Duration.ofSeconds(2));
+
+        assertEquals(Error.NO_SUCH_KEY, negativeResultCache.get("missing").get());
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertTrue(negativeResultCache.get("missing").isEmpty());
+        assertTrue(negativeResultCache.get("other").isEmpty());
+
+        assertEquals(1, negativeResultCache.getHits());
+        assertEquals(2, negativeResultCache.getMisses());
+    }
+
+    @Test
+    @DisplayName("The time to live is capped and zero turns the cache off.")
+    public void ttlIsBounded() {
+        var clock = new AtomicLong();
+        var negativeResultCache = new NegativeResultCache(16, clock::get);
+        negativeResultCache.put("forbidden", Error.ACCESS_DENIED, Duration.ofDays(1));
+        negativeResultCache.put("missing", Error.NO_SUCH_KEY, Duration.ZERO);
+
+        assertTrue(negativeResultCache.get("missing").isEmpty());
+        clock.addAndGet(NegativeResultCache.MAX_TTL.toNanos());
+        assertTrue(negativeResultCache.get("forbidden").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Least recently used results are evicted once the cache is full.")
+    public void evictsLeastRecentlyUsed() {
+        var negativeResultCache = new NegativeResultCache(2);
+        negativeResultCache.put("a", Error.NO_SUCH_KEY, Duration.ofSeconds(5));
+        negativeResultCache.put("b", Error.NO_SUCH_KEY, Duration.ofSeconds(5));
+        negativeResultCache.get("a");
+        negativeResultCache.put("c", Error.NO_SUCH_KEY, Duration.ofSeconds(5));
+
+        assertTrue(negativeResultCache.get("a").isPresent());
+        assertTrue(negativeResultCache.get("b").isEmpty());
+        assertTrue(negativeResultCache.get("c").isPresent());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.s3objectlambda.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StaleObjectCacheTest {
+
+    @Test
+    @DisplayName("Copies are only served within the staleness window.")
+    public void stalenessWindow() {
+        var clock = new AtomicLong();
+        var staleObjectCache = new StaleObjectCache(1024, clock::get);
+        staleObjectCache.put("object", new byte[10], "\"etag\"");
+
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        var staleObject = staleObjectCache.get("object", Duration.ofMinutes(1)).get();
+        assertEquals(Duration.ofSeconds(30), staleObject.getAge());
+        assertEquals("\"etag\"", staleObject.getSourceETag());
+
+        assertTrue(staleObjectCache.get("object", Duration.ofSeconds(10)).isEmpty());
+        clock.addAndGet(StaleObjectCache.MAX_STALENESS.toNanos());
+        assertTrue(staleObjectCache.get("object", Duration.ofDays(1)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Least recently used copies are evicted to stay within the byte budget.")
+    public void evictsWithinByteBudget() {
+        var staleObjectCache = new StaleObjectCache(25);
+        staleObjectCache.put("a", new byte[10], null);
+        staleObjectCache.put("b", new byte[10], null);
+        staleObjectCache.get("a", Duration.ofMinutes(1));
+        staleObjectCache.put("c", new byte[10], null);
+        staleObjectCache.put("d", new byte[26], null);
+
+        assertTrue(staleObjectCache.get("a", Duration.ofMinutes(1)).isPresent());
+        assertTrue(staleObjectCache.get("b", Duration.ofMinutes(1)).isEmpty());
+        assertTrue(staleObjectCache.get("c", Duration.ofMinutes(1)).isPresent());
+        assertTrue(staleObjectCache.get("d", Duration.ofMinutes(1)).isEmpty());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.s3objectlambda.checksum;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class Crc32cChecksumTest {
+
+    @Test
+    @DisplayName("CRC32C of the standard check input.")
+    public void getChecksumTest() {
+        var checksum = new Crc32cChecksum().getChecksum("123456789".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals("CRC32C", checksum.getAlgorithm());
+        assertEquals(encode(0xE3069283), checksum.getChecksum());
+    }
+
+    @Test
+    @DisplayName("CRC32C computed in parallel chunks matches the sequential CRC32C.")
+    public void getChecksumParallelTest() {
+        var objectResponse = new byte[CombinableChecksum.PARALLEL_CHUNK_SIZE * 3 + 12345];
+        new Random(42).nextBytes(objectResponse);
+
+        var crc32c = new CRC32C();
+        crc32c.update(objectResponse);
+
+        assertEquals(encode((int) crc32c.getValue()), new Crc32cChecksum().getChecksum(objectResponse).getChecksum());
+    }
+
+    @Test
+    @DisplayName("Combined CRC32C of two chunks matches the CRC32C of their concatenation.")
+    public void combineTest() {
+        var bytes = "Hello, Amazon S3 Object Lambda!".getBytes(StandardCharsets.UTF_8);
+        var generator = new Crc32cChecksum();
+
+        var combined = generator.combine(generator.checksum(bytes, 0, 10), generator.checksum(bytes, 10,
+                bytes.length - 10), bytes.length - 10);
+
+        assertEquals(generator.checksum(bytes, 0, bytes.length), combined);
+    }
+
+    @Test
+    @DisplayName("CRC32C updated chunk by chunk matches the CRC32C of the whole object.")
+    public void incrementalChecksumTest() {
+        var objectResponse = new byte[100_000];
+        new Random(42).nextBytes(objectResponse);
+        var generator = new Crc32cChecksum();
+
+        // Odd sized chunks, so that the chunks are not aligned with the slices of the CRC.
+        var checksum = generator.newIncrementalChecksum();
+        for (var offset = 0; offset < objectResponse.length; offset += 8191) {
+            checksum.update(objectResponse, offset, Math.min(8191, objectResponse.length - offset));
+        }
+
+        assertEquals(generator.getChecksum(objectResponse).getChecksum(), checksum.finish().getChecksum());
+    }
+
+    private static String encode(int crc) {
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(4).putInt(crc).array());
+    }
+}
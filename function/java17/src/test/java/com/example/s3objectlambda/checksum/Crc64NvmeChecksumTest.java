@@ -0,0 +1,67 @@
+package com.example.s3objectlambda.checksum;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class Crc64NvmeChecksumTest {
+
+    @Test
+    @DisplayName("CRC64NVME of the standard check input.")
+    public void getChecksumTest() {
+        var checksum = new Crc64NvmeChecksum().getChecksum("123456789".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals("CRC64NVME", checksum.getAlgorithm());
+        assertEquals(encode(0xAE8B14860A799888L), checksum.getChecksum());
+    }
+
+    @Test
+    @DisplayName("CRC64NVME computed in parallel chunks matches the sequential CRC64NVME.")
+    public void getChecksumParallelTest() {
+        var objectResponse = new byte[CombinableChecksum.PARALLEL_CHUNK_SIZE * 2 + 7];
+        new Random(42).nextBytes(objectResponse);
+
+        var generator = new Crc64NvmeChecksum();
+        var sequential = generator.checksum(objectResponse, 0, objectResponse.length);
+
+        assertEquals(encode(sequential), generator.getChecksum(objectResponse).getChecksum());
+    }
+
+    @Test
+    @DisplayName("Combined CRC64NVME of two chunks matches the CRC64NVME of their concatenation.")
+    public void combineTest() {
+        var bytes = "Hello, Amazon S3 Object Lambda!".getBytes(StandardCharsets.UTF_8);
+        var generator = new Crc64NvmeChecksum();
+
+        var combined = generator.combine(generator.checksum(bytes, 0, 13), generator.checksum(bytes, 13,
+                bytes.length - 13), bytes.length - 13);
+
+        assertEquals(generator.checksum(bytes, 0, bytes.length), combined);
+    }
+
+    @Test
+    @DisplayName("CRC64NVME updated chunk by chunk matches the CRC64NVME of the whole object.")
+    public void incrementalChecksumTest() {
+        var objectResponse = new byte[100_000];
+        new Random(42).nextBytes(objectResponse);
+        var generator = new Crc64NvmeChecksum();
+
+        // Odd sized chunks, so that the chunks are not aligned with the slices of the CRC.
+        var checksum = generator.newIncrementalChecksum();
+        for (var offset = 0; offset < objectResponse.length; offset += 8191) {
+            checksum.update(objectResponse, offset, Math.min(8191, objectResponse.length - offset));
+        }
+
+        assertEquals(generator.getChecksum(objectResponse).getChecksum(), checksum.finish().getChecksum());
+    }
+
+    private static String encode(long crc) {
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(8).putLong(crc).array());
+    }
+}
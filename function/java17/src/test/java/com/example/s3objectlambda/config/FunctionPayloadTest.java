@@ -0,0 +1,65 @@
+package com.example.s3objectlambda.config;
+
+import com.example.s3objectlambda.checksum.ChecksumAlgorithm;
+import com.example.s3objectlambda.checksum.ChecksumStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FunctionPayloadTest {
+
+    @Test
+    @DisplayName("Checksum strategy is read from the payload.")
+    public void parseChecksumStrategy() {
+        var functionPayload = FunctionPayload.parse("{\"checksumStrategy\": \"derived\"}");
+        assertEquals(ChecksumStrategy.DERIVED, functionPayload.getChecksumStrategy());
+    }
+
+    @Test
+    @DisplayName("Checksum algorithm is read from the payload.")
+    public void parseChecksumAlgorithm() {
+        var functionPayload = FunctionPayload.parse("{\"checksumAlgorithm\": \"CRC64NVME\"}");
+        assertEquals(ChecksumAlgorithm.CRC64NVME, functionPayload.getChecksumAlgorithm());
+        assertEquals(ChecksumAlgorithm.MD5, FunctionPayload.parse("{}").getChecksumAlgorithm());
+    }
+
+    @Test
+    @DisplayName("Defaults are used when the payload is empty or not JSON.")
+    public void parseNonJsonPayload() {
+        assertEquals(ChecksumStrategy.FULL, FunctionPayload.parse(null).getChecksumStrategy());
+        assertEquals(ChecksumStrategy.FULL, FunctionPayload.parse("hello-world").getChecksumStrategy());
+    }
+
+    @Test
+    @DisplayName("Defaults are used when a setting is invalid.")
+    public void parseInvalidSetting() {
+        var functionPayload = FunctionPayload.parse("{\"checksumStrategy\": \"sometimes\"}");
+        assertEquals(ChecksumStrategy.FULL, functionPayload.getChecksumStrategy());
+    }
+
+    @Test
+    @DisplayName("Hidden keys and the list cache time to live are read from the payload.")
+    public void parseListSettings() {
+        var functionPayload = FunctionPayload.parse(
+                "{\"hiddenKeys\": [\"private/\", 3, \"*.secret\"], \"listCacheTtlSeconds\": 5}");
+        assertEquals(List.of("private/", "*.secret"), functionPayload.getHiddenKeys());
+        assertEquals(Duration.ofSeconds(5), functionPayload.getListCacheTtl());
+
+        assertEquals(List.of(), FunctionPayload.parse("{}").getHiddenKeys());
+        assertEquals(Duration.ZERO, FunctionPayload.parse("{}").getListCacheTtl());
+        assertEquals(Duration.ZERO,
+                FunctionPayload.parse("{\"listCacheTtlSeconds\": -1}").getListCacheTtl());
+    }
+
+    @Test
+    @DisplayName("Negative results are only cached when the payload sets a time to live.")
+    public void parseNegativeCacheTtl() {
+        assertEquals(Duration.ZERO, FunctionPayload.parse("{}").getNegativeCacheTtl());
+        assertEquals(Duration.ofSeconds(5),
+                FunctionPayload.parse("{\"negativeCacheTtlSeconds\": 5}").getNegativeCacheTtl());
+    }
+}
@@ -8,9 +8,14 @@ import org.junit.jupiter.api.TestInstance;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -76,6 +81,53 @@ public class S3RequestErrorTest {
         }
     }
 
+    @Test
+    @DisplayName("Parser stops reading once Code, Message and RequestId are known.")
+    void testParseStopsEarly() throws SAXException, IOException {
+        var body = getS3XMLErrorResponse().replace("</Error>", "<HostId>" + "x".repeat(100_000) + "</HostId>");
+        var errorResponse = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+
+        var s3RequestError = this.xmlErrorParser.parse(errorResponse);
+
+        assertEquals("No-SuchKey", s3RequestError.getCode());
+        assertTrue(errorResponse.available() > 90_000);
+    }
+
+    @Test
+    @DisplayName("Parser never reads more than the maximum error response size.")
+    void testParseBounded() {
+        var readBytes = new int[1];
+        var endless = new InputStream() {
+            @Override
+            public int read() {
+                readBytes[0]++;
+                return readBytes[0] == 1 ? '<' : 'x';
+            }
+        };
+
+        assertThrows(SAXException.class, () -> this.xmlErrorParser.parse(endless));
+        assertTrue(readBytes[0] <= XMLErrorParser.MAX_ERROR_RESPONSE_BYTES);
+    }
+
+    @Test
+    @DisplayName("Parser keeps the fields it read when Message or RequestId are missing.")
+    void testParseMissingOptionalFields() throws ParserConfigurationException, SAXException, IOException {
+        var s3RequestError = this.xmlErrorParser.parse("<Error><Code>SlowDown</Code></Error>");
+
+        assertEquals("SlowDown", s3RequestError.getCode());
+        assertNull(s3RequestError.getMessage());
+        assertNull(s3RequestError.getRequestId());
+    }
+
+    @Test
+    @DisplayName("Parser rejects documents with a DTD.")
+    void testParseRejectsDtd() {
+        var xmlResponse = "<?xml version=\"1.0\"?><!DOCTYPE Error [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>"
+                + "<Error><Code>&xxe;</Code></Error>";
+
+        assertThrows(SAXException.class, () -> this.xmlErrorParser.parse(xmlResponse));
+    }
+
     private String getS3XMLErrorResponse() {
         return "" +
                 "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
@@ -0,0 +1,109 @@
+package com.example.s3objectlambda.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeyVisibilityFilterTest {
+
+    @Test
+    @DisplayName("Without patterns no key is hidden.")
+    void testNoPatterns() {
+        var filter = KeyVisibilityFilter.compile(List.of());
+
+        assertTrue(filter.hidesNothing());
+        assertFalse(filter.isHidden(""));
+        assertFalse(filter.isHidden("private/a.txt"));
+    }
+
+    @Test
+    @DisplayName("Patterns without wildcards hide every key starting with them.")
+    void testPrefixes() {
+        var filter = KeyVisibilityFilter.compile(List.of("private/", "tmp", "private/archive/"));
+
+        assertTrue(filter.isHidden("private/a.txt"));
+        assertTrue(filter.isHidden("private/"));
+        assertTrue(filter.isHidden("tmp"));
+        assertTrue(filter.isHidden("tmp-2022/a.txt"));
+        assertFalse(filter.isHidden("privat"));
+        assertFalse(filter.isHidden("public/private/a.txt"));
+        assertFalse(filter.isHidden("tm"));
+    }
+
+    @Test
+    @DisplayName("A single star does not match a slash, a double star does.")
+    void testGlobs() {
+        var filter = KeyVisibilityFilter.compile(List.of("*.secret", "logs/**.tmp", "img/??.png"));
+
+        assertTrue(filter.isHidden("a.secret"));
+        assertTrue(filter.isHidden(".secret"));
+        assertFalse(filter.isHidden("dir/a.secret"));
+        assertFalse(filter.isHidden("a.secret.txt"));
+
+        assertTrue(filter.isHidden("logs/a.tmp"));
+        assertTrue(filter.isHidden("logs/2022/01/a.tmp"));
+        assertFalse(filter.isHidden("logs/a.tmp.gz"));
+        assertFalse(filter.isHidden("other/logs/a.tmp"));
+
+        assertTrue(filter.isHidden("img/ab.png"));
+        assertFalse(filter.isHidden("img/a.png"));
+        assertFalse(filter.isHidden("img/a/.png"));
+    }
+
+    @Test
+    @DisplayName("Prefixes and globs are combined.")
+    void testPrefixesAndGlobs() {
+        var filter = KeyVisibilityFilter.compile(List.of("private/", "**/.git/**"));
+
+        assertTrue(filter.isHidden("private/a.txt"));
+        assertTrue(filter.isHidden("repo/.git/config"));
+        assertFalse(filter.isHidden("repo/.github/config"));
+        assertFalse(filter.isHidden("repo/a.txt"));
+    }
+
+    @Test
+    @DisplayName("Only prefix patterns hide common prefixes.")
+    void testCommonPrefixes() {
+        var filter = KeyVisibilityFilter.compile(List.of("private/", "**.secret"));
+
+        assertTrue(filter.isCommonPrefixHidden("private/"));
+        assertTrue(filter.isCommonPrefixHidden("private/2022/"));
+        assertFalse(filter.isCommonPrefixHidden("public/"));
+        assertFalse(filter.isCommonPrefixHidden("a.secret/"));
+    }
+
+    @Test
+    @DisplayName("Many patterns still compile into a single automaton.")
+    void testManyPatterns() {
+        var patterns = new ArrayList<String>();
+        for (var i = 0; i < 200; i++) {
+            patterns.add("tenant-" + i + "/*.key");
+            patterns.add("tenant-" + i + "/private/");
+        }
+        var filter = KeyVisibilityFilter.compile(patterns);
+
+        assertTrue(filter.isHidden("tenant-199/a.key"));
+        assertTrue(filter.isHidden("tenant-7/private/a.txt"));
+        assertFalse(filter.isHidden("tenant-200/a.key"));
+        assertFalse(filter.isHidden("tenant-7/a.txt"));
+    }
+
+    @Test
+    @DisplayName("Patterns whose automaton would be too large are rejected, the filter then hides every key.")
+    void testTooComplexPatterns() {
+        // Each of these patterns multiplies the number of states of the automaton.
+        var patterns = new ArrayList<String>();
+        for (var i = 0; i < 20; i++) {
+            patterns.add("**" + (char) ('a' + i) + "?????????????");
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> KeyVisibilityFilter.compile(patterns));
+        assertTrue(KeyVisibilityFilter.hideAll().isHidden("any/key"));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.s3objectlambda.request;
+
+import com.example.s3objectlambda.cache.BlockCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BlockCacheReaderTest {
+
+    private static final String OBJECT_ID = "test-ap.s3-accesspoint.us-east-1.amazonaws.com/test";
+    private static final byte[] ORIGINAL_OBJECT = "abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_8);
+
+    private BlockCache blockCache;
+    private BlockCacheReader blockCacheReader;
+    private List<String> fetchedRanges;
+
+    @BeforeEach
+    void setup() {
+        this.blockCache = new BlockCache(4, 32);
+        this.blockCacheReader = new BlockCacheReader(this.blockCache);
+        this.fetchedRanges = new ArrayList<>();
+    }
+
+    @Test
+    @DisplayName("A suffix range is not served before the object version is known.")
+    public void readRangeUnknownObject() throws Exception {
+        var result = this.blockCacheReader.readRange(OBJECT_ID, "bytes=-4", this::fetchFromObject);
+
+        assertTrue(result.isEmpty());
+        assertTrue(this.fetchedRanges.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Adjacent missing blocks are fetched with a single ranged GET.")
+    public void readRangeMergesMissingBlocks() throws Exception {
+        this.blockCache.putObjectVersion(OBJECT_ID, new BlockCache.ObjectVersion("etag", ORIGINAL_OBJECT.length));
+        this.blockCache.putBlock(OBJECT_ID, "etag", 1, ORIGINAL_OBJECT, 4, 4);
+        this.blockCache.putBlock(OBJECT_ID, "etag", 4, ORIGINAL_OBJECT, 16, 4);
+
+        // Blocks 1 and 4 are cached, so block 0 is fetched on its own and blocks 2 and 3 together.
+
+        var result = this.blockCacheReader.readRange(OBJECT_ID, "bytes=2-17", this::fetchFromObject);
+
+        assertEquals("cdefghijklmnopqr", new String(result.get(), StandardCharsets.UTF_8));
+        assertEquals(List.of("0-3", "8-15"), this.fetchedRanges);
+    }
+
+    @Test
+    @DisplayName("Fully cached range is revalidated with a single byte request.")
+    public void readRangeFullyCached() throws Exception {
+        this.blockCacheReader.cacheObject(OBJECT_ID, "etag", ORIGINAL_OBJECT);
+
+        var result = this.blockCacheReader.readRange(OBJECT_ID, "bytes=-5", this::fetchFromObject);
+
+        assertEquals("vwxyz", new String(result.get(), StandardCharsets.UTF_8));
+        assertEquals(List.of("21-21"), this.fetchedRanges);
+    }
+
+    @Test
+    @DisplayName("An object larger than a quarter of the cache is cached block by block from its first range.")
+    public void readRangeLargeUnknownObject() throws Exception {
+        this.blockCache = new BlockCache(4, 4);
+        this.blockCacheReader = new BlockCacheReader(this.blockCache);
+        assertTrue(ORIGINAL_OBJECT.length > this.blockCache.getCapacity() / 4);
+
+        var first = this.blockCacheReader.readRange(OBJECT_ID, "bytes=5-9", this::fetchFromObject);
+        var second = this.blockCacheReader.readRange(OBJECT_ID, "bytes=8-13", this::fetchFromObject);
+
+        assertEquals("fghij", new String(first.get(), StandardCharsets.UTF_8));
+        assertEquals("ijklmn", new String(second.get(), StandardCharsets.UTF_8));
+        assertEquals(ORIGINAL_OBJECT.length, this.blockCache.getObjectVersion(OBJECT_ID).get().getLength());
+        // The version is learnt with the first blocks, block 2 is then read from the cache and block 3 fetched.
+        assertEquals(List.of("4-11", "12-15"), this.fetchedRanges);
+    }
+
+    @Test
+    @DisplayName("Changed object invalidates the cache.")
+    public void readRangeObjectChanged() throws Exception {
+        this.blockCacheReader.cacheObject(OBJECT_ID, "old-etag", ORIGINAL_OBJECT);
+
+        var result = this.blockCacheReader.readRange(OBJECT_ID, "bytes=0-3", this::fetchFromObject);
+
+        assertTrue(result.isEmpty());
+        assertTrue(this.blockCache.getObjectVersion(OBJECT_ID).isEmpty());
+    }
+
+    private HttpResponse<InputStream> fetchFromObject(long start, long end, String eTag) {
+        this.fetchedRanges.add(start + "-" + end);
+
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        if (eTag != null && !eTag.equals("etag")) {
+            when(response.statusCode()).thenReturn(412);
+            when(response.body()).thenReturn(new ByteArrayInputStream(new byte[0]));
+            return response;
+        }
+
+        // Amazon S3 stops at the end of the object.
+        end = Math.min(end, ORIGINAL_OBJECT.length - 1);
+        when(response.statusCode()).thenReturn(206);
+        when(response.headers()).thenReturn(HttpHeaders.of(Map.of(
+                "ETag", List.of("etag"),
+                "Content-Range", List.of(String.format("bytes %s-%s/%s", start, end, ORIGINAL_OBJECT.length))),
+                (name, value) -> true));
+        when(response.body()).thenReturn(new ByteArrayInputStream(
+                Arrays.copyOfRange(ORIGINAL_OBJECT, (int) start, (int) end + 1)));
+        return response;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.s3objectlambda.request;
+
+import com.example.s3objectlambda.cache.ETagCache;
+import com.example.s3objectlambda.transform.TransformedETag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConditionalRequestTest {
+
+    private static final String VERSION = "1";
+    private static final String SOURCE_ETAG = "\"source-etag\"";
+
+    private ETagCache eTagCache;
+    private String transformedETag;
+
+    @BeforeEach
+    void setup() {
+        this.eTagCache = new ETagCache(ETagCache.DEFAULT_MAX_ENTRIES);
+        this.transformedETag = TransformedETag.of(SOURCE_ETAG, VERSION);
+    }
+
+    @Test
+    @DisplayName("Known transformed ETag in If-None-Match is translated to the original ETag.")
+    public void rewriteKnownIfNoneMatch() {
+        new ConditionalRequest(Map.of(), this.eTagCache, VERSION).toTransformedETag(SOURCE_ETAG);
+
+        var userHeaders = Map.of("If-None-Match", this.transformedETag);
+        var httpHeaders = new HashMap<>(userHeaders);
+        new ConditionalRequest(userHeaders, this.eTagCache, VERSION).rewriteHeaders(httpHeaders, List.of("host"));
+
+        assertEquals(SOURCE_ETAG, httpHeaders.get("If-None-Match"));
+    }
+
+    @Test
+    @DisplayName("Signed conditional headers are not modified.")
+    public void rewriteSignedIfNoneMatch() {
+        new ConditionalRequest(Map.of(), this.eTagCache, VERSION).toTransformedETag(SOURCE_ETAG);
+
+        var userHeaders = Map.of("If-None-Match", this.transformedETag);
+        var httpHeaders = new HashMap<>(userHeaders);
+        new ConditionalRequest(userHeaders, this.eTagCache, VERSION)
+                .rewriteHeaders(httpHeaders, List.of("host", "if-none-match"));
+
+        assertEquals(this.transformedETag, httpHeaders.get("If-None-Match"));
+    }
+
+    @Test
+    @DisplayName("Unknown If-Match is removed and evaluated on the transformed ETag.")
+    public void evaluateUnknownIfMatch() {
+        var userHeaders = Map.of("If-Match", this.transformedETag);
+        var httpHeaders = new HashMap<>(userHeaders);
+        var conditionalRequest = new ConditionalRequest(userHeaders, this.eTagCache, VERSION);
+        conditionalRequest.rewriteHeaders(httpHeaders, List.of("host"));
+
+        assertFalse(httpHeaders.containsKey("If-Match"));
+        assertFalse(conditionalRequest.isPreconditionFailed(SOURCE_ETAG));
+        assertTrue(conditionalRequest.isPreconditionFailed("\"changed-etag\""));
+    }
+
+    @Test
+    @DisplayName("If-None-Match on the transformed ETag is not modified.")
+    public void isNotModified() {
+        var conditionalRequest = new ConditionalRequest(Map.of("if-none-match", "W/" + this.transformedETag),
+                this.eTagCache, VERSION);
+
+        assertTrue(conditionalRequest.isNotModified(SOURCE_ETAG));
+        assertFalse(conditionalRequest.isNotModified("\"changed-etag\""));
+    }
+}
@@ -3,9 +3,17 @@ package com.example.s3objectlambda.request;
 import com.amazonaws.services.lambda.runtime.events.S3ObjectLambdaEvent;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.util.IOUtils;
+import com.example.s3objectlambda.cache.NegativeResultCache;
+import com.example.s3objectlambda.cache.StaleObjectCache;
+import com.example.s3objectlambda.checksum.Checksum;
 import com.example.s3objectlambda.checksum.Md5Checksum;
+import com.example.s3objectlambda.config.FunctionPayload;
+import com.example.s3objectlambda.error.Error;
 import com.example.s3objectlambda.error.XMLErrorParser;
+import com.example.s3objectlambda.filter.KeyVisibilityFilter;
+import com.example.s3objectlambda.retry.CircuitBreaker;
 import com.example.s3objectlambda.response.GetObjectResponseHandler;
+import com.example.s3objectlambda.transform.TransformedETag;
 import com.example.s3objectlambda.transform.GetObjectTransformer;
 import com.example.s3objectlambda.validator.GetObjectRequestValidator;
 import org.junit.jupiter.api.BeforeEach;
@@ -27,15 +35,27 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 
 /**
@@ -105,7 +125,8 @@ public class GetObjectHandlerTest {
             // Capture the second argument when the handler calls writeObjectResponse.
             // Second argument is the responseObjectArray after applying range and transformation.
             ArgumentCaptor<byte[]> responseObjectArray = ArgumentCaptor.forClass(byte[].class);
-            lenient().doNothing().when(responseHandler).writeObjectResponse(any(), responseObjectArray.capture());
+            lenient().doNothing().when(responseHandler)
+                    .writeObjectResponse(anyInt(), responseObjectArray.capture(), any(), any());
 
             getObjectHandler.handleRequest();
 
@@ -139,6 +160,250 @@ public class GetObjectHandlerTest {
             assertEquals("NoSuchMockKey", s3errorResponse.getCode());
 
         }
+
+        @Test
+        @DisplayName("304 from s3 getObject is forwarded without transforming the object")
+        void testHandleRequestWith304NotModified() throws Exception {
+
+            var getObjectHandler = new GetObjectHandler(s3Client, transformer, requestValidator, s3ObjectLambdaEvent,
+                    responseHandler, httpClient);
+
+            mockHttpResponseFromS3(304, "src/test/resources/mock_s3_objects/mock_s3_object.txt",
+                    Map.of("ETag", List.of("\"mock-etag\"")));
+
+            lenient().doNothing().when(responseHandler).writeNotModifiedResponse(any());
+            getObjectHandler.handleRequest();
+
+            verify(responseHandler).writeNotModifiedResponse("\"mock-etag\"");
+            verify(transformer, never()).transformObjectResponse(any());
+        }
+
+        @Test
+        @DisplayName("If-None-Match on the transformed ETag is answered with 304")
+        void testHandleRequestIfNoneMatchTransformedETag() throws Exception {
+
+            var getObjectHandler = new GetObjectHandler(s3Client, transformer, requestValidator, s3ObjectLambdaEvent,
+                    responseHandler, httpClient);
+
+            s3ObjectLambdaEvent.getUserRequest().getHeaders().put("If-None-Match",
+                    TransformedETag.of("\"mock-etag\"", transformer.getVersion()));
+            mockHttpResponseFromS3(200, "src/test/resources/mock_s3_objects/mock_s3_object.txt",
+                    Map.of("ETag", List.of("\"mock-etag\"")));
+
+            lenient().doNothing().when(responseHandler).writeNotModifiedResponse(any());
+            getObjectHandler.handleRequest();
+
+            verify(responseHandler).writeNotModifiedResponse("\"mock-etag\"");
+            verify(transformer, never()).transformObjectResponse(any());
+        }
+
+        @Test
+        @DisplayName("Repeated requests for a missing key are answered from the negative result cache")
+        void testHandleRequestNegativeResultCache() throws Exception {
+
+            var negativeResultCache = new NegativeResultCache(NegativeResultCache.DEFAULT_MAX_ENTRIES);
+            mockHttpResponseFromS3(404, "src/test/resources/mock_responses/mock_s3_error_response.txt");
+            lenient().doNothing().when(responseHandler).writeS3GetObjectErrorResponse(any());
+            lenient().doNothing().when(responseHandler).writeErrorResponse(any(), any());
+
+            for (var i = 0; i < 3; i++) {
+                new GetObjectHandler(s3Client, transformer, requestValidator, s3ObjectLambdaEvent, responseHandler,
+                        httpClient, new GetObjectOptions()
+                                .withNegativeResultCache(negativeResultCache)
+                                .withFunctionPayload(FunctionPayload.parse("{\"negativeCacheTtlSeconds\": 5}")))
+                        .handleRequest();
+            }
+
+            verify(httpClient, times(1)).send(any(), any());
+            verify(responseHandler, times(2)).writeErrorResponse(any(), eq(Error.NO_SUCH_KEY));
+            assertEquals(2, negativeResultCache.getHits());
+        }
+
+        @Test
+        @DisplayName("Requests with signed headers, such as the expected bucket owner, are not negatively cached")
+        void testHandleRequestNegativeResultCacheSignedHeaders() throws Exception {
+
+            var negativeResultCache = new NegativeResultCache(NegativeResultCache.DEFAULT_MAX_ENTRIES);
+            lenient().when(s3ObjectLambdaEvent.inputS3Url()).thenReturn(
+                    "https://aws-region.example.com/getObject.fakeurl"
+                            + "?X-Amz-SignedHeaders=host%3Bx-amz-expected-bucket-owner");
+            mockHttpResponseFromS3(403, "src/test/resources/mock_responses/mock_s3_error_response.txt");
+            lenient().doNothing().when(responseHandler).writeS3GetObjectErrorResponse(any());
+
+            for (var i = 0; i < 2; i++) {
+                new GetObjectHandler(s3Client, transformer, requestValidator, s3ObjectLambdaEvent, responseHandler,
+                        httpClient, new GetObjectOptions()
+                                .withNegativeResultCache(negativeResultCache)
+                                .withFunctionPayload(FunctionPayload.parse("{\"negativeCacheTtlSeconds\": 5}")))
+                        .handleRequest();
+            }
+
+            verify(httpClient, times(2)).send(any(), any());
+            assertEquals(0, negativeResultCache.getHits());
+        }
+
+        @Test
+        @DisplayName("A recent transformed copy is served when Amazon S3 fails with a server error")
+        void testHandleRequestStaleIfError() throws Exception {
+
+            var staleObjectCache = new StaleObjectCache(StaleObjectCache.DEFAULT_MAX_BYTES);
+            var functionPayload = FunctionPayload.parse("{\"staleIfErrorSeconds\": 60}");
+            ArgumentCaptor<byte[]> responseObjectArray = ArgumentCaptor.forClass(byte[].class);
+            lenient().doNothing().when(responseHandler).writeObjectResponse(anyInt(), any(), any(), any());
+            lenient().doNothing().when(responseHandler)
+                    .writeStaleObjectResponse(responseObjectArray.capture(), any(), any(), any());
+
+            new GetObjectHandler(s3Client, transformer, requestValidator, s3ObjectLambdaEvent, responseHandler,
+                    httpClient, new GetObjectOptions().withStaleObjectCache(staleObjectCache)
+                            .withFunctionPayload(functionPayload)).handleRequest();
+            mockHttpResponseFromS3(503, "src/test/resources/mock_responses/mock_s3_error_response.txt");
+            new GetObjectHandler(s3Client, transformer, requestValidator, s3ObjectLambdaEvent, responseHandler,
+                    httpClient, new GetObjectOptions().withStaleObjectCache(staleObjectCache)
+                            .withFunctionPayload(functionPayload)).handleRequest();
+
+            verify(responseHandler, never()).writeS3GetObjectErrorResponse(any());
+            assertEquals("What is Amazon S3?", new String(responseObjectArray.getValue(), StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("The checksum computed as the transformed object is cached is sent with the whole object")
+        void testHandleRequestPrecomputedChecksum() throws Exception {
+
+            s3ObjectLambdaEvent.getUserRequest().getHeaders().remove("Range");
+            var md5Checksum = new Md5Checksum();
+            ArgumentCaptor<byte[]> responseObjectArray = ArgumentCaptor.forClass(byte[].class);
+            ArgumentCaptor<Checksum> checksum = ArgumentCaptor.forClass(Checksum.class);
+            lenient().doNothing().when(responseHandler)
+                    .writeObjectResponse(anyInt(), responseObjectArray.capture(), any(), checksum.capture());
+
+            new GetObjectHandler(s3Client, transformer, requestValidator, s3ObjectLambdaEvent, responseHandler,
+                    httpClient, new GetObjectOptions()
+                            .withStaleObjectCache(new StaleObjectCache(StaleObjectCache.DEFAULT_MAX_BYTES))
+                            .withFunctionPayload(FunctionPayload.parse("{\"staleIfErrorSeconds\": 60}"))
+                            .withChecksumGenerator(md5Checksum)).handleRequest();
+
+            assertEquals(md5Checksum.getChecksum(responseObjectArray.getValue()).getChecksum(),
+                    checksum.getValue().getChecksum());
+        }
+
+        @Test
+        @DisplayName("The caller is answered with an error when the transformation uses up the function timeout")
+        void testHandleRequestDeadlineExceeded() throws Exception {
+
+            var remainingTimeMillis = new AtomicLong(10_000);
+            doAnswer(invocation -> {
+                remainingTimeMillis.set(500);
+                return invocation.getArgument(0);
+            }).when(transformer).transformObjectResponse(any());
+            lenient().doNothing().when(responseHandler).writeErrorResponse(any(), any());
+
+            new GetObjectHandler(s3Client, transformer, requestValidator, s3ObjectLambdaEvent, responseHandler,
+                    httpClient, new GetObjectOptions()
+                            .withDeadline(new Deadline(remainingTimeMillis::get, Duration.ofSeconds(1))))
+                    .handleRequest();
+
+            verify(responseHandler).writeErrorResponse(any(), eq(Error.SERVER_ERROR));
+            verify(responseHandler, never()).writeObjectResponse(anyInt(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Requests are answered with SlowDown without calling Amazon S3 while the circuit breaker is open")
+        void testHandleRequestCircuitBreakerOpen() throws Exception {
+
+            var circuitBreaker = new CircuitBreaker("test", Duration.ofSeconds(5));
+            for (var i = 0; i < CircuitBreaker.DEFAULT_MIN_CALLS; i++) {
+                circuitBreaker.recordFailure();
+            }
+            lenient().doNothing().when(responseHandler).writeErrorResponse(any(), any());
+
+            new GetObjectHandler(s3Client, transformer, requestValidator, s3ObjectLambdaEvent, responseHandler,
+                    httpClient, new GetObjectOptions().withCircuitBreaker(circuitBreaker)).handleRequest();
+
+            verify(responseHandler).writeErrorResponse(any(), eq(Error.SLOW_DOWN));
+            verify(httpClient, never()).send(any(), any());
+        }
+
+        @Test
+        @DisplayName("The calls to Amazon S3 of a request are recorded once in the circuit breaker")
+        void testHandleRequestCircuitBreakerRecordsOnce() throws Exception {
+
+            var circuitBreaker = Mockito.spy(new CircuitBreaker("test", Duration.ofSeconds(5)));
+            lenient().doNothing().when(responseHandler).writeObjectResponse(anyInt(), any(), any(), any());
+
+            new GetObjectHandler(s3Client, transformer, requestValidator, s3ObjectLambdaEvent, responseHandler,
+                    httpClient, new GetObjectOptions().withCircuitBreaker(circuitBreaker)).handleRequest();
+
+            verify(circuitBreaker).tryAcquire();
+            verify(circuitBreaker).recordSuccess(Mockito.anyLong());
+            verify(circuitBreaker, never()).recordFailure();
+            verify(circuitBreaker, never()).release();
+        }
+
+        @Test
+        @DisplayName("A concurrent identical request is served the object transformed by the first one")
+        void testHandleRequestSingleFlight() throws Exception {
+
+            var singleFlight = Mockito.spy(new SingleFlight<GetObjectHandler.TransformedObject>());
+            var objectId = S3PresignedUrlParserHelper.retrieveObjectIdFromPresignedUrl(
+                    s3ObjectLambdaEvent.inputS3Url());
+            var leader = singleFlight.join("\n" + objectId + "\n\n" + transformer.getVersion());
+            var transformed = "What is Amazon S3? Shared.".getBytes(StandardCharsets.UTF_8);
+            new Thread(() -> {
+                // The leader finishes once the handler has joined its call.
+                verify(singleFlight, timeout(5000).times(2)).join(any());
+                leader.complete(new GetObjectHandler.TransformedObject(transformed, "\"mock-etag\""));
+            }).start();
+
+            // The follower only confirms with a single byte that it may read this version of the object.
+            mockHttpResponseFromS3(206, "src/test/resources/mock_s3_objects/mock_s3_object.txt");
+            ArgumentCaptor<byte[]> responseObjectArray = ArgumentCaptor.forClass(byte[].class);
+            lenient().doNothing().when(responseHandler)
+                    .writeObjectResponse(eq(200), responseObjectArray.capture(), eq("\"mock-etag\""), any());
+
+            new GetObjectHandler(s3Client, transformer, requestValidator, s3ObjectLambdaEvent, responseHandler,
+                    httpClient, new GetObjectOptions().withSingleFlight(singleFlight)).handleRequest();
+
+            verify(transformer, never()).transformObjectResponse(any());
+            assertEquals("What is Amazon S3?", new String(responseObjectArray.getValue(), StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Concurrent requests which differ in a part the transformation depends on transform on their own")
+        void testHandleRequestSingleFlightRequestVariant() throws Exception {
+
+            var singleFlight = new SingleFlight<GetObjectHandler.TransformedObject>();
+            var objectId = S3PresignedUrlParserHelper.retrieveObjectIdFromPresignedUrl(
+                    s3ObjectLambdaEvent.inputS3Url());
+            // The first request asked for another output format, and is still transforming the object.
+            var leader = singleFlight.join("\n" + objectId + "\n\n" + transformer.getVersion() + "\nAccept=text/csv");
+            lenient().doReturn(Map.of("Accept", "application/json")).when(transformer).getRequestVariant();
+            ArgumentCaptor<byte[]> responseObjectArray = ArgumentCaptor.forClass(byte[].class);
+            lenient().doNothing().when(responseHandler)
+                    .writeObjectResponse(eq(200), responseObjectArray.capture(), any(), any());
+
+            new GetObjectHandler(s3Client, transformer, requestValidator, s3ObjectLambdaEvent, responseHandler,
+                    httpClient, new GetObjectOptions().withSingleFlight(singleFlight)).handleRequest();
+            leader.complete(null);
+
+            verify(transformer).transformObjectResponse(any());
+            assertEquals("What is Amazon S3?", new String(responseObjectArray.getValue(), StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Hidden keys are answered with NoSuchKey without calling the presigned url")
+        void testHandleRequestHiddenKey() throws Exception {
+
+            var hidingValidator = new GetObjectRequestValidator(
+                    new GetObjectRequestWrapper(s3ObjectLambdaEvent.getUserRequest()), KeyVisibilityFilter.hideAll());
+            var getObjectHandler = new GetObjectHandler(s3Client, transformer, hidingValidator, s3ObjectLambdaEvent,
+                    responseHandler, httpClient);
+
+            lenient().doNothing().when(responseHandler).writeErrorResponse(any(), any());
+            getObjectHandler.handleRequest();
+
+            verify(responseHandler).writeErrorResponse(any(), eq(Error.NO_SUCH_KEY));
+            verify(httpClient, never()).send(any(), any());
+        }
     }
 
     /**
@@ -150,10 +415,25 @@ public class GetObjectHandlerTest {
      */
     private void mockHttpResponseFromS3(int httpStatusCode, String mockS3ObjectFilePath) throws IOException,
             InterruptedException {
+        mockHttpResponseFromS3(httpStatusCode, mockS3ObjectFilePath, Map.of());
+    }
+
+    /**
+     *
+     * @param httpStatusCode Http status code of the mock response
+     * @param mockS3ObjectFilePath File path of the mock s3 object. Http response will be the content of this file.
+     * @param responseHeaders Http headers of the mock response.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private void mockHttpResponseFromS3(int httpStatusCode, String mockS3ObjectFilePath,
+                                        Map<String, List<String>> responseHeaders) throws IOException,
+            InterruptedException {
         var httpResponse = mock(HttpResponse.class);
         lenient().when(httpClient.send(any(HttpRequest.class),
                 any())).thenReturn(httpResponse);
         lenient().when(httpResponse.statusCode()).thenReturn(httpStatusCode);
+        lenient().when(httpResponse.headers()).thenReturn(HttpHeaders.of(responseHeaders, (name, value) -> true));
         var responseBody = getFileInputStream(mockS3ObjectFilePath);
         lenient().when(httpResponse.body()).thenReturn(responseBody);
     }
@@ -0,0 +1,175 @@
+package com.example.s3objectlambda.request;
+
+import com.amazonaws.services.lambda.runtime.events.S3ObjectLambdaEvent;
+import com.example.s3objectlambda.cache.ETagCache;
+import com.example.s3objectlambda.cache.TransformedLengthCache;
+import com.example.s3objectlambda.event.ObjectLambdaEvent;
+import com.example.s3objectlambda.response.HeadObjectResponseHandler;
+import com.example.s3objectlambda.transform.GetObjectTransformer;
+import com.example.s3objectlambda.transform.TransformedETag;
+import com.example.s3objectlambda.validator.GetObjectRequestValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class HeadObjectHandlerTest {
+
+    private static final String SOURCE_ETAG = "\"mock-etag\"";
+
+    @Mock
+    private HttpClient httpClient;
+
+    private ObjectLambdaEvent event;
+    private GetObjectTransformer transformer;
+    private HeadObjectResponseHandler responseHandler;
+    private TransformedLengthCache transformedLengthCache;
+
+    @BeforeEach
+    void setup() {
+        var userRequest = new S3ObjectLambdaEvent.UserRequest();
+        userRequest.setUrl("https://example.com/mock-key");
+        userRequest.setHeaders(new HashMap<>());
+
+        this.event = new ObjectLambdaEvent();
+        this.event.setUserRequest(userRequest);
+        this.event.setHeadObjectContext(
+                new ObjectLambdaEvent.BaseObjectContext("https://aws-region.example.com/headObject.fakeurl"));
+
+        this.transformer = Mockito.spy(new GetObjectTransformer(new GetObjectRequestWrapper(userRequest)));
+        this.responseHandler = new HeadObjectResponseHandler();
+        this.transformedLengthCache = new TransformedLengthCache(TransformedLengthCache.DEFAULT_MAX_ENTRIES);
+    }
+
+    @Test
+    @DisplayName("HeadObject is sent to the presigned url and answered with the transformed headers.")
+    void testHeadObject() throws Exception {
+        mockHeadResponseFromS3(200, Map.of("ETag", List.of(SOURCE_ETAG), "Content-Length", List.of("100"),
+                "Content-Type", List.of("text/plain")));
+
+        handleRequest();
+
+        var request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient).send(request.capture(), any());
+        assertEquals("HEAD", request.getValue().method());
+        verify(transformer, never()).transformObjectResponse(any());
+
+        var headers = getHeaders();
+        assertEquals(200, this.responseHandler.getResponse().get("statusCode"));
+        assertEquals("100", headers.get("Content-Length"));
+        assertEquals("text/plain", headers.get("Content-Type"));
+        assertEquals(TransformedETag.of(SOURCE_ETAG, transformer.getVersion()), headers.get("ETag"));
+    }
+
+    @Test
+    @DisplayName("Content-Length of a Range request is the length of the range.")
+    void testHeadObjectRange() throws Exception {
+        this.event.getUserRequest().getHeaders().put("Range", "bytes=10-19");
+        mockHeadResponseFromS3(200, Map.of("ETag", List.of(SOURCE_ETAG), "Content-Length", List.of("100")));
+
+        handleRequest();
+
+        var headers = getHeaders();
+        assertEquals("10", headers.get("Content-Length"));
+        assertEquals("bytes 10-19/100", headers.get("Content-Range"));
+    }
+
+    @Test
+    @DisplayName("Content-Length of a partNumber request is the length of the part.")
+    void testHeadObjectPartNumber() throws Exception {
+        this.event.getUserRequest().setUrl("https://example.com/mock-key?partNumber=2");
+        mockHeadResponseFromS3(200, Map.of("ETag", List.of(SOURCE_ETAG), "Content-Length", List.of("6000000")));
+
+        handleRequest();
+
+        assertEquals(String.valueOf(6000000 - 5242880), getHeaders().get("Content-Length"));
+    }
+
+    @Test
+    @DisplayName("Transformed length recorded by GetObject is reported when it cannot be predicted.")
+    void testHeadObjectCachedLength() throws Exception {
+        lenient().when(transformer.getTransformedLength(any(Long.class))).thenReturn(OptionalLong.empty());
+        this.transformedLengthCache.put(
+                TransformedETag.unquote(TransformedETag.of(SOURCE_ETAG, transformer.getVersion())), 42);
+        mockHeadResponseFromS3(200, Map.of("ETag", List.of(SOURCE_ETAG), "Content-Length", List.of("100")));
+
+        handleRequest();
+
+        assertEquals("42", getHeaders().get("Content-Length"));
+    }
+
+    @Test
+    @DisplayName("Content-Length is omitted when the transformed length is unknown.")
+    void testHeadObjectUnknownLength() throws Exception {
+        lenient().when(transformer.getTransformedLength(any(Long.class))).thenReturn(OptionalLong.empty());
+        mockHeadResponseFromS3(200, Map.of("ETag", List.of(SOURCE_ETAG), "Content-Length", List.of("100")));
+
+        handleRequest();
+
+        assertFalse(getHeaders().containsKey("Content-Length"));
+    }
+
+    @Test
+    @DisplayName("Errors of the HeadObject request are forwarded.")
+    void testHeadObjectError() throws Exception {
+        mockHeadResponseFromS3(404, Map.of());
+
+        handleRequest();
+
+        assertEquals(404, this.responseHandler.getResponse().get("statusCode"));
+    }
+
+    @Test
+    @DisplayName("Invalid Range is answered with InvalidRange.")
+    void testHeadObjectInvalidRange() throws Exception {
+        this.event.getUserRequest().getHeaders().put("Range", "bytes=200-300");
+        mockHeadResponseFromS3(200, Map.of("ETag", List.of(SOURCE_ETAG), "Content-Length", List.of("100")));
+
+        handleRequest();
+
+        assertEquals(416, this.responseHandler.getResponse().get("statusCode"));
+        assertEquals("InvalidRange", this.responseHandler.getResponse().get("errorCode"));
+    }
+
+    private void handleRequest() {
+        var requestValidator = new GetObjectRequestValidator(new GetObjectRequestWrapper(event.getUserRequest()));
+        new HeadObjectHandler(transformer, requestValidator, event, responseHandler, httpClient,
+                new ETagCache(ETagCache.DEFAULT_MAX_ENTRIES), transformedLengthCache).handleRequest();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> getHeaders() {
+        return (Map<String, String>) this.responseHandler.getResponse().get("headers");
+    }
+
+    private void mockHeadResponseFromS3(int httpStatusCode, Map<String, List<String>> responseHeaders)
+            throws IOException, InterruptedException {
+        var httpResponse = mock(HttpResponse.class);
+        lenient().when(httpClient.send(any(HttpRequest.class), any())).thenReturn(httpResponse);
+        lenient().when(httpResponse.statusCode()).thenReturn(httpStatusCode);
+        lenient().when(httpResponse.headers()).thenReturn(HttpHeaders.of(responseHeaders, (name, value) -> true));
+    }
+}
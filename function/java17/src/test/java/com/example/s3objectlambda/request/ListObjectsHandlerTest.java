@@ -0,0 +1,254 @@
+package com.example.s3objectlambda.request;
+
+import com.amazonaws.services.lambda.runtime.events.S3ObjectLambdaEvent;
+import com.example.s3objectlambda.cache.ListPageCache;
+import com.example.s3objectlambda.event.ObjectLambdaEvent;
+import com.example.s3objectlambda.filter.KeyVisibilityFilter;
+import com.example.s3objectlambda.response.ListObjectsResponseHandler;
+import com.example.s3objectlambda.transform.GetObjectTransformer;
+import com.example.s3objectlambda.transform.ListEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class ListObjectsHandlerTest {
+
+    private static final String LIST_RESULT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+            + "<Name>mock-bucket</Name><Prefix></Prefix><KeyCount>3</KeyCount><MaxKeys>1000</MaxKeys>"
+            + "<Delimiter>/</Delimiter><IsTruncated>false</IsTruncated>"
+            + "<Contents><Key>a.txt</Key><LastModified>2022-01-01T00:00:00.000Z</LastModified>"
+            + "<ETag>&quot;mock-etag&quot;</ETag><ChecksumAlgorithm>CRC32</ChecksumAlgorithm>"
+            + "<ChecksumAlgorithm>SHA256</ChecksumAlgorithm><Size>18</Size>"
+            + "<Owner><ID>mock-id</ID><DisplayName>mock-owner</DisplayName></Owner>"
+            + "<StorageClass>STANDARD</StorageClass></Contents>"
+            + "<Contents><Key>secret.txt</Key><Size>5</Size></Contents>"
+            + "<CommonPrefixes><Prefix>photos/</Prefix></CommonPrefixes>"
+            + "</ListBucketResult>";
+
+    @Mock
+    private HttpClient httpClient;
+
+    private ObjectLambdaEvent event;
+    private GetObjectTransformer transformer;
+    private ListObjectsResponseHandler responseHandler;
+
+    @BeforeEach
+    void setup() {
+        var userRequest = new S3ObjectLambdaEvent.UserRequest();
+        userRequest.setUrl("https://example.com/?list-type=2");
+        userRequest.setHeaders(new HashMap<>());
+
+        this.event = new ObjectLambdaEvent();
+        this.event.setUserRequest(userRequest);
+        this.event.setListObjectsV2Context(
+                new ObjectLambdaEvent.BaseObjectContext("https://aws-region.example.com/listObjectsV2.fakeurl"));
+
+        this.transformer = Mockito.spy(new GetObjectTransformer(new GetObjectRequestWrapper(userRequest)));
+        this.responseHandler = new ListObjectsResponseHandler();
+    }
+
+    @Test
+    @DisplayName("List result is written back unchanged without a transformation.")
+    void testListObjects() throws Exception {
+        mockListResponseFromS3(200, LIST_RESULT);
+
+        handleRequest();
+
+        assertEquals(200, this.responseHandler.getResponse().get("statusCode"));
+        var listResultXml = (String) this.responseHandler.getResponse().get("listResultXml");
+        assertTrue(listResultXml.contains("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"));
+        assertTrue(listResultXml.contains("<Contents><Key>a.txt</Key><LastModified>2022-01-01T00:00:00.000Z"
+                + "</LastModified><ETag>\"mock-etag\"</ETag><ChecksumAlgorithm>CRC32</ChecksumAlgorithm>"
+                + "<ChecksumAlgorithm>SHA256</ChecksumAlgorithm><Size>18</Size>"
+                + "<Owner><ID>mock-id</ID><DisplayName>mock-owner</DisplayName></Owner>"
+                + "<StorageClass>STANDARD</StorageClass></Contents>"));
+        assertTrue(listResultXml.contains("<CommonPrefixes><Prefix>photos/</Prefix></CommonPrefixes>"));
+        assertTrue(listResultXml.contains("<KeyCount>3</KeyCount>"));
+        verify(transformer, times(2)).transformListEntry(any());
+    }
+
+    @Test
+    @DisplayName("Objects are transformed one at a time, and left out objects are not counted.")
+    void testListObjectsTransformed() throws Exception {
+        doAnswer(invocation -> {
+            var entry = invocation.<ListEntry>getArgument(0);
+            if (entry.getKey().startsWith("secret")) {
+                return Optional.empty();
+            }
+            entry.setKey("transformed/" + entry.getKey());
+            entry.set("Owner/DisplayName", "transformed-owner");
+            return Optional.of(entry);
+        }).when(transformer).transformListEntry(any());
+        mockListResponseFromS3(200, LIST_RESULT);
+
+        handleRequest();
+
+        var listResultXml = (String) this.responseHandler.getResponse().get("listResultXml");
+        assertTrue(listResultXml.contains("<Key>transformed/a.txt</Key>"));
+        assertTrue(listResultXml.contains("<DisplayName>transformed-owner</DisplayName>"));
+        assertFalse(listResultXml.contains("secret.txt"));
+        assertTrue(listResultXml.contains("<KeyCount>2</KeyCount>"));
+    }
+
+    @Test
+    @DisplayName("Full pages of long keys are transformed in a single pass.")
+    void testListObjectsFullPage() throws Exception {
+        var listResult = new StringBuilder("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+                + "<KeyCount>1000</KeyCount>");
+        var longKey = "k".repeat(1000);
+        for (var i = 0; i < 1000; i++) {
+            listResult.append("<Contents><Key>").append(longKey).append(i).append("</Key><Size>1</Size></Contents>");
+        }
+        listResult.append("</ListBucketResult>");
+        mockListResponseFromS3(200, listResult.toString());
+
+        handleRequest();
+
+        var listResultXml = (String) this.responseHandler.getResponse().get("listResultXml");
+        assertTrue(listResultXml.contains("<Key>" + longKey + "999</Key>"));
+        assertTrue(listResultXml.contains("<KeyCount>1000</KeyCount>"));
+        verify(transformer, times(1000)).transformListEntry(any());
+    }
+
+    @Test
+    @DisplayName("Errors of the list request are forwarded.")
+    void testListObjectsError() throws Exception {
+        mockListResponseFromS3(403, "<Error><Code>AccessDenied</Code></Error>");
+
+        handleRequest();
+
+        assertEquals(403, this.responseHandler.getResponse().get("statusCode"));
+    }
+
+    @Test
+    @DisplayName("Malformed list result is answered with an error.")
+    void testListObjectsMalformed() throws Exception {
+        mockListResponseFromS3(200, "<ListBucketResult><Contents><Key>a.txt</Key>");
+
+        handleRequest();
+
+        assertEquals(500, this.responseHandler.getResponse().get("statusCode"));
+    }
+
+    @Test
+    @DisplayName("Hidden objects and common prefixes are left out before the transformation.")
+    void testListObjectsHiddenKeys() throws Exception {
+        mockListResponseFromS3(200, LIST_RESULT);
+
+        new ListObjectsHandler(transformer, event, event.getListObjectsV2Context(), responseHandler, httpClient,
+                KeyVisibilityFilter.compile(List.of("photos/", "*.txt"))).handleRequest();
+
+        var listResultXml = (String) this.responseHandler.getResponse().get("listResultXml");
+        assertFalse(listResultXml.contains("a.txt"));
+        assertFalse(listResultXml.contains("secret.txt"));
+        assertFalse(listResultXml.contains("photos/"));
+        assertTrue(listResultXml.contains("<KeyCount>0</KeyCount>"));
+        verify(transformer, times(0)).transformListEntry(any());
+    }
+
+    @Test
+    @DisplayName("URL encoded keys are decoded before they are matched against the hidden keys.")
+    void testListObjectsHiddenEncodedKeys() throws Exception {
+        this.event.getUserRequest().setUrl("https://example.com/?list-type=2&encoding-type=url");
+        mockListResponseFromS3(200, "<ListBucketResult><KeyCount>2</KeyCount>"
+                + "<Contents><Key>my%20secret.txt</Key></Contents><Contents><Key>public.txt</Key></Contents>"
+                + "</ListBucketResult>");
+
+        new ListObjectsHandler(transformer, event, event.getListObjectsV2Context(), responseHandler, httpClient,
+                KeyVisibilityFilter.compile(List.of("my secret"))).handleRequest();
+
+        var listResultXml = (String) this.responseHandler.getResponse().get("listResultXml");
+        assertFalse(listResultXml.contains("secret"));
+        assertTrue(listResultXml.contains("<Key>public.txt</Key>"));
+        assertTrue(listResultXml.contains("<KeyCount>1</KeyCount>"));
+    }
+
+    @Test
+    @DisplayName("Repeated list requests of the same caller are served from the list page cache.")
+    void testListObjectsCached() throws Exception {
+        var listPageCache = new ListPageCache(ListPageCache.DEFAULT_MAX_BYTES);
+        this.event.setUserIdentity(S3ObjectLambdaEvent.UserIdentity.builder().withArn("arn:mock-user").build());
+        this.event.getUserRequest().setUrl("https://example.com/?list-type=2&prefix=a&max-keys=10");
+        mockListResponseFromS3(200, LIST_RESULT);
+
+        handleCachedRequest(listPageCache);
+        var firstListResultXml = this.responseHandler.getResponse().get("listResultXml");
+        this.responseHandler = new ListObjectsResponseHandler();
+        handleCachedRequest(listPageCache);
+
+        assertEquals(firstListResultXml, this.responseHandler.getResponse().get("listResultXml"));
+        verify(httpClient, times(1)).send(any(HttpRequest.class), any());
+
+        // Another page, or the same page listed by another caller, is retrieved again.
+        this.event.getUserRequest().setUrl("https://example.com/?list-type=2&prefix=a&max-keys=10"
+                + "&continuation-token=mock-token");
+        mockListResponseFromS3(200, LIST_RESULT);
+        handleCachedRequest(listPageCache);
+        this.event.setUserIdentity(S3ObjectLambdaEvent.UserIdentity.builder().withArn("arn:other-user").build());
+        mockListResponseFromS3(200, LIST_RESULT);
+        handleCachedRequest(listPageCache);
+
+        verify(httpClient, times(3)).send(any(HttpRequest.class), any());
+    }
+
+    @Test
+    @DisplayName("List requests signing headers besides the host are not served from the list page cache.")
+    void testListObjectsSignedHeadersNotCached() throws Exception {
+        var listPageCache = new ListPageCache(ListPageCache.DEFAULT_MAX_BYTES);
+        this.event.setUserIdentity(S3ObjectLambdaEvent.UserIdentity.builder().withArn("arn:mock-user").build());
+        this.event.setListObjectsV2Context(new ObjectLambdaEvent.BaseObjectContext(
+                "https://aws-region.example.com/listObjectsV2.fakeurl?list-type=2"
+                        + "&X-Amz-SignedHeaders=host%3Bx-amz-expected-bucket-owner"));
+
+        mockListResponseFromS3(200, LIST_RESULT);
+        handleCachedRequest(listPageCache);
+        mockListResponseFromS3(200, LIST_RESULT);
+        handleCachedRequest(listPageCache);
+
+        verify(httpClient, times(2)).send(any(HttpRequest.class), any());
+    }
+
+    private void handleCachedRequest(ListPageCache listPageCache) {
+        new ListObjectsHandler(transformer, event, event.getListObjectsV2Context(), responseHandler, httpClient,
+                KeyVisibilityFilter.compile(List.of()), listPageCache, Duration.ofSeconds(5)).handleRequest();
+    }
+
+    private void handleRequest() {
+        new ListObjectsHandler(transformer, event, event.getListObjectsV2Context(), responseHandler, httpClient)
+                .handleRequest();
+    }
+
+    private void mockListResponseFromS3(int httpStatusCode, String body) throws IOException, InterruptedException {
+        var httpResponse = mock(HttpResponse.class);
+        lenient().when(httpClient.send(any(HttpRequest.class), any())).thenReturn(httpResponse);
+        lenient().when(httpResponse.statusCode()).thenReturn(httpStatusCode);
+        lenient().when(httpResponse.body()).thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
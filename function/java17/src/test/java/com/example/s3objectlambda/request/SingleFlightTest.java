@@ -0,0 +1,48 @@
+package com.example.s3objectlambda.request;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTest {
+
+    @Test
+    @DisplayName("Requests joining a call in flight follow it and get the result of the leader.")
+    void followersGetLeaderResult() throws Exception {
+        var singleFlight = new SingleFlight<String>();
+        var leader = singleFlight.join("key");
+        var follower = singleFlight.join("key");
+
+        assertTrue(leader.isLeader());
+        assertFalse(follower.isLeader());
+        assertTrue(singleFlight.join("other").isLeader());
+
+        // Only the leader publishes, and only its first result counts.
+        follower.complete("ignored");
+        leader.complete("result");
+        leader.complete("late");
+
+        assertEquals(Optional.of("result"), follower.await(Duration.ofSeconds(1)));
+        assertTrue(singleFlight.join("key").isLeader());
+    }
+
+    @Test
+    @DisplayName("Followers do the work themselves when the leader publishes nothing or takes too long.")
+    void followersFallBack() throws Exception {
+        var singleFlight = new SingleFlight<String>();
+        var leader = singleFlight.join("key");
+        var follower = singleFlight.join("key");
+
+        assertEquals(Optional.empty(), follower.await(Duration.ofMillis(10)));
+
+        leader.complete(null);
+        assertEquals(Optional.empty(), follower.await(Duration.ofSeconds(1)));
+        assertEquals(0, singleFlight.size());
+    }
+}
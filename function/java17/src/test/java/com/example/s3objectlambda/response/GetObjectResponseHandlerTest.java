@@ -0,0 +1,228 @@
+package com.example.s3objectlambda.response;
+
+import com.amazonaws.services.lambda.runtime.events.S3ObjectLambdaEvent;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.WriteGetObjectResponseRequest;
+import com.example.s3objectlambda.checksum.ChecksumCache;
+import com.example.s3objectlambda.checksum.Md5Checksum;
+import com.example.s3objectlambda.error.Error;
+import com.example.s3objectlambda.request.Deadline;
+import com.example.s3objectlambda.retry.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class GetObjectResponseHandlerTest {
+
+    private static final byte[] RESPONSE_OBJECT = "What is Amazon S3?".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private AmazonS3 s3Client;
+    @Mock
+    private S3ObjectLambdaEvent s3ObjectLambdaEvent;
+
+    private Md5Checksum md5Checksum;
+
+    @BeforeEach
+    void setup() {
+        var mockUserRequest = mock(S3ObjectLambdaEvent.UserRequest.class);
+        lenient().when(mockUserRequest.getUrl()).thenReturn("https://example.com?time=great!");
+        lenient().when(mockUserRequest.getHeaders()).thenReturn(new HashMap<>());
+        lenient().when(s3ObjectLambdaEvent.getUserRequest()).thenReturn(mockUserRequest);
+        lenient().when(s3ObjectLambdaEvent.inputS3Url()).thenReturn("https://aws-region.example.com/getObject.fakeurl");
+        this.md5Checksum = Mockito.spy(new Md5Checksum());
+    }
+
+    @Test
+    @DisplayName("Derived checksum is computed once for the same original object and range.")
+    void testDerivedChecksumIsReused() throws Exception {
+        var responseHandler = new GetObjectResponseHandler(s3Client, s3ObjectLambdaEvent, md5Checksum,
+                new GetObjectResponseOptions().withTransformerVersion("1")
+                        .withChecksumCache(new ChecksumCache(ChecksumCache.DEFAULT_MAX_ENTRIES)));
+
+        responseHandler.writeObjectResponse(200, RESPONSE_OBJECT, "\"mock-etag\"");
+        responseHandler.writeObjectResponse(200, RESPONSE_OBJECT, "\"mock-etag\"");
+
+        verify(md5Checksum, times(1)).getChecksum(any());
+        var request = ArgumentCaptor.forClass(WriteGetObjectResponseRequest.class);
+        verify(s3Client, times(2)).writeGetObjectResponse(request.capture());
+        assertEquals(md5Checksum.getChecksum(RESPONSE_OBJECT).getChecksum(),
+                request.getValue().getMetadata().getUserMetadata().get("digest"));
+    }
+
+    @Test
+    @DisplayName("Error code and message of Amazon S3 are forwarded with the status code.")
+    void testS3ErrorResponse() {
+        var responseHandler = new GetObjectResponseHandler(s3Client, s3ObjectLambdaEvent, md5Checksum);
+
+        responseHandler.writeS3GetObjectErrorResponse(mockS3ErrorResponse(503,
+                "<Error><Code>SlowDown</Code><Message>Please reduce your request rate.</Message></Error>"));
+
+        var request = ArgumentCaptor.forClass(WriteGetObjectResponseRequest.class);
+        verify(s3Client).writeGetObjectResponse(request.capture());
+        assertEquals(503, request.getValue().getStatusCode());
+        assertEquals("SlowDown", request.getValue().getErrorCode());
+        assertEquals("Please reduce your request rate.", request.getValue().getErrorMessage());
+    }
+
+    @Test
+    @DisplayName("Status code is still forwarded when the error response of Amazon S3 is malformed.")
+    void testMalformedS3ErrorResponse() {
+        var responseHandler = new GetObjectResponseHandler(s3Client, s3ObjectLambdaEvent, md5Checksum);
+
+        responseHandler.writeS3GetObjectErrorResponse(mockS3ErrorResponse(503, "<Error><Message>Slow"));
+
+        var request = ArgumentCaptor.forClass(WriteGetObjectResponseRequest.class);
+        verify(s3Client).writeGetObjectResponse(request.capture());
+        assertEquals(503, request.getValue().getStatusCode());
+        assertNull(request.getValue().getErrorCode());
+    }
+
+    @Test
+    @DisplayName("Stale objects are flagged with their age next to the checksum.")
+    void testStaleObjectResponse() {
+        var responseHandler = new GetObjectResponseHandler(s3Client, s3ObjectLambdaEvent, md5Checksum);
+
+        responseHandler.writeStaleObjectResponse(RESPONSE_OBJECT, "\"mock-etag\"", Duration.ofSeconds(42), null);
+
+        var request = ArgumentCaptor.forClass(WriteGetObjectResponseRequest.class);
+        verify(s3Client).writeGetObjectResponse(request.capture());
+        var userMetadata = request.getValue().getMetadata().getUserMetadata();
+        assertEquals("42", userMetadata.get(GetObjectResponseHandler.STALE_AGE_METADATA));
+        assertEquals("md5", userMetadata.get("algorithm").toLowerCase());
+        assertEquals(200, request.getValue().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Once the deadline answer is sent, responses of the stages are dropped, and the other way round.")
+    void testDeadlineExceededResponse() {
+        var deadline = new Deadline(() -> 5_000, Duration.ofSeconds(1));
+        var responseHandler = new GetObjectResponseHandler(s3Client, s3ObjectLambdaEvent, md5Checksum,
+                new GetObjectResponseOptions().withDeadline(deadline));
+
+        assertTrue(responseHandler.writeDeadlineExceededResponse());
+        responseHandler.writeObjectResponse(200, RESPONSE_OBJECT, "\"mock-etag\"");
+
+        var request = ArgumentCaptor.forClass(WriteGetObjectResponseRequest.class);
+        verify(s3Client).writeGetObjectResponse(request.capture());
+        assertEquals(500, request.getValue().getStatusCode());
+        assertEquals(5_000, request.getValue().getSdkClientExecutionTimeout());
+
+        var answered = new GetObjectResponseHandler(s3Client, s3ObjectLambdaEvent, md5Checksum,
+                new GetObjectResponseOptions().withDeadline(deadline));
+        answered.writeObjectResponse(200, RESPONSE_OBJECT, "\"mock-etag\"");
+        assertFalse(answered.writeDeadlineExceededResponse());
+        verify(s3Client, times(2)).writeGetObjectResponse(request.capture());
+        assertEquals(4_000, request.getValue().getSdkClientExecutionTimeout());
+    }
+
+    @Test
+    @DisplayName("Checksum is computed over every response without a checksum cache.")
+    void testFullChecksum() throws Exception {
+        var responseHandler = new GetObjectResponseHandler(s3Client, s3ObjectLambdaEvent, md5Checksum,
+                new GetObjectResponseOptions().withTransformerVersion("1"));
+
+        responseHandler.writeObjectResponse(200, RESPONSE_OBJECT, "\"mock-etag\"");
+        responseHandler.writeObjectResponse(200, RESPONSE_OBJECT, "\"mock-etag\"");
+
+        verify(md5Checksum, times(2)).getChecksum(any());
+    }
+
+    @Test
+    @DisplayName("Checksum computed beforehand is returned without a pass over the response.")
+    void testPrecomputedChecksum() throws Exception {
+        var responseHandler = new GetObjectResponseHandler(s3Client, s3ObjectLambdaEvent, md5Checksum);
+        var checksum = md5Checksum.newIncrementalChecksum();
+        checksum.update(RESPONSE_OBJECT, 0, 5);
+        checksum.update(RESPONSE_OBJECT, 5, RESPONSE_OBJECT.length - 5);
+        var precomputed = checksum.finish();
+
+        responseHandler.writeStaleObjectResponse(RESPONSE_OBJECT, "\"mock-etag\"", Duration.ofSeconds(1),
+                precomputed);
+
+        verify(md5Checksum, never()).getChecksum(any());
+        var request = ArgumentCaptor.forClass(WriteGetObjectResponseRequest.class);
+        verify(s3Client).writeGetObjectResponse(request.capture());
+        assertEquals(precomputed.getChecksum(), request.getValue().getMetadata().getUserMetadata().get("digest"));
+        assertEquals(new Md5Checksum().getChecksum(RESPONSE_OBJECT).getChecksum(), precomputed.getChecksum());
+    }
+
+    @Test
+    @DisplayName("Checksum is computed when the original ETag is unknown.")
+    void testDerivedChecksumWithoutETag() throws Exception {
+        var responseHandler = new GetObjectResponseHandler(s3Client, s3ObjectLambdaEvent, md5Checksum,
+                new GetObjectResponseOptions().withTransformerVersion("1")
+                        .withChecksumCache(new ChecksumCache(ChecksumCache.DEFAULT_MAX_ENTRIES)));
+
+        responseHandler.writeObjectResponse(200, RESPONSE_OBJECT, null);
+        responseHandler.writeObjectResponse(200, RESPONSE_OBJECT, null);
+
+        verify(md5Checksum, times(2)).getChecksum(any());
+    }
+
+    @Test
+    @DisplayName("SlowDown is answered without computing the checksum while WriteGetObjectResponse keeps failing.")
+    void testCircuitBreakerOpen() throws Exception {
+        var circuitBreaker = new CircuitBreaker("test", Duration.ofSeconds(5));
+        for (var i = 0; i < CircuitBreaker.DEFAULT_MIN_CALLS; i++) {
+            circuitBreaker.recordFailure();
+        }
+        var responseHandler = new GetObjectResponseHandler(s3Client, s3ObjectLambdaEvent, md5Checksum,
+                new GetObjectResponseOptions().withCircuitBreaker(circuitBreaker));
+
+        responseHandler.writeObjectResponse(200, RESPONSE_OBJECT, "\"mock-etag\"");
+
+        verify(md5Checksum, never()).getChecksum(any());
+        var request = ArgumentCaptor.forClass(WriteGetObjectResponseRequest.class);
+        verify(s3Client).writeGetObjectResponse(request.capture());
+        assertEquals(Error.SLOW_DOWN.getErrorCode(), request.getValue().getErrorCode());
+    }
+
+    @Test
+    @DisplayName("An object dropped after the deadline answer counts as a failure of WriteGetObjectResponse.")
+    void testCircuitBreakerAbandonedResponse() {
+        var circuitBreaker = Mockito.spy(new CircuitBreaker("test", Duration.ofSeconds(5)));
+        var responseHandler = new GetObjectResponseHandler(s3Client, s3ObjectLambdaEvent, md5Checksum,
+                new GetObjectResponseOptions().withCircuitBreaker(circuitBreaker)
+                        .withDeadline(new Deadline(() -> 5_000, Duration.ofSeconds(1))));
+
+        assertTrue(responseHandler.writeDeadlineExceededResponse());
+        responseHandler.writeObjectResponse(200, RESPONSE_OBJECT, "\"mock-etag\"");
+
+        verify(circuitBreaker).tryAcquire();
+        verify(circuitBreaker).recordFailure();
+        verify(circuitBreaker, never()).recordSuccess(Mockito.anyLong());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse<InputStream> mockS3ErrorResponse(int statusCode, String body) {
+        var httpResponse = (HttpResponse<InputStream>) mock(HttpResponse.class);
+        lenient().when(httpResponse.statusCode()).thenReturn(statusCode);
+        lenient().when(httpResponse.body()).thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        return httpResponse;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.s3objectlambda.retry;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CircuitBreakerTest {
+
+    private static final long SLOW_CALL_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    @DisplayName("The breaker opens once the failure rate of the window reaches the threshold.")
+    void opensOnFailureRate() {
+        var breaker = newCircuitBreaker();
+        for (var i = 0; i < 5; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.recordSuccess(1);
+        }
+        for (var i = 0; i < 4; i++) {
+            breaker.recordFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.recordSuccess(SLOW_CALL_NANOS + 1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Failures older than the window are forgotten.")
+    void forgetsOldFailures() {
+        var breaker = newCircuitBreaker();
+        for (var i = 0; i < 9; i++) {
+            breaker.recordFailure();
+        }
+        this.clock.addAndGet(TimeUnit.SECONDS.toNanos(11));
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("After the open duration a limited number of probes decide whether the breaker closes.")
+    void probesWhenHalfOpen() {
+        var breaker = newCircuitBreaker();
+        for (var i = 0; i < 10; i++) {
+            breaker.recordFailure();
+        }
+
+        this.clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        this.clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        breaker.recordSuccess(1);
+        breaker.recordSuccess(1);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("A call given back does not hold a probe of the half open breaker.")
+    void releasesUnusedProbe() {
+        var breaker = newCircuitBreaker();
+        for (var i = 0; i < 10; i++) {
+            breaker.recordFailure();
+        }
+
+        this.clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        breaker.release();
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    private CircuitBreaker newCircuitBreaker() {
+        return new CircuitBreaker("test", Duration.ofNanos(SLOW_CALL_NANOS), 10, 0.5, Duration.ofSeconds(5), 2,
+                this.clock::get);
+    }
+}
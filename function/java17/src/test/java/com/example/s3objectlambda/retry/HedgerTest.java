@@ -0,0 +1,85 @@
+package com.example.s3objectlambda.retry;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HedgerTest {
+
+    private static final HttpRequest REQUEST = HttpRequest.newBuilder(URI.create("https://example.com/key")).build();
+
+    @Test
+    @DisplayName("A slow request is hedged once the latency is known, and the first response wins.")
+    void hedgesSlowRequest() throws Exception {
+        var tracker = new LatencyTracker(LatencyTracker.DEFAULT_CAPACITY);
+        for (var i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+            tracker.record(1_000_000);
+        }
+
+        var primary = new CompletableFuture<HttpResponse<InputStream>>();
+        @SuppressWarnings("unchecked")
+        HttpResponse<InputStream> hedgeResponse = mock(HttpResponse.class);
+        var httpClient = mock(HttpClient.class);
+        when(httpClient.<InputStream>sendAsync(any(), any()))
+                .thenReturn(primary)
+                .thenReturn(CompletableFuture.completedFuture(hedgeResponse));
+
+        var response = new Hedger(tracker, 0.95, 1).send(httpClient, REQUEST,
+                HttpResponse.BodyHandlers.ofInputStream());
+
+        assertSame(hedgeResponse, response);
+        assertTrue(primary.isCancelled());
+        verify(httpClient, times(2)).sendAsync(any(), any());
+    }
+
+    @Test
+    @DisplayName("No request is hedged before enough latencies are recorded, or beyond the hedge ratio.")
+    void limitsHedges() throws Exception {
+        @SuppressWarnings("unchecked")
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        var httpClient = mock(HttpClient.class);
+        when(httpClient.<InputStream>sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        var tracker = new LatencyTracker(LatencyTracker.DEFAULT_CAPACITY);
+        var hedger = new Hedger(tracker, 0.95, 1);
+        assertSame(response, hedger.send(httpClient, REQUEST, HttpResponse.BodyHandlers.ofInputStream()));
+        verify(httpClient, times(1)).sendAsync(any(), any());
+
+        for (var i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+            tracker.record(1_000_000);
+        }
+        var slow = new CompletableFuture<HttpResponse<InputStream>>();
+        var rateLimited = mock(HttpClient.class);
+        when(rateLimited.<InputStream>sendAsync(any(), any())).thenReturn(slow);
+        new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slow.complete(response);
+        }).start();
+
+        // With a ratio of 0.05, a hedge has to be earned by twenty requests first.
+        assertSame(response, new Hedger(tracker, 0.95, 0.05).send(rateLimited, REQUEST,
+                HttpResponse.BodyHandlers.ofInputStream()));
+        verify(rateLimited, times(1)).sendAsync(any(), any());
+        assertFalse(slow.isCancelled());
+    }
+}
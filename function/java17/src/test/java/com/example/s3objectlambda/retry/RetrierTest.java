@@ -0,0 +1,131 @@
+package com.example.s3objectlambda.retry;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RetrierTest {
+
+    private static final HttpRequest REQUEST = HttpRequest.newBuilder(URI.create("https://example.com/key")).build();
+
+    private final List<Long> delays = new ArrayList<>();
+
+    @Test
+    @DisplayName("Server errors are retried until a response succeeds.")
+    void retriesServerErrors() throws Exception {
+        var httpClient = mockHttpClient(503, 500, 200);
+        var budget = new RetryBudget(10, 0.1);
+
+        var response = newRetrier(3, budget, Long.MAX_VALUE).send(httpClient, REQUEST,
+                HttpResponse.BodyHandlers.ofInputStream());
+
+        assertEquals(200, response.statusCode());
+        verify(httpClient, times(3)).send(any(), any());
+        assertEquals(2, this.delays.size());
+        assertEquals(8, budget.getTokens());
+    }
+
+    @Test
+    @DisplayName("The last response is returned once the attempts are exhausted, client errors are not retried.")
+    void stopsAfterMaxAttempts() throws Exception {
+        var httpClient = mockHttpClient(503, 503, 503, 503);
+        var response = newRetrier(3, new RetryBudget(10, 0.1), Long.MAX_VALUE).send(httpClient, REQUEST,
+                HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(503, response.statusCode());
+        verify(httpClient, times(3)).send(any(), any());
+
+        var notFound = mockHttpClient(404);
+        newRetrier(3, new RetryBudget(10, 0.1), Long.MAX_VALUE).send(notFound, REQUEST,
+                HttpResponse.BodyHandlers.ofInputStream());
+        verify(notFound, times(1)).send(any(), any());
+    }
+
+    @Test
+    @DisplayName("Requests are not retried once the retry budget is exhausted.")
+    void respectsRetryBudget() throws Exception {
+        var budget = new RetryBudget(1, 0.5);
+        var httpClient = mockHttpClient(503, 503, 503);
+
+        newRetrier(3, budget, Long.MAX_VALUE).send(httpClient, REQUEST, HttpResponse.BodyHandlers.ofInputStream());
+
+        verify(httpClient, times(2)).send(any(), any());
+        assertTrue(budget.getTokens() < 1);
+        budget.recordSuccess();
+        budget.recordSuccess();
+        assertTrue(budget.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Requests are not retried when the Lambda function would run out of time.")
+    void respectsRemainingTime() throws Exception {
+        var httpClient = mock(HttpClient.class);
+        when(httpClient.send(any(), any())).thenThrow(new IOException("Connection reset"));
+
+        assertThrows(IOException.class, () -> newRetrier(3, new RetryBudget(10, 0.1), 500).send(httpClient,
+                REQUEST, HttpResponse.BodyHandlers.ofInputStream()));
+        verify(httpClient, times(1)).send(any(), any());
+    }
+
+    @Test
+    @DisplayName("Delays grow with decorrelated jitter between the base and maximum delay.")
+    void decorrelatedJitter() {
+        var retryPolicy = new RetryPolicy(5, Duration.ofMillis(50), Duration.ofMillis(1000), Duration.ZERO);
+
+        assertEquals(50, retryPolicy.nextDelayMillis(0, 0));
+        assertEquals(149, retryPolicy.nextDelayMillis(50, 0.999));
+        assertEquals(1000, retryPolicy.nextDelayMillis(800, 1));
+        for (var i = 0; i < 100; i++) {
+            var delay = retryPolicy.nextDelayMillis(200, Math.random());
+            assertTrue(delay >= 50 && delay <= 600);
+        }
+    }
+
+    private Retrier newRetrier(int maxAttempts, RetryBudget budget, long remainingTimeMillis) {
+        var retryPolicy = new RetryPolicy(maxAttempts, Duration.ofMillis(10), Duration.ofMillis(100),
+                Duration.ofSeconds(1));
+        return new Retrier(retryPolicy, budget, () -> remainingTimeMillis) {
+            @Override
+            protected void sleep(long millis) {
+                RetrierTest.this.delays.add(millis);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpClient mockHttpClient(int... statusCodes) throws IOException, InterruptedException {
+        var httpClient = mock(HttpClient.class);
+        var responses = new HttpResponse[statusCodes.length];
+        for (var i = 0; i < statusCodes.length; i++) {
+            var response = (HttpResponse<InputStream>) mock(HttpResponse.class);
+            lenient().when(response.statusCode()).thenReturn(statusCodes[i]);
+            lenient().when(response.body()).thenReturn(new ByteArrayInputStream(new byte[0]));
+            responses[i] = response;
+        }
+
+        var stubbing = when(httpClient.send(any(), any())).thenReturn(responses[0]);
+        for (var i = 1; i < responses.length; i++) {
+            stubbing = stubbing.thenReturn(responses[i]);
+        }
+        return httpClient;
+    }
+}
@@ -1,12 +1,14 @@
 package com.example.s3objectlambda.validator;
 
 import com.amazonaws.services.lambda.runtime.events.S3ObjectLambdaEvent;
+import com.example.s3objectlambda.filter.KeyVisibilityFilter;
 import com.example.s3objectlambda.request.GetObjectRequestWrapper;
 import jdk.jfr.Description;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -62,4 +64,26 @@ public class RequestValidatorTest {
         var requestValid = new GetObjectRequestValidator(getObjectUserRequest).validateUserRequest();
         assertTrue(requestValid.isEmpty());
     }
+
+    @Test
+    @DisplayName("The validateKeyVisibility function should return error when the key is hidden by the access point")
+    public void userRequestWithHiddenKey() {
+        var mockUserRequest = mock(S3ObjectLambdaEvent.UserRequest.class);
+        when(mockUserRequest.getUrl()).thenReturn("https://example.com/private/my%20file.txt?partNumber=1");
+        var getObjectUserRequest = new GetObjectRequestWrapper(mockUserRequest);
+        var filter = KeyVisibilityFilter.compile(List.of("private/my file"));
+        var requestValid = new GetObjectRequestValidator(getObjectUserRequest, filter).validateKeyVisibility();
+        assertFalse(requestValid.isEmpty());
+    }
+
+    @Test
+    @DisplayName("The validateKeyVisibility function should return empty when the key is not hidden")
+    public void userRequestWithVisibleKey() {
+        var mockUserRequest = mock(S3ObjectLambdaEvent.UserRequest.class);
+        when(mockUserRequest.getUrl()).thenReturn("https://example.com/public/file.txt");
+        var getObjectUserRequest = new GetObjectRequestWrapper(mockUserRequest);
+        var filter = KeyVisibilityFilter.compile(List.of("private/", "**.secret"));
+        var requestValid = new GetObjectRequestValidator(getObjectUserRequest, filter).validateKeyVisibility();
+        assertTrue(requestValid.isEmpty());
+    }
 }
@@ -0,0 +1,80 @@
+package com.amazon.s3objectlambda.defaultconfig.local;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.Reporter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Reports, for each test case, how much longer its GetObject requests took through the Object Lambda Access Point
+ * than directly from the bucket, as measured by the LocalAccessPointInterceptor. The report is printed once the suite
+ * finished, and written to target/object-lambda-overhead.csv.
+ *
+ * The durations include the local network and the client, and the test cases run in parallel, so they are indicative
+ * only: the load test and the benchmarks under tools measure the function with more care.
+ */
+public class LambdaOverheadReport implements ISuiteListener {
+
+    public static final Path REPORT = Path.of("target", "object-lambda-overhead.csv");
+    private static final Map<String, List<long[]>> DURATIONS = new ConcurrentSkipListMap<>();
+
+    /**
+     * Records a GetObject request of the test case running on the calling thread.
+     */
+    static void record(long accessPointNanos, long directNanos) {
+        var result = Reporter.getCurrentTestResult();
+        var testCase = result == null ? "(outside of a test case)"
+                : result.getTestClass().getRealClass().getSimpleName() + "." + result.getMethod().getMethodName();
+        DURATIONS.computeIfAbsent(testCase, key -> new CopyOnWriteArrayList<>())
+                .add(new long[] {accessPointNanos, directNanos});
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (DURATIONS.isEmpty()) {
+            return;
+        }
+
+        var lines = new ArrayList<String>();
+        lines.add("testCase,requests,objectLambdaMs,directMs,addedMs");
+        var table = new StringBuilder(String.format("%nTime added by Object Lambda over a direct GET, mean per request"
+                + "%n%-72s %8s %13s %10s %10s%n", "Test case", "Requests", "Object Lambda", "Direct", "Added"));
+        var all = new ArrayList<long[]>();
+        DURATIONS.forEach((testCase, durations) -> {
+            all.addAll(durations);
+            this.append(testCase, durations, lines, table);
+        });
+        this.append("All test cases", all, lines, table);
+
+        System.out.print(table);
+        try {
+            Files.createDirectories(REPORT.getParent());
+            Files.write(REPORT, lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("Written to " + REPORT.toAbsolutePath());
+    }
+
+    /**
+     * Appends the number of requests, the mean durations through the access point and directly, and their difference.
+     */
+    private void append(String testCase, List<long[]> durations, List<String> lines, StringBuilder table) {
+        var accessPointMs = durations.stream().mapToLong(duration -> duration[0]).average().orElse(0) / 1e6;
+        var directMs = durations.stream().mapToLong(duration -> duration[1]).average().orElse(0) / 1e6;
+        lines.add(String.format(Locale.ROOT, "%s,%d,%.3f,%.3f,%.3f", testCase, durations.size(), accessPointMs,
+                directMs, accessPointMs - directMs));
+        table.append(String.format(Locale.ROOT, "%-72s %8d %10.3f ms %7.3f ms %7.3f ms%n", testCase,
+                durations.size(), accessPointMs, directMs, accessPointMs - directMs));
+    }
+}
@@ -0,0 +1,141 @@
+package com.amazon.s3objectlambda.defaultconfig.local;
+
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Routes the requests to the alias of the Object Lambda Access Point to the access point of the Emulator, as Amazon S3
+ * does, the rest of the path being the key of the object.
+ *
+ * Each GetObject request to the access point is timed until its body is read, or until it fails, and is then sent
+ * directly to the bucket. The LambdaOverheadReport gets both durations, for the test case running on the thread.
+ */
+class LocalAccessPointInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Long> START = new ExecutionAttribute<>("LocalAccessPointStart");
+
+    private final String alias;
+    private final URI accessPoint;
+    private final String bucket;
+    private final S3Client directClient;
+
+    /**
+     * @param directClient The client sending the direct GetObject requests, without this interceptor.
+     */
+    LocalAccessPointInterceptor(String alias, URI accessPoint, String bucket, S3Client directClient) {
+        this.alias = alias;
+        this.accessPoint = accessPoint;
+        this.bucket = bucket;
+        this.directClient = directClient;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(START, System.nanoTime());
+    }
+
+    @Override
+    public SdkHttpRequest modifyHttpRequest(Context.ModifyHttpRequest context,
+                                            ExecutionAttributes executionAttributes) {
+        var request = context.httpRequest();
+        var prefix = "/" + this.alias;
+        var path = request.encodedPath();
+        if (!path.equals(prefix) && !path.startsWith(prefix + "/")) {
+            return request;
+        }
+
+        var key = path.substring(prefix.length());
+        return request.toBuilder()
+                .protocol(this.accessPoint.getScheme())
+                .host(this.accessPoint.getHost())
+                .port(this.accessPoint.getPort())
+                .encodedPath(key.isEmpty() ? "/" : key)
+                .build();
+    }
+
+    @Override
+    public Optional<InputStream> modifyHttpResponseContent(Context.ModifyHttpResponse context,
+                                                           ExecutionAttributes executionAttributes) {
+        var request = this.getAccessPointRequest(context.request());
+        if (request.isEmpty() || !context.httpResponse().isSuccessful() || context.responseBody().isEmpty()) {
+            return context.responseBody();
+        }
+
+        var start = executionAttributes.getAttribute(START);
+        var completed = new AtomicBoolean();
+        return Optional.of(new FilterInputStream(context.responseBody().get()) {
+            @Override
+            public int read() throws IOException {
+                return this.completeAt(super.read());
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                return this.completeAt(super.read(buffer, offset, length));
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                this.complete();
+            }
+
+            private int completeAt(int read) {
+                if (read < 0) {
+                    this.complete();
+                }
+                return read;
+            }
+
+            private void complete() {
+                if (completed.compareAndSet(false, true)) {
+                    LocalAccessPointInterceptor.this.compare(request.get(), System.nanoTime() - start);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        var request = this.getAccessPointRequest(context.request());
+        var start = executionAttributes.getAttribute(START);
+        if (request.isPresent() && start != null) {
+            this.compare(request.get(), System.nanoTime() - start);
+        }
+    }
+
+    private Optional<GetObjectRequest> getAccessPointRequest(Object request) {
+        if (request instanceof GetObjectRequest getObjectRequest && this.alias.equals(getObjectRequest.bucket())) {
+            return Optional.of(getObjectRequest);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Sends the request directly to the bucket, and reports it along with the request to the access point. Errors are
+     * part of the comparison: a request failing through the access point may fail directly too.
+     */
+    private void compare(GetObjectRequest request, long accessPointNanos) {
+        var directRequest = request.toBuilder().bucket(this.bucket).build();
+        var start = System.nanoTime();
+        try {
+            this.directClient.getObject(directRequest, ResponseTransformer.toBytes());
+        } catch (RuntimeException e) {
+            // The duration of failed requests counts all the same.
+        }
+        LambdaOverheadReport.record(accessPointNanos, System.nanoTime() - start);
+    }
+}
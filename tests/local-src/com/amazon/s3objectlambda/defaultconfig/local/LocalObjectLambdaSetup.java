@@ -0,0 +1,79 @@
+package com.amazon.s3objectlambda.defaultconfig.local;
+
+import static com.amazon.s3objectlambda.defaultconfig.KeyConstants.*;
+
+import com.amazon.s3objectlambda.defaultconfig.SdkHelper;
+import com.example.s3objectlambda.emulator.Emulator;
+import org.testng.Assert;
+import org.testng.ITestContext;
+import org.testng.annotations.AfterTest;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+/**
+ * Replaces the CloudFormation stack of the suite with an Emulator: a local Amazon S3 with the bucket of the test, and a
+ * local Object Lambda Access Point invoking the Java function in-process. Each test of the suite gets its own bucket
+ * and access point, so that tests listing the bucket can run in parallel with the others.
+ */
+@Test(groups = "setup")
+public class LocalObjectLambdaSetup {
+
+    private static final int CONCURRENCY = 16;
+    private static final int WARMUP_REQUESTS = 20;
+
+    private Emulator emulator;
+    private Path root;
+
+    @Parameters({"s3BucketName"})
+    @Test(description = "Start the local Amazon S3 and Object Lambda Access Point")
+    public void startEmulator(ITestContext context, String s3BucketName) throws Exception {
+        var sdkHelper = new SdkHelper();
+        var olAccessPointName = sdkHelper.generateRandomResourceName(8);
+        this.root = Files.createTempDirectory("object-lambda-" + s3BucketName);
+        Files.createDirectory(this.root.resolve(s3BucketName));
+        this.emulator = new Emulator(this.root, s3BucketName, 0, CONCURRENCY, Emulator.DEFAULT_TIMEOUT, null);
+        this.emulator.start();
+
+        context.setAttribute(OL_AP_NAME_KEY, olAccessPointName);
+        context.setAttribute(SDK_HELPER_KEY, new LocalSdkHelper(this.emulator, s3BucketName, olAccessPointName));
+        this.warmUp(s3BucketName);
+    }
+
+    /**
+     * Loads and compiles the function before the test cases, whose durations would include it otherwise.
+     */
+    private void warmUp(String s3BucketName) throws IOException, InterruptedException {
+        var key = "warmup.bin";
+        Files.write(this.root.resolve(s3BucketName).resolve(key), new byte[64 * 1024]);
+        var httpClient = HttpClient.newHttpClient();
+        var request = HttpRequest.newBuilder(URI.create(this.emulator.getEndpoint() + "/" + key)).build();
+        for (var i = 0; i < WARMUP_REQUESTS; i++) {
+            var response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            Assert.assertEquals(response.statusCode(), 200);
+        }
+        Files.delete(this.root.resolve(s3BucketName).resolve(key));
+    }
+
+    @AfterTest(alwaysRun = true, description = "Stop the emulator and delete its objects")
+    public void stopEmulator() throws IOException {
+        if (this.emulator != null) {
+            this.emulator.stop();
+        }
+        if (this.root != null) {
+            try (var paths = Files.walk(this.root)) {
+                for (var path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
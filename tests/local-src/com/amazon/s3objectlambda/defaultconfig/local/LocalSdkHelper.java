@@ -0,0 +1,75 @@
+package com.amazon.s3objectlambda.defaultconfig.local;
+
+import com.amazon.s3objectlambda.defaultconfig.SdkHelper;
+import com.example.s3objectlambda.emulator.Emulator;
+import com.example.s3objectlambda.emulator.ObjectLambdaEvents;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+
+/**
+ * Points the tests at an Emulator instead of AWS. Requests to the bucket go to its local Amazon S3, and requests to the
+ * alias of the Object Lambda Access Point are routed to its access point by a LocalAccessPointInterceptor.
+ */
+public class LocalSdkHelper extends SdkHelper {
+
+    private static final String ALIAS_SUFFIX = "--ol-s3";
+
+    private final Emulator emulator;
+    private final String bucket;
+    private final String accessPointName;
+    private S3Client s3Client;
+
+    public LocalSdkHelper(Emulator emulator, String bucket, String accessPointName) {
+        this.emulator = emulator;
+        this.bucket = bucket;
+        this.accessPointName = accessPointName;
+    }
+
+    /**
+     * Returns the client shared by the test classes, so that the GetObject requests of all of them are measured.
+     */
+    @Override
+    public synchronized S3Client getS3Client(String region) {
+        if (this.s3Client == null) {
+            var directClient = this.newS3Client(region, null);
+            var interceptor = new LocalAccessPointInterceptor(this.getAlias(), this.emulator.getEndpoint(),
+                    this.bucket, directClient);
+            this.s3Client = this.newS3Client(region, interceptor);
+        }
+        return this.s3Client;
+    }
+
+    /**
+     * Returns the alias of the access point rather than its ARN: clients with an endpoint override only address
+     * buckets, and Amazon S3 accepts the alias of an Object Lambda Access Point wherever it accepts a bucket name.
+     */
+    @Override
+    public String getOLAccessPointArn(Region region, String accessPointName) {
+        return this.getAlias();
+    }
+
+    @Override
+    public String getAWSAccountID(Region region) {
+        return ObjectLambdaEvents.ACCOUNT_ID;
+    }
+
+    private String getAlias() {
+        return this.accessPointName + "-" + ObjectLambdaEvents.ACCOUNT_ID + ALIAS_SUFFIX;
+    }
+
+    private S3Client newS3Client(String region, LocalAccessPointInterceptor interceptor) {
+        var builder = S3Client.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create("EMULATORACCESSKEYID", "emulator-secret-access-key")))
+                .region(Region.of(region))
+                .endpointOverride(this.emulator.getS3Server().getEndpoint())
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build());
+        if (interceptor != null) {
+            builder.overrideConfiguration(configuration -> configuration.addExecutionInterceptor(interceptor));
+        }
+        return builder.build();
+    }
+}
@@ -16,6 +16,10 @@ public final class KeyConstants {
      * IContext Key for Object Lambda Access Point name.
      */
     public static final String OL_AP_NAME_KEY = "OL_AP_NAME_KEY";
+    /**
+     * IContext Key for the SdkHelper of suites running against local stand-ins instead of AWS.
+     */
+    public static final String SDK_HELPER_KEY = "SDK_HELPER_KEY";
 
     private KeyConstants() {
     }
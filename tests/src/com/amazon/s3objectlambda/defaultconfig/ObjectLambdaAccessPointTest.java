@@ -30,7 +30,8 @@ public class ObjectLambdaAccessPointTest {
     @BeforeClass(alwaysRun = true)
     void setup(ITestContext context, String region, String s3BucketName) {
         this.olAccessPointName = (String) context.getAttribute(OL_AP_NAME_KEY);
-        this.sdkHelper = new SdkHelper();
+        var localSdkHelper = (SdkHelper) context.getAttribute(SDK_HELPER_KEY);
+        this.sdkHelper = localSdkHelper == null ? new SdkHelper() : localSdkHelper;
         this.s3Client = sdkHelper.getS3Client(region);
         this.region = Region.of(region);
         this.olapArn = sdkHelper.getOLAccessPointArn(this.region, olAccessPointName);
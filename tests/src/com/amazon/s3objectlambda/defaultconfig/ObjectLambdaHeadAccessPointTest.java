@@ -26,8 +26,11 @@ public class ObjectLambdaHeadAccessPointTest extends ObjectLambdaAccessPointTest
             HeadObjectResponse object = s3Client.headObject(headObjectRequestOLAP);
             HeadObjectResponse originalObject = s3Client.headObject(headObjectRequestS3);
             Assert.assertTrue(object.sdkHttpResponse().isSuccessful());
-            // Check if the request is equal to one without OL
-            Assert.assertEquals(object.toString(), originalObject.toString());
+            // Check if the request is equal to one without OL. The Java function answers with the ETag of the
+            // transformed object, the other functions with the ETag of the original object.
+            Assert.assertNotNull(object.eTag());
+            Assert.assertEquals(object.toBuilder().eTag(null).build().toString(),
+                    originalObject.toBuilder().eTag(null).build().toString());
         } catch (Exception e) {
             Assert.fail("Unexpected Errors: " + e.getMessage());
         }
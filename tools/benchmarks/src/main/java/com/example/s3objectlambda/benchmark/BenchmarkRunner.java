@@ -0,0 +1,42 @@
+package com.example.s3objectlambda.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the options of the JMH command line, and the GC profiler unless other profilers are
+ * given. The GC profiler reports the allocation rate and the bytes allocated per operation (gc.alloc.rate.norm),
+ * along with the collections the benchmark caused.
+ *
+ * For example, java -jar target/benchmarks.jar RangeBenchmark -rf json -rff range.json
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        var commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return;
+        }
+        if (commandLine.shouldListWithParams()) {
+            new Runner(commandLine).listWithParams(commandLine);
+            return;
+        }
+        if (commandLine.shouldListProfilers()) {
+            commandLine.listProfilers();
+            return;
+        }
+
+        var options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.s3objectlambda.benchmark;
+
+import com.amazonaws.services.lambda.runtime.events.S3ObjectLambdaEvent;
+import com.example.s3objectlambda.request.GetObjectRequestWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading Range and partNumber from the user request of an event. The Range is either a header, or a query
+ * parameter found after the url has been parsed, and the url carries a few or many other parameters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class GetObjectRequestWrapperBenchmark {
+
+    @Param({"header", "query"})
+    private String rangeIn;
+
+    @Param({"1", "16"})
+    private int queryParameters;
+
+    private GetObjectRequestWrapper userRequest;
+
+    @Setup
+    public void setUp() {
+        var url = new StringBuilder("https://example-ap-111122223333.s3-object-lambda.us-east-1.amazonaws.com/path/to/"
+                + "object.txt?partNumber=1");
+        for (var i = 1; i < this.queryParameters; i++) {
+            url.append("&x-id-").append(i).append("=value-").append(i);
+        }
+        var headers = new HashMap<String, String>();
+        headers.put("Host", "example-ap-111122223333.s3-object-lambda.us-east-1.amazonaws.com");
+        headers.put("Accept-Encoding", "identity");
+        headers.put("X-Amz-Content-SHA256", "UNSIGNED-PAYLOAD");
+        if (this.rangeIn.equals("header")) {
+            headers.put("Range", "bytes=0-1023");
+        } else {
+            url.append("&Range=bytes%3D0-1023");
+        }
+        this.userRequest = new GetObjectRequestWrapper(new S3ObjectLambdaEvent.UserRequest(url.toString(), headers));
+    }
+
+    @Benchmark
+    public Optional<String> getRange() throws URISyntaxException {
+        return this.userRequest.getRange();
+    }
+
+    @Benchmark
+    public Optional<String> getPartNumber() throws URISyntaxException {
+        return this.userRequest.getPartNumber();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.s3objectlambda.benchmark;
+
+import com.example.s3objectlambda.checksum.Checksum;
+import com.example.s3objectlambda.checksum.Md5Checksum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The MD5 checksum of transformed objects of typical sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class Md5ChecksumBenchmark {
+
+    @Param({"1024", "1048576", "16777216"})
+    private int objectSize;
+
+    private byte[] object;
+    private Md5Checksum md5Checksum;
+
+    @Setup
+    public void setUp() {
+        this.object = new byte[this.objectSize];
+        new Random(1).nextBytes(this.object);
+        this.md5Checksum = new Md5Checksum();
+    }
+
+    @Benchmark
+    public Checksum getChecksum() throws NoSuchAlgorithmException {
+        return this.md5Checksum.getChecksum(this.object);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.s3objectlambda.benchmark;
+
+import com.example.s3objectlambda.exception.InvalidPartNumberException;
+import com.example.s3objectlambda.transform.PartNumberMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracting a part of 5 MB from transformed objects. Part 1 of a single part object is the whole object, and the
+ * last part of a larger object is shorter than the others.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PartNumberBenchmark {
+
+    @Param({"1048576", "16777216"})
+    private int objectSize;
+
+    @Param({"1", "last"})
+    private String part;
+
+    private byte[] object;
+    private String partNumber;
+    private PartNumberMapper mapper;
+
+    @Setup
+    public void setUp() {
+        this.object = new byte[this.objectSize];
+        new Random(1).nextBytes(this.object);
+        var partSize = 5 * 1024 * 1024;
+        this.partNumber = this.part.equals("last")
+                ? Integer.toString((this.objectSize + partSize - 1) / partSize) : this.part;
+        this.mapper = new PartNumberMapper();
+    }
+
+    @Benchmark
+    public byte[] mapPartNumber() throws InvalidPartNumberException {
+        return this.mapper.mapPartNumber(this.partNumber, this.object);
+    }
+
+    @Benchmark
+    public long[] resolveBounds() throws InvalidPartNumberException {
+        return this.mapper.resolveBounds(this.partNumber, this.object.length);
+    }
+}
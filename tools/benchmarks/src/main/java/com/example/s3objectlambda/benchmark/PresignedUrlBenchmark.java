@@ -0,0 +1,57 @@
+package com.example.s3objectlambda.benchmark;
+
+import com.example.s3objectlambda.request.S3PresignedUrlParserHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.MalformedURLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the signed headers of the presigned url of an event, for urls signing only the host header, and urls
+ * signing the conditional and checksum headers of the request as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PresignedUrlBenchmark {
+
+    private static final String[] HEADERS = {"host", "if-match", "if-modified-since", "if-none-match",
+        "if-unmodified-since", "range", "x-amz-checksum-mode", "x-amz-content-sha256"};
+
+    @Param({"1", "8"})
+    private int signedHeaders;
+
+    private String presignedUrl;
+
+    @Setup
+    public void setUp() {
+        this.presignedUrl = "https://example-bucket.s3.us-east-1.amazonaws.com/path/to/object.txt"
+                + "?versionId=3HL4kqtJlcpXroDTDmJ.rmSpXd3dIbrHY"
+                + "&X-Amz-Algorithm=AWS4-HMAC-SHA256"
+                + "&X-Amz-Credential=ASIAEXAMPLE%2F20260101%2Fus-east-1%2Fs3%2Faws4_request"
+                + "&X-Amz-Date=20260101T000000Z"
+                + "&X-Amz-Expires=61"
+                + "&X-Amz-Security-Token=" + "IQoJb3JpZ2luX2VjEXAMPLE".repeat(40)
+                + "&X-Amz-SignedHeaders=" + String.join("%3B", List.of(HEADERS).subList(0, this.signedHeaders))
+                + "&X-Amz-Signature=" + "0123456789abcdef".repeat(4);
+    }
+
+    @Benchmark
+    public List<String> retrieveSignedHeadersFromPresignedUrl() throws MalformedURLException {
+        return S3PresignedUrlParserHelper.retrieveSignedHeadersFromPresignedUrl(this.presignedUrl);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.s3objectlambda.benchmark;
+
+import com.example.s3objectlambda.exception.InvalidRangeException;
+import com.example.s3objectlambda.transform.Range;
+import com.example.s3objectlambda.transform.RangeMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the Range header, and applying it to transformed objects of typical sizes. The ranges are the first
+ * kilobyte, the last kilobyte (suffix range) and everything after the first kilobyte (open ended).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class RangeBenchmark {
+
+    @Param({"1024", "1048576", "16777216"})
+    private int objectSize;
+
+    @Param({"bytes=0-1023", "bytes=-1024", "bytes=1024-"})
+    private String range;
+
+    private byte[] object;
+    private Range parsedRange;
+
+    @Setup
+    public void setUp() throws InvalidRangeException {
+        this.object = new byte[this.objectSize];
+        new Random(1).nextBytes(this.object);
+        this.parsedRange = new Range(this.range);
+    }
+
+    @Benchmark
+    public Range parseRange() throws InvalidRangeException {
+        return new Range(this.range);
+    }
+
+    @Benchmark
+    public byte[] mapRange() throws InvalidRangeException {
+        return new RangeMapper(this.parsedRange).mapRange(this.object);
+    }
+
+    @Benchmark
+    public byte[] parseAndMapRange() throws InvalidRangeException {
+        return new RangeMapper(this.range).mapRange(this.object);
+    }
+}
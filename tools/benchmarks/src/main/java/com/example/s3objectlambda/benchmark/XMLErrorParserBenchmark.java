@@ -0,0 +1,70 @@
+package com.example.s3objectlambda.benchmark;
+
+import com.example.s3objectlambda.error.S3RequestError;
+import com.example.s3objectlambda.error.XMLErrorParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the error responses of Amazon S3: a typical NoSuchKey response, and an AccessDenied response whose
+ * message and extra elements make it a few kilobytes long.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class XMLErrorParserBenchmark {
+
+    @Param({"typical", "large"})
+    private String response;
+
+    private String errorResponse;
+    private byte[] errorResponseBytes;
+    private XMLErrorParser parser;
+
+    @Setup
+    public void setUp() {
+        var extra = new StringBuilder();
+        if (this.response.equals("large")) {
+            for (var i = 0; i < 32; i++) {
+                extra.append("<Detail").append(i).append(">").append("x".repeat(64)).append("</Detail").append(i)
+                        .append(">");
+            }
+        }
+        this.errorResponse = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Error><Code>"
+                + (this.response.equals("large") ? "AccessDenied" : "NoSuchKey") + "</Code><Message>"
+                + (this.response.equals("large") ? "Access Denied ".repeat(32) : "The specified key does not exist.")
+                + "</Message>" + extra + "<Key>path/to/object.txt</Key><RequestId>4442587FB7D0A2F9</RequestId>"
+                + "<HostId>Uuag1LuByRx9e6j5Onimru9pO4ZVKnJ2Qz7/C1NPcfTWAtRPfTaOFg==</HostId></Error>";
+        this.errorResponseBytes = this.errorResponse.getBytes(StandardCharsets.UTF_8);
+        this.parser = new XMLErrorParser();
+    }
+
+    @Benchmark
+    public S3RequestError parseString() throws ParserConfigurationException, SAXException, IOException {
+        return this.parser.parse(this.errorResponse);
+    }
+
+    @Benchmark
+    public S3RequestError parseStream() throws SAXException, IOException {
+        return this.parser.parse(new ByteArrayInputStream(this.errorResponseBytes));
+    }
+}
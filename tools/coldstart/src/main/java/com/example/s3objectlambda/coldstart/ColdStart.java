@@ -0,0 +1,277 @@
+package com.example.s3objectlambda.coldstart;
+
+import com.example.s3objectlambda.emulator.LocalContext;
+import com.example.s3objectlambda.emulator.LocalS3Server;
+import com.example.s3objectlambda.emulator.ObjectLambdaEvents;
+import com.example.s3objectlambda.emulator.ObjectStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cold starts of the function: each run forks a new JVM with the shaded jar of the function and options
+ * close to those of AWS Lambda, initializes the Handler in it, and sends it a single GetObject event whose presigned
+ * url and WriteGetObjectResponse requests go to a LocalS3Server of this JVM.
+ *
+ * For each run it records the time from the start of the process, and from the start of the JVM, until the Handler
+ * is initialized, the time from the invocation to the first byte of the response reaching WriteGetObjectResponse,
+ * the number of loaded classes and the heap used after the initialization and after the invocation. The report
+ * summarizes them over the runs, and can be appended to a history file to follow them from one change to the next.
+ *
+ * Usage: ColdStart [--runs 10]
+ * [--function-jar function/java17/target/S3ObjectLambdaDefaultConfigJavaFunction-1.0.jar] [--java path]
+ * [--memory-mb 1024] [--timeout-seconds 60] [--object-size 1MiB] [--jvm-options "-Xshare:auto ..."] [--payload JSON]
+ * [--output report.json] [--history cold-starts.jsonl]
+ */
+public class ColdStart {
+
+    public static final String BUCKET = "cold-start";
+    public static final String KEY = "object";
+    private static final String ACCESS_POINT_URL =
+            "https://cold-start-111122223333.s3-object-lambda.us-east-1.amazonaws.com";
+
+    private final ColdStartConfig config;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public ColdStart(ColdStartConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Runs the forked JVMs one after the other, and returns the report.
+     */
+    public Map<String, Object> run() throws Exception {
+        if (!Files.isRegularFile(this.config.getFunctionJar())) {
+            throw new IllegalStateException("The shaded jar of the function was not found at "
+                    + this.config.getFunctionJar().toAbsolutePath() + ", package the function first.");
+        }
+
+        var root = Files.createTempDirectory("s3-object-lambda-cold-start");
+        LocalS3Server s3Server = null;
+        try {
+            var content = new byte[(int) this.config.getObjectSize()];
+            new Random(1).nextBytes(content);
+            Files.write(Files.createDirectories(root.resolve(BUCKET)).resolve(KEY), content);
+            s3Server = new LocalS3Server(new ObjectStore(root), 0);
+            s3Server.start();
+            var events = new ObjectLambdaEvents(s3Server, BUCKET, ACCESS_POINT_URL, this.config.getPayload());
+
+            var runs = new ArrayList<Map<String, Double>>();
+            for (var i = 0; i < this.config.getRuns(); i++) {
+                runs.add(this.runOnce(s3Server, events, root.resolve("run-" + i + ".log")));
+            }
+            return this.report(runs);
+        } finally {
+            if (s3Server != null) {
+                s3Server.stop();
+            }
+            deleteRecursively(root);
+        }
+    }
+
+    private Map<String, Double> runOnce(LocalS3Server s3Server, ObjectLambdaEvents events, Path log)
+            throws Exception {
+        var command = new ArrayList<String>();
+        command.add(this.config.getJava().toString());
+        command.addAll(this.config.getJvmOptions());
+        command.add("-cp");
+        command.add(String.join(File.pathSeparator, this.config.getFunctionJar().toString(),
+                location(LocalContext.class), location(ColdStartProbe.class)));
+        command.add(ColdStartProbe.class.getName());
+        command.add(s3Server.getEndpoint().toString());
+        command.add(Integer.toString(this.config.getMemoryLimitInMB()));
+        command.add(Integer.toString(this.config.getTimeoutSeconds()));
+
+        var event = events.getObject(KEY, Map.of(), Map.of());
+        var eventJson = this.mapper.writeValueAsString(event) + "\n";
+
+        var processStarted = System.nanoTime();
+        var process = new ProcessBuilder(command).redirectError(log.toFile()).start();
+        // A JVM which does not answer is stopped, which ends the reading of its output.
+        var watchdog = CompletableFuture.runAsync(process::destroyForcibly, CompletableFuture.delayedExecutor(
+                this.config.getTimeoutSeconds() * 2L, TimeUnit.SECONDS));
+        try (var output = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                StandardCharsets.UTF_8))) {
+            var ready = awaitReport(output, ColdStartProbe.READY, log);
+            // The event is sent as soon as the Handler is ready, as AWS Lambda does for the invocation of a cold start.
+            var invoked = System.nanoTime();
+            process.getOutputStream().write(eventJson.getBytes(StandardCharsets.UTF_8));
+            process.getOutputStream().flush();
+            var done = awaitReport(output, ColdStartProbe.DONE, log);
+            var doneNanos = System.nanoTime();
+
+            var captured = s3Server.takeResponse(event.outputToken());
+            if (captured.isEmpty()) {
+                throw new IllegalStateException("The function did not call WriteGetObjectResponse:\n"
+                        + Files.readString(log));
+            }
+            var response = captured.get();
+            if (response.getStatusCode() != 200 || response.getBody().length != this.config.getObjectSize()) {
+                throw new IllegalStateException("The function answered " + response.getStatusCode() + " with "
+                        + response.getBody().length + " bytes:\n" + Files.readString(log));
+            }
+
+            var run = new LinkedHashMap<String, Double>();
+            run.put("processStartToReadyMs", toMillis(invoked - processStarted));
+            run.put("jvmStartToReadyMs", ready.get("jvmStartToReadyMs"));
+            run.put("mainToReadyMs", ready.get("mainToReadyMs"));
+            run.put("timeToFirstByteMs", toMillis(response.getFirstByteNanos() - invoked));
+            run.put("invocationMs", toMillis(doneNanos - invoked));
+            run.put("handlerMs", done.get("handlerMs"));
+            run.put("loadedClassesAtReady", ready.get("loadedClasses"));
+            run.put("loadedClassesAfterInvocation", done.get("loadedClasses"));
+            run.put("heapAfterInitMB", ready.get("heapUsedBytes") / 1e6);
+            run.put("nonHeapAfterInitMB", ready.get("nonHeapUsedBytes") / 1e6);
+            run.put("heapAfterInvocationMB", done.get("heapUsedBytes") / 1e6);
+            run.replaceAll((name, value) -> round(value));
+            return run;
+        } finally {
+            watchdog.cancel(false);
+            process.destroyForcibly();
+            process.waitFor();
+        }
+    }
+
+    /**
+     * Reads the output of the forked JVM until the report of the phase, and returns its measurements.
+     */
+    private static Map<String, Double> awaitReport(BufferedReader output, String phase, Path log)
+            throws IOException {
+        var prefix = ColdStartProbe.PREFIX + phase + " ";
+        String line;
+        while ((line = output.readLine()) != null) {
+            if (line.startsWith(prefix)) {
+                var measurements = new HashMap<String, Double>();
+                for (var measurement : line.substring(prefix.length()).split(" ")) {
+                    var separator = measurement.indexOf('=');
+                    measurements.put(measurement.substring(0, separator),
+                            Double.parseDouble(measurement.substring(separator + 1)));
+                }
+                return measurements;
+            }
+        }
+        throw new IllegalStateException("The forked JVM exited before reporting " + phase + ":\n"
+                + Files.readString(log));
+    }
+
+    private Map<String, Object> report(List<Map<String, Double>> runs) throws IOException {
+        var summary = new LinkedHashMap<String, Object>();
+        for (var metric : runs.get(0).keySet()) {
+            summary.put(metric, summarize(runs.stream().mapToDouble(run -> run.get(metric)).toArray()));
+        }
+
+        var report = new LinkedHashMap<String, Object>();
+        report.put("config", this.config.describe());
+        report.put("java", this.config.getJava().toString());
+        report.put("summary", summary);
+        report.put("runs", runs);
+
+        var history = this.config.getHistory();
+        if (history != null) {
+            var entry = new LinkedHashMap<String, Object>();
+            entry.put("timestamp", Instant.now().toString());
+            entry.put("config", this.config.describe());
+            var medians = new LinkedHashMap<String, Double>();
+            summary.forEach((metric, values) -> medians.put(metric, (Double) ((Map<?, ?>) values).get("p50")));
+            entry.put("p50", medians);
+
+            if (Files.exists(history)) {
+                var lines = Files.readAllLines(history).stream().filter(line -> !line.isBlank()).toArray(String[]::new);
+                if (lines.length > 0) {
+                    var previous = this.mapper.readTree(lines[lines.length - 1]);
+                    var changes = new LinkedHashMap<String, Double>();
+                    medians.forEach((metric, median) -> {
+                        var before = previous.path("p50").path(metric);
+                        if (before.isNumber() && before.asDouble() != 0) {
+                            changes.put(metric, round((median - before.asDouble()) / before.asDouble() * 100));
+                        }
+                    });
+                    report.put("previousTimestamp", previous.path("timestamp").asText());
+                    report.put("p50ChangeFromPreviousPercent", changes);
+                }
+            }
+            Files.writeString(history, this.mapper.writeValueAsString(entry) + "\n", StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        }
+        return report;
+    }
+
+    static Map<String, Object> summarize(double[] values) {
+        var sorted = values.clone();
+        Arrays.sort(sorted);
+        var mean = Arrays.stream(sorted).average().orElse(0);
+        var variance = Arrays.stream(sorted).map(value -> (value - mean) * (value - mean)).sum()
+                / Math.max(1, sorted.length - 1);
+        var summary = new LinkedHashMap<String, Object>();
+        summary.put("min", sorted[0]);
+        summary.put("p50", sorted.length % 2 == 1 ? sorted[sorted.length / 2]
+                : round((sorted[sorted.length / 2 - 1] + sorted[sorted.length / 2]) / 2));
+        summary.put("mean", round(mean));
+        summary.put("max", sorted[sorted.length - 1]);
+        summary.put("stddev", round(Math.sqrt(variance)));
+        return summary;
+    }
+
+    private static String location(Class<?> type) throws URISyntaxException {
+        return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (var paths = Files.walk(root)) {
+            for (var path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        ColdStartConfig config;
+        try {
+            config = ColdStartConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: ColdStart [--runs 10] [--function-jar " + ColdStartConfig.DEFAULT_FUNCTION_JAR
+                    + "] [--java path] [--memory-mb 1024] [--timeout-seconds 60] [--object-size 1MiB]"
+                    + " [--jvm-options \"-Xshare:auto ...\"] [--payload JSON] [--output report.json]"
+                    + " [--history cold-starts.jsonl]");
+            System.exit(2);
+            return;
+        }
+
+        var report = new ColdStart(config).run();
+        var json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report);
+        if (config.getOutput() == null) {
+            System.out.println(json);
+        } else {
+            Files.writeString(config.getOutput(), json);
+        }
+    }
+}
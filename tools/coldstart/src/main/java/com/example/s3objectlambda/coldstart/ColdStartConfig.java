@@ -0,0 +1,171 @@
+package com.example.s3objectlambda.coldstart;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The options of a cold start measurement, parsed from the command line.
+ */
+public class ColdStartConfig {
+
+    public static final Path DEFAULT_FUNCTION_JAR =
+            Path.of("function", "java17", "target", "S3ObjectLambdaDefaultConfigJavaFunction-1.0.jar");
+
+    private int runs = 10;
+    private Path functionJar = DEFAULT_FUNCTION_JAR;
+    private Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+    private int memoryLimitInMB = 1024;
+    private int timeoutSeconds = 60;
+    private long objectSize = 1024 * 1024;
+    private List<String> jvmOptions;
+    private String payload;
+    private Path output;
+    private Path history;
+
+    /**
+     * Parses options of the form --name value, see the README for the list.
+     */
+    public static ColdStartConfig parse(String[] args) {
+        var config = new ColdStartConfig();
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Every option takes a value.");
+        }
+        for (var i = 0; i < args.length; i += 2) {
+            var value = args[i + 1];
+            switch (args[i]) {
+                case "--runs":
+                    config.runs = Integer.parseInt(value);
+                    break;
+                case "--function-jar":
+                    config.functionJar = Path.of(value);
+                    break;
+                case "--java":
+                    config.java = Path.of(value);
+                    break;
+                case "--memory-mb":
+                    config.memoryLimitInMB = Integer.parseInt(value);
+                    break;
+                case "--timeout-seconds":
+                    config.timeoutSeconds = Integer.parseInt(value);
+                    break;
+                case "--object-size":
+                    config.objectSize = parseSize(value);
+                    break;
+                case "--jvm-options":
+                    config.jvmOptions = value.isBlank() ? List.of() : Arrays.asList(value.trim().split("\\s+"));
+                    break;
+                case "--payload":
+                    config.payload = value;
+                    break;
+                case "--output":
+                    config.output = Path.of(value);
+                    break;
+                case "--history":
+                    config.history = Path.of(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (config.runs < 1 || config.memoryLimitInMB < 128 || config.timeoutSeconds < 1 || config.objectSize < 0) {
+            throw new IllegalArgumentException("runs and timeout-seconds must be positive, memory-mb at least 128"
+                    + " and object-size not negative.");
+        }
+        return config;
+    }
+
+    /**
+     * Parses sizes such as 512, 4KiB or 1MiB, in bytes.
+     */
+    public static long parseSize(String size) {
+        var normalized = size.trim().toUpperCase(Locale.ROOT);
+        var units = Map.of("KIB", 1L << 10, "MIB", 1L << 20, "GIB", 1L << 30, "B", 1L);
+        for (var unit : new String[] {"KIB", "MIB", "GIB", "B"}) {
+            if (normalized.endsWith(unit)) {
+                return Long.parseLong(normalized.substring(0, normalized.length() - unit.length()).trim())
+                        * units.get(unit);
+            }
+        }
+        return Long.parseLong(normalized);
+    }
+
+    /**
+     * Returns the options of the forked JVMs. Unless they are given, these approximate the options the AWS Lambda
+     * Java runtime starts the JVM with: C1 only, the serial collector, class data sharing, and a heap of most of the
+     * memory of the function.
+     */
+    public List<String> getJvmOptions() {
+        if (this.jvmOptions != null) {
+            return this.jvmOptions;
+        }
+        var options = new ArrayList<String>();
+        options.add("-XX:+TieredCompilation");
+        options.add("-XX:TieredStopAtLevel=1");
+        options.add("-XX:+UseSerialGC");
+        options.add("-Xshare:auto");
+        options.add("-XX:MaxHeapSize=" + this.memoryLimitInMB * 85 / 100 + "m");
+        options.add("-Djava.net.preferIPv4Stack=true");
+        return options;
+    }
+
+    public int getRuns() {
+        return this.runs;
+    }
+
+    public Path getFunctionJar() {
+        return this.functionJar;
+    }
+
+    public Path getJava() {
+        return this.java;
+    }
+
+    public int getMemoryLimitInMB() {
+        return this.memoryLimitInMB;
+    }
+
+    public int getTimeoutSeconds() {
+        return this.timeoutSeconds;
+    }
+
+    public long getObjectSize() {
+        return this.objectSize;
+    }
+
+    public String getPayload() {
+        return this.payload;
+    }
+
+    /**
+     * Returns the file the JSON report is written to, or null to write it to the standard output.
+     */
+    public Path getOutput() {
+        return this.output;
+    }
+
+    /**
+     * Returns the file each measurement appends its summary to as a line of JSON, or null.
+     */
+    public Path getHistory() {
+        return this.history;
+    }
+
+    /**
+     * Describes the measurement in the report, so that reports of different measurements can be compared.
+     */
+    public Map<String, Object> describe() {
+        var description = new LinkedHashMap<String, Object>();
+        description.put("runs", this.runs);
+        description.put("functionJar", this.functionJar.toString());
+        description.put("memoryMB", this.memoryLimitInMB);
+        description.put("objectSize", this.objectSize);
+        description.put("jvmOptions", this.getJvmOptions());
+        description.put("payload", this.payload);
+        return description;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.s3objectlambda.coldstart;
+
+import com.example.s3objectlambda.Handler;
+import com.example.s3objectlambda.emulator.LocalContext;
+import com.example.s3objectlambda.event.ObjectLambdaEvent;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * The main class of the JVM forked by ColdStart for each run. It initializes the Handler as AWS Lambda does for a new
+ * execution environment, reports how long that took, then handles the single event it reads from its standard input.
+ *
+ * Only the classes of the function, LocalContext and this class are on its class path, so that the loaded classes
+ * are those a cold start of the function loads. The measurements are written to the standard output as lines
+ * starting with PREFIX, which the function's own log lines never do.
+ *
+ * Usage: ColdStartProbe endpoint memoryLimitInMB timeoutSeconds
+ */
+public final class ColdStartProbe {
+
+    static final String PREFIX = "coldstart ";
+    static final String READY = "READY";
+    static final String DONE = "DONE";
+
+    private ColdStartProbe() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var mainStartedMillis = System.currentTimeMillis();
+
+        // This is what the default constructor does in AWS Lambda, with the LocalS3Server as the endpoint.
+        var handler = new Handler(AmazonS3ClientBuilder.standard()
+                .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(args[0], "us-east-1"))
+                .withPathStyleAccessEnabled(true)
+                .withCredentials(new AWSStaticCredentialsProvider(
+                        new BasicAWSCredentials("COLDSTARTACCESSKEYID", "cold-start-secret-access-key")))
+                .withClientConfiguration(new ClientConfiguration().withDisableHostPrefixInjection(true))
+                .build());
+
+        var readyMillis = System.currentTimeMillis();
+        var runtime = ManagementFactory.getRuntimeMXBean();
+        report(READY, "jvmStartToReadyMs=" + (readyMillis - runtime.getStartTime())
+                + " mainToReadyMs=" + (readyMillis - mainStartedMillis)
+                + " jvmUptimeAtMainMs=" + (mainStartedMillis - runtime.getStartTime()));
+
+        var input = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        var line = input.readLine();
+        if (line == null) {
+            return;
+        }
+
+        // The AWS Lambda runtime deserializes the event before invoking the handler as well.
+        var event = new ObjectMapper().readValue(line, ObjectLambdaEvent.class);
+        var started = System.nanoTime();
+        handler.handleRequest(event, new LocalContext(Duration.ofSeconds(Long.parseLong(args[2])),
+                Integer.parseInt(args[1])));
+        var handlerNanos = System.nanoTime() - started;
+        report(DONE, "handlerMs=" + handlerNanos / 1e6);
+        // The executor of the Handler would otherwise keep the JVM running.
+        System.exit(0);
+    }
+
+    private static void report(String phase, String measurements) {
+        var memory = ManagementFactory.getMemoryMXBean();
+        System.out.println(PREFIX + phase + " " + measurements
+                + " loadedClasses=" + ManagementFactory.getClassLoadingMXBean().getLoadedClassCount()
+                + " heapUsedBytes=" + memory.getHeapMemoryUsage().getUsed()
+                + " nonHeapUsedBytes=" + memory.getNonHeapMemoryUsage().getUsed());
+        System.out.flush();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.s3objectlambda.coldstart;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ColdStartTest {
+
+    // The shaded jar is built before this module when the tools are built together with the function.
+    private static final Path FUNCTION_JAR = Path.of("..", "..").resolve(ColdStartConfig.DEFAULT_FUNCTION_JAR);
+
+    @Test
+    @DisplayName("The JVM options approximate those of AWS Lambda unless they are given.")
+    void parseOptions() {
+        var config = ColdStartConfig.parse(new String[] {"--memory-mb", "512", "--object-size", "64KiB"});
+        assertTrue(config.getJvmOptions().contains("-XX:TieredStopAtLevel=1"));
+        assertTrue(config.getJvmOptions().contains("-XX:MaxHeapSize=435m"));
+        assertEquals(64 * 1024, config.getObjectSize());
+        assertEquals(List.of("-Xshare:off", "-Xmx256m"),
+                ColdStartConfig.parse(new String[] {"--jvm-options", " -Xshare:off  -Xmx256m"}).getJvmOptions());
+        assertThrows(IllegalArgumentException.class, () -> ColdStartConfig.parse(new String[] {"--runs", "0"}));
+
+        var summary = ColdStart.summarize(new double[] {4, 1, 3, 2});
+        assertEquals(1.0, summary.get("min"));
+        assertEquals(2.5, summary.get("p50"));
+        assertEquals(4.0, summary.get("max"));
+    }
+
+    @Test
+    @DisplayName("Each run forks a JVM which initializes the Handler and answers one GetObject request.")
+    @SuppressWarnings("unchecked")
+    void run(@TempDir Path directory) throws Exception {
+        assumeTrue(Files.isRegularFile(FUNCTION_JAR), "The function is not packaged.");
+        var history = directory.resolve("cold-starts.jsonl");
+        var args = new String[] {"--runs", "2", "--object-size", "64KiB", "--function-jar", FUNCTION_JAR.toString(),
+                "--history", history.toString()};
+
+        var report = new ColdStart(ColdStartConfig.parse(args)).run();
+        var summary = (Map<String, Map<String, Object>>) report.get("summary");
+        assertEquals(2, ((List<?>) report.get("runs")).size());
+        for (var metric : List.of("jvmStartToReadyMs", "timeToFirstByteMs", "loadedClassesAtReady",
+                "heapAfterInitMB")) {
+            assertTrue((double) summary.get(metric).get("min") > 0, metric + ": " + summary.get(metric));
+        }
+        assertTrue((double) summary.get("loadedClassesAfterInvocation").get("min")
+                > (double) summary.get("loadedClassesAtReady").get("max"));
+
+        report = new ColdStart(ColdStartConfig.parse(args)).run();
+        assertEquals(2, Files.readAllLines(history).size());
+        assertTrue(((Map<String, Object>) report.get("p50ChangeFromPreviousPercent")).containsKey("jvmStartToReadyMs"));
+    }
+}
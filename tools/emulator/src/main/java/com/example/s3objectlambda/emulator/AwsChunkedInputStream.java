@@ -0,0 +1,97 @@
+package com.example.s3objectlambda.emulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes a body in the aws-chunked encoding, which clients use to stream signed payloads: each chunk is its size in
+ * hexadecimal, optionally followed by its signature, then its data. The last chunk is empty and may be followed by
+ * trailing headers, such as checksums. Signatures and trailing headers are ignored.
+ * See <a href="https://docs.aws.amazon.com/AmazonS3/latest/API/sigv4-streaming.html">Signature Calculations for the
+ * Authorization Header: Transferring Payload in Multiple Chunks</a>.
+ */
+class AwsChunkedInputStream extends InputStream {
+
+    private final InputStream input;
+    private long remaining;
+    private boolean finished;
+
+    AwsChunkedInputStream(InputStream input) {
+        this.input = input;
+    }
+
+    @Override
+    public int read() throws IOException {
+        var buffer = new byte[1];
+        return this.read(buffer, 0, 1) < 0 ? -1 : buffer[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (this.remaining == 0 && !this.nextChunk()) {
+            return -1;
+        }
+
+        var read = this.input.read(buffer, offset, (int) Math.min(length, this.remaining));
+        if (read < 0) {
+            throw new EOFException("The chunked body ended in the middle of a chunk.");
+        }
+        this.remaining -= read;
+        if (this.remaining == 0) {
+            this.readLine();
+        }
+        return read;
+    }
+
+    /**
+     * Reads the header of the next chunk, returning false once the last chunk is reached.
+     */
+    private boolean nextChunk() throws IOException {
+        if (this.finished) {
+            return false;
+        }
+        var header = this.readLine();
+        var separator = header.indexOf(';');
+        var size = (separator < 0 ? header : header.substring(0, separator)).trim();
+        try {
+            this.remaining = Long.parseLong(size, 16);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid chunk header: " + header);
+        }
+        if (this.remaining == 0) {
+            this.finished = true;
+            return false;
+        }
+        return true;
+    }
+
+    private String readLine() throws IOException {
+        var line = new ByteArrayOutputStream();
+        int next;
+        while ((next = this.input.read()) != '\n') {
+            if (next < 0) {
+                throw new EOFException("The chunked body ended in the middle of a line.");
+            }
+            if (next != '\r') {
+                line.write(next);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Skips the trailing headers, so that the connection can take the next request.
+     */
+    @Override
+    public void close() throws IOException {
+        this.input.transferTo(OutputStream.nullOutputStream());
+        this.input.close();
+    }
+}
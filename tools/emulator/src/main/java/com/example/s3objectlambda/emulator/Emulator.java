@@ -0,0 +1,130 @@
+package com.example.s3objectlambda.emulator;
+
+import com.example.s3objectlambda.Handler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the function locally behind an emulated Object Lambda Access Point, without AWS credentials or network access.
+ *
+ * The access point listens on the loopback interface, and each request it receives invokes the Handler on its own
+ * thread, up to the concurrency, as concurrent invocations of one execution environment would. The original objects
+ * are files served by a LocalS3Server, which also receives the WriteGetObjectResponse requests of the function.
+ *
+ * Usage: Emulator --root DIRECTORY --bucket BUCKET [--port 8080] [--concurrency 64] [--timeout-seconds 60]
+ * [--payload JSON]
+ * The buckets are the directories under the root, and the access point is backed by the bucket given.
+ */
+public class Emulator {
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_CONCURRENCY = 64;
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(60);
+    public static final int DEFAULT_MEMORY_MB = 1024;
+
+    private final LocalS3Server s3Server;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * @param root The directory whose sub directories are the buckets.
+     * @param bucket The bucket of the supporting access point.
+     * @param port The port of the access point, 0 picks a free one.
+     * @param concurrency The number of invocations running at the same time, further requests wait.
+     * @param timeout The timeout of the function, the remaining time of each invocation runs down from it.
+     * @param payload The FunctionPayload of the access point, or null.
+     */
+    public Emulator(Path root, String bucket, int port, int concurrency, Duration timeout, String payload)
+            throws IOException {
+        this.s3Server = new LocalS3Server(new ObjectStore(root), 0);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), concurrency);
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            var thread = new Thread(runnable, "object-lambda-invocation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(this.executor);
+
+        // Connections for the WriteGetObjectResponse requests of all invocations, and for the hedges.
+        var handler = new Handler(this.s3Server.newS3Client(concurrency * 2));
+        var events = new ObjectLambdaEvents(this.s3Server, bucket, this.getEndpoint().toString(), payload);
+        this.server.createContext("/", new ObjectLambdaAccessPoint(handler, events, this.s3Server, timeout,
+                DEFAULT_MEMORY_MB));
+    }
+
+    public void start() {
+        this.s3Server.start();
+        this.server.start();
+    }
+
+    public void stop() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+        this.s3Server.stop();
+    }
+
+    /**
+     * Returns the url of the access point.
+     */
+    public URI getEndpoint() {
+        var address = this.server.getAddress();
+        return URI.create(String.format("http://%s:%s", address.getAddress().getHostAddress(), address.getPort()));
+    }
+
+    public LocalS3Server getS3Server() {
+        return this.s3Server;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path root = null;
+        String bucket = null;
+        String payload = null;
+        var port = DEFAULT_PORT;
+        var concurrency = DEFAULT_CONCURRENCY;
+        var timeout = DEFAULT_TIMEOUT;
+
+        for (var i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--root":
+                    root = Path.of(args[i + 1]);
+                    break;
+                case "--bucket":
+                    bucket = args[i + 1];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--concurrency":
+                    concurrency = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--timeout-seconds":
+                    timeout = Duration.ofSeconds(Long.parseLong(args[i + 1]));
+                    break;
+                case "--payload":
+                    payload = args[i + 1];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (root == null || bucket == null || args.length % 2 != 0) {
+            System.err.println("Usage: Emulator --root DIRECTORY --bucket BUCKET [--port 8080] [--concurrency 64]"
+                    + " [--timeout-seconds 60] [--payload JSON]");
+            System.exit(2);
+        }
+
+        var emulator = new Emulator(root, bucket, port, concurrency, timeout, payload);
+        emulator.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(emulator::stop));
+        System.out.println("Object Lambda Access Point listening on " + emulator.getEndpoint() + ", Amazon S3 on "
+                + emulator.getS3Server().getEndpoint());
+    }
+}
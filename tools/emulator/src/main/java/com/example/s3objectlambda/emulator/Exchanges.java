@@ -0,0 +1,97 @@
+package com.example.s3objectlambda.emulator;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Helpers shared by the endpoints of the emulator.
+ */
+final class Exchanges {
+
+    static final String HEAD = "HEAD";
+
+    private Exchanges() {
+    }
+
+    /**
+     * Parses the query of the request, the first value of each parameter wins.
+     */
+    static Map<String, String> getQuery(HttpExchange exchange) {
+        var parameters = new LinkedHashMap<String, String>();
+        var query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+
+        for (var parameter : query.split("&")) {
+            var separator = parameter.indexOf('=');
+            var name = separator < 0 ? parameter : parameter.substring(0, separator);
+            var value = separator < 0 ? "" : parameter.substring(separator + 1);
+            parameters.putIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    static String formatHttpDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atOffset(ZoneOffset.UTC));
+    }
+
+    static String escapeXml(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\"", "&quot;").replace("'", "&apos;");
+    }
+
+    /**
+     * Sends a body with its Content-Length. HEAD requests get the headers only.
+     */
+    static void send(HttpExchange exchange, int statusCode, byte[] body) throws IOException {
+        var headers = exchange.getResponseHeaders();
+        headers.putIfAbsent("x-amz-request-id", List.of(UUID.randomUUID().toString()));
+        if (HEAD.equals(exchange.getRequestMethod()) || statusCode == 304 || body.length == 0) {
+            // The server only omits the body when it is given no length, and rejects it on 204 and 304 responses.
+            if (!headers.containsKey("Content-Length") && statusCode != 204 && statusCode != 304) {
+                headers.set("Content-Length", Integer.toString(body.length));
+            }
+            sendHeaders(exchange, statusCode);
+            return;
+        }
+        exchange.sendResponseHeaders(statusCode, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    /**
+     * Sends the response headers without a body. The server closes the connection of the exchanges whose request body
+     * was not read to its end, which responses without a body never do: the request body is closed first, so that the
+     * connection can take the next request.
+     */
+    static void sendHeaders(HttpExchange exchange, int statusCode) throws IOException {
+        exchange.getRequestBody().close();
+        exchange.sendResponseHeaders(statusCode, -1);
+        exchange.close();
+    }
+
+    /**
+     * Sends an error document in the format of Amazon S3.
+     */
+    static void sendError(HttpExchange exchange, int statusCode, String code, String message) throws IOException {
+        var requestId = UUID.randomUUID().toString();
+        var body = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Error><Code>" + escapeXml(code) + "</Code><Message>"
+                + escapeXml(message == null ? "" : message) + "</Message><RequestId>" + requestId
+                + "</RequestId></Error>";
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.getResponseHeaders().set("x-amz-request-id", requestId);
+        send(exchange, statusCode, body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.s3objectlambda.emulator;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * The context of one invocation, whose remaining time runs down from the timeout of the function as it does in AWS
+ * Lambda. The timeout is not enforced: the handler is expected to answer before it, as it must in AWS Lambda.
+ */
+public class LocalContext implements Context {
+
+    public static final String FUNCTION_NAME = "s3-object-lambda-emulator";
+
+    private final String awsRequestId = UUID.randomUUID().toString();
+    private final long deadlineNanos;
+    private final int memoryLimitInMB;
+
+    /**
+     * @param timeout The timeout of the function, the invocation starts now.
+     */
+    public LocalContext(Duration timeout, int memoryLimitInMB) {
+        this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+        this.memoryLimitInMB = memoryLimitInMB;
+    }
+
+    @Override
+    public String getAwsRequestId() {
+        return this.awsRequestId;
+    }
+
+    @Override
+    public String getLogGroupName() {
+        return "/aws/lambda/" + FUNCTION_NAME;
+    }
+
+    @Override
+    public String getLogStreamName() {
+        return "local";
+    }
+
+    @Override
+    public String getFunctionName() {
+        return FUNCTION_NAME;
+    }
+
+    @Override
+    public String getFunctionVersion() {
+        return "$LATEST";
+    }
+
+    @Override
+    public String getInvokedFunctionArn() {
+        return "arn:aws:lambda:" + LocalS3Server.REGION + ":" + ObjectLambdaEvents.ACCOUNT_ID + ":function:"
+                + FUNCTION_NAME;
+    }
+
+    @Override
+    public CognitoIdentity getIdentity() {
+        return null;
+    }
+
+    @Override
+    public ClientContext getClientContext() {
+        return null;
+    }
+
+    @Override
+    public int getRemainingTimeInMillis() {
+        return (int) Math.max(0, Duration.ofNanos(this.deadlineNanos - System.nanoTime()).toMillis());
+    }
+
+    @Override
+    public int getMemoryLimitInMB() {
+        return this.memoryLimitInMB;
+    }
+
+    @Override
+    public LambdaLogger getLogger() {
+        return new LambdaLogger() {
+            @Override
+            public void log(String message) {
+                System.out.print(message);
+            }
+
+            @Override
+            public void log(byte[] message) {
+                System.out.print(new String(message, StandardCharsets.UTF_8));
+            }
+        };
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.s3objectlambda.emulator;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * A local stand-in for Amazon S3, listening on the loopback interface. It serves the objects of an ObjectStore to the
+ * presigned urls of the events, and captures the WriteGetObjectResponse requests of the function, which reach it
+ * through the endpoint override of the client returned by newS3Client.
+ */
+public class LocalS3Server {
+
+    public static final String REGION = "us-east-1";
+    private static final String ACCESS_KEY_ID = "EMULATORACCESSKEYID";
+    private static final DateTimeFormatter SCOPE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final WriteGetObjectResponseCapture capture = new WriteGetObjectResponseCapture();
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * @param port The port to listen on, 0 picks a free one.
+     */
+    public LocalS3Server(ObjectStore store, int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext("/", new S3Api(store));
+        this.server.createContext("/WriteGetObjectResponse", this.capture);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "local-s3");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(this.executor);
+    }
+
+    public void start() {
+        this.server.start();
+    }
+
+    public void stop() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    public URI getEndpoint() {
+        var address = this.server.getAddress();
+        return URI.create(String.format("http://%s:%s", address.getAddress().getHostAddress(), address.getPort()));
+    }
+
+    /**
+     * Returns a presigned-style url for the object, or for the bucket if the key is empty. The url carries the
+     * parameters of a Signature Version 4 presigned url signing only the host header, but the signature is not
+     * verified.
+     * @param query Parameters of the request, for example versionId or list-type.
+     */
+    public String presign(String bucket, String key, Map<String, String> query) {
+        return this.presign(bucket, key, query, List.of());
+    }
+
+    /**
+     * Returns a presigned-style url, which also signs the headers given. Callers of a presigned url have to send its
+     * signed headers.
+     * @param signedHeaders The names of the headers, in lower case.
+     */
+    public String presign(String bucket, String key, Map<String, String> query, List<String> signedHeaders) {
+        var path = new StringBuilder("/").append(encode(bucket));
+        if (!key.isEmpty()) {
+            path.append('/').append(encode(key).replace("%2F", "/"));
+        }
+
+        var now = ZonedDateTime.now(ZoneOffset.UTC);
+        var signature = new byte[32];
+        this.random.nextBytes(signature);
+        var parameters = query.entrySet().stream()
+                .map(parameter -> encode(parameter.getKey()) + "=" + encode(parameter.getValue()))
+                .collect(Collectors.toList());
+        parameters.add("X-Amz-Algorithm=AWS4-HMAC-SHA256");
+        parameters.add("X-Amz-Credential=" + encode(String.format("%s/%s/%s/s3/aws4_request", ACCESS_KEY_ID,
+                now.format(SCOPE_DATE), REGION)));
+        parameters.add("X-Amz-Date=" + now.format(AMZ_DATE));
+        parameters.add("X-Amz-Expires=61");
+        var headers = new TreeSet<>(signedHeaders);
+        headers.add("host");
+        parameters.add("X-Amz-SignedHeaders=" + encode(String.join(";", headers)));
+        parameters.add("X-Amz-Signature=" + HexFormat.of().formatHex(signature));
+        return this.getEndpoint() + path.toString() + "?" + String.join("&", parameters);
+    }
+
+    /**
+     * Returns a client sending its requests, WriteGetObjectResponse included, to this server.
+     * @param maxConnections The size of the connection pool, at least the number of concurrent invocations.
+     */
+    public AmazonS3 newS3Client(int maxConnections) {
+        return AmazonS3ClientBuilder.standard()
+                .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(
+                        this.getEndpoint().toString(), REGION))
+                .withPathStyleAccessEnabled(true)
+                .withCredentials(new AWSStaticCredentialsProvider(
+                        new BasicAWSCredentials(ACCESS_KEY_ID, "emulator-secret-access-key")))
+                // WriteGetObjectResponse would otherwise prefix the host with the request route.
+                .withClientConfiguration(new ClientConfiguration()
+                        .withDisableHostPrefixInjection(true)
+                        .withMaxConnections(maxConnections))
+                .build();
+    }
+
+    /**
+     * Removes and returns the WriteGetObjectResponse request sent with the output token.
+     */
+    public Optional<WriteGetObjectResponseCapture.CapturedResponse> takeResponse(String outputToken) {
+        return this.capture.take(outputToken);
+    }
+
+    /**
+     * Returns the number of WriteGetObjectResponse requests received so far.
+     */
+    public long getWriteGetObjectResponseCount() {
+        return this.capture.getRequestCount();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.s3objectlambda.emulator;
+
+import com.example.s3objectlambda.Handler;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stands in for an Object Lambda Access Point: turns each request into an event, invokes the handler on the thread of
+ * the request, and answers with what the function sent to WriteGetObjectResponse or returned.
+ * The path of a request is the key of the object, and a request for the root path is a list request. Like Amazon S3
+ * Object Lambda, the access point rejects requests with server-side encryption with customer-provided keys (SSE-C).
+ */
+class ObjectLambdaAccessPoint implements HttpHandler {
+
+    private static final String SSE_CUSTOMER_ALGORITHM = "x-amz-server-side-encryption-customer-algorithm";
+
+    private final Logger logger;
+    private final Handler handler;
+    private final ObjectLambdaEvents events;
+    private final LocalS3Server s3Server;
+    private final Duration timeout;
+    private final int memoryLimitInMB;
+
+    ObjectLambdaAccessPoint(Handler handler, ObjectLambdaEvents events, LocalS3Server s3Server, Duration timeout,
+                            int memoryLimitInMB) {
+        this.handler = handler;
+        this.events = events;
+        this.s3Server = s3Server;
+        this.timeout = timeout;
+        this.memoryLimitInMB = memoryLimitInMB;
+        this.logger = LoggerFactory.getLogger(ObjectLambdaAccessPoint.class);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        var method = exchange.getRequestMethod();
+        var key = exchange.getRequestURI().getPath().substring(1);
+        var query = Exchanges.getQuery(exchange);
+        var headers = new HashMap<String, String>();
+        exchange.getRequestHeaders().forEach((name, values) -> headers.put(name, values.get(0)));
+
+        try {
+            if (exchange.getRequestHeaders().containsKey(SSE_CUSTOMER_ALGORITHM)) {
+                Exchanges.sendError(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "InvalidRequest",
+                        "Object Lambda Access Points do not support server-side encryption with customer-provided"
+                                + " keys.");
+            } else if ("GET".equals(method) && !key.isEmpty()) {
+                this.getObject(exchange, key, query, headers);
+            } else if (Exchanges.HEAD.equals(method) && !key.isEmpty()) {
+                this.sendReturnValue(exchange, this.handler.handleRequest(
+                        this.events.headObject(key, query, headers), this.newContext()));
+            } else if ("GET".equals(method)) {
+                this.sendReturnValue(exchange, this.handler.handleRequest(
+                        this.events.listObjects(query, headers), this.newContext()));
+            } else {
+                Exchanges.sendError(exchange, HttpURLConnection.HTTP_BAD_METHOD, "MethodNotAllowed",
+                        "The specified method is not allowed against this resource.");
+            }
+        } catch (Exception e) {
+            this.logger.error("Error while invoking the function: " + e);
+            Exchanges.sendError(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, "LambdaRuntimeError",
+                    "The Lambda function failed: " + e);
+        }
+    }
+
+    private void getObject(HttpExchange exchange, String key, Map<String, String> query, Map<String, String> headers)
+            throws Exception {
+        var event = this.events.getObject(key, query, headers);
+        this.handler.handleRequest(event, this.newContext());
+
+        var response = this.s3Server.takeResponse(event.outputToken());
+        if (response.isEmpty()) {
+            Exchanges.sendError(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, "LambdaResponseNotReceived",
+                    "The Lambda function returned without calling WriteGetObjectResponse.");
+            return;
+        }
+
+        var captured = response.get();
+        if (captured.getErrorCode() != null) {
+            Exchanges.sendError(exchange, captured.getStatusCode(), captured.getErrorCode(),
+                    captured.getErrorMessage());
+            return;
+        }
+        captured.getHeaders().forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+        Exchanges.send(exchange, captured.getStatusCode(), captured.getBody());
+    }
+
+    /**
+     * Answers a HeadObject or list request with the return value of the function.
+     */
+    @SuppressWarnings("unchecked")
+    private void sendReturnValue(HttpExchange exchange, Object returnValue) throws IOException {
+        if (!(returnValue instanceof Map)) {
+            Exchanges.sendError(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, "LambdaResponseNotReceived",
+                    "The Lambda function returned no response.");
+            return;
+        }
+
+        var response = (Map<String, Object>) returnValue;
+        var statusCode = (Integer) response.getOrDefault("statusCode", HttpURLConnection.HTTP_OK);
+        if (response.containsKey("errorMessage")) {
+            Exchanges.sendError(exchange, statusCode, (String) response.getOrDefault("errorCode", "Error"),
+                    (String) response.get("errorMessage"));
+            return;
+        }
+
+        var headers = (Map<String, String>) response.getOrDefault("headers", Map.of());
+        headers.forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+        var listResultXml = (String) response.get("listResultXml");
+        if (listResultXml != null) {
+            exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        }
+        Exchanges.send(exchange, statusCode,
+                listResultXml == null ? new byte[0] : listResultXml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private LocalContext newContext() {
+        return new LocalContext(this.timeout, this.memoryLimitInMB);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.s3objectlambda.emulator;
+
+import com.amazonaws.services.lambda.runtime.events.S3ObjectLambdaEvent;
+import com.example.s3objectlambda.event.ObjectLambdaEvent;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the events Amazon S3 Object Lambda sends to the function for requests to an access point, with presigned
+ * urls of the LocalS3Server. The access point is backed by a single bucket.
+ * See <a href="https://docs.aws.amazon.com/AmazonS3/latest/userguide/olap-event-context.html">Event context format
+ * and usage</a>.
+ */
+public class ObjectLambdaEvents {
+
+    public static final String ACCOUNT_ID = "123456789012";
+    public static final String ACCESS_POINT_ARN =
+            "arn:aws:s3-object-lambda:" + LocalS3Server.REGION + ":" + ACCOUNT_ID + ":accesspoint/emulator";
+    public static final String SUPPORTING_ACCESS_POINT_ARN =
+            "arn:aws:s3:" + LocalS3Server.REGION + ":" + ACCOUNT_ID + ":accesspoint/emulator-supporting";
+    private static final String PROTOCOL_VERSION = "1.00";
+    private static final String OUTPUT_ROUTE = "io-emulator";
+    // Headers of the user request which the presigned urls sign, so that the function passes them on.
+    private static final List<String> SIGNED_HEADERS = List.of("x-amz-expected-bucket-owner", "x-amz-request-payer");
+
+    private final LocalS3Server s3Server;
+    private final String bucket;
+    private final String accessPointUrl;
+    private final String payload;
+
+    /**
+     * @param bucket The bucket of the supporting access point.
+     * @param accessPointUrl The url callers of the access point use, without a trailing slash.
+     * @param payload The FunctionPayload of the access point, or null.
+     */
+    public ObjectLambdaEvents(LocalS3Server s3Server, String bucket, String accessPointUrl, String payload) {
+        this.s3Server = s3Server;
+        this.bucket = bucket;
+        this.accessPointUrl = accessPointUrl;
+        this.payload = payload;
+    }
+
+    /**
+     * @param key The key of the object.
+     * @param query The parameters of the request to the access point, for example partNumber or versionId.
+     * @param headers The headers of the request to the access point.
+     */
+    public ObjectLambdaEvent getObject(String key, Map<String, String> query, Map<String, String> headers) {
+        var event = this.newEvent(key, query, headers);
+        event.setGetObjectContext(new S3ObjectLambdaEvent.GetObjectContext(this.presignObject(key, query, headers),
+                OUTPUT_ROUTE, UUID.randomUUID().toString()));
+        return event;
+    }
+
+    public ObjectLambdaEvent headObject(String key, Map<String, String> query, Map<String, String> headers) {
+        var event = this.newEvent(key, query, headers);
+        event.setHeadObjectContext(new ObjectLambdaEvent.BaseObjectContext(this.presignObject(key, query, headers)));
+        return event;
+    }
+
+    /**
+     * @param query The parameters of the list request, list-type=2 making it a ListObjectsV2 request.
+     */
+    public ObjectLambdaEvent listObjects(Map<String, String> query, Map<String, String> headers) {
+        var event = this.newEvent("", query, headers);
+        var context = new ObjectLambdaEvent.BaseObjectContext(this.s3Server.presign(this.bucket, "", query,
+                getSignedHeaders(headers)));
+        if ("2".equals(query.get("list-type"))) {
+            event.setListObjectsV2Context(context);
+        } else {
+            event.setListObjectsContext(context);
+        }
+        return event;
+    }
+
+    private ObjectLambdaEvent newEvent(String key, Map<String, String> query, Map<String, String> headers) {
+        var url = new StringBuilder(this.accessPointUrl).append('/').append(encode(key).replace("%2F", "/"));
+        var separator = '?';
+        for (var parameter : query.entrySet()) {
+            url.append(separator).append(encode(parameter.getKey())).append('=').append(encode(parameter.getValue()));
+            separator = '&';
+        }
+
+        var event = new ObjectLambdaEvent();
+        event.setXAmzRequestId(UUID.randomUUID().toString());
+        event.setProtocolVersion(PROTOCOL_VERSION);
+        event.setConfiguration(new S3ObjectLambdaEvent.Configuration(ACCESS_POINT_ARN, SUPPORTING_ACCESS_POINT_ARN,
+                this.payload));
+        event.setUserRequest(new S3ObjectLambdaEvent.UserRequest(url.toString(), new HashMap<>(headers)));
+        event.setUserIdentity(new S3ObjectLambdaEvent.UserIdentity("IAMUser", "AIDAEMULATOR",
+                "arn:aws:iam::" + ACCOUNT_ID + ":user/emulator", ACCOUNT_ID, "EMULATORACCESSKEYID"));
+        return event;
+    }
+
+    /**
+     * Returns the presigned url of the object, for the version of the request if any. The function maps Range and
+     * partNumber itself, so they are not part of it.
+     */
+    private String presignObject(String key, Map<String, String> query, Map<String, String> headers) {
+        var versionId = query.get("versionId");
+        return this.s3Server.presign(this.bucket, key, versionId == null ? Map.of() : Map.of("versionId", versionId),
+                getSignedHeaders(headers));
+    }
+
+    private static List<String> getSignedHeaders(Map<String, String> headers) {
+        return headers.keySet().stream().map(name -> name.toLowerCase(Locale.ROOT)).filter(SIGNED_HEADERS::contains)
+                .collect(Collectors.toList());
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
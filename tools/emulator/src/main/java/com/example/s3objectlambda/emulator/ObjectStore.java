@@ -0,0 +1,258 @@
+package com.example.s3objectlambda.emulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Objects stored as files: each directory under the root is a bucket, and the path of a file in the bucket directory
+ * is its key.
+ *
+ * Buckets are versioned. Objects replaced or deleted through put and delete are kept as noncurrent versions under the
+ * .versions directory of the root, and objects being uploaded are written to the .uploads directory first, neither
+ * being a bucket.
+ */
+public class ObjectStore {
+
+    private static final String VERSIONS = ".versions";
+    private static final String UPLOADS = ".uploads";
+    private static final Pattern VERSION_ID = Pattern.compile("[0-9a-f]+");
+
+    private final Path root;
+
+    // ETags are the MD5 digests of the files, computed once per version of a file.
+    private final Map<Path, StoredObject> objects = new ConcurrentHashMap<>();
+
+    public ObjectStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    public boolean hasBucket(String bucket) {
+        var bucketPath = this.resolve(bucket, "");
+        return bucketPath.isPresent() && Files.isDirectory(bucketPath.get());
+    }
+
+    public Optional<StoredObject> get(String bucket, String key) throws IOException {
+        var path = this.resolve(bucket, key);
+        if (path.isEmpty() || !Files.isRegularFile(path.get())) {
+            return Optional.empty();
+        }
+        return Optional.of(this.describe(key, path.get()));
+    }
+
+    /**
+     * Returns the version of the object, the current one if the version id is null.
+     */
+    public Optional<StoredObject> get(String bucket, String key, String versionId) throws IOException {
+        if (versionId == null) {
+            return this.get(bucket, key);
+        }
+        var current = this.get(bucket, key);
+        if (current.isPresent() && current.get().getVersionId().equals(versionId)) {
+            return current;
+        }
+
+        var versions = this.resolveVersions(bucket, key);
+        if (versions.isEmpty() || !VERSION_ID.matcher(versionId).matches()
+                || !Files.isRegularFile(versions.get().resolve(versionId))) {
+            return Optional.empty();
+        }
+        return Optional.of(this.describe(key, versions.get().resolve(versionId)));
+    }
+
+    /**
+     * Stores the content as the current version of the object, the previous one becoming noncurrent.
+     * @throws IllegalArgumentException if the bucket does not exist or the key points outside of it.
+     */
+    public StoredObject put(String bucket, String key, InputStream content) throws IOException {
+        var path = this.resolve(bucket, key);
+        var versions = this.resolveVersions(bucket, key);
+        if (!this.hasBucket(bucket) || path.isEmpty() || versions.isEmpty() || key.isEmpty() || key.endsWith("/")) {
+            throw new IllegalArgumentException("Invalid bucket or key: " + bucket + "/" + key);
+        }
+
+        var uploads = Files.createDirectories(this.root.resolve(UPLOADS));
+        var upload = Files.createTempFile(uploads, "upload", null);
+        try {
+            Files.copy(content, upload, StandardCopyOption.REPLACE_EXISTING);
+            this.makeNoncurrent(key, path.get(), versions.get());
+            Files.createDirectories(path.get().getParent());
+            // Readers see either the previous version or the whole new one.
+            Files.move(upload, path.get(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+        return this.describe(key, path.get());
+    }
+
+    /**
+     * Makes the current version of the object noncurrent, as a delete without version id does in a versioned bucket.
+     * Deleting a missing object succeeds.
+     */
+    public void delete(String bucket, String key) throws IOException {
+        var path = this.resolve(bucket, key);
+        var versions = this.resolveVersions(bucket, key);
+        if (path.isPresent() && versions.isPresent()) {
+            this.makeNoncurrent(key, path.get(), versions.get());
+        }
+    }
+
+    private void makeNoncurrent(String key, Path path, Path versions) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return;
+        }
+        var versionId = this.describe(key, path).getVersionId();
+        Files.createDirectories(versions);
+        // Moving the file keeps its last modified time, and so its version id.
+        Files.move(path, versions.resolve(versionId), StandardCopyOption.REPLACE_EXISTING);
+        this.objects.remove(path);
+    }
+
+    /**
+     * Returns the objects of the bucket in the order of their keys.
+     */
+    public List<StoredObject> list(String bucket) throws IOException {
+        var bucketPath = this.resolve(bucket, "");
+        if (bucketPath.isEmpty() || !Files.isDirectory(bucketPath.get())) {
+            return List.of();
+        }
+
+        try (var files = Files.walk(bucketPath.get())) {
+            return files.filter(Files::isRegularFile)
+                    .map(path -> {
+                        var key = bucketPath.get().relativize(path).toString().replace(path.getFileSystem()
+                                .getSeparator(), "/");
+                        try {
+                            return this.describe(key, path);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .sorted((left, right) -> left.getKey().compareTo(right.getKey()))
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns the path of the key, or Optional empty if the key points outside of the bucket.
+     */
+    private Optional<Path> resolve(String bucket, String key) {
+        if (bucket.isEmpty() || bucket.contains("/") || bucket.startsWith(".")) {
+            return Optional.empty();
+        }
+        var bucketPath = this.root.resolve(bucket).normalize();
+        var path = bucketPath.resolve(key).normalize();
+        if (!bucketPath.getParent().equals(this.root) || !path.startsWith(bucketPath)) {
+            return Optional.empty();
+        }
+        return Optional.of(path);
+    }
+
+    /**
+     * Returns the directory of the noncurrent versions of the key, or Optional empty if the key points outside of the
+     * bucket.
+     */
+    private Optional<Path> resolveVersions(String bucket, String key) {
+        if (this.resolve(bucket, key).isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(this.root.resolve(VERSIONS).resolve(bucket).resolve(key).normalize());
+    }
+
+    private StoredObject describe(String key, Path path) throws IOException {
+        var size = Files.size(path);
+        var lastModified = Files.getLastModifiedTime(path).toInstant();
+        var cached = this.objects.get(path);
+        if (cached != null && cached.getSize() == size && cached.getLastModified().equals(lastModified)) {
+            return cached;
+        }
+
+        var eTag = digest(path);
+        var versionId = Long.toHexString(lastModified.getEpochSecond()) + String.format("%08x", lastModified.getNano())
+                + eTag.substring(1, 9);
+        var object = new StoredObject(key, path, size, lastModified, eTag, versionId);
+        this.objects.put(path, object);
+        return object;
+    }
+
+    private static String digest(Path path) throws IOException {
+        MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try (InputStream input = Files.newInputStream(path)) {
+            var buffer = new byte[64 * 1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                md5.update(buffer, 0, read);
+            }
+        }
+        return "\"" + HexFormat.of().formatHex(md5.digest()) + "\"";
+    }
+
+    public static class StoredObject {
+        private final String key;
+        private final Path path;
+        private final long size;
+        private final Instant lastModified;
+        private final String eTag;
+        private final String versionId;
+
+        StoredObject(String key, Path path, long size, Instant lastModified, String eTag, String versionId) {
+            this.key = key;
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.eTag = eTag;
+            this.versionId = versionId;
+        }
+
+        public String getKey() {
+            return this.key;
+        }
+
+        public Path getPath() {
+            return this.path;
+        }
+
+        public long getSize() {
+            return this.size;
+        }
+
+        public Instant getLastModified() {
+            return this.lastModified;
+        }
+
+        /**
+         * Returns the quoted MD5 digest of the object, as Amazon S3 does for objects not uploaded in parts.
+         */
+        public String getETag() {
+            return this.eTag;
+        }
+
+        /**
+         * Returns the id of this version of the object, derived from its last modified time and its content.
+         */
+        public String getVersionId() {
+            return this.versionId;
+        }
+    }
+}
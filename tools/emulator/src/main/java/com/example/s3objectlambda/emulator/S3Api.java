@@ -0,0 +1,387 @@
+package com.example.s3objectlambda.emulator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * The subset of the Amazon S3 API the function calls with the presigned urls of the events: GetObject and HeadObject
+ * with Range, partNumber, versionId and conditional headers, and ListObjects and ListObjectsV2. PutObject and
+ * DeleteObject let clients set up the objects.
+ * Requests are path style (/bucket/key). Signatures are not verified, and the buckets belong to the account of the
+ * access point, which x-amz-expected-bucket-owner is checked against. Server-side encryption headers are accepted but
+ * the objects are stored as is.
+ */
+class S3Api implements HttpHandler {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    private static final int DEFAULT_MAX_KEYS = 1000;
+    private static final String EXPECTED_BUCKET_OWNER = "x-amz-expected-bucket-owner";
+    private static final String SERVER_SIDE_ENCRYPTION = "x-amz-server-side-encryption";
+    // All objects belong to the account of the emulator.
+    private static final String OWNER = "<Owner><ID>" + "0".repeat(64) + "</ID><DisplayName>emulator</DisplayName>"
+            + "</Owner>";
+
+    private final Logger logger;
+    private final ObjectStore store;
+
+    S3Api(ObjectStore store) {
+        this.store = store;
+        this.logger = LoggerFactory.getLogger(S3Api.class);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            var path = exchange.getRequestURI().getPath();
+            var separator = path.indexOf('/', 1);
+            var bucket = separator < 0 ? path.substring(1) : path.substring(1, separator);
+            var key = separator < 0 ? "" : path.substring(separator + 1);
+            var method = exchange.getRequestMethod();
+
+            var expectedBucketOwner = exchange.getRequestHeaders().getFirst(EXPECTED_BUCKET_OWNER);
+
+            if (!"GET".equals(method) && !Exchanges.HEAD.equals(method)
+                    && (key.isEmpty() || !"PUT".equals(method) && !"DELETE".equals(method))) {
+                exchange.getRequestBody().readAllBytes();
+                Exchanges.sendError(exchange, HttpURLConnection.HTTP_BAD_METHOD, "MethodNotAllowed",
+                        "The specified method is not allowed against this resource.");
+            } else if (!this.store.hasBucket(bucket)) {
+                exchange.getRequestBody().readAllBytes();
+                Exchanges.sendError(exchange, HttpURLConnection.HTTP_NOT_FOUND, "NoSuchBucket",
+                        "The specified bucket does not exist");
+            } else if (expectedBucketOwner != null && !expectedBucketOwner.equals(ObjectLambdaEvents.ACCOUNT_ID)) {
+                exchange.getRequestBody().readAllBytes();
+                Exchanges.sendError(exchange, HttpURLConnection.HTTP_FORBIDDEN, "AccessDenied", "Access Denied");
+            } else if (key.isEmpty()) {
+                this.listObjects(exchange, bucket, Exchanges.getQuery(exchange));
+            } else if ("PUT".equals(method)) {
+                this.putObject(exchange, bucket, key);
+            } else if ("DELETE".equals(method)) {
+                this.store.delete(bucket, key);
+                Exchanges.send(exchange, HttpURLConnection.HTTP_NO_CONTENT, new byte[0]);
+            } else {
+                this.getObject(exchange, bucket, key, Exchanges.getQuery(exchange));
+            }
+        } catch (IOException | RuntimeException e) {
+            this.logger.error("Error while serving " + exchange.getRequestURI() + ": " + e);
+            Exchanges.sendError(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, "InternalError", e.toString());
+        }
+    }
+
+    private void putObject(HttpExchange exchange, String bucket, String key) throws IOException {
+        var headers = exchange.getRequestHeaders();
+        var content = exchange.getRequestBody();
+        // Clients signing the payload of plain http requests send it in signed chunks.
+        var contentSha256 = headers.getFirst("x-amz-content-sha256");
+        if (contentSha256 != null && contentSha256.startsWith("STREAMING-")) {
+            content = new AwsChunkedInputStream(content);
+        }
+
+        ObjectStore.StoredObject object;
+        try (var input = content) {
+            object = this.store.put(bucket, key, input);
+        } catch (IllegalArgumentException e) {
+            Exchanges.sendError(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "InvalidArgument", e.getMessage());
+            return;
+        }
+
+        var responseHeaders = exchange.getResponseHeaders();
+        responseHeaders.set("ETag", object.getETag());
+        responseHeaders.set("x-amz-version-id", object.getVersionId());
+        for (var name : new String[] {SERVER_SIDE_ENCRYPTION, SERVER_SIDE_ENCRYPTION + "-customer-algorithm"}) {
+            if (headers.containsKey(name)) {
+                responseHeaders.set(name, headers.getFirst(name));
+            }
+        }
+        Exchanges.send(exchange, HttpURLConnection.HTTP_OK, new byte[0]);
+    }
+
+    private void getObject(HttpExchange exchange, String bucket, String key, Map<String, String> query)
+            throws IOException {
+        var versionId = query.get("versionId");
+        var found = this.store.get(bucket, key, versionId);
+        if (found.isEmpty()) {
+            if (versionId == null) {
+                Exchanges.sendError(exchange, HttpURLConnection.HTTP_NOT_FOUND, "NoSuchKey",
+                        "The specified key does not exist.");
+            } else {
+                Exchanges.sendError(exchange, HttpURLConnection.HTTP_NOT_FOUND, "NoSuchVersion",
+                        "The specified version does not exist.");
+            }
+            return;
+        }
+        var object = found.get();
+
+        var responseHeaders = exchange.getResponseHeaders();
+        responseHeaders.set("ETag", object.getETag());
+        responseHeaders.set("x-amz-version-id", object.getVersionId());
+        responseHeaders.set("Last-Modified", Exchanges.formatHttpDate(object.getLastModified()));
+        responseHeaders.set("Accept-Ranges", "bytes");
+
+        var conditionStatus = this.evaluateConditions(exchange, object);
+        if (conditionStatus == HttpURLConnection.HTTP_PRECON_FAILED) {
+            Exchanges.sendError(exchange, conditionStatus, "PreconditionFailed",
+                    "At least one of the pre-conditions you specified did not hold");
+            return;
+        }
+        if (conditionStatus == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            Exchanges.send(exchange, conditionStatus, new byte[0]);
+            return;
+        }
+
+        var start = 0L;
+        var end = object.getSize() - 1;
+        var statusCode = HttpURLConnection.HTTP_OK;
+        var partNumber = query.get("partNumber");
+        var range = exchange.getRequestHeaders().getFirst("Range");
+        if (partNumber != null) {
+            // Files are single part objects.
+            if (!partNumber.equals("1")) {
+                Exchanges.sendError(exchange, 416, "InvalidPartNumber", "The requested partnumber is not satisfiable");
+                return;
+            }
+            responseHeaders.set("x-amz-mp-parts-count", "1");
+            if (object.getSize() > 0) {
+                statusCode = HttpURLConnection.HTTP_PARTIAL;
+            }
+        } else if (range != null) {
+            var matcher = RANGE.matcher(range.trim());
+            // Like Amazon S3, ranges which cannot be parsed are ignored and the whole object is returned.
+            if (matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                if (matcher.group(1).isEmpty()) {
+                    start = Math.max(0, object.getSize() - Long.parseLong(matcher.group(2)));
+                } else {
+                    start = Long.parseLong(matcher.group(1));
+                    if (!matcher.group(2).isEmpty()) {
+                        end = Math.min(end, Long.parseLong(matcher.group(2)));
+                    }
+                }
+                if (start >= object.getSize() || start > end) {
+                    responseHeaders.set("Content-Range", "bytes */" + object.getSize());
+                    Exchanges.sendError(exchange, 416, "InvalidRange", "The requested range is not satisfiable");
+                    return;
+                }
+                statusCode = HttpURLConnection.HTTP_PARTIAL;
+            }
+        }
+
+        var length = Math.max(0, end - start + 1);
+        if (statusCode == HttpURLConnection.HTTP_PARTIAL) {
+            responseHeaders.set("Content-Range", String.format("bytes %s-%s/%s", start, end, object.getSize()));
+        }
+        responseHeaders.set("Content-Type", "application/octet-stream");
+        responseHeaders.set("Content-Length", Long.toString(length));
+        responseHeaders.set("x-amz-request-id", UUID.randomUUID().toString());
+
+        if (Exchanges.HEAD.equals(exchange.getRequestMethod()) || length == 0) {
+            Exchanges.sendHeaders(exchange, statusCode);
+            return;
+        }
+
+        exchange.sendResponseHeaders(statusCode, length);
+        try (InputStream input = Files.newInputStream(object.getPath());
+             var output = exchange.getResponseBody()) {
+            input.skipNBytes(start);
+            var buffer = new byte[64 * 1024];
+            var remaining = length;
+            while (remaining > 0) {
+                var read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                output.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+        exchange.close();
+    }
+
+    /**
+     * Returns the status code the conditional headers of the request call for, or 200 if the request goes on.
+     */
+    private int evaluateConditions(HttpExchange exchange, ObjectStore.StoredObject object) {
+        var headers = exchange.getRequestHeaders();
+        var ifMatch = headers.getFirst("If-Match");
+        var ifNoneMatch = headers.getFirst("If-None-Match");
+        var ifUnmodifiedSince = parseHttpDate(headers.getFirst("If-Unmodified-Since"));
+        var ifModifiedSince = parseHttpDate(headers.getFirst("If-Modified-Since"));
+        // HTTP dates have a precision of one second.
+        var lastModified = object.getLastModified().getEpochSecond();
+
+        if (ifMatch != null) {
+            if (!matchesETag(ifMatch, object.getETag())) {
+                return HttpURLConnection.HTTP_PRECON_FAILED;
+            }
+        } else if (ifUnmodifiedSince != null && lastModified > ifUnmodifiedSince.getEpochSecond()) {
+            return HttpURLConnection.HTTP_PRECON_FAILED;
+        }
+
+        if (ifNoneMatch != null) {
+            if (matchesETag(ifNoneMatch, object.getETag())) {
+                return HttpURLConnection.HTTP_NOT_MODIFIED;
+            }
+        } else if (ifModifiedSince != null && lastModified <= ifModifiedSince.getEpochSecond()) {
+            return HttpURLConnection.HTTP_NOT_MODIFIED;
+        }
+        return HttpURLConnection.HTTP_OK;
+    }
+
+    private static boolean matchesETag(String condition, String eTag) {
+        for (var candidate : condition.split(",")) {
+            var trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(eTag) || ("\"" + trimmed + "\"").equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Instant parseHttpDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private void listObjects(HttpExchange exchange, String bucket, Map<String, String> query) throws IOException {
+        var v2 = "2".equals(query.get("list-type"));
+        var prefix = query.getOrDefault("prefix", "");
+        var delimiter = query.getOrDefault("delimiter", "");
+        var urlEncoded = "url".equals(query.get("encoding-type"));
+        // ListObjects always lists the owner of the objects, ListObjectsV2 only when asked to.
+        var fetchOwner = !v2 || "true".equals(query.get("fetch-owner"));
+        if (query.containsKey("encoding-type") && !urlEncoded) {
+            Exchanges.sendError(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "InvalidArgument",
+                    "Invalid Encoding Method specified in Request");
+            return;
+        }
+        int maxKeys;
+        try {
+            maxKeys = Math.min(DEFAULT_MAX_KEYS, Integer.parseInt(query.getOrDefault("max-keys",
+                    Integer.toString(DEFAULT_MAX_KEYS))));
+        } catch (NumberFormatException e) {
+            maxKeys = -1;
+        }
+        if (maxKeys < 0) {
+            Exchanges.sendError(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "InvalidArgument",
+                    "Provided max-keys not an integer or within integer range");
+            return;
+        }
+
+        String marker;
+        if (v2 && query.containsKey("continuation-token")) {
+            marker = new String(Base64.getUrlDecoder().decode(query.get("continuation-token")),
+                    StandardCharsets.UTF_8);
+        } else {
+            marker = query.getOrDefault(v2 ? "start-after" : "marker", "");
+        }
+
+        var xml = new StringBuilder();
+        var count = 0;
+        var truncated = false;
+        String last = null;
+        for (var object : this.store.list(bucket)) {
+            var key = object.getKey();
+            if (!key.startsWith(prefix) || key.compareTo(marker) <= 0) {
+                continue;
+            }
+
+            String commonPrefix = null;
+            if (!delimiter.isEmpty()) {
+                var index = key.indexOf(delimiter, prefix.length());
+                if (index >= 0) {
+                    commonPrefix = key.substring(0, index + delimiter.length());
+                }
+            }
+            // The keys of a common prefix returned by a previous page, or by this one, are rolled up.
+            if (commonPrefix != null && (commonPrefix.equals(last) || marker.startsWith(commonPrefix))) {
+                continue;
+            }
+
+            if (count == maxKeys) {
+                // Like Amazon S3, a request for no keys gets an empty page which is not truncated.
+                truncated = maxKeys > 0;
+                break;
+            }
+            count++;
+            if (commonPrefix != null) {
+                xml.append("<CommonPrefixes><Prefix>").append(encode(commonPrefix, urlEncoded))
+                        .append("</Prefix></CommonPrefixes>");
+                last = commonPrefix;
+            } else {
+                xml.append("<Contents><Key>").append(encode(key, urlEncoded)).append("</Key><LastModified>")
+                        .append(DateTimeFormatter.ISO_INSTANT.format(
+                                object.getLastModified().truncatedTo(ChronoUnit.MILLIS)))
+                        .append("</LastModified><ETag>").append(Exchanges.escapeXml(object.getETag()))
+                        .append("</ETag><Size>").append(object.getSize()).append("</Size>")
+                        .append(fetchOwner ? OWNER : "").append("<StorageClass>STANDARD</StorageClass></Contents>");
+                last = key;
+            }
+        }
+
+        var document = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+                .append("<Name>").append(Exchanges.escapeXml(bucket)).append("</Name>")
+                .append("<Prefix>").append(encode(prefix, urlEncoded)).append("</Prefix>");
+        if (v2) {
+            document.append("<KeyCount>").append(count).append("</KeyCount>");
+            if (query.containsKey("continuation-token")) {
+                document.append("<ContinuationToken>").append(Exchanges.escapeXml(query.get("continuation-token")))
+                        .append("</ContinuationToken>");
+            }
+            if (truncated) {
+                document.append("<NextContinuationToken>")
+                        .append(Base64.getUrlEncoder().encodeToString(last.getBytes(StandardCharsets.UTF_8)))
+                        .append("</NextContinuationToken>");
+            }
+            if (query.containsKey("start-after")) {
+                document.append("<StartAfter>").append(encode(query.get("start-after"), urlEncoded))
+                        .append("</StartAfter>");
+            }
+        } else {
+            document.append("<Marker>").append(encode(marker, urlEncoded)).append("</Marker>");
+            if (truncated && !delimiter.isEmpty()) {
+                document.append("<NextMarker>").append(encode(last, urlEncoded)).append("</NextMarker>");
+            }
+        }
+        document.append("<MaxKeys>").append(maxKeys).append("</MaxKeys>");
+        if (!delimiter.isEmpty()) {
+            document.append("<Delimiter>").append(encode(delimiter, urlEncoded)).append("</Delimiter>");
+        }
+        if (urlEncoded) {
+            document.append("<EncodingType>url</EncodingType>");
+        }
+        document.append("<IsTruncated>").append(truncated).append("</IsTruncated>")
+                .append(xml).append("</ListBucketResult>");
+
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        Exchanges.send(exchange, HttpURLConnection.HTTP_OK, document.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(String value, boolean urlEncoded) {
+        return Exchanges.escapeXml(urlEncoded
+                ? URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20").replace("%2F", "/") : value);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.s3objectlambda.emulator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stands in for the WriteGetObjectResponse API: keeps the response each GetObject invocation sends, by the output
+ * token of its event, until the caller of the access point takes it.
+ */
+public class WriteGetObjectResponseCapture implements HttpHandler {
+
+    private static final String FORWARDED_HEADER_PREFIX = "x-amz-fwd-header-";
+    private static final String METADATA_PREFIX = "x-amz-meta-";
+
+    private final Map<String, CapturedResponse> responses = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        var requestHeaders = exchange.getRequestHeaders();
+        var token = requestHeaders.getFirst("x-amz-request-token");
+        if (!"POST".equals(exchange.getRequestMethod()) || token == null
+                || requestHeaders.getFirst("x-amz-request-route") == null) {
+            exchange.getRequestBody().readAllBytes();
+            Exchanges.sendError(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "InvalidRequest",
+                    "WriteGetObjectResponse requires the x-amz-request-route and x-amz-request-token headers.");
+            return;
+        }
+
+        var status = requestHeaders.getFirst("x-amz-fwd-status");
+        var headers = new LinkedHashMap<String, String>();
+        for (var header : requestHeaders.entrySet()) {
+            var name = header.getKey().toLowerCase(Locale.ROOT);
+            if (name.startsWith(FORWARDED_HEADER_PREFIX)) {
+                headers.put(header.getKey().substring(FORWARDED_HEADER_PREFIX.length()), header.getValue().get(0));
+            } else if (name.startsWith(METADATA_PREFIX)) {
+                headers.put(name, header.getValue().get(0));
+            }
+        }
+
+        var input = exchange.getRequestBody();
+        var body = new ByteArrayOutputStream();
+        var first = input.read();
+        var firstByteNanos = System.nanoTime();
+        if (first >= 0) {
+            body.write(first);
+            input.transferTo(body);
+        }
+
+        var response = new CapturedResponse(status == null ? HttpURLConnection.HTTP_OK : Integer.parseInt(status),
+                Collections.unmodifiableMap(headers), requestHeaders.getFirst("x-amz-fwd-error-code"),
+                requestHeaders.getFirst("x-amz-fwd-error-message"), body.toByteArray(), firstByteNanos);
+        // A second response for the same request is an error of the function, as it is for Amazon S3.
+        if (this.responses.putIfAbsent(token, response) != null) {
+            Exchanges.sendError(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "ValidationError",
+                    "A response was already sent for this request token.");
+            return;
+        }
+        this.requests.incrementAndGet();
+        Exchanges.send(exchange, HttpURLConnection.HTTP_OK, new byte[0]);
+    }
+
+    /**
+     * Removes and returns the response sent for the output token.
+     */
+    Optional<CapturedResponse> take(String token) {
+        return Optional.ofNullable(this.responses.remove(token));
+    }
+
+    /**
+     * Returns the number of responses received so far.
+     */
+    long getRequestCount() {
+        return this.requests.get();
+    }
+
+    public static class CapturedResponse {
+        private final int statusCode;
+        private final Map<String, String> headers;
+        private final String errorCode;
+        private final String errorMessage;
+        private final byte[] body;
+        private final long firstByteNanos;
+
+        CapturedResponse(int statusCode, Map<String, String> headers, String errorCode, String errorMessage,
+                         byte[] body, long firstByteNanos) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.errorCode = errorCode;
+            this.errorMessage = errorMessage;
+            this.body = body;
+            this.firstByteNanos = firstByteNanos;
+        }
+
+        public int getStatusCode() {
+            return this.statusCode;
+        }
+
+        /**
+         * Returns the headers of the response to the caller, x-amz-fwd-header- prefixes removed.
+         */
+        public Map<String, String> getHeaders() {
+            return this.headers;
+        }
+
+        public String getErrorCode() {
+            return this.errorCode;
+        }
+
+        public String getErrorMessage() {
+            return this.errorMessage;
+        }
+
+        public byte[] getBody() {
+            return this.body;
+        }
+
+        /**
+         * Returns the System.nanoTime() at which the first byte of the body arrived, or the request itself for an
+         * empty body.
+         */
+        public long getFirstByteNanos() {
+            return this.firstByteNanos;
+        }
+    }
+}
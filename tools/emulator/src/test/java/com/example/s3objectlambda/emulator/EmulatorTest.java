@@ -0,0 +1,140 @@
+package com.example.s3objectlambda.emulator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EmulatorTest {
+
+    private static final String BODY = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    @TempDir
+    Path root;
+
+    private Emulator emulator;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(this.root.resolve("bucket/folder"));
+        Files.writeString(this.root.resolve("bucket/folder/object.txt"), BODY);
+        Files.writeString(this.root.resolve("bucket/other.txt"), "other");
+        this.emulator = new Emulator(this.root, "bucket", 0, 8, Duration.ofSeconds(30), null);
+        this.emulator.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.emulator.stop();
+    }
+
+    @Test
+    @DisplayName("GetObject requests invoke the handler concurrently and are answered with WriteGetObjectResponse.")
+    void getObject() throws Exception {
+        var responses = new ArrayList<CompletableFuture<HttpResponse<String>>>();
+        for (var i = 0; i < 16; i++) {
+            responses.add(this.httpClient.sendAsync(this.request("/folder/object.txt").build(),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        for (var response : responses) {
+            assertEquals(200, response.get().statusCode());
+            assertEquals(BODY, response.get().body());
+        }
+
+        var range = this.httpClient.send(this.request("/folder/object.txt").header("Range", "bytes=10-15").build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, range.statusCode());
+        assertEquals("abcdef", range.body());
+
+        var missing = this.httpClient.send(this.request("/folder/missing.txt").build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, missing.statusCode());
+        assertTrue(missing.body().contains("<Code>NoSuchKey</Code>"));
+        assertEquals(18, this.emulator.getS3Server().getWriteGetObjectResponseCount());
+    }
+
+    @Test
+    @DisplayName("HeadObject and list requests are answered with the return value of the handler, or their error.")
+    void headAndList() throws Exception {
+        var head = this.httpClient.send(this.request("/folder/object.txt")
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding());
+        assertEquals(200, head.statusCode());
+        assertEquals(String.valueOf(BODY.length()), head.headers().firstValue("Content-Length").orElse(null));
+
+        var list = this.httpClient.send(this.request("/?list-type=2&delimiter=%2F").build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        assertEquals(200, list.statusCode());
+        assertTrue(list.body().contains("<Key>other.txt</Key>"), list.body());
+        assertTrue(list.body().contains("<Prefix>folder/</Prefix>"), list.body());
+
+        var empty = this.httpClient.send(this.request("/?list-type=2&max-keys=0").build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        assertEquals(200, empty.statusCode());
+        assertTrue(empty.body().contains("<IsTruncated>false</IsTruncated>"), empty.body());
+        var invalid = this.httpClient.send(this.request("/?encoding-type=base64").build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertEquals(400, invalid.statusCode());
+    }
+
+    @Test
+    @DisplayName("Objects put to Amazon S3 are versioned, and the access point passes the expected bucket owner on.")
+    void putAndVersions() throws Exception {
+        var s3 = this.emulator.getS3Server().getEndpoint() + "/bucket/folder/object.txt";
+        var put = this.httpClient.send(HttpRequest.newBuilder(URI.create(s3))
+                        .PUT(HttpRequest.BodyPublishers.ofString("new body")).build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertEquals(200, put.statusCode());
+        var previousVersion = this.httpClient.send(HttpRequest.newBuilder(URI.create(s3))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding());
+        assertEquals(put.headers().firstValue("x-amz-version-id"),
+                previousVersion.headers().firstValue("x-amz-version-id"));
+
+        // Chunks of signed payloads are decoded.
+        var chunked = this.httpClient.send(HttpRequest.newBuilder(URI.create(s3))
+                        .header("x-amz-content-sha256", "STREAMING-AWS4-HMAC-SHA256-PAYLOAD")
+                        .PUT(HttpRequest.BodyPublishers.ofString("4;chunk-signature=00\r\nlast\r\n"
+                                + "0;chunk-signature=00\r\n\r\n")).build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertEquals(200, chunked.statusCode());
+        assertEquals("last", this.httpClient.send(this.request("/folder/object.txt").build(),
+                HttpResponse.BodyHandlers.ofString()).body());
+        var versionId = previousVersion.headers().firstValue("x-amz-version-id").orElseThrow();
+        assertEquals("new body", this.httpClient.send(this.request("/folder/object.txt?versionId=" + versionId)
+                .build(), HttpResponse.BodyHandlers.ofString()).body());
+
+        var otherOwner = this.httpClient.send(this.request("/folder/object.txt")
+                .header("x-amz-expected-bucket-owner", "111122223333").build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(403, otherOwner.statusCode());
+        assertEquals(200, this.httpClient.send(this.request("/folder/object.txt")
+                .header("x-amz-expected-bucket-owner", ObjectLambdaEvents.ACCOUNT_ID).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode());
+
+        var delete = this.httpClient.send(HttpRequest.newBuilder(URI.create(s3)).DELETE().build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertEquals(204, delete.statusCode());
+        assertEquals(404, this.httpClient.send(this.request("/folder/object.txt").build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode());
+        assertEquals(200, this.httpClient.send(this.request("/folder/object.txt?versionId=" + versionId).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    private HttpRequest.Builder request(String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(this.emulator.getEndpoint() + pathAndQuery));
+    }
+}
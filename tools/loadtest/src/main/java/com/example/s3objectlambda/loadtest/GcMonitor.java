@@ -0,0 +1,122 @@
+package com.example.s3objectlambda.loadtest;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the heap allocated by every thread of the JVM, and the pauses of the garbage collector, while it is
+ * running.
+ *
+ * The allocated bytes are the growth of the heap plus what each collection reclaimed, so that the allocations of the
+ * threads of the HTTP clients and executors of the function are counted as well as those of the worker threads.
+ * Collections of concurrent collectors which do not stop the application are not counted as pauses.
+ */
+public class GcMonitor implements NotificationListener, AutoCloseable {
+
+    private final Set<String> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .map(MemoryPoolMXBean::getName)
+            .collect(Collectors.toSet());
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final List<Long> pausesMillis = new ArrayList<>();
+    private long reclaimedBytes;
+    private long collections;
+    private long startHeapUsed;
+    private long endHeapUsed = -1;
+
+    public synchronized void start() {
+        for (var collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                var emitter = (NotificationEmitter) collector;
+                emitter.addNotificationListener(this, null, null);
+                this.emitters.add(emitter);
+            }
+        }
+        this.startHeapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Override
+    public synchronized void close() {
+        this.endHeapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        for (var emitter : this.emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException e) {
+                // Already removed.
+            }
+        }
+        this.emitters.clear();
+    }
+
+    @Override
+    public synchronized void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())
+                || this.endHeapUsed >= 0) {
+            return;
+        }
+
+        var info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        var gcInfo = info.getGcInfo();
+        this.reclaimedBytes += Math.max(0, this.heapUsed(gcInfo.getMemoryUsageBeforeGc())
+                - this.heapUsed(gcInfo.getMemoryUsageAfterGc()));
+        this.collections++;
+        if (!info.getGcName().contains("Concurrent") && !info.getGcName().contains("Cycles")) {
+            this.pausesMillis.add(gcInfo.getDuration());
+        }
+    }
+
+    public synchronized long getAllocatedBytes() {
+        var endHeapUsed = this.endHeapUsed >= 0 ? this.endHeapUsed
+                : ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        return Math.max(0, endHeapUsed - this.startHeapUsed + this.reclaimedBytes);
+    }
+
+    /**
+     * Summarizes the allocation rate and the pauses for the report.
+     */
+    public synchronized Map<String, Object> summarize(double elapsedSeconds, long requests) {
+        var allocated = this.getAllocatedBytes();
+        var allocation = new LinkedHashMap<String, Object>();
+        allocation.put("allocatedMB", Samples.round(allocated / 1e6));
+        allocation.put("allocationRateMBps", Samples.round(allocated / 1e6 / elapsedSeconds));
+        allocation.put("bytesPerRequest", requests == 0 ? 0 : allocated / requests);
+
+        var pauses = this.pausesMillis.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(pauses);
+        var gc = new LinkedHashMap<String, Object>();
+        gc.put("collections", this.collections);
+        gc.put("pauses", pauses.length);
+        gc.put("pauseTotalMs", Arrays.stream(pauses).sum());
+        gc.put("pauseMaxMs", pauses.length == 0 ? 0 : pauses[pauses.length - 1]);
+        gc.put("pauseP99Ms", pauses.length == 0 ? 0
+                : pauses[Math.max(0, (int) Math.ceil(0.99 * pauses.length) - 1)]);
+
+        var summary = new LinkedHashMap<String, Object>();
+        summary.put("allocation", allocation);
+        summary.put("gc", gc);
+        return summary;
+    }
+
+    private long heapUsed(Map<String, MemoryUsage> usage) {
+        return usage.entrySet().stream()
+                .filter(pool -> this.heapPools.contains(pool.getKey()))
+                .mapToLong(pool -> pool.getValue().getUsed())
+                .sum();
+    }
+}
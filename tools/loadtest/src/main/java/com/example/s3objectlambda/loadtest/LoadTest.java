@@ -0,0 +1,283 @@
+package com.example.s3objectlambda.loadtest;
+
+import com.example.s3objectlambda.Handler;
+import com.example.s3objectlambda.emulator.LocalContext;
+import com.example.s3objectlambda.emulator.LocalS3Server;
+import com.example.s3objectlambda.emulator.ObjectLambdaEvents;
+import com.example.s3objectlambda.emulator.ObjectStore;
+import com.example.s3objectlambda.emulator.WriteGetObjectResponseCapture;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drives GetObject requests through the Handler, and so through GetObjectHandler, at a fixed concurrency against a
+ * LocalS3Server, and reports latency percentiles, throughput, allocation and GC pauses as JSON.
+ *
+ * The objects are random files of the configured sizes. Each worker picks the size and the kind of each request from
+ * the configured weights: whole objects, Range and partNumber requests, and requests the function answers with an
+ * error. After the warmup, which lets the JIT compiler and the caches of the function settle, the requests of the
+ * configured duration are measured.
+ *
+ * Usage: LoadTest [--concurrency 16] [--warmup-seconds 5] [--duration-seconds 30] [--sizes 1KiB:40,1MiB:60]
+ * [--mix full:70,range:15,partNumber:5,notFound:4,preconditionFailed:3,invalid:3] [--objects-per-size 8]
+ * [--max-range-bytes 256KiB] [--seed 1] [--payload JSON] [--output report.json]
+ */
+public class LoadTest {
+
+    public static final String BUCKET = "load-test";
+    private static final String ACCESS_POINT_URL =
+            "https://load-test-111122223333.s3-object-lambda.us-east-1.amazonaws.com";
+    private static final Duration FUNCTION_TIMEOUT = Duration.ofSeconds(60);
+    private static final int MEMORY_LIMIT_MB = 1024;
+    private static final String UNKNOWN_ETAG = "\"00000000000000000000000000000000\"";
+
+    private final LoadTestConfig config;
+    private final WeightedChoice<Long> sizes;
+    private final WeightedChoice<RequestKind> mix;
+
+    public LoadTest(LoadTestConfig config) {
+        this.config = config;
+        this.sizes = config.getSizeChoice();
+        this.mix = config.getMixChoice();
+    }
+
+    /**
+     * Runs the warmup and the measured requests, and returns the report.
+     */
+    public Map<String, Object> run() throws Exception {
+        var root = Files.createTempDirectory("s3-object-lambda-load-test");
+        LocalS3Server s3Server = null;
+        try {
+            this.createObjects(root.resolve(BUCKET));
+            s3Server = new LocalS3Server(new ObjectStore(root), 0);
+            s3Server.start();
+            var handler = new Handler(s3Server.newS3Client(this.config.getConcurrency() * 2));
+            var events = new ObjectLambdaEvents(s3Server, BUCKET, ACCESS_POINT_URL, this.config.getPayload());
+
+            this.runPhase(handler, events, s3Server, this.config.getWarmup(), this.config.getSeed() * 31);
+
+            var gcMonitor = new GcMonitor();
+            gcMonitor.start();
+            var started = System.nanoTime();
+            var workers = this.runPhase(handler, events, s3Server, this.config.getDuration(), this.config.getSeed());
+            var elapsedSeconds = (System.nanoTime() - started) / 1e9;
+            gcMonitor.close();
+
+            return this.report(workers, elapsedSeconds, gcMonitor);
+        } finally {
+            if (s3Server != null) {
+                s3Server.stop();
+            }
+            deleteRecursively(root);
+        }
+    }
+
+    private void createObjects(Path bucket) throws IOException {
+        var random = new Random(this.config.getSeed());
+        for (var size : this.sizes.getValues()) {
+            var directory = Files.createDirectories(bucket.resolve(formatSize(size)));
+            for (var i = 0; i < this.config.getObjectsPerSize(); i++) {
+                var content = new byte[(int) (long) size];
+                random.nextBytes(content);
+                Files.write(directory.resolve("object-" + i), content);
+            }
+        }
+    }
+
+    private List<Worker> runPhase(Handler handler, ObjectLambdaEvents events, LocalS3Server s3Server,
+                                  Duration duration, long seed) throws Exception {
+        if (duration.isZero()) {
+            return List.of();
+        }
+
+        var end = System.nanoTime() + duration.toNanos();
+        var workers = new ArrayList<Worker>();
+        ExecutorService executor = Executors.newFixedThreadPool(this.config.getConcurrency());
+        try {
+            var futures = new ArrayList<Future<Worker>>();
+            for (var i = 0; i < this.config.getConcurrency(); i++) {
+                var worker = new Worker(handler, events, s3Server, new Random(seed + i), end);
+                futures.add(executor.submit((Callable<Worker>) worker));
+            }
+            for (var future : futures) {
+                workers.add(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return workers;
+    }
+
+    private Map<String, Object> report(List<Worker> workers, double elapsedSeconds, GcMonitor gcMonitor) {
+        var overall = new Samples();
+        var byKind = new EnumMap<RequestKind, Samples>(RequestKind.class);
+        var bySize = new TreeMap<Long, Samples>();
+        for (var worker : workers) {
+            overall.merge(worker.overall);
+            worker.byKind.forEach((kind, samples) -> byKind.computeIfAbsent(kind, k -> new Samples()).merge(samples));
+            worker.bySize.forEach((size, samples) -> bySize.computeIfAbsent(size, s -> new Samples()).merge(samples));
+        }
+
+        var runtime = ManagementFactory.getRuntimeMXBean();
+        var jvm = new LinkedHashMap<String, Object>();
+        jvm.put("version", runtime.getVmVersion());
+        jvm.put("vendor", runtime.getVmVendor());
+        jvm.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        jvm.put("maxHeapMB", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        jvm.put("inputArguments", runtime.getInputArguments());
+
+        var report = new LinkedHashMap<String, Object>();
+        report.put("config", this.config.describe());
+        report.put("jvm", jvm);
+        report.put("elapsedSeconds", Samples.round(elapsedSeconds));
+        report.put("overall", overall.summarize(elapsedSeconds));
+        report.putAll(gcMonitor.summarize(elapsedSeconds, overall.getCount()));
+        var kinds = new LinkedHashMap<String, Object>();
+        byKind.forEach((kind, samples) -> kinds.put(kind.name(), samples.summarize(elapsedSeconds)));
+        report.put("byKind", kinds);
+        var objectSizes = new LinkedHashMap<String, Object>();
+        bySize.forEach((size, samples) -> objectSizes.put(formatSize(size), samples.summarize(elapsedSeconds)));
+        report.put("bySize", objectSizes);
+        return report;
+    }
+
+    static String formatSize(long size) {
+        var units = new String[] {"GiB", "MiB", "KiB"};
+        for (var i = 0; i < units.length; i++) {
+            var bytes = 1L << (10 * (units.length - i));
+            if (size >= bytes && size % bytes == 0) {
+                return size / bytes + units[i];
+            }
+        }
+        return size + "B";
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (var paths = Files.walk(root)) {
+            for (var path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Sends requests one after the other until the end of the phase, recording into its own samples.
+     */
+    private class Worker implements Callable<Worker> {
+        private final Handler handler;
+        private final ObjectLambdaEvents events;
+        private final LocalS3Server s3Server;
+        private final Random random;
+        private final long endNanos;
+        private final Samples overall = new Samples();
+        private final Map<RequestKind, Samples> byKind = new EnumMap<>(RequestKind.class);
+        private final Map<Long, Samples> bySize = new HashMap<>();
+
+        Worker(Handler handler, ObjectLambdaEvents events, LocalS3Server s3Server, Random random, long endNanos) {
+            this.handler = handler;
+            this.events = events;
+            this.s3Server = s3Server;
+            this.random = random;
+            this.endNanos = endNanos;
+        }
+
+        @Override
+        public Worker call() {
+            while (System.nanoTime() < this.endNanos && !Thread.currentThread().isInterrupted()) {
+                var kind = LoadTest.this.mix.next(this.random);
+                var size = LoadTest.this.sizes.next(this.random);
+                var key = formatSize(size) + "/object-"
+                        + this.random.nextInt(LoadTest.this.config.getObjectsPerSize());
+                var query = new HashMap<String, String>();
+                var headers = new HashMap<String, String>();
+
+                switch (kind) {
+                    case RANGE:
+                        var start = size == 0 ? 0 : this.random.nextLong(size);
+                        var length = 1 + this.random.nextInt((int) Math.max(1,
+                                Math.min(LoadTest.this.config.getMaxRangeBytes(), size - start)));
+                        headers.put("Range", String.format("bytes=%s-%s", start, start + length - 1));
+                        break;
+                    case PART_NUMBER:
+                        query.put("partNumber", "1");
+                        break;
+                    case NOT_FOUND:
+                        key = "missing/" + key;
+                        break;
+                    case PRECONDITION_FAILED:
+                        headers.put("If-Match", UNKNOWN_ETAG);
+                        break;
+                    case INVALID:
+                        headers.put("Range", "bytes=0-0");
+                        query.put("partNumber", "1");
+                        break;
+                    default:
+                        break;
+                }
+
+                var event = this.events.getObject(key, query, headers);
+                var started = System.nanoTime();
+                int statusCode;
+                long bytes;
+                try {
+                    this.handler.handleRequest(event, new LocalContext(FUNCTION_TIMEOUT, MEMORY_LIMIT_MB));
+                    var response = this.s3Server.takeResponse(event.outputToken());
+                    statusCode = response.map(WriteGetObjectResponseCapture.CapturedResponse::getStatusCode).orElse(-1);
+                    bytes = response.map(r -> (long) r.getBody().length).orElse(0L);
+                } catch (Exception e) {
+                    statusCode = -1;
+                    bytes = 0;
+                }
+                var latency = System.nanoTime() - started;
+
+                var expected = statusCode == kind.getExpectedStatusCode();
+                this.overall.record(latency, bytes, expected);
+                this.byKind.computeIfAbsent(kind, k -> new Samples()).record(latency, bytes, expected);
+                this.bySize.computeIfAbsent(size, s -> new Samples()).record(latency, bytes, expected);
+            }
+            return this;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config;
+        try {
+            config = LoadTestConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: LoadTest [--concurrency 16] [--warmup-seconds 5] [--duration-seconds 30]"
+                    + " [--sizes " + LoadTestConfig.DEFAULT_SIZES + "] [--mix " + LoadTestConfig.DEFAULT_MIX + "]"
+                    + " [--objects-per-size 8] [--max-range-bytes 256KiB] [--seed 1] [--payload JSON]"
+                    + " [--output report.json]");
+            System.exit(2);
+            return;
+        }
+
+        var report = new LoadTest(config).run();
+        var json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report);
+        if (config.getOutput() == null) {
+            System.out.println(json);
+        } else {
+            Files.writeString(config.getOutput(), json);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.s3objectlambda.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The options of a load test run, parsed from the command line.
+ */
+public class LoadTestConfig {
+
+    public static final String DEFAULT_SIZES = "1KiB:40,64KiB:30,1MiB:25,16MiB:5";
+    public static final String DEFAULT_MIX = "full:70,range:15,partNumber:5,notFound:4,preconditionFailed:3,invalid:3";
+    public static final int DEFAULT_MAX_RANGE_BYTES = 256 * 1024;
+
+    private int concurrency = 16;
+    private Duration warmup = Duration.ofSeconds(5);
+    private Duration duration = Duration.ofSeconds(30);
+    private String sizes = DEFAULT_SIZES;
+    private String mix = DEFAULT_MIX;
+    private int objectsPerSize = 8;
+    private int maxRangeBytes = DEFAULT_MAX_RANGE_BYTES;
+    private long seed = 1;
+    private String payload;
+    private Path output;
+
+    /**
+     * Parses options of the form --name value, see the README for the list.
+     */
+    public static LoadTestConfig parse(String[] args) {
+        var config = new LoadTestConfig();
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Every option takes a value.");
+        }
+        for (var i = 0; i < args.length; i += 2) {
+            var value = args[i + 1];
+            switch (args[i]) {
+                case "--concurrency":
+                    config.concurrency = Integer.parseInt(value);
+                    break;
+                case "--warmup-seconds":
+                    config.warmup = Duration.ofMillis((long) (Double.parseDouble(value) * 1000));
+                    break;
+                case "--duration-seconds":
+                    config.duration = Duration.ofMillis((long) (Double.parseDouble(value) * 1000));
+                    break;
+                case "--sizes":
+                    config.sizes = value;
+                    break;
+                case "--mix":
+                    config.mix = value;
+                    break;
+                case "--objects-per-size":
+                    config.objectsPerSize = Integer.parseInt(value);
+                    break;
+                case "--max-range-bytes":
+                    config.maxRangeBytes = (int) parseSize(value);
+                    break;
+                case "--seed":
+                    config.seed = Long.parseLong(value);
+                    break;
+                case "--payload":
+                    config.payload = value;
+                    break;
+                case "--output":
+                    config.output = Path.of(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (config.concurrency < 1 || config.objectsPerSize < 1 || config.maxRangeBytes < 1) {
+            throw new IllegalArgumentException("concurrency, objects-per-size and max-range-bytes must be positive.");
+        }
+        return config;
+    }
+
+    /**
+     * Parses sizes such as 512, 4KiB, 1MiB or 1GiB, in bytes.
+     */
+    public static long parseSize(String size) {
+        var normalized = size.trim().toUpperCase(Locale.ROOT);
+        var units = Map.of("KIB", 1L << 10, "MIB", 1L << 20, "GIB", 1L << 30, "KB", 1000L, "MB", 1000_000L, "B", 1L);
+        for (var unit : new String[] {"KIB", "MIB", "GIB", "KB", "MB", "B"}) {
+            if (normalized.endsWith(unit)) {
+                return Long.parseLong(normalized.substring(0, normalized.length() - unit.length()).trim())
+                        * units.get(unit);
+            }
+        }
+        return Long.parseLong(normalized);
+    }
+
+    public WeightedChoice<Long> getSizeChoice() {
+        return WeightedChoice.parse(this.sizes, LoadTestConfig::parseSize);
+    }
+
+    public WeightedChoice<RequestKind> getMixChoice() {
+        return WeightedChoice.parse(this.mix, RequestKind::parse);
+    }
+
+    public int getConcurrency() {
+        return this.concurrency;
+    }
+
+    public Duration getWarmup() {
+        return this.warmup;
+    }
+
+    public Duration getDuration() {
+        return this.duration;
+    }
+
+    public int getObjectsPerSize() {
+        return this.objectsPerSize;
+    }
+
+    public int getMaxRangeBytes() {
+        return this.maxRangeBytes;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public String getPayload() {
+        return this.payload;
+    }
+
+    /**
+     * Returns the file the JSON report is written to, or null to write it to the standard output.
+     */
+    public Path getOutput() {
+        return this.output;
+    }
+
+    /**
+     * Describes the run in the report, so that reports of different runs can be compared.
+     */
+    public Map<String, Object> describe() {
+        var description = new LinkedHashMap<String, Object>();
+        description.put("concurrency", this.concurrency);
+        description.put("warmupSeconds", this.warmup.toMillis() / 1000.0);
+        description.put("durationSeconds", this.duration.toMillis() / 1000.0);
+        description.put("sizes", this.sizes);
+        description.put("mix", this.mix);
+        description.put("objectsPerSize", this.objectsPerSize);
+        description.put("maxRangeBytes", this.maxRangeBytes);
+        description.put("seed", this.seed);
+        description.put("payload", this.payload);
+        return description;
+    }
+}
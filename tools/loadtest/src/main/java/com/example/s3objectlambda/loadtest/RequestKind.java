@@ -0,0 +1,39 @@
+package com.example.s3objectlambda.loadtest;
+
+import java.util.Locale;
+
+/**
+ * The kinds of GetObject requests of the workload, and the status code the function is expected to answer each with.
+ */
+public enum RequestKind {
+    FULL(200),
+    RANGE(200),
+    PART_NUMBER(200),
+    NOT_FOUND(404),
+    PRECONDITION_FAILED(412),
+    // Both Range and partNumber, rejected by the request validator.
+    INVALID(400);
+
+    private final int expectedStatusCode;
+
+    RequestKind(int expectedStatusCode) {
+        this.expectedStatusCode = expectedStatusCode;
+    }
+
+    public int getExpectedStatusCode() {
+        return this.expectedStatusCode;
+    }
+
+    /**
+     * Parses the names used on the command line, for example partNumber or preconditionFailed.
+     */
+    public static RequestKind parse(String name) {
+        var normalized = name.replace("-", "").replace("_", "").toLowerCase(Locale.ROOT);
+        for (var kind : values()) {
+            if (kind.name().replace("_", "").toLowerCase(Locale.ROOT).equals(normalized)) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Unknown request kind " + name);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.s3objectlambda.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The latencies and response sizes of a set of requests. Each worker thread records into its own samples, which are
+ * merged once the run is over.
+ */
+public class Samples {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long bytes;
+    private long unexpected;
+
+    /**
+     * @param latencyNanos The time from the invocation of the handler to its return.
+     * @param bytes The length of the response body.
+     * @param expected Whether the status code was the one expected for the kind of request.
+     */
+    public void record(long latencyNanos, long bytes, boolean expected) {
+        if (this.count == this.latencies.length) {
+            this.latencies = Arrays.copyOf(this.latencies, this.latencies.length * 2);
+        }
+        this.latencies[this.count++] = latencyNanos;
+        this.bytes += bytes;
+        if (!expected) {
+            this.unexpected++;
+        }
+    }
+
+    public void merge(Samples other) {
+        if (this.count + other.count > this.latencies.length) {
+            this.latencies = Arrays.copyOf(this.latencies, Math.max(this.latencies.length * 2,
+                    this.count + other.count));
+        }
+        System.arraycopy(other.latencies, 0, this.latencies, this.count, other.count);
+        this.count += other.count;
+        this.bytes += other.bytes;
+        this.unexpected += other.unexpected;
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    public long getUnexpected() {
+        return this.unexpected;
+    }
+
+    /**
+     * Returns the latency below which the fraction of the requests fall, in nanoseconds, using the nearest rank.
+     */
+    public long getPercentile(double fraction) {
+        var sorted = Arrays.copyOf(this.latencies, this.count);
+        Arrays.sort(sorted);
+        return percentile(sorted, fraction);
+    }
+
+    /**
+     * Summarizes the samples for the report, latencies in milliseconds and throughput in MB (10^6 bytes) per second.
+     */
+    public Map<String, Object> summarize(double elapsedSeconds) {
+        var sorted = Arrays.copyOf(this.latencies, this.count);
+        Arrays.sort(sorted);
+        var latency = new LinkedHashMap<String, Object>();
+        latency.put("p50", toMillis(percentile(sorted, 0.5)));
+        latency.put("p99", toMillis(percentile(sorted, 0.99)));
+        latency.put("p999", toMillis(percentile(sorted, 0.999)));
+        latency.put("max", toMillis(this.count == 0 ? 0 : sorted[this.count - 1]));
+        latency.put("mean", toMillis(this.count == 0 ? 0 : Arrays.stream(sorted).sum() / this.count));
+
+        var summary = new LinkedHashMap<String, Object>();
+        summary.put("requests", this.count);
+        summary.put("unexpectedResponses", this.unexpected);
+        summary.put("requestsPerSecond", round(this.count / elapsedSeconds));
+        summary.put("throughputMBps", round(this.bytes / 1e6 / elapsedSeconds));
+        summary.put("latencyMs", latency);
+        return summary;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        var rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.min(sorted.length, Math.max(1, rank)) - 1];
+    }
+
+    private static double toMillis(long nanos) {
+        return round(nanos / 1e6);
+    }
+
+    static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
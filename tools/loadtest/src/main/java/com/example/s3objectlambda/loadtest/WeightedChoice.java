@@ -0,0 +1,63 @@
+package com.example.s3objectlambda.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Picks values at random in proportion to their weights, as in "1KiB:60,1MiB:30,16MiB:10".
+ */
+public class WeightedChoice<T> {
+
+    private final List<T> values;
+    private final int[] cumulativeWeights;
+
+    public WeightedChoice(Map<T, Integer> weights) {
+        this.values = new ArrayList<>();
+        this.cumulativeWeights = new int[weights.size()];
+        var total = 0;
+        for (var weight : weights.entrySet()) {
+            if (weight.getValue() <= 0) {
+                throw new IllegalArgumentException("Weights must be positive: " + weight.getKey());
+            }
+            total += weight.getValue();
+            this.cumulativeWeights[this.values.size()] = total;
+            this.values.add(weight.getKey());
+        }
+        if (this.values.isEmpty()) {
+            throw new IllegalArgumentException("At least one value is required.");
+        }
+    }
+
+    /**
+     * Parses a comma separated list of value:weight pairs. A value without a weight has a weight of 1.
+     */
+    public static <T> WeightedChoice<T> parse(String specification, Function<String, T> parser) {
+        var weights = new LinkedHashMap<T, Integer>();
+        for (var entry : specification.split(",")) {
+            var separator = entry.lastIndexOf(':');
+            var value = parser.apply((separator < 0 ? entry : entry.substring(0, separator)).trim());
+            weights.merge(value, separator < 0 ? 1 : Integer.parseInt(entry.substring(separator + 1).trim()),
+                    Integer::sum);
+        }
+        return new WeightedChoice<>(weights);
+    }
+
+    public T next(Random random) {
+        var pick = random.nextInt(this.cumulativeWeights[this.cumulativeWeights.length - 1]);
+        for (var i = 0; i < this.cumulativeWeights.length; i++) {
+            if (pick < this.cumulativeWeights[i]) {
+                return this.values.get(i);
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    public List<T> getValues() {
+        return Collections.unmodifiableList(this.values);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.s3objectlambda.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoadTestTest {
+
+    @Test
+    @DisplayName("Sizes and weights are parsed from the command line.")
+    void parseOptions() {
+        assertEquals(512, LoadTestConfig.parseSize("512"));
+        assertEquals(4096, LoadTestConfig.parseSize("4KiB"));
+        assertEquals(16L << 20, LoadTestConfig.parseSize("16MiB"));
+        assertEquals("16MiB", LoadTest.formatSize(16L << 20));
+        assertEquals("1500B", LoadTest.formatSize(1500));
+
+        var choice = WeightedChoice.parse("full:3,range:1", RequestKind::parse);
+        var random = new Random(1);
+        var full = 0;
+        for (var i = 0; i < 4000; i++) {
+            if (choice.next(random) == RequestKind.FULL) {
+                full++;
+            }
+        }
+        assertTrue(full > 2800 && full < 3200, "full: " + full);
+        assertThrows(IllegalArgumentException.class, () -> RequestKind.parse("unknown"));
+        assertThrows(IllegalArgumentException.class,
+                () -> LoadTestConfig.parse(new String[] {"--concurrency", "0"}));
+    }
+
+    @Test
+    @DisplayName("Every kind of request is answered with the expected status code, and the run is reported.")
+    @SuppressWarnings("unchecked")
+    void run() throws Exception {
+        var config = LoadTestConfig.parse(new String[] {"--concurrency", "4", "--warmup-seconds", "0",
+                "--duration-seconds", "2", "--sizes", "1KiB:1,256KiB:1", "--objects-per-size", "2",
+                "--mix", "full,range,partNumber,notFound,preconditionFailed,invalid"});
+
+        var report = new LoadTest(config).run();
+
+        var overall = (Map<String, Object>) report.get("overall");
+        assertTrue((int) overall.get("requests") > 0);
+        assertEquals(0L, overall.get("unexpectedResponses"), report.toString());
+        assertEquals(RequestKind.values().length, ((Map<String, Object>) report.get("byKind")).size());
+        assertTrue(((Map<String, Object>) report.get("bySize")).containsKey("256KiB"));
+        assertTrue(((Map<String, Object>) overall.get("latencyMs")).containsKey("p999"));
+        assertTrue(report.containsKey("allocation") && report.containsKey("gc"));
+    }
+}
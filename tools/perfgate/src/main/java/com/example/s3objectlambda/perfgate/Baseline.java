@@ -0,0 +1,154 @@
+package com.example.s3objectlambda.perfgate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * The baseline file committed with the repository: the measurements the current results are compared with, and the
+ * tolerances of the comparison. Updating the baseline replaces the measurements and keeps the tolerances.
+ */
+public class Baseline {
+
+    public static final double DEFAULT_CONFIDENCE = 0.95;
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final ObjectNode root;
+    private final double confidence;
+    private final List<Tolerance> tolerances = new ArrayList<>();
+    private final Map<String, Measurement> measurements = new LinkedHashMap<>();
+
+    private Baseline(ObjectNode root) {
+        this.root = root;
+        this.confidence = root.path("confidence").asDouble(DEFAULT_CONFIDENCE);
+        for (var tolerance : root.path("tolerances")) {
+            this.tolerances.add(new Tolerance(tolerance.path("metric").asText("*"),
+                    tolerance.path("relative").asDouble(0), tolerance.path("absolute").asDouble(0)));
+        }
+        if (this.tolerances.isEmpty()) {
+            throw new IllegalArgumentException("The baseline has no tolerances.");
+        }
+        root.path("metrics").fields().forEachRemaining(metric -> this.measurements.put(metric.getKey(),
+                toMeasurement(metric.getKey(), metric.getValue())));
+    }
+
+    public static Baseline load(Path path) throws IOException {
+        var root = MAPPER.readTree(path.toFile());
+        if (!root.isObject()) {
+            throw new IllegalArgumentException(path + " is not a baseline.");
+        }
+        return new Baseline((ObjectNode) root);
+    }
+
+    /**
+     * Writes the baseline with the given measurements, and a description of where they were recorded.
+     */
+    public void save(Path path, Collection<Measurement> measurements, Map<String, Object> recorded)
+            throws IOException {
+        var metrics = new LinkedHashMap<String, Object>();
+        for (var measurement : measurements) {
+            metrics.put(measurement.getName(), measurement.toMap());
+        }
+        this.root.set("recorded", MAPPER.valueToTree(recorded));
+        this.root.set("metrics", MAPPER.valueToTree(metrics));
+        Files.writeString(path, MAPPER.writeValueAsString(this.root) + "\n");
+    }
+
+    /**
+     * Returns the confidence level of the intervals, the same for the baseline and the current results.
+     */
+    public double getConfidence() {
+        return this.confidence;
+    }
+
+    public Map<String, Measurement> getMeasurements() {
+        return this.measurements;
+    }
+
+    public Optional<Measurement> get(String name) {
+        return Optional.ofNullable(this.measurements.get(name));
+    }
+
+    /**
+     * Returns the first tolerance of the file matching the metric, so that specific patterns come before "*".
+     */
+    public Tolerance getTolerance(String metric) {
+        return this.tolerances.stream().filter(tolerance -> tolerance.matches(metric)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No tolerance matches " + metric
+                        + ", add a \"*\" tolerance to the baseline."));
+    }
+
+    private static Measurement toMeasurement(String name, JsonNode metric) {
+        var low = metric.path("low");
+        var high = metric.path("high");
+        return new Measurement(name, metric.path("unit").asText(), metric.path("lowerIsBetter").asBoolean(true),
+                new Estimate(metric.path("mean").asDouble(),
+                        low.isNumber() ? low.asDouble() : Double.NEGATIVE_INFINITY,
+                        high.isNumber() ? high.asDouble() : Double.POSITIVE_INFINITY,
+                        metric.path("samples").asInt(1)));
+    }
+
+    /**
+     * How much worse a metric may get before it is a regression: the larger of a fraction of the baseline and an
+     * absolute amount in the unit of the metric. The absolute amount keeps metrics close to zero, such as the
+     * allocation of a benchmark which allocates nothing, from failing on insignificant changes.
+     */
+    public static class Tolerance {
+        private final String metric;
+        private final Pattern pattern;
+        private final double relative;
+        private final double absolute;
+
+        /**
+         * @param metric The names of the metrics it applies to, where * matches any characters.
+         */
+        public Tolerance(String metric, double relative, double absolute) {
+            this.metric = metric;
+            var regex = new StringBuilder();
+            for (var part : metric.split("\\*", -1)) {
+                if (regex.length() > 0) {
+                    regex.append(".*");
+                }
+                regex.append(Pattern.quote(part));
+            }
+            this.pattern = Pattern.compile(regex.toString());
+            this.relative = relative;
+            this.absolute = absolute;
+        }
+
+        public boolean matches(String name) {
+            return this.pattern.matcher(name).matches();
+        }
+
+        public String getMetric() {
+            return this.metric;
+        }
+
+        public double getRelative() {
+            return this.relative;
+        }
+
+        public double getAbsolute() {
+            return this.absolute;
+        }
+
+        /**
+         * Returns how much the metric may get worse from the baseline value.
+         */
+        public double getAllowance(double baseline) {
+            return Math.max(this.relative * Math.abs(baseline), this.absolute);
+        }
+    }
+}
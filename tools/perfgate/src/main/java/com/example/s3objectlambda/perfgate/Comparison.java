@@ -0,0 +1,141 @@
+package com.example.s3objectlambda.perfgate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The comparison of a metric with its baseline.
+ *
+ * A metric regresses when its mean got worse by more than the tolerance and the confidence intervals of the baseline
+ * and the current results do not overlap. A change beyond the tolerance with overlapping intervals is reported as
+ * noise: more forks or repetitions would be needed to tell whether it is real.
+ */
+public class Comparison {
+
+    public enum Verdict {
+        REGRESSED,
+        NOISE,
+        OK,
+        IMPROVED,
+        /** In the baseline, but not in the current results, for example when only some benchmarks were run. */
+        NOT_MEASURED,
+        /** In the current results, but not in the baseline. */
+        NEW,
+        /** Measured in another unit than the baseline, so that the values cannot be compared. */
+        UNIT_CHANGED
+    }
+
+    private final String metric;
+    private final Measurement baseline;
+    private final Measurement current;
+    private final Baseline.Tolerance tolerance;
+    private final Verdict verdict;
+
+    private Comparison(String metric, Measurement baseline, Measurement current, Baseline.Tolerance tolerance,
+                       Verdict verdict) {
+        this.metric = metric;
+        this.baseline = baseline;
+        this.current = current;
+        this.tolerance = tolerance;
+        this.verdict = verdict;
+    }
+
+    /**
+     * @param baseline The baseline of the metric, or null.
+     * @param current The current measurement of the metric, or null.
+     */
+    public static Comparison of(String metric, Measurement baseline, Measurement current,
+                                Baseline.Tolerance tolerance) {
+        if (current == null) {
+            return new Comparison(metric, baseline, null, tolerance, Verdict.NOT_MEASURED);
+        }
+        if (baseline == null) {
+            return new Comparison(metric, null, current, tolerance, Verdict.NEW);
+        }
+        if (!baseline.getUnit().equals(current.getUnit())) {
+            return new Comparison(metric, baseline, current, tolerance, Verdict.UNIT_CHANGED);
+        }
+
+        // Positive when the metric got worse, whichever its direction.
+        var direction = current.isLowerBetter() ? 1 : -1;
+        var before = baseline.getEstimate();
+        var after = current.getEstimate();
+        var worse = direction * (after.getMean() - before.getMean());
+        var allowance = tolerance.getAllowance(before.getMean());
+        // The intervals contain the means, so separated intervals are on the side the mean moved to.
+        var separated = after.getLow() > before.getHigh() || after.getHigh() < before.getLow();
+
+        Verdict verdict;
+        if (worse > allowance) {
+            verdict = separated ? Verdict.REGRESSED : Verdict.NOISE;
+        } else if (-worse > allowance && separated) {
+            verdict = Verdict.IMPROVED;
+        } else {
+            verdict = Verdict.OK;
+        }
+        return new Comparison(metric, baseline, current, tolerance, verdict);
+    }
+
+    public String getMetric() {
+        return this.metric;
+    }
+
+    public Verdict getVerdict() {
+        return this.verdict;
+    }
+
+    /**
+     * Returns the change of the mean from the baseline in percent, or NaN when there is nothing to compare.
+     */
+    public double getChangePercent() {
+        if (this.baseline == null || this.current == null || this.baseline.getEstimate().getMean() == 0) {
+            return Double.NaN;
+        }
+        var before = this.baseline.getEstimate().getMean();
+        return (this.current.getEstimate().getMean() - before) / Math.abs(before) * 100;
+    }
+
+    public Map<String, Object> toMap() {
+        var map = new LinkedHashMap<String, Object>();
+        map.put("metric", this.metric);
+        map.put("verdict", this.verdict.name());
+        var measurement = this.current != null ? this.current : this.baseline;
+        map.put("unit", measurement.getUnit());
+        map.put("lowerIsBetter", measurement.isLowerBetter());
+        map.put("baseline", this.baseline == null ? null : this.baseline.getEstimate().toMap());
+        map.put("current", this.current == null ? null : this.current.getEstimate().toMap());
+        var change = this.getChangePercent();
+        map.put("changePercent", Double.isNaN(change) ? null : Estimate.round(change));
+        map.put("tolerance", Map.of("metric", this.tolerance.getMetric(),
+                "relativePercent", Estimate.round(this.tolerance.getRelative() * 100),
+                "absolute", this.tolerance.getAbsolute()));
+        return map;
+    }
+
+    /**
+     * Describes the comparison on one line, for the summary of the gate.
+     */
+    public String describe() {
+        var unit = (this.current != null ? this.current : this.baseline).getUnit();
+        var line = new StringBuilder(String.format("%-12s %s", this.verdict, this.metric));
+        if (this.baseline != null) {
+            line.append(String.format(": %s", format(this.baseline.getEstimate(), unit)));
+        }
+        if (this.current != null) {
+            line.append(String.format(this.baseline == null ? ": %s" : " -> %s", format(this.current.getEstimate(),
+                    unit)));
+        }
+        var change = this.getChangePercent();
+        if (!Double.isNaN(change)) {
+            line.append(String.format(" (%+.1f%%, tolerance %.1f%%)", change, this.tolerance.getRelative() * 100));
+        }
+        return line.toString();
+    }
+
+    private static String format(Estimate estimate, String unit) {
+        if (Double.isInfinite(estimate.getLow())) {
+            return String.format("%.4g %s", estimate.getMean(), unit);
+        }
+        return String.format("%.4g [%.4g, %.4g] %s", estimate.getMean(), estimate.getLow(), estimate.getHigh(), unit);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.s3objectlambda.perfgate;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The mean of a metric over independent samples, such as the forks of a benchmark or the repetitions of the load
+ * test, with its two-sided confidence interval from Student's t distribution.
+ *
+ * Iterations of the same fork share the JIT compilation and the memory layout of that JVM, so they are averaged
+ * into a single sample: the interval then reflects the variation from one JVM to the next, which is what separates a
+ * real change from noise.
+ */
+public class Estimate {
+
+    private final double mean;
+    private final double low;
+    private final double high;
+    private final int samples;
+
+    public Estimate(double mean, double low, double high, int samples) {
+        this.mean = mean;
+        this.low = low;
+        this.high = high;
+        this.samples = samples;
+    }
+
+    /**
+     * @param confidence The confidence level of the interval, for example 0.95. A single sample has an unbounded
+     *                   interval.
+     */
+    public static Estimate of(double[] samples, double confidence) {
+        if (samples.length == 0) {
+            throw new IllegalArgumentException("At least one sample is required.");
+        }
+        var mean = Arrays.stream(samples).average().orElseThrow();
+        if (samples.length == 1) {
+            return new Estimate(mean, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 1);
+        }
+        var variance = Arrays.stream(samples).map(sample -> (sample - mean) * (sample - mean)).sum()
+                / (samples.length - 1);
+        var t = new TDistribution(samples.length - 1).inverseCumulativeProbability(0.5 + confidence / 2);
+        var halfWidth = t * Math.sqrt(variance / samples.length);
+        return new Estimate(mean, mean - halfWidth, mean + halfWidth, samples.length);
+    }
+
+    public double getMean() {
+        return this.mean;
+    }
+
+    public double getLow() {
+        return this.low;
+    }
+
+    public double getHigh() {
+        return this.high;
+    }
+
+    public int getSamples() {
+        return this.samples;
+    }
+
+    public Map<String, Object> toMap() {
+        var map = new LinkedHashMap<String, Object>();
+        map.put("mean", round(this.mean));
+        map.put("low", Double.isInfinite(this.low) ? null : round(this.low));
+        map.put("high", Double.isInfinite(this.high) ? null : round(this.high));
+        map.put("samples", this.samples);
+        return map;
+    }
+
+    /**
+     * Rounds to six significant digits, which is more than the precision of any measurement.
+     */
+    static double round(double value) {
+        if (value == 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+            return value;
+        }
+        var scale = Math.pow(10, 5 - (int) Math.floor(Math.log10(Math.abs(value))));
+        return Math.round(value * scale) / scale;
+    }
+}
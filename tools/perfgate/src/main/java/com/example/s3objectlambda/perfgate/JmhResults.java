@@ -0,0 +1,81 @@
+package com.example.s3objectlambda.perfgate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Reads the JSON results of the JMH benchmarks (-rf json) into measurements, one sample per fork: the score of the
+ * benchmark, and the bytes allocated per operation (gc.alloc.rate.norm) when the GC profiler ran.
+ *
+ * The metrics are named after the benchmark and its parameters, for example
+ * RangeBenchmark.mapRange{objectSize=1024,range=bytes=0-1023}:gc.alloc.rate.norm.
+ */
+public final class JmhResults {
+
+    public static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    private static final String PACKAGE = "com.example.s3objectlambda.benchmark.";
+    private static final Set<String> THROUGHPUT_MODES = Set.of("thrpt");
+
+    private JmhResults() {
+    }
+
+    public static List<Measurement> parse(InputStream json, double confidence) throws IOException {
+        var measurements = new ArrayList<Measurement>();
+        for (var result : new ObjectMapper().readTree(json)) {
+            var name = getName(result);
+            var primary = result.path("primaryMetric");
+            measurements.add(new Measurement(name, primary.path("scoreUnit").asText(),
+                    !THROUGHPUT_MODES.contains(result.path("mode").asText()),
+                    Estimate.of(getForkMeans(primary), confidence)));
+
+            var allocation = result.path("secondaryMetrics").path(ALLOCATION_METRIC);
+            if (!allocation.isMissingNode()) {
+                measurements.add(new Measurement(name + ":" + ALLOCATION_METRIC,
+                        allocation.path("scoreUnit").asText(), true,
+                        Estimate.of(getForkMeans(allocation), confidence)));
+            }
+        }
+        return measurements;
+    }
+
+    private static String getName(JsonNode result) {
+        var benchmark = result.path("benchmark").asText();
+        if (benchmark.startsWith(PACKAGE)) {
+            benchmark = benchmark.substring(PACKAGE.length());
+        }
+        var params = result.path("params");
+        if (params.size() == 0) {
+            return benchmark;
+        }
+        var joiner = new StringJoiner(",", "{", "}");
+        params.fields().forEachRemaining(param -> joiner.add(param.getKey() + "=" + param.getValue().asText()));
+        return benchmark + joiner;
+    }
+
+    /**
+     * Returns the mean of the iterations of each fork, rawData holding the iterations of one fork per row.
+     */
+    private static double[] getForkMeans(JsonNode metric) {
+        var forks = new ArrayList<Double>();
+        for (var fork : metric.path("rawData")) {
+            var sum = 0.0;
+            for (var iteration : fork) {
+                sum += iteration.asDouble();
+            }
+            if (fork.size() > 0) {
+                forks.add(sum / fork.size());
+            }
+        }
+        if (forks.isEmpty()) {
+            return new double[] {metric.path("score").asDouble()};
+        }
+        return forks.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.s3objectlambda.perfgate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The estimate of one metric, such as the average time of a benchmark or the p99 latency of the load test.
+ */
+public class Measurement {
+
+    private final String name;
+    private final String unit;
+    private final boolean lowerIsBetter;
+    private final Estimate estimate;
+
+    /**
+     * @param lowerIsBetter Whether an increase is a regression, as for times and allocations, rather than an
+     *                      improvement, as for throughputs.
+     */
+    public Measurement(String name, String unit, boolean lowerIsBetter, Estimate estimate) {
+        this.name = name;
+        this.unit = unit;
+        this.lowerIsBetter = lowerIsBetter;
+        this.estimate = estimate;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getUnit() {
+        return this.unit;
+    }
+
+    public boolean isLowerBetter() {
+        return this.lowerIsBetter;
+    }
+
+    public Estimate getEstimate() {
+        return this.estimate;
+    }
+
+    public Map<String, Object> toMap() {
+        var map = new LinkedHashMap<String, Object>();
+        map.put("unit", this.unit);
+        map.put("lowerIsBetter", this.lowerIsBetter);
+        map.putAll(this.estimate.toMap());
+        return map;
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.s3objectlambda.perfgate;
+
+import com.example.s3objectlambda.loadtest.LoadTest;
+import com.example.s3objectlambda.loadtest.LoadTestConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the JMH benchmarks and the load test, and compares their results with the baseline committed in the
+ * repository. The gate fails when a metric regressed beyond its tolerance with confidence, see Comparison, or when
+ * the load test received unexpected responses.
+ *
+ * The benchmarks run in forked JVMs from the benchmarks jar, each fork giving one sample of each metric. The load
+ * test runs several times, each repetition giving one sample. With --mode update, the results replace the metrics of
+ * the baseline instead, which should be done on the machine the gate runs on.
+ *
+ * Usage: PerfGate [--mode compare|update] [--baseline tools/perfgate/baseline.json] [--suites jmh,loadtest]
+ * [--benchmarks-jar tools/benchmarks/target/benchmarks.jar] [--java path] [--jmh-args "-f 3 -wi 3 -w 1s -i 5 -r 1s"]
+ * [--benchmarks regex] [--load-test-repetitions 3] [--load-test-args "--concurrency 8 --duration-seconds 15"]
+ * [--output report.json]
+ */
+public class PerfGate {
+
+    private static final String LOAD_TEST_PREFIX = "LoadTest.";
+
+    private final PerfGateConfig config;
+
+    public PerfGate(PerfGateConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Runs the suites and returns the report, whose result is PASS, FAIL or UPDATED.
+     */
+    public Map<String, Object> run() throws Exception {
+        var baseline = Baseline.load(this.config.getBaseline());
+        var measurements = new ArrayList<Measurement>();
+        var unexpectedResponses = 0L;
+        if (this.config.runs(PerfGateConfig.JMH)) {
+            measurements.addAll(this.runBenchmarks(baseline.getConfidence()));
+        }
+        if (this.config.runs(PerfGateConfig.LOAD_TEST)) {
+            var reports = new ArrayList<Map<String, Object>>();
+            for (var i = 0; i < this.config.getLoadTestRepetitions(); i++) {
+                System.err.printf("Load test repetition %s of %s%n", i + 1, this.config.getLoadTestRepetitions());
+                reports.add(this.runLoadTest(i + 1));
+            }
+            measurements.addAll(toMeasurements(reports, baseline.getConfidence()));
+            for (var report : reports) {
+                unexpectedResponses += ((Number) get(report, "overall.unexpectedResponses")).longValue();
+            }
+        }
+
+        var report = new LinkedHashMap<String, Object>();
+        report.put("config", this.config.describe());
+        report.put("jvm", ManagementFactory.getRuntimeMXBean().getVmVersion());
+        report.put("confidence", baseline.getConfidence());
+
+        if (this.config.getMode() == PerfGateConfig.Mode.UPDATE) {
+            var recorded = new LinkedHashMap<String, Object>(this.config.describe());
+            recorded.put("timestamp", Instant.now().toString());
+            recorded.put("jvm", ManagementFactory.getRuntimeMXBean().getVmVersion());
+            recorded.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+            baseline.save(this.config.getBaseline(), measurements, recorded);
+            report.put("result", "UPDATED");
+            report.put("metrics", measurements.size());
+            return report;
+        }
+
+        var current = measurements.stream().collect(Collectors.toMap(Measurement::getName, Function.identity()));
+        var names = new TreeSet<String>(current.keySet());
+        names.addAll(baseline.getMeasurements().keySet());
+        var comparisons = new ArrayList<Comparison>();
+        for (var name : names) {
+            comparisons.add(Comparison.of(name, baseline.get(name).orElse(null), current.get(name),
+                    baseline.getTolerance(name)));
+        }
+
+        var regressed = names(comparisons, Comparison.Verdict.REGRESSED);
+        var failed = !regressed.isEmpty() || unexpectedResponses > 0;
+        report.put("result", failed ? "FAIL" : "PASS");
+        report.put("regressed", regressed);
+        report.put("noise", names(comparisons, Comparison.Verdict.NOISE));
+        report.put("improved", names(comparisons, Comparison.Verdict.IMPROVED));
+        report.put("unitChanged", names(comparisons, Comparison.Verdict.UNIT_CHANGED));
+        report.put("new", names(comparisons, Comparison.Verdict.NEW));
+        report.put("notMeasured", names(comparisons, Comparison.Verdict.NOT_MEASURED).size());
+        report.put("unexpectedResponses", unexpectedResponses);
+        report.put("comparisons", comparisons.stream().map(Comparison::toMap).collect(Collectors.toList()));
+
+        for (var comparison : comparisons) {
+            if (comparison.getVerdict() != Comparison.Verdict.NOT_MEASURED) {
+                System.err.println(comparison.describe());
+            }
+        }
+        if (unexpectedResponses > 0) {
+            System.err.println("The load test received " + unexpectedResponses + " unexpected responses.");
+        }
+        System.err.println(failed ? "FAIL: " + String.join(", ", regressed) : "PASS");
+        return report;
+    }
+
+    private List<Measurement> runBenchmarks(double confidence) throws Exception {
+        if (!Files.isRegularFile(this.config.getBenchmarksJar())) {
+            throw new IllegalStateException("The benchmarks jar was not found at "
+                    + this.config.getBenchmarksJar().toAbsolutePath() + ", build the tools first.");
+        }
+        var results = Files.createTempFile("jmh-results", ".json");
+        try {
+            var command = new ArrayList<String>();
+            command.add(this.config.getJava().toString());
+            command.add("-jar");
+            command.add(this.config.getBenchmarksJar().toString());
+            command.addAll(this.config.getJmhArgs());
+            command.addAll(List.of("-rf", "json", "-rff", results.toString()));
+            if (this.config.getBenchmarks() != null) {
+                command.add(this.config.getBenchmarks());
+            }
+
+            // The progress of JMH goes to the standard error, keeping the standard output for the report.
+            var process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            try (var output = process.getInputStream()) {
+                output.transferTo(System.err);
+            }
+            if (process.waitFor() != 0) {
+                throw new IllegalStateException("The benchmarks failed with exit code " + process.exitValue());
+            }
+            try (var json = Files.newInputStream(results)) {
+                return JmhResults.parse(json, confidence);
+            }
+        } finally {
+            Files.deleteIfExists(results);
+        }
+    }
+
+    private Map<String, Object> runLoadTest(int repetition) throws Exception {
+        var args = new ArrayList<>(this.config.getLoadTestArgs());
+        args.addAll(List.of("--seed", Integer.toString(repetition)));
+        return new LoadTest(LoadTestConfig.parse(args.toArray(String[]::new))).run();
+    }
+
+    /**
+     * Turns the reports of the load test repetitions into measurements, one sample per repetition.
+     */
+    static List<Measurement> toMeasurements(List<Map<String, Object>> reports, double confidence) {
+        var metrics = new LinkedHashMap<String, Boolean>();
+        metrics.put("overall.requestsPerSecond", false);
+        metrics.put("overall.throughputMBps", false);
+        metrics.put("overall.latencyMs.p50", true);
+        metrics.put("overall.latencyMs.p99", true);
+        metrics.put("allocation.bytesPerRequest", true);
+        for (var kind : ((Map<?, ?>) reports.get(0).get("byKind")).keySet()) {
+            metrics.put("byKind." + kind + ".latencyMs.p50", true);
+        }
+
+        var measurements = new ArrayList<Measurement>();
+        metrics.forEach((path, lowerIsBetter) -> {
+            var samples = reports.stream().mapToDouble(report -> {
+                var value = get(report, path);
+                return value == null ? Double.NaN : ((Number) value).doubleValue();
+            }).filter(value -> !Double.isNaN(value)).toArray();
+            if (samples.length > 0) {
+                measurements.add(new Measurement(LOAD_TEST_PREFIX + path, unit(path), lowerIsBetter,
+                        Estimate.of(samples, confidence)));
+            }
+        });
+        return measurements;
+    }
+
+    private static String unit(String path) {
+        if (path.contains("latencyMs")) {
+            return "ms";
+        } else if (path.endsWith("requestsPerSecond")) {
+            return "requests/s";
+        } else if (path.endsWith("MBps")) {
+            return "MB/s";
+        }
+        return "B/request";
+    }
+
+    private static Object get(Map<String, Object> report, String path) {
+        Object value = report;
+        for (var key : path.split("\\.")) {
+            if (!(value instanceof Map)) {
+                return null;
+            }
+            value = ((Map<?, ?>) value).get(key);
+        }
+        return value;
+    }
+
+    private static List<String> names(List<Comparison> comparisons, Comparison.Verdict verdict) {
+        return comparisons.stream().filter(comparison -> comparison.getVerdict() == verdict)
+                .map(Comparison::getMetric).collect(Collectors.toList());
+    }
+
+    public static void main(String[] args) throws Exception {
+        PerfGateConfig config;
+        try {
+            config = PerfGateConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: PerfGate [--mode compare|update] [--baseline " + PerfGateConfig.DEFAULT_BASELINE
+                    + "] [--suites jmh,loadtest] [--benchmarks-jar " + PerfGateConfig.DEFAULT_BENCHMARKS_JAR
+                    + "] [--java path] [--jmh-args \"" + PerfGateConfig.DEFAULT_JMH_ARGS + "\"] [--benchmarks regex]"
+                    + " [--load-test-repetitions 3] [--load-test-args \"" + PerfGateConfig.DEFAULT_LOAD_TEST_ARGS
+                    + "\"] [--output report.json]");
+            System.exit(2);
+            return;
+        }
+
+        var report = new PerfGate(config).run();
+        var json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report);
+        if (config.getOutput() == null) {
+            System.out.println(json);
+        } else {
+            Files.writeString(config.getOutput(), json);
+        }
+        System.exit("FAIL".equals(report.get("result")) ? 1 : 0);
+    }
+}
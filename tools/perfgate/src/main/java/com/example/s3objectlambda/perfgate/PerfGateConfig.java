@@ -0,0 +1,163 @@
+package com.example.s3objectlambda.perfgate;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The options of a run of the performance gate, parsed from the command line. Paths are relative to the root of the
+ * repository, where the gate is run from.
+ */
+public class PerfGateConfig {
+
+    public static final Path DEFAULT_BASELINE = Path.of("tools", "perfgate", "baseline.json");
+    public static final Path DEFAULT_BENCHMARKS_JAR = Path.of("tools", "benchmarks", "target", "benchmarks.jar");
+    public static final String DEFAULT_JMH_ARGS = "-f 3 -wi 3 -w 1s -i 5 -r 1s";
+    public static final String DEFAULT_LOAD_TEST_ARGS = "--concurrency 8 --warmup-seconds 5 --duration-seconds 15";
+    public static final String JMH = "jmh";
+    public static final String LOAD_TEST = "loadtest";
+
+    /**
+     * Whether the gate compares the results with the baseline, or replaces the baseline with them.
+     */
+    public enum Mode {
+        COMPARE,
+        UPDATE
+    }
+
+    private Mode mode = Mode.COMPARE;
+    private Path baseline = DEFAULT_BASELINE;
+    private Set<String> suites = Set.of(JMH, LOAD_TEST);
+    private Path benchmarksJar = DEFAULT_BENCHMARKS_JAR;
+    private Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+    private List<String> jmhArgs = split(DEFAULT_JMH_ARGS);
+    private String benchmarks;
+    private int loadTestRepetitions = 3;
+    private List<String> loadTestArgs = split(DEFAULT_LOAD_TEST_ARGS);
+    private Path output;
+
+    /**
+     * Parses options of the form --name value, see the README for the list.
+     */
+    public static PerfGateConfig parse(String[] args) {
+        var config = new PerfGateConfig();
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Every option takes a value.");
+        }
+        for (var i = 0; i < args.length; i += 2) {
+            var value = args[i + 1];
+            switch (args[i]) {
+                case "--mode":
+                    config.mode = Mode.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "--baseline":
+                    config.baseline = Path.of(value);
+                    break;
+                case "--suites":
+                    config.suites = Set.copyOf(Arrays.asList(value.split(",")));
+                    break;
+                case "--benchmarks-jar":
+                    config.benchmarksJar = Path.of(value);
+                    break;
+                case "--java":
+                    config.java = Path.of(value);
+                    break;
+                case "--jmh-args":
+                    config.jmhArgs = split(value);
+                    break;
+                case "--benchmarks":
+                    config.benchmarks = value;
+                    break;
+                case "--load-test-repetitions":
+                    config.loadTestRepetitions = Integer.parseInt(value);
+                    break;
+                case "--load-test-args":
+                    config.loadTestArgs = split(value);
+                    break;
+                case "--output":
+                    config.output = Path.of(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (config.suites.isEmpty() || !Set.of(JMH, LOAD_TEST).containsAll(config.suites)) {
+            throw new IllegalArgumentException("suites must be jmh, loadtest or both.");
+        }
+        if (config.loadTestRepetitions < 1) {
+            throw new IllegalArgumentException("load-test-repetitions must be positive.");
+        }
+        return config;
+    }
+
+    private static List<String> split(String value) {
+        return value.isBlank() ? List.of() : Arrays.asList(value.trim().split("\\s+"));
+    }
+
+    public Mode getMode() {
+        return this.mode;
+    }
+
+    public Path getBaseline() {
+        return this.baseline;
+    }
+
+    public boolean runs(String suite) {
+        return this.suites.contains(suite);
+    }
+
+    public Path getBenchmarksJar() {
+        return this.benchmarksJar;
+    }
+
+    public Path getJava() {
+        return this.java;
+    }
+
+    /**
+     * Returns the arguments of the JMH command line, which should run at least two forks so that the benchmarks
+     * have confidence intervals.
+     */
+    public List<String> getJmhArgs() {
+        return this.jmhArgs;
+    }
+
+    /**
+     * Returns the regular expression of the benchmarks to run, or null to run all of them.
+     */
+    public String getBenchmarks() {
+        return this.benchmarks;
+    }
+
+    public int getLoadTestRepetitions() {
+        return this.loadTestRepetitions;
+    }
+
+    public List<String> getLoadTestArgs() {
+        return this.loadTestArgs;
+    }
+
+    /**
+     * Returns the file the JSON report is written to, or null to write it to the standard output.
+     */
+    public Path getOutput() {
+        return this.output;
+    }
+
+    /**
+     * Describes how the results were measured, in the report and in the baseline.
+     */
+    public Map<String, Object> describe() {
+        var description = new LinkedHashMap<String, Object>();
+        description.put("suites", this.suites.stream().sorted().toArray());
+        description.put("jmhArgs", String.join(" ", this.jmhArgs));
+        description.put("benchmarks", this.benchmarks);
+        description.put("loadTestRepetitions", this.loadTestRepetitions);
+        description.put("loadTestArgs", String.join(" ", this.loadTestArgs));
+        return description;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.s3objectlambda.perfgate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PerfGateTest {
+
+    private static final Baseline.Tolerance TEN_PERCENT = new Baseline.Tolerance("*", 0.10, 0);
+
+    @Test
+    @DisplayName("The confidence interval of the mean follows Student's t distribution.")
+    void estimate() {
+        var estimate = Estimate.of(new double[] {10, 12, 11}, 0.95);
+        assertEquals(11, estimate.getMean(), 1e-9);
+        assertEquals(8.516, estimate.getLow(), 1e-3);
+        assertEquals(13.484, estimate.getHigh(), 1e-3);
+        assertTrue(Double.isInfinite(Estimate.of(new double[] {10}, 0.95).getHigh()));
+    }
+
+    @Test
+    @DisplayName("Only changes beyond the tolerance with separate confidence intervals are regressions.")
+    void compare() {
+        var baseline = measurement("ns/op", true, 100, 98, 102);
+        assertEquals(Comparison.Verdict.REGRESSED, Comparison.of("m", baseline,
+                measurement("ns/op", true, 120, 118, 122), TEN_PERCENT).getVerdict());
+        assertEquals(Comparison.Verdict.NOISE, Comparison.of("m", baseline,
+                measurement("ns/op", true, 120, 90, 150), TEN_PERCENT).getVerdict());
+        assertEquals(Comparison.Verdict.OK, Comparison.of("m", baseline,
+                measurement("ns/op", true, 105, 104, 106), TEN_PERCENT).getVerdict());
+        assertEquals(Comparison.Verdict.IMPROVED, Comparison.of("m", baseline,
+                measurement("ns/op", true, 80, 78, 82), TEN_PERCENT).getVerdict());
+        assertEquals(Comparison.Verdict.UNIT_CHANGED, Comparison.of("m", baseline,
+                measurement("us/op", true, 0.1, 0.09, 0.11), TEN_PERCENT).getVerdict());
+        assertEquals(Comparison.Verdict.NOT_MEASURED, Comparison.of("m", baseline, null, TEN_PERCENT).getVerdict());
+
+        // A lower throughput is a regression.
+        assertEquals(Comparison.Verdict.REGRESSED, Comparison.of("m", measurement("requests/s", false, 100, 98, 102),
+                measurement("requests/s", false, 80, 78, 82), TEN_PERCENT).getVerdict());
+
+        // Allocations close to zero only regress beyond the absolute tolerance.
+        var allocation = new Baseline.Tolerance("*:gc.alloc.rate.norm", 0.05, 64);
+        assertEquals(Comparison.Verdict.OK, Comparison.of("m", measurement("B/op", true, 0.01, 0.0, 0.02),
+                measurement("B/op", true, 24, 24, 24), allocation).getVerdict());
+        assertEquals(Comparison.Verdict.REGRESSED, Comparison.of("m", measurement("B/op", true, 0.01, 0.0, 0.02),
+                measurement("B/op", true, 96, 96, 96), allocation).getVerdict());
+    }
+
+    @Test
+    @DisplayName("Each fork of a benchmark is one sample, and the allocation per operation is a metric of its own.")
+    void parseJmhResults() throws Exception {
+        var json = "[{\"benchmark\": \"com.example.s3objectlambda.benchmark.RangeBenchmark.mapRange\","
+                + " \"mode\": \"avgt\", \"params\": {\"objectSize\": \"1024\", \"range\": \"bytes=0-1023\"},"
+                + " \"primaryMetric\": {\"score\": 2.0, \"scoreUnit\": \"ns/op\","
+                + " \"rawData\": [[1.0, 1.0], [3.0, 3.0]]},"
+                + " \"secondaryMetrics\": {\"gc.alloc.rate.norm\": {\"score\": 48.0, \"scoreUnit\": \"B/op\","
+                + " \"rawData\": [[48.0, 48.0], [48.0, 48.0]]}}}]";
+
+        var measurements = JmhResults.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 0.95);
+
+        assertEquals(2, measurements.size());
+        var time = measurements.get(0);
+        assertEquals("RangeBenchmark.mapRange{objectSize=1024,range=bytes=0-1023}", time.getName());
+        assertEquals("ns/op", time.getUnit());
+        assertTrue(time.isLowerBetter());
+        assertEquals(2, time.getEstimate().getSamples());
+        assertEquals(2.0, time.getEstimate().getMean(), 1e-9);
+        assertEquals("RangeBenchmark.mapRange{objectSize=1024,range=bytes=0-1023}:gc.alloc.rate.norm",
+                measurements.get(1).getName());
+    }
+
+    @Test
+    @DisplayName("Each load test repetition is one sample.")
+    void loadTestMeasurements() {
+        var reports = List.of(loadTestReport(1000, 2.0), loadTestReport(1100, 2.2), loadTestReport(1050, 2.1));
+
+        var measurements = PerfGate.toMeasurements(reports, 0.95);
+
+        var requestsPerSecond = measurements.stream()
+                .filter(measurement -> measurement.getName().equals("LoadTest.overall.requestsPerSecond"))
+                .findFirst().orElseThrow();
+        assertEquals(1050, requestsPerSecond.getEstimate().getMean(), 1e-9);
+        assertEquals(3, requestsPerSecond.getEstimate().getSamples());
+        assertTrue(!requestsPerSecond.isLowerBetter());
+        assertTrue(measurements.stream().anyMatch(measurement ->
+                measurement.getName().equals("LoadTest.byKind.FULL.latencyMs.p50") && measurement.isLowerBetter()));
+    }
+
+    @Test
+    @DisplayName("Updating the baseline keeps its tolerances, the first matching tolerance applies.")
+    void baseline(@TempDir Path directory) throws Exception {
+        var path = directory.resolve("baseline.json");
+        Files.writeString(path, "{\"confidence\": 0.99, \"tolerances\": ["
+                + "{\"metric\": \"*:gc.alloc.rate.norm\", \"relative\": 0.05, \"absolute\": 64},"
+                + "{\"metric\": \"*\", \"relative\": 0.1}]}");
+
+        Baseline.load(path).save(path, List.of(measurement("ns/op", true, 100, 98, 102)), Map.of("jvm", "17"));
+        var baseline = Baseline.load(path);
+
+        assertEquals(0.99, baseline.getConfidence());
+        assertEquals(100, baseline.get("m").orElseThrow().getEstimate().getMean());
+        assertEquals(64, baseline.getTolerance("RangeBenchmark.mapRange{objectSize=1024}:gc.alloc.rate.norm")
+                .getAbsolute());
+        assertEquals(0.1, baseline.getTolerance("RangeBenchmark.mapRange{objectSize=1024}").getRelative());
+    }
+
+    private static Measurement measurement(String unit, boolean lowerIsBetter, double mean, double low, double high) {
+        return new Measurement("m", unit, lowerIsBetter, new Estimate(mean, low, high, 3));
+    }
+
+    private static Map<String, Object> loadTestReport(double requestsPerSecond, double p50) {
+        return Map.of(
+                "overall", Map.of("requestsPerSecond", requestsPerSecond, "throughputMBps", 10.0,
+                        "unexpectedResponses", 0L, "latencyMs", Map.of("p50", p50, "p99", p50 * 4)),
+                "allocation", Map.of("bytesPerRequest", 50_000L),
+                "byKind", Map.of("FULL", Map.of("latencyMs", Map.of("p50", p50))));
+    }
+}